@@ -25,7 +25,10 @@ import io.etcd.jetcd.ByteSequence;
 import io.etcd.jetcd.Client;
 import io.etcd.jetcd.KV;
 import io.etcd.jetcd.KeyValue;
+import io.etcd.jetcd.Response;
+import io.etcd.jetcd.kv.DeleteResponse;
 import io.etcd.jetcd.kv.GetResponse;
+import io.etcd.jetcd.kv.PutResponse;
 import io.etcd.jetcd.options.GetOption;
 
 /**
@@ -37,6 +40,7 @@ import io.etcd.jetcd.options.GetOption;
 public class Etcd3ConfigurationPropertyStore implements IConfigurationPropertyStore {
     private final Client client;
     private final KV kvClient;
+    private final Etcd3CpsNamespaceCache cache;
 
     /**
      * This constructor create a priate KVClient from JETCD for store interactions.
@@ -44,18 +48,37 @@ public class Etcd3ConfigurationPropertyStore implements IConfigurationPropertySt
      * @param cpsUri - location of the etcd
      */
     public Etcd3ConfigurationPropertyStore(URI cpsUri) {
-        client = Client.builder().endpoints(cpsUri).build();
-        kvClient = client.getKVClient();
+        this(Client.builder().endpoints(cpsUri).build());
+    }
+
+    public Etcd3ConfigurationPropertyStore(Client client) {
+        this.client = client;
+        this.kvClient = client.getKVClient();
+        this.cache = new Etcd3CpsNamespaceCache(kvClient, client.getWatchClient());
     }
 
     /**
      * This is the only method for CPS as managers should only need to get
      * properties from the CPS and not set or watch any.
      * 
+     * The framework asks for several variants of each property, so the whole
+     * namespace is cached and kept up to date by an etcd watch.
+     * 
      * @param key The property to get
      */
     @Override
     public @Null String getProperty(@NotNull String key) throws ConfigurationPropertyStoreException {
+        if (Etcd3CpsNamespaceCache.isCacheable(key)) {
+            try {
+                return cache.getProperty(key);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConfigurationPropertyStoreException("Could not retrieve key, interrupted", e);
+            } catch (ExecutionException e) {
+                throw new ConfigurationPropertyStoreException("Could not retrieve key", e);
+            }
+        }
+
         ByteSequence bsKey = ByteSequence.from(key, UTF_8);
         CompletableFuture<GetResponse> getFuture = kvClient.get(bsKey);
         try {
@@ -78,6 +101,17 @@ public class Etcd3ConfigurationPropertyStore implements IConfigurationPropertySt
     public @NotNull Map<String, String> getPrefixedProperties(@NotNull String prefix)
             throws ConfigurationPropertyStoreException {
         
+        if (Etcd3CpsNamespaceCache.isCacheable(prefix)) {
+            try {
+                return cache.getPrefixedProperties(prefix);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConfigurationPropertyStoreException("Could not retrieve key, interrupted", e);
+            } catch (ExecutionException e) {
+                throw new ConfigurationPropertyStoreException("Could not retrieve key", e);
+            }
+        }
+
         HashMap<String, String> returnValues = new HashMap<>();
         
         ByteSequence bsKey = ByteSequence.from(prefix, UTF_8);
@@ -102,6 +136,7 @@ public class Etcd3ConfigurationPropertyStore implements IConfigurationPropertySt
 
     @Override
     public void shutdown() throws ConfigurationPropertyStoreException {
+        cache.shutdown();
         kvClient.close();
         client.close();
     }
@@ -111,7 +146,8 @@ public class Etcd3ConfigurationPropertyStore implements IConfigurationPropertySt
         ByteSequence bytesKey = ByteSequence.from(key, UTF_8);
         ByteSequence bytesValue = ByteSequence.from(value, UTF_8);
         try {
-            kvClient.put(bytesKey, bytesValue).get();
+            PutResponse response = kvClient.put(bytesKey, bytesValue).get();
+            cache.propertyChanged(key, value, getRevision(response));
         } catch (InterruptedException | ExecutionException e) {
             Thread.currentThread().interrupt();
             throw new ConfigurationPropertyStoreException("Could not set key and value.", e);
@@ -122,35 +158,41 @@ public class Etcd3ConfigurationPropertyStore implements IConfigurationPropertySt
     public void deleteProperty(@NotNull String key) throws ConfigurationPropertyStoreException {
         ByteSequence bytesKey = ByteSequence.from(key, StandardCharsets.UTF_8);
         try {
-            kvClient.delete(bytesKey).get();
+            DeleteResponse response = kvClient.delete(bytesKey).get();
+            cache.propertyChanged(key, null, getRevision(response));
         } catch (InterruptedException | ExecutionException e) {
             Thread.currentThread().interrupt();
             throw new ConfigurationPropertyStoreException("Could not delete key.", e);
         }
     }
 
+    /**
+     * @return the etcd revision a change was made at, or 0 if it is not known
+     */
+    private long getRevision(Response response) {
+        if (response == null || response.getHeader() == null) {
+            return 0;
+        }
+        return response.getHeader().getRevision();
+    }
+
     @Override
     public Map<String, String> getPropertiesFromNamespace(String namespace) throws ConfigurationPropertyStoreException {
-        ByteSequence bsNamespace = ByteSequence.from(namespace + ".", UTF_8);
-        GetOption option = GetOption.newBuilder()
-                .withSortField(GetOption.SortTarget.KEY)
-                .withSortOrder(GetOption.SortOrder.DESCEND)
-                .withRange(bsNamespace)
-                .withPrefix(ByteSequence.from(namespace + ".", UTF_8))
-                .build();
-
-        CompletableFuture<GetResponse> futureResponse = client.getKVClient().get(bsNamespace, option);
-        Map<String, String> results = new HashMap<>();
         try {
-            GetResponse response = futureResponse.get();
-            List<KeyValue> kvs = response.getKvs();
-            for(KeyValue kv : kvs) {
-                results.put(kv.getKey().toString(UTF_8), kv.getValue().toString(UTF_8));
-            }
-        } catch (InterruptedException | ExecutionException e) {
+            return cache.getNamespaceProperties(namespace);
+        } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+            throw new ConfigurationPropertyStoreException("Could not retrieve namespace, interrupted", e);
+        } catch (ExecutionException e) {
+            throw new ConfigurationPropertyStoreException("Could not retrieve namespace", e);
         }
-        return results;
+    }
+
+    /**
+     * @return the cache of namespaces, which holds the hit and miss counts
+     */
+    public Etcd3CpsNamespaceCache getCache() {
+        return cache;
     }
 
     @Override
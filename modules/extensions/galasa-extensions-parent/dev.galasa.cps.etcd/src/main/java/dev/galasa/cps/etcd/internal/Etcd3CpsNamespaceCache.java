@@ -0,0 +1,316 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.cps.etcd.internal;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import io.etcd.jetcd.ByteSequence;
+import io.etcd.jetcd.KV;
+import io.etcd.jetcd.KeyValue;
+import io.etcd.jetcd.Watch;
+import io.etcd.jetcd.Watch.Listener;
+import io.etcd.jetcd.Watch.Watcher;
+import io.etcd.jetcd.kv.GetResponse;
+import io.etcd.jetcd.options.GetOption;
+import io.etcd.jetcd.options.WatchOption;
+import io.etcd.jetcd.watch.WatchEvent;
+import io.etcd.jetcd.watch.WatchResponse;
+
+/**
+ * A read-through cache of CPS namespaces held in etcd.
+ *
+ * The first time a property in a namespace is requested the whole namespace is
+ * loaded with a single range read, and an etcd watch is started from the
+ * revision of that read so no update can be missed. After that every lookup in
+ * the namespace, including all the hierarchical variants the framework tries
+ * for a single property, is answered from memory.
+ *
+ * If the watch fails, for example because etcd has compacted past the watched
+ * revision, the namespace is dropped and will be reloaded on the next request.
+ *
+ * Every change is applied with the etcd revision it was made at, and a change
+ * older than the one the cache already holds for the key is ignored. So a
+ * change made by this process, applied when its request returns, can not
+ * overwrite a newer value that has already arrived through the watch.
+ */
+public class Etcd3CpsNamespaceCache {
+
+    private final Log                                  logger        = LogFactory.getLog(getClass());
+
+    private final KV                                   kvClient;
+    private final Watch                                watchClient;
+
+    private final ConcurrentHashMap<String, Namespace> namespaces    = new ConcurrentHashMap<>();
+
+    private final AtomicLong                           hits          = new AtomicLong();
+    private final AtomicLong                           misses        = new AtomicLong();
+    private final AtomicLong                           invalidations = new AtomicLong();
+
+    private volatile boolean                           shutdown      = false;
+
+    public Etcd3CpsNamespaceCache(KV kvClient, Watch watchClient) {
+        this.kvClient = kvClient;
+        this.watchClient = watchClient;
+    }
+
+    /**
+     * Get a property, loading and watching its namespace if this is the first
+     * request for it.
+     *
+     * @param key the full property key, including the namespace
+     * @return the value or null if the property does not exist
+     */
+    public String getProperty(@NotNull String key) throws InterruptedException, ExecutionException {
+        return getNamespace(getNamespaceName(key)).properties.get(key);
+    }
+
+    /**
+     * @param namespace the namespace name, without the trailing '.'
+     * @return a copy of all the properties in the namespace
+     */
+    public @NotNull Map<String, String> getNamespaceProperties(@NotNull String namespace) throws InterruptedException, ExecutionException {
+        return new HashMap<>(getNamespace(namespace).properties);
+    }
+
+    /**
+     * @param prefix a key prefix which must include the namespace
+     * @return a copy of all the properties whose key starts with the prefix
+     */
+    public @NotNull Map<String, String> getPrefixedProperties(@NotNull String prefix) throws InterruptedException, ExecutionException {
+        HashMap<String, String> results = new HashMap<>();
+        for (Map.Entry<String, String> entry : getNamespace(getNamespaceName(prefix)).properties.entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                results.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Record a change made by this process, so it can be read back before the
+     * watch event for it arrives. Namespaces that are not cached are ignored, as
+     * are changes whose revision is not known, which are left to the watch.
+     *
+     * @param key      the full property key
+     * @param value    the new value, or null if the property was deleted
+     * @param revision the etcd revision of the change
+     */
+    public void propertyChanged(@NotNull String key, String value, long revision) {
+        String namespaceName = getNamespaceName(key);
+        if (namespaceName == null || revision <= 0) {
+            return;
+        }
+
+        Namespace namespace = namespaces.get(namespaceName);
+        if (namespace != null) {
+            namespace.apply(key, value, revision);
+        }
+    }
+
+    /**
+     * @return true if the key includes a namespace and so can be served by the cache
+     */
+    public static boolean isCacheable(@NotNull String key) {
+        return getNamespaceName(key) != null;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getInvalidationCount() {
+        return invalidations.get();
+    }
+
+    public int getCachedNamespaceCount() {
+        return namespaces.size();
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        for (Namespace namespace : namespaces.values()) {
+            namespace.close();
+        }
+        namespaces.clear();
+
+        logger.info("etcd CPS cache statistics: hits=" + hits.get() + ", misses=" + misses.get()
+                + ", invalidations=" + invalidations.get());
+    }
+
+    private Namespace getNamespace(String namespaceName) throws InterruptedException, ExecutionException {
+        Namespace namespace = namespaces.get(namespaceName);
+        if (namespace != null) {
+            hits.incrementAndGet();
+            return namespace;
+        }
+
+        // *** Only one thread loads a namespace, the others wait for it
+        synchronized (this) {
+            namespace = namespaces.get(namespaceName);
+            if (namespace != null) {
+                hits.incrementAndGet();
+                return namespace;
+            }
+
+            misses.incrementAndGet();
+            namespace = load(namespaceName);
+            if (!shutdown && !namespace.closed) {
+                namespaces.put(namespaceName, namespace);
+            }
+            return namespace;
+        }
+    }
+
+    private Namespace load(String namespaceName) throws InterruptedException, ExecutionException {
+        String keyPrefix = namespaceName + ".";
+        ByteSequence bsPrefix = ByteSequence.from(keyPrefix, UTF_8);
+
+        GetResponse response = kvClient.get(bsPrefix, GetOption.newBuilder().isPrefix(true).build()).get();
+
+        // *** Watch from just after the revision we read, so nothing is missed in between
+        long revision = 0;
+        if (response.getHeader() != null) {
+            revision = response.getHeader().getRevision();
+        }
+
+        Namespace namespace = new Namespace(namespaceName, revision);
+        List<KeyValue> kvs = response.getKvs();
+        for (KeyValue kv : kvs) {
+            // *** jetcd can strip the prefix from matching keys, so add it back in
+            String key = kv.getKey().toString(UTF_8);
+            if (!key.startsWith(keyPrefix)) {
+                key = keyPrefix + key;
+            }
+            namespace.properties.put(key, kv.getValue().toString(UTF_8));
+        }
+
+        WatchOption.Builder watchOption = WatchOption.newBuilder().isPrefix(true);
+        if (revision > 0) {
+            watchOption.withRevision(revision + 1);
+        }
+        namespace.watcher = watchClient.watch(bsPrefix, watchOption.build(), namespace);
+
+        logger.debug("Loaded CPS namespace '" + namespaceName + "' into the cache with " + kvs.size()
+                + " properties at revision " + revision);
+
+        return namespace;
+    }
+
+    private void invalidate(Namespace namespace, Throwable cause) {
+        if (namespaces.remove(namespace.name, namespace)) {
+            invalidations.incrementAndGet();
+            if (cause != null) {
+                logger.info("Watch on CPS namespace '" + namespace.name + "' failed, it will be reloaded on next use", cause);
+            }
+        }
+        namespace.close();
+    }
+
+    private static String getNamespaceName(String key) {
+        int dot = key.indexOf('.');
+        if (dot < 1) {
+            return null;
+        }
+        return key.substring(0, dot);
+    }
+
+    private class Namespace implements Listener {
+
+        private final String                            name;
+        private final ConcurrentHashMap<String, String> properties = new ConcurrentHashMap<>();
+        private final long                              loadRevision;
+        // *** The revision of the latest change applied to each key, guarded by this
+        private final HashMap<String, Long>             revisions  = new HashMap<>();
+        private volatile Watcher                        watcher;
+        private volatile boolean                        closed     = false;
+
+        public Namespace(String name, long loadRevision) {
+            this.name = name;
+            this.loadRevision = loadRevision;
+        }
+
+        /**
+         * Apply a change unless the cache already holds a newer one for the key. A
+         * revision of 0 is not known, and is applied as it comes.
+         */
+        private synchronized void apply(String key, String value, long revision) {
+            if (revision > 0) {
+                Long latest = revisions.get(key);
+                if (revision <= loadRevision || (latest != null && revision < latest)) {
+                    return;
+                }
+                revisions.put(key, revision);
+            }
+
+            if (value == null) {
+                properties.remove(key);
+            } else {
+                properties.put(key, value);
+            }
+        }
+
+        @Override
+        public void onNext(WatchResponse response) {
+            if (response == null || response.getEvents() == null) {
+                return;
+            }
+
+            for (WatchEvent event : response.getEvents()) {
+                KeyValue kv = event.getKeyValue();
+                if (event.getEventType() == null || kv == null) {
+                    continue;
+                }
+
+                String key = kv.getKey().toString(UTF_8);
+                switch (event.getEventType()) {
+                    case PUT:
+                        apply(key, kv.getValue().toString(UTF_8), kv.getModRevision());
+                        break;
+                    case DELETE:
+                        apply(key, null, kv.getModRevision());
+                        break;
+                    case UNRECOGNIZED:
+                    default:
+                        continue;
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            invalidate(this, throwable);
+        }
+
+        @Override
+        public void onCompleted() {
+            invalidate(this, null);
+        }
+
+        private void close() {
+            closed = true;
+            Watcher etcdWatcher = this.watcher;
+            if (etcdWatcher != null) {
+                etcdWatcher.close();
+            }
+        }
+    }
+}
@@ -6,6 +6,7 @@
 package dev.galasa.cps.etcd.internal;
 
 import static com.google.common.base.Charsets.UTF_8;
+import static dev.galasa.framework.spi.DynamicStatusStoreFutures.waitFor;
 
 import java.net.URI;
 import java.util.ArrayList;
@@ -16,7 +17,11 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
 
 import javax.validation.constraints.NotNull;
 
@@ -29,16 +34,20 @@ import dev.galasa.framework.spi.DynamicStatusStoreException;
 import dev.galasa.framework.spi.DynamicStatusStoreMatchException;
 import dev.galasa.framework.spi.IDssAction;
 import dev.galasa.framework.spi.IDynamicStatusStore;
+import dev.galasa.framework.spi.IDynamicStatusStoreLease;
 import dev.galasa.framework.spi.IDynamicStatusStoreWatcher;
 import dev.galasa.framework.spi.IDynamicStatusStoreWatcher.Event;
 import io.etcd.jetcd.ByteSequence;
 import io.etcd.jetcd.Client;
 import io.etcd.jetcd.KV;
 import io.etcd.jetcd.KeyValue;
+import io.etcd.jetcd.Lease;
 import io.etcd.jetcd.Txn;
 import io.etcd.jetcd.Watch;
 import io.etcd.jetcd.Watch.Listener;
 import io.etcd.jetcd.Watch.Watcher;
+import io.etcd.jetcd.common.exception.ErrorCode;
+import io.etcd.jetcd.common.exception.EtcdException;
 import io.etcd.jetcd.kv.DeleteResponse;
 import io.etcd.jetcd.kv.GetResponse;
 import io.etcd.jetcd.kv.PutResponse;
@@ -64,8 +73,9 @@ public class Etcd3DynamicStatusStore implements IDynamicStatusStore {
     private final Client                            client;
     private final KV                                kvClient;
     private final Watch                             watchClient;
+    private Lease                                   leaseClient;
 
-    private final HashMap<UUID, PassthroughWatcher> watchers = new HashMap<>();
+    private final Map<UUID, PassthroughWatcher>     watchers = new ConcurrentHashMap<>();
 
     /**
      * The constructure sets up a private KVClient that can be used by this class to
@@ -77,8 +87,12 @@ public class Etcd3DynamicStatusStore implements IDynamicStatusStore {
      * @param dssUri - http:// uri for th etcd cluster.
      */
     public Etcd3DynamicStatusStore(URI dssUri) {
-        client = Client.builder().endpoints(dssUri).build();
-        kvClient = client.getKVClient();
+        this(Client.builder().endpoints(dssUri).build());
+    }
+
+    public Etcd3DynamicStatusStore(Client client) {
+        this.client = client;
+        this.kvClient = client.getKVClient();
         this.watchClient = client.getWatchClient();
     }
 
@@ -91,16 +105,16 @@ public class Etcd3DynamicStatusStore implements IDynamicStatusStore {
      */
     @Override
     public void put(@NotNull String key, @NotNull String value) throws DynamicStatusStoreException {
+        waitFor(putAsync(key, value));
+    }
+
+    @Override
+    public CompletionStage<Void> putAsync(@NotNull String key, @NotNull String value) {
         ByteSequence bsKey = ByteSequence.from(key, UTF_8);
         ByteSequence bsValue = ByteSequence.from(value, UTF_8);
 
         CompletableFuture<PutResponse> response = kvClient.put(bsKey, bsValue);
-        try {
-            response.get();
-        } catch (InterruptedException | ExecutionException e) {
-            Thread.currentThread().interrupt();
-            throw new DynamicStatusStoreException("Could not put key-value", e);
-        }
+        return whenComplete(response, "Could not put key-value", r -> null);
     }
 
     /**
@@ -111,6 +125,11 @@ public class Etcd3DynamicStatusStore implements IDynamicStatusStore {
      */
     @Override
     public void put(@NotNull Map<String, String> keyValues) throws DynamicStatusStoreException {
+        waitFor(putAsync(keyValues));
+    }
+
+    @Override
+    public CompletionStage<Void> putAsync(@NotNull Map<String, String> keyValues) {
         Txn txn = kvClient.txn();
         PutOption options = PutOption.DEFAULT;
 
@@ -122,13 +141,7 @@ public class Etcd3DynamicStatusStore implements IDynamicStatusStore {
         }
         Txn request = txn.Then(ops.toArray(new Op[ops.size()]));
         CompletableFuture<TxnResponse> response = request.commit();
-        try {
-            response.get();
-        } catch (InterruptedException | ExecutionException e) {
-            Thread.currentThread().interrupt();
-            throw new DynamicStatusStoreException("", e);
-        }
-
+        return whenComplete(response, "", r -> null);
     }
 
     /**
@@ -146,31 +159,12 @@ public class Etcd3DynamicStatusStore implements IDynamicStatusStore {
     @Override
     public boolean putSwap(@NotNull String key, String oldValue, @NotNull String newValue)
             throws DynamicStatusStoreException {
-        ByteSequence bsKey = ByteSequence.from(key, UTF_8);
-        ByteSequence bsNewValue = ByteSequence.from(newValue, UTF_8);
-
-        Txn txn = kvClient.txn();
-
-        Cmp cmp = null;
-        if (oldValue == null) {
-            cmp = new Cmp(bsKey, Cmp.Op.EQUAL, CmpTarget.version(0));
-        } else {
-            ByteSequence bsOldValue = ByteSequence.from(oldValue, UTF_8);
-            cmp = new Cmp(bsKey, Cmp.Op.EQUAL, CmpTarget.value(bsOldValue));
-        }
-
-        PutOption option = PutOption.DEFAULT;
-
-        Txn check = txn.If(cmp);
-        Txn request = check.Then(Op.put(bsKey, bsNewValue, option));
-        CompletableFuture<TxnResponse> response = request.commit();
+        return waitFor(putSwapAsync(key, oldValue, newValue));
+    }
 
-        try {
-            return response.get().isSucceeded();
-        } catch (InterruptedException | ExecutionException e) {
-            Thread.currentThread().interrupt();
-            throw new DynamicStatusStoreException("Put Swap failed", e);
-        }
+    @Override
+    public CompletionStage<Boolean> putSwapAsync(@NotNull String key, String oldValue, @NotNull String newValue) {
+        return putSwapAsync(key, oldValue, newValue, new HashMap<>());
     }
 
     /**
@@ -191,6 +185,12 @@ public class Etcd3DynamicStatusStore implements IDynamicStatusStore {
     @Override
     public boolean putSwap(@NotNull String key, String oldValue, @NotNull String newValue,
             @NotNull Map<String, String> others) throws DynamicStatusStoreException {
+        return waitFor(putSwapAsync(key, oldValue, newValue, others));
+    }
+
+    @Override
+    public CompletionStage<Boolean> putSwapAsync(@NotNull String key, String oldValue, @NotNull String newValue,
+            @NotNull Map<String, String> others) {
         ByteSequence bsKey = ByteSequence.from(key, UTF_8);
         ByteSequence bsNewValue = ByteSequence.from(newValue, UTF_8);
 
@@ -217,13 +217,47 @@ public class Etcd3DynamicStatusStore implements IDynamicStatusStore {
         }
 
         CompletableFuture<TxnResponse> response = txn.If(cmp).Then(ops.toArray(new Op[ops.size()])).commit();
+        return whenComplete(response, "Put Swap failed", TxnResponse::isSucceeded);
+    }
+
+    /**
+     * A put of a key attached to a newly granted etcd lease. etcd deletes the key
+     * once the lease has not been kept alive for the time to live, which watchers
+     * see as a normal delete event.
+     * 
+     * @param key        The key to be stored.
+     * @param value      The value to be associated with the specified key.
+     * @param ttlSeconds The time to live of the lease.
+     * @return The lease the key is attached to.
+     * @throws DynamicStatusStoreException A failure occurred.
+     */
+    @Override
+    public IDynamicStatusStoreLease putWithLease(@NotNull String key, @NotNull String value, long ttlSeconds)
+            throws DynamicStatusStoreException {
+        ByteSequence bsKey = ByteSequence.from(key, UTF_8);
+        ByteSequence bsValue = ByteSequence.from(value, UTF_8);
+
+        Lease leaseClient = getLeaseClient();
         try {
-            return response.get().isSucceeded();
-        } catch (InterruptedException | ExecutionException e) {
+            long leaseId = leaseClient.grant(ttlSeconds).get().getID();
+
+            PutOption option = PutOption.newBuilder().withLeaseId(leaseId).build();
+            kvClient.put(bsKey, bsValue, option).get();
+
+            return new Etcd3Lease(leaseClient, leaseId);
+        } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            throw new DynamicStatusStoreException("Put Swap failed", e);
+            throw new DynamicStatusStoreException("Could not put key-value with a lease", e);
+        } catch (ExecutionException e) {
+            throw new DynamicStatusStoreException("Could not put key-value with a lease", e);
         }
+    }
 
+    private synchronized Lease getLeaseClient() {
+        if (leaseClient == null) {
+            leaseClient = client.getLeaseClient();
+        }
+        return leaseClient;
     }
 
     /**
@@ -235,20 +269,57 @@ public class Etcd3DynamicStatusStore implements IDynamicStatusStore {
      */
     @Override
     public String get(@NotNull String key) throws DynamicStatusStoreException {
+        return waitFor(getAsync(key));
+    }
+
+    @Override
+    public CompletionStage<String> getAsync(@NotNull String key) {
         ByteSequence bsKey = ByteSequence.from(key, UTF_8);
         CompletableFuture<GetResponse> getFuture = kvClient.get(bsKey);
 
-        try {
-            GetResponse response = getFuture.get();
+        return whenComplete(getFuture, "Could not retrieve key.", response -> {
             List<KeyValue> kvs = response.getKvs();
             if (kvs.isEmpty()) {
                 return null;
             }
             return kvs.get(0).getValue().toString(UTF_8);
-        } catch (InterruptedException | ExecutionException e) {
-            Thread.currentThread().interrupt();
-            throw new DynamicStatusStoreException("Could not retrieve key.", e);
+        });
+    }
+
+    /**
+     * A get of several keys in a single transaction, so only one round trip is
+     * made to the etcd cluster however many keys there are.
+     * 
+     * @param keys - the keys we wish to query
+     * @return A map of the keys that exist to their values
+     * @throws DynamicStatusStoreException A failure occurred.
+     */
+    @Override
+    public @NotNull Map<String, String> get(@NotNull Set<String> keys) throws DynamicStatusStoreException {
+        return waitFor(getAsync(keys));
+    }
+
+    @Override
+    public CompletionStage<Map<String, String>> getAsync(@NotNull Set<String> keys) {
+        if (keys.isEmpty()) {
+            return CompletableFuture.completedFuture(new HashMap<>());
+        }
+
+        ArrayList<Op> ops = new ArrayList<>();
+        for (String key : keys) {
+            ops.add(Op.get(ByteSequence.from(key, UTF_8), GetOption.DEFAULT));
         }
+
+        CompletableFuture<TxnResponse> response = kvClient.txn().Then(ops.toArray(new Op[ops.size()])).commit();
+        return whenComplete(response, "Could not retrieve keys.", txnResponse -> {
+            Map<String, String> keyValues = new HashMap<>();
+            for (GetResponse getResponse : txnResponse.getGetResponses()) {
+                for (KeyValue kv : getResponse.getKvs()) {
+                    keyValues.put(kv.getKey().toString(UTF_8), kv.getValue().toString(UTF_8));
+                }
+            }
+            return keyValues;
+        });
     }
 
     /**
@@ -261,27 +332,22 @@ public class Etcd3DynamicStatusStore implements IDynamicStatusStore {
      */
     @Override
     public @NotNull Map<String, String> getPrefix(@NotNull String keyPrefix) throws DynamicStatusStoreException {
+        return waitFor(getPrefixAsync(keyPrefix));
+    }
+
+    @Override
+    public CompletionStage<Map<String, String>> getPrefixAsync(@NotNull String keyPrefix) {
         ByteSequence bsPrefix = ByteSequence.from(keyPrefix, UTF_8);
         GetOption options = GetOption.newBuilder().withPrefix(bsPrefix).build();
         CompletableFuture<GetResponse> getFuture = kvClient.get(bsPrefix, options);
-        Map<String, String> keyValues = new HashMap<>();
-
-        try {
-            GetResponse response = getFuture.get();
-            List<KeyValue> kvs = response.getKvs();
-
-            if (kvs.isEmpty()) {
-                return new HashMap<>();
-            }
 
-            for (KeyValue kv : kvs) {
+        return whenComplete(getFuture, "Could not retrieve key.", response -> {
+            Map<String, String> keyValues = new HashMap<>();
+            for (KeyValue kv : response.getKvs()) {
                 keyValues.put(kv.getKey().toString(UTF_8), kv.getValue().toString(UTF_8));
             }
             return keyValues;
-        } catch (InterruptedException | ExecutionException e) {
-            Thread.currentThread().interrupt();
-            throw new DynamicStatusStoreException("Could not retrieve key.", e);
-        }
+        });
     }
 
     /**
@@ -292,15 +358,14 @@ public class Etcd3DynamicStatusStore implements IDynamicStatusStore {
      */
     @Override
     public void delete(@NotNull String key) throws DynamicStatusStoreException {
+        waitFor(deleteAsync(key));
+    }
+
+    @Override
+    public CompletionStage<Void> deleteAsync(@NotNull String key) {
         ByteSequence bsKey = ByteSequence.from(key, UTF_8);
         CompletableFuture<DeleteResponse> deleteFuture = kvClient.delete(bsKey);
-
-        try {
-            deleteFuture.get();
-        } catch (InterruptedException | ExecutionException e) {
-            Thread.currentThread().interrupt();
-            throw new DynamicStatusStoreException("Could not delete key.", e);
-        }
+        return whenComplete(deleteFuture, "Could not delete key.", r -> null);
     }
 
     /**
@@ -312,6 +377,11 @@ public class Etcd3DynamicStatusStore implements IDynamicStatusStore {
      */
     @Override
     public void delete(@NotNull Set<String> keys) throws DynamicStatusStoreException {
+        waitFor(deleteAsync(keys));
+    }
+
+    @Override
+    public CompletionStage<Void> deleteAsync(@NotNull Set<String> keys) {
         Txn txn = kvClient.txn();
         DeleteOption options = DeleteOption.DEFAULT;
 
@@ -322,12 +392,7 @@ public class Etcd3DynamicStatusStore implements IDynamicStatusStore {
         }
 
         CompletableFuture<TxnResponse> response = txn.Then(ops.toArray(new Op[ops.size()])).commit();
-        try {
-            response.get();
-        } catch (InterruptedException | ExecutionException e) {
-            Thread.currentThread().interrupt();
-            throw new DynamicStatusStoreException("Could not delete key(s).", e);
-        }
+        return whenComplete(response, "Could not delete key(s).", r -> null);
     }
 
     /**
@@ -339,16 +404,30 @@ public class Etcd3DynamicStatusStore implements IDynamicStatusStore {
      */
     @Override
     public void deletePrefix(@NotNull String keyPrefix) throws DynamicStatusStoreException {
+        waitFor(deletePrefixAsync(keyPrefix));
+    }
+
+    @Override
+    public CompletionStage<Void> deletePrefixAsync(@NotNull String keyPrefix) {
         ByteSequence bsKey = ByteSequence.from(keyPrefix, UTF_8);
         DeleteOption options = DeleteOption.newBuilder().withPrefix(bsKey).build();
         CompletableFuture<DeleteResponse> deleteFuture = kvClient.delete(bsKey, options);
+        return whenComplete(deleteFuture, "Could not delete key(s).", r -> null);
+    }
 
-        try {
-            deleteFuture.get();
-        } catch (InterruptedException | ExecutionException e) {
-            Thread.currentThread().interrupt();
-            throw new DynamicStatusStoreException("Could not delete key(s).", e);
-        }
+    /**
+     * Turn a jetcd response into the result of a DSS request, failing with a
+     * DynamicStatusStoreException if the jetcd request failed.
+     */
+    private static <T, R> CompletableFuture<R> whenComplete(CompletableFuture<T> response, String failureMessage,
+            Function<T, R> result) {
+        return response.handle((r, e) -> {
+            if (e != null) {
+                Throwable cause = (e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e;
+                throw new CompletionException(new DynamicStatusStoreException(failureMessage, cause));
+            }
+            return result.apply(r);
+        });
     }
 
     // TODO Test and document
@@ -381,14 +460,19 @@ public class Etcd3DynamicStatusStore implements IDynamicStatusStore {
             return;
         }
 
-        passWatcher.getEtcdWatcher().close();
+        passWatcher.close();
     }
 
+    /**
+     * Passes the etcd watch events on to the watcher, telling it if etcd stops the
+     * watch, eg because the revision it was watching from has been compacted
+     */
     private class PassthroughWatcher implements Listener {
 
         private final UUID                       id = UUID.randomUUID();
         private final IDynamicStatusStoreWatcher watcher;
         private Watcher                          etcdWatcher;
+        private volatile boolean                 closed;
 
         public PassthroughWatcher(IDynamicStatusStoreWatcher watcher) {
             this.watcher = watcher;
@@ -436,10 +520,28 @@ public class Etcd3DynamicStatusStore implements IDynamicStatusStore {
 
         @Override
         public void onError(Throwable throwable) {
+            lost(throwable);
         }
 
         @Override
         public void onCompleted() {
+            lost(null);
+        }
+
+        private void lost(Throwable cause) {
+            // *** Not lost if it was closed by unwatch
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            watchers.remove(this.id);
+            watcher.watchLost(cause);
+        }
+
+        private void close() {
+            closed = true;
+            this.etcdWatcher.close();
         }
 
         public UUID getID() {
@@ -455,8 +557,57 @@ public class Etcd3DynamicStatusStore implements IDynamicStatusStore {
         }
     }
 
+    private static class Etcd3Lease implements IDynamicStatusStoreLease {
+
+        private final Lease leaseClient;
+        private final long  leaseId;
+
+        public Etcd3Lease(Lease leaseClient, long leaseId) {
+            this.leaseClient = leaseClient;
+            this.leaseId = leaseId;
+        }
+
+        @Override
+        public boolean keepAlive() throws DynamicStatusStoreException {
+            try {
+                return leaseClient.keepAliveOnce(leaseId).get().getTTL() > 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DynamicStatusStoreException("Could not keep the lease alive", e);
+            } catch (ExecutionException e) {
+                if (isLeaseNotFound(e)) {
+                    return false;
+                }
+                throw new DynamicStatusStoreException("Could not keep the lease alive", e);
+            }
+        }
+
+        @Override
+        public void revoke() throws DynamicStatusStoreException {
+            try {
+                leaseClient.revoke(leaseId).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DynamicStatusStoreException("Could not revoke the lease", e);
+            } catch (ExecutionException e) {
+                // *** Already expired is as good as revoked
+                if (!isLeaseNotFound(e)) {
+                    throw new DynamicStatusStoreException("Could not revoke the lease", e);
+                }
+            }
+        }
+
+        private boolean isLeaseNotFound(ExecutionException e) {
+            Throwable cause = e.getCause();
+            return (cause instanceof EtcdException) && ((EtcdException) cause).getErrorCode() == ErrorCode.NOT_FOUND;
+        }
+    }
+
     @Override
     public void shutdown() throws DynamicStatusStoreException {
+        if (leaseClient != null) {
+            leaseClient.close();
+        }
         watchClient.close();
         kvClient.close();
         client.close();
@@ -464,6 +615,11 @@ public class Etcd3DynamicStatusStore implements IDynamicStatusStore {
 
     @Override
     public void performActions(IDssAction... actions) throws DynamicStatusStoreException, DynamicStatusStoreMatchException {
+        waitFor(performActionsAsync(actions));
+    }
+
+    @Override
+    public CompletionStage<Void> performActionsAsync(IDssAction... actions) {
         
         Txn txn = kvClient.txn();
         
@@ -481,7 +637,7 @@ public class Etcd3DynamicStatusStore implements IDynamicStatusStore {
             } else if (action instanceof DssSwap) {
                 txn = performActionsSwapIf(txn, (DssSwap) action);
             } else {
-                throw new DynamicStatusStoreException("Unrecognised DSS Action - " + action.getClass().getName());
+                return CompletableFuture.failedFuture(new DynamicStatusStoreException("Unrecognised DSS Action - " + action.getClass().getName()));
             }
         }
         
@@ -498,21 +654,19 @@ public class Etcd3DynamicStatusStore implements IDynamicStatusStore {
             } else if (action instanceof DssSwap) {
                 txn = performActionsSwapThen(txn, (DssSwap) action);
             } else {
-                throw new DynamicStatusStoreException("Unrecognised DSS Action - " + action.getClass().getName());
+                return CompletableFuture.failedFuture(new DynamicStatusStoreException("Unrecognised DSS Action - " + action.getClass().getName()));
             }
         }
 
         
         CompletableFuture<TxnResponse> response = txn.commit();
 
-        try {
-            if (!response.get().isSucceeded()) {
-                throw new DynamicStatusStoreMatchException("DSS transaction failed - matches failed");
+        return whenComplete(response, "DSS transaction failed", r -> {
+            if (!r.isSucceeded()) {
+                throw new CompletionException(new DynamicStatusStoreMatchException("DSS transaction failed - matches failed"));
             }
-        } catch (InterruptedException | ExecutionException e) {
-            Thread.currentThread().interrupt();
-            throw new DynamicStatusStoreException("DSS transaction failed", e);
-        }
+            return null;
+        });
         
     }
 
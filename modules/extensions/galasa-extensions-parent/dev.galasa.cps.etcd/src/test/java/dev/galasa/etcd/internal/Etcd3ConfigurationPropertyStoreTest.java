@@ -0,0 +1,189 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.etcd.internal;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import dev.galasa.cps.etcd.internal.Etcd3ConfigurationPropertyStore;
+import dev.galasa.cps.etcd.internal.Etcd3CpsNamespaceCache;
+import dev.galasa.etcd.internal.mocks.MockEtcdClient;
+import dev.galasa.etcd.internal.mocks.MockEtcdKvClient;
+import dev.galasa.etcd.internal.mocks.MockEtcdWatchClient;
+
+public class Etcd3ConfigurationPropertyStoreTest {
+
+    private Map<String, String> createZosProperties() {
+        Map<String, String> props = new HashMap<>();
+        props.put("zos.image.MV2C.ipv4.hostname", "mv2c.example.com");
+        props.put("zos.image.MV2D.ipv4.hostname", "mv2d.example.com");
+        props.put("zos.cluster.PLEX1.images", "MV2C,MV2D");
+        props.put("framework.resultarchive.store", "couchdb:http://couchdb");
+        return props;
+    }
+
+    @Test
+    public void testHierarchicalLookupsInANamespaceAreServedFromOneRead() throws Exception {
+        // Given...
+        MockEtcdClient mockClient = new MockEtcdClient(createZosProperties());
+        Etcd3ConfigurationPropertyStore store = new Etcd3ConfigurationPropertyStore(mockClient);
+
+        // When...
+        String missingVariant = store.getProperty("zos.image.MV2C.PLEX1.ipv4.hostname");
+        String hostname = store.getProperty("zos.image.MV2C.ipv4.hostname");
+        String otherImage = store.getProperty("zos.image.MV2D.ipv4.hostname");
+        String missing = store.getProperty("zos.image.ipv4.hostname");
+
+        // Then...
+        assertThat(missingVariant).isNull();
+        assertThat(hostname).isEqualTo("mv2c.example.com");
+        assertThat(otherImage).isEqualTo("mv2d.example.com");
+        assertThat(missing).isNull();
+
+        Etcd3CpsNamespaceCache cache = store.getCache();
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(3);
+        assertThat(cache.getCachedNamespaceCount()).isEqualTo(1);
+        assertThat(mockClient.getWatchClient().getWatchers()).hasSize(1);
+    }
+
+    @Test
+    public void testWatchEventsKeepTheCacheUpToDate() throws Exception {
+        // Given...
+        MockEtcdClient mockClient = new MockEtcdClient(createZosProperties());
+        Etcd3ConfigurationPropertyStore store = new Etcd3ConfigurationPropertyStore(mockClient);
+        assertThat(store.getProperty("zos.image.MV2C.ipv4.hostname")).isEqualTo("mv2c.example.com");
+
+        MockEtcdWatchClient watchClient = mockClient.getWatchClient();
+
+        // When...
+        watchClient.firePut("zos.image.MV2C.ipv4.hostname", "new.example.com");
+        watchClient.firePut("zos.image.MV2E.ipv4.hostname", "mv2e.example.com");
+        watchClient.fireDelete("zos.image.MV2D.ipv4.hostname");
+
+        // Then...
+        assertThat(store.getProperty("zos.image.MV2C.ipv4.hostname")).isEqualTo("new.example.com");
+        assertThat(store.getProperty("zos.image.MV2E.ipv4.hostname")).isEqualTo("mv2e.example.com");
+        assertThat(store.getProperty("zos.image.MV2D.ipv4.hostname")).isNull();
+        assertThat(store.getCache().getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testWatchErrorCausesNamespaceToBeReloaded() throws Exception {
+        // Given...
+        Map<String, String> props = createZosProperties();
+        MockEtcdClient mockClient = new MockEtcdClient(props);
+        Etcd3ConfigurationPropertyStore store = new Etcd3ConfigurationPropertyStore(mockClient);
+        store.getProperty("zos.cluster.PLEX1.images");
+
+        MockEtcdWatchClient.MockWatcher watcher = mockClient.getWatchClient().getWatchers().get(0);
+
+        // When...
+        watcher.getListener().onError(new RuntimeException("compacted"));
+        props.put("zos.cluster.PLEX1.images", "MV2C");
+        String images = store.getProperty("zos.cluster.PLEX1.images");
+
+        // Then...
+        assertThat(watcher.isClosed()).isTrue();
+        assertThat(images).isEqualTo("MV2C");
+        assertThat(store.getCache().getInvalidationCount()).isEqualTo(1);
+        assertThat(store.getCache().getMissCount()).isEqualTo(2);
+        assertThat(mockClient.getWatchClient().getWatchers()).hasSize(2);
+    }
+
+    @Test
+    public void testSetAndDeleteAreVisibleImmediately() throws Exception {
+        // Given...
+        MockEtcdClient mockClient = new MockEtcdClient(createZosProperties());
+        Etcd3ConfigurationPropertyStore store = new Etcd3ConfigurationPropertyStore(mockClient);
+        store.getProperty("zos.cluster.PLEX1.images");
+
+        // When...
+        store.setProperty("zos.cluster.PLEX2.images", "MV2E");
+        store.deleteProperty("zos.cluster.PLEX1.images");
+
+        // Then...
+        assertThat(store.getProperty("zos.cluster.PLEX2.images")).isEqualTo("MV2E");
+        assertThat(store.getProperty("zos.cluster.PLEX1.images")).isNull();
+    }
+
+    @Test
+    public void testSetAndDeleteDoNotOverwriteNewerWatchEvents() throws Exception {
+        // Given...
+        MockEtcdClient mockClient = new MockEtcdClient(createZosProperties());
+        Etcd3ConfigurationPropertyStore store = new Etcd3ConfigurationPropertyStore(mockClient);
+        store.getProperty("zos.cluster.PLEX1.images");
+
+        MockEtcdWatchClient watchClient = mockClient.getWatchClient();
+        watchClient.firePut("zos.cluster.PLEX1.images", "MV2F", 10);
+        watchClient.fireDelete("zos.cluster.PLEX2.images", 11);
+
+        // When...
+        // The requests were made before the changes seen by the watch, but return after them
+        ((MockEtcdKvClient) mockClient.getKVClient()).setRevision(5);
+        store.setProperty("zos.cluster.PLEX2.images", "MV2E");
+        store.deleteProperty("zos.cluster.PLEX1.images");
+
+        // Then...
+        assertThat(store.getProperty("zos.cluster.PLEX1.images")).isEqualTo("MV2F");
+        assertThat(store.getProperty("zos.cluster.PLEX2.images")).isNull();
+    }
+
+    @Test
+    public void testOlderWatchEventsDoNotOverwriteSetProperty() throws Exception {
+        // Given...
+        MockEtcdClient mockClient = new MockEtcdClient(createZosProperties());
+        Etcd3ConfigurationPropertyStore store = new Etcd3ConfigurationPropertyStore(mockClient);
+        store.getProperty("zos.cluster.PLEX1.images");
+
+        ((MockEtcdKvClient) mockClient.getKVClient()).setRevision(9);
+        store.setProperty("zos.cluster.PLEX1.images", "MV2E");
+
+        // When...
+        MockEtcdWatchClient watchClient = mockClient.getWatchClient();
+        watchClient.firePut("zos.cluster.PLEX1.images", "MV2F", 8);
+        watchClient.firePut("zos.cluster.PLEX1.images", "MV2E", 10);
+
+        // Then...
+        assertThat(store.getProperty("zos.cluster.PLEX1.images")).isEqualTo("MV2E");
+    }
+
+    @Test
+    public void testPrefixAndNamespaceQueriesUseTheCache() throws Exception {
+        // Given...
+        MockEtcdClient mockClient = new MockEtcdClient(createZosProperties());
+        Etcd3ConfigurationPropertyStore store = new Etcd3ConfigurationPropertyStore(mockClient);
+
+        // When...
+        Map<String, String> images = store.getPrefixedProperties("zos.image.");
+        Map<String, String> namespace = store.getPropertiesFromNamespace("zos");
+
+        // Then...
+        assertThat(images).containsOnlyKeys("zos.image.MV2C.ipv4.hostname", "zos.image.MV2D.ipv4.hostname");
+        assertThat(namespace).hasSize(3).doesNotContainKey("framework.resultarchive.store");
+        assertThat(store.getCache().getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testShutdownClosesTheWatches() throws Exception {
+        // Given...
+        MockEtcdClient mockClient = new MockEtcdClient(createZosProperties());
+        Etcd3ConfigurationPropertyStore store = new Etcd3ConfigurationPropertyStore(mockClient);
+        store.getProperty("zos.cluster.PLEX1.images");
+        store.getProperty("framework.resultarchive.store");
+
+        // When...
+        store.shutdown();
+
+        // Then...
+        assertThat(mockClient.getWatchClient().getWatchers()).hasSize(2).allMatch(watcher -> watcher.isClosed());
+        assertThat(mockClient.isClientShutDown()).isTrue();
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.etcd.internal;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletionStage;
+
+import org.junit.Test;
+
+import dev.galasa.cps.etcd.internal.Etcd3DynamicStatusStore;
+import dev.galasa.etcd.internal.mocks.MockEtcdClient;
+import dev.galasa.etcd.internal.mocks.MockEtcdWatchClient.MockWatcher;
+import dev.galasa.framework.spi.DynamicStatusStoreFutures;
+import dev.galasa.framework.spi.IDynamicStatusStoreLease;
+import dev.galasa.framework.spi.IDynamicStatusStoreWatcher;
+
+public class Etcd3DynamicStatusStoreTest {
+
+    @Test
+    public void testPutWithLeaseAttachesTheKeyToANewLease() throws Exception {
+        // Given...
+        Map<String, String> kvContents = new HashMap<>();
+        MockEtcdClient mockClient = new MockEtcdClient(kvContents);
+        Etcd3DynamicStatusStore store = new Etcd3DynamicStatusStore(mockClient);
+
+        // When...
+        IDynamicStatusStoreLease lease = store.putWithLease("dss.framework.run.U1.heartbeat.lease", "alive", 30);
+
+        // Then...
+        assertThat(lease).isNotNull();
+        assertThat(kvContents).containsEntry("dss.framework.run.U1.heartbeat.lease", "alive");
+        assertThat(mockClient.getLeaseClient().getLeaseIds()).hasSize(1);
+        assertThat(lease.keepAlive()).isTrue();
+    }
+
+    @Test
+    public void testKeepAliveOfAnExpiredLeaseReturnsFalse() throws Exception {
+        // Given...
+        Map<String, String> kvContents = new HashMap<>();
+        MockEtcdClient mockClient = new MockEtcdClient(kvContents);
+        Etcd3DynamicStatusStore store = new Etcd3DynamicStatusStore(mockClient);
+        IDynamicStatusStoreLease lease = store.putWithLease("dss.framework.run.U1.heartbeat.lease", "alive", 30);
+
+        // When...
+        long leaseId = mockClient.getLeaseClient().getLeaseIds().iterator().next();
+        mockClient.getLeaseClient().expire(leaseId);
+
+        // Then...
+        assertThat(kvContents).doesNotContainKey("dss.framework.run.U1.heartbeat.lease");
+        assertThat(lease.keepAlive()).isFalse();
+    }
+
+    @Test
+    public void testRevokeDeletesTheKeyAndToleratesAnExpiredLease() throws Exception {
+        // Given...
+        Map<String, String> kvContents = new HashMap<>();
+        MockEtcdClient mockClient = new MockEtcdClient(kvContents);
+        Etcd3DynamicStatusStore store = new Etcd3DynamicStatusStore(mockClient);
+        IDynamicStatusStoreLease lease = store.putWithLease("dss.framework.run.U1.heartbeat.lease", "alive", 30);
+
+        // When...
+        lease.revoke();
+
+        // Then...
+        assertThat(kvContents).doesNotContainKey("dss.framework.run.U1.heartbeat.lease");
+        assertThat(mockClient.getLeaseClient().getLeaseIds()).isEmpty();
+        assertThatCode(lease::revoke).doesNotThrowAnyException();
+    }
+
+    @Test
+    public void testAsyncRequestsCanBeMadeTogether() throws Exception {
+        // Given...
+        Map<String, String> kvContents = new HashMap<>();
+        kvContents.put("dss.framework.run.U1.status", "queued");
+        kvContents.put("dss.framework.run.U2.status", "running");
+        Etcd3DynamicStatusStore store = new Etcd3DynamicStatusStore(new MockEtcdClient(kvContents));
+
+        // When...
+        CompletionStage<String> u1Status = store.getAsync("dss.framework.run.U1.status");
+        CompletionStage<Map<String, String>> u2Properties = store.getPrefixAsync("dss.framework.run.U2.");
+        CompletionStage<Void> put = store.putAsync("dss.framework.run.U3.status", "allocated");
+
+        // Then...
+        assertThat(DynamicStatusStoreFutures.waitFor(u1Status)).isEqualTo("queued");
+        assertThat(DynamicStatusStoreFutures.waitFor(u2Properties)).containsOnly(entry("dss.framework.run.U2.status", "running"));
+        DynamicStatusStoreFutures.waitFor(put);
+        assertThat(kvContents).containsEntry("dss.framework.run.U3.status", "allocated");
+    }
+
+    @Test
+    public void testAsyncDeletesAreAllApplied() throws Exception {
+        // Given...
+        Map<String, String> kvContents = new HashMap<>();
+        kvContents.put("dss.framework.run.U1.status", "finished");
+        kvContents.put("dss.framework.run.U2.status", "finished");
+        kvContents.put("dss.framework.run.U3.status", "running");
+        Etcd3DynamicStatusStore store = new Etcd3DynamicStatusStore(new MockEtcdClient(kvContents));
+
+        // When...
+        DynamicStatusStoreFutures.waitForAll(Arrays.asList(
+            store.deletePrefixAsync("dss.framework.run.U1."),
+            store.deletePrefixAsync("dss.framework.run.U2.")));
+
+        // Then...
+        assertThat(kvContents).containsOnlyKeys("dss.framework.run.U3.status");
+    }
+
+    @Test
+    public void testWatcherIsToldIfEtcdStopsTheWatch() throws Exception {
+        // Given...
+        MockEtcdClient mockClient = new MockEtcdClient(new HashMap<>());
+        Etcd3DynamicStatusStore store = new Etcd3DynamicStatusStore(mockClient);
+        List<Throwable> lost = new ArrayList<>();
+        IDynamicStatusStoreWatcher watcher = new IDynamicStatusStoreWatcher() {
+            @Override
+            public void propertyModified(String key, Event event, String oldValue, String newValue) {
+            }
+
+            @Override
+            public void watchLost(Throwable cause) {
+                lost.add(cause);
+            }
+        };
+        store.watchPrefix(watcher, "dss.framework.run.");
+        MockWatcher etcdWatcher = mockClient.getWatchClient().getWatchers().get(0);
+
+        // When...
+        IllegalStateException compacted = new IllegalStateException("required revision has been compacted");
+        etcdWatcher.getListener().onError(compacted);
+        etcdWatcher.getListener().onCompleted();
+
+        // Then...
+        assertThat(lost).containsExactly(compacted);
+    }
+
+    @Test
+    public void testWatcherIsNotToldWhenItIsUnwatched() throws Exception {
+        // Given...
+        MockEtcdClient mockClient = new MockEtcdClient(new HashMap<>());
+        Etcd3DynamicStatusStore store = new Etcd3DynamicStatusStore(mockClient);
+        List<Throwable> lost = new ArrayList<>();
+        IDynamicStatusStoreWatcher watcher = new IDynamicStatusStoreWatcher() {
+            @Override
+            public void propertyModified(String key, Event event, String oldValue, String newValue) {
+            }
+
+            @Override
+            public void watchLost(Throwable cause) {
+                lost.add(cause);
+            }
+        };
+        UUID watchId = store.watchPrefix(watcher, "dss.framework.run.");
+        MockWatcher etcdWatcher = mockClient.getWatchClient().getWatchers().get(0);
+
+        // When...
+        store.unwatch(watchId);
+        etcdWatcher.getListener().onCompleted();
+
+        // Then...
+        assertThat(etcdWatcher.isClosed()).isTrue();
+        assertThat(lost).isEmpty();
+    }
+}
@@ -12,18 +12,21 @@ import io.etcd.jetcd.Client;
 import io.etcd.jetcd.Cluster;
 import io.etcd.jetcd.Election;
 import io.etcd.jetcd.KV;
-import io.etcd.jetcd.Lease;
 import io.etcd.jetcd.Lock;
 import io.etcd.jetcd.Maintenance;
 import io.etcd.jetcd.Watch;
 
 public class MockEtcdClient implements Client {
 
-    private KV kvClient;
+    private MockEtcdKvClient kvClient;
+    private MockEtcdWatchClient watchClient = new MockEtcdWatchClient();
+    private MockEtcdLeaseClient leaseClient;
     private boolean isClientShutDown = false;
 
     public MockEtcdClient(Map<String, String> kvContents) {
         this.kvClient = new MockEtcdKvClient(kvContents);
+        this.leaseClient = new MockEtcdLeaseClient(kvContents);
+        this.kvClient.setLeaseClient(leaseClient);
     }
 
     @Override
@@ -56,8 +59,8 @@ public class MockEtcdClient implements Client {
     }
 
     @Override
-    public Lease getLeaseClient() {
-        throw new UnsupportedOperationException("Unimplemented method 'getLeaseClient'");
+    public MockEtcdLeaseClient getLeaseClient() {
+        return leaseClient;
     }
 
     @Override
@@ -71,8 +74,8 @@ public class MockEtcdClient implements Client {
     }
 
     @Override
-    public Watch getWatchClient() {
-        throw new UnsupportedOperationException("Unimplemented method 'getWatchClient'");
+    public MockEtcdWatchClient getWatchClient() {
+        return watchClient;
     }
     
 }
@@ -20,9 +20,11 @@ import com.google.protobuf.ByteString;
 import io.etcd.jetcd.ByteSequence;
 import io.etcd.jetcd.KV;
 import io.etcd.jetcd.Txn;
+import io.etcd.jetcd.api.DeleteRangeResponse;
 import io.etcd.jetcd.api.KeyValue;
 import io.etcd.jetcd.api.KeyValue.Builder;
 import io.etcd.jetcd.api.RangeResponse;
+import io.etcd.jetcd.api.ResponseHeader;
 import io.etcd.jetcd.kv.CompactResponse;
 import io.etcd.jetcd.kv.DeleteResponse;
 import io.etcd.jetcd.kv.GetResponse;
@@ -35,11 +37,29 @@ import io.etcd.jetcd.options.PutOption;
 public class MockEtcdKvClient implements KV {
 
     Map<String, String> kvContents = new HashMap<>();
+    MockEtcdLeaseClient leaseClient;
+    long revision = 0;
 
     public MockEtcdKvClient(Map<String, String> kvContents) {
         this.kvContents = kvContents;
     }
 
+    public void setLeaseClient(MockEtcdLeaseClient leaseClient) {
+        this.leaseClient = leaseClient;
+    }
+
+    /**
+     * @param revision the revision before the next put or delete, which is made at the revision after it
+     */
+    public void setRevision(long revision) {
+        this.revision = revision;
+    }
+
+    private ResponseHeader nextHeader() {
+        revision++;
+        return ResponseHeader.newBuilder().setRevision(revision).build();
+    }
+
     @Override
     public CompletableFuture<GetResponse> get(ByteSequence key) {
         String keyStr = key.toString();
@@ -61,7 +81,8 @@ public class MockEtcdKvClient implements KV {
     public CompletableFuture<GetResponse> get(ByteSequence key, GetOption options) {
         CompletableFuture<GetResponse> response = null;
         String keyStr = key.toString();
-        if (options.isPrefix()) {
+        // *** A prefix is given either as isPrefix or as withPrefix, which sets the end key
+        if (options.isPrefix() || options.getEndKey().isPresent()) {
             Map<String, String> matchingKeyValues = kvContents.entrySet()
                 .stream()
                 .filter(entry -> entry.getKey().startsWith(keyStr))
@@ -79,7 +100,8 @@ public class MockEtcdKvClient implements KV {
                 rangeResponse = RangeResponse.newBuilder().addAllKvs(keyValues).build();
 
             }
-            GetResponse mockResponse = new GetResponse(rangeResponse, key);
+            // *** The second argument is a namespace to strip from the keys, not the key asked for
+            GetResponse mockResponse = new GetResponse(rangeResponse, ByteSequence.EMPTY);
             response = CompletableFuture.completedFuture(mockResponse);
         }
         return response;
@@ -91,7 +113,8 @@ public class MockEtcdKvClient implements KV {
         String valueStr = value.toString();
         kvContents.put(keyStr, valueStr);
 
-        return CompletableFuture.completedFuture(null);
+        io.etcd.jetcd.api.PutResponse putResponse = io.etcd.jetcd.api.PutResponse.newBuilder().setHeader(nextHeader()).build();
+        return CompletableFuture.completedFuture(new PutResponse(putResponse, ByteSequence.EMPTY));
     }
 
 
@@ -99,7 +122,8 @@ public class MockEtcdKvClient implements KV {
     public CompletableFuture<DeleteResponse> delete(ByteSequence key, DeleteOption options) {
         String keyStr = key.toString();
 
-        if (options.isPrefix()) {
+        // *** A prefix is given either as isPrefix or as withPrefix, which sets the end key
+        if (options.isPrefix() || options.getEndKey().isPresent()) {
             Set<String> keysToRemove = new HashSet<>();
             Set<String> existingKeySet = kvContents.keySet();
 
@@ -113,7 +137,8 @@ public class MockEtcdKvClient implements KV {
         } else {
             kvContents.remove(keyStr);
         }
-        return CompletableFuture.completedFuture(null);
+        DeleteRangeResponse deleteResponse = DeleteRangeResponse.newBuilder().setHeader(nextHeader()).build();
+        return CompletableFuture.completedFuture(new DeleteResponse(deleteResponse, ByteSequence.EMPTY));
     }
 
     private KeyValue createKeyValue(String key, String value) {
@@ -136,12 +161,16 @@ public class MockEtcdKvClient implements KV {
 
     @Override
     public CompletableFuture<DeleteResponse> delete(ByteSequence key) {
-        throw new UnsupportedOperationException("Unimplemented method 'delete'");
+        return delete(key, DeleteOption.DEFAULT);
     }
 
     @Override
     public CompletableFuture<PutResponse> put(ByteSequence key, ByteSequence value, PutOption options) {
-        throw new UnsupportedOperationException("Unimplemented method 'put'");
+        String keyStr = key.toString();
+        if (leaseClient != null && options.getLeaseId() != 0) {
+            leaseClient.attachKey(options.getLeaseId(), keyStr);
+        }
+        return put(key, value);
     }
 
     @Override
@@ -0,0 +1,111 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.etcd.internal.mocks;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.etcd.jetcd.Lease;
+import io.etcd.jetcd.common.exception.ErrorCode;
+import io.etcd.jetcd.common.exception.EtcdExceptionFactory;
+import io.etcd.jetcd.lease.LeaseGrantResponse;
+import io.etcd.jetcd.lease.LeaseKeepAliveResponse;
+import io.etcd.jetcd.lease.LeaseRevokeResponse;
+import io.etcd.jetcd.lease.LeaseTimeToLiveResponse;
+import io.etcd.jetcd.options.LeaseOption;
+import io.etcd.jetcd.support.CloseableClient;
+import io.grpc.stub.StreamObserver;
+
+public class MockEtcdLeaseClient implements Lease {
+
+    private Map<String, String>    kvContents;
+    private Map<Long, Long>        leaseTtls = new HashMap<>();
+    private Map<Long, Set<String>> leaseKeys = new HashMap<>();
+    private long                   nextLeaseId = 1;
+
+    public MockEtcdLeaseClient(Map<String, String> kvContents) {
+        this.kvContents = kvContents;
+    }
+
+    public void attachKey(long leaseId, String key) {
+        leaseKeys.get(leaseId).add(key);
+    }
+
+    /**
+     * Expire a lease as etcd would once it has not been kept alive in time
+     */
+    public void expire(long leaseId) {
+        leaseTtls.remove(leaseId);
+        for (String key : leaseKeys.remove(leaseId)) {
+            kvContents.remove(key);
+        }
+    }
+
+    public Set<Long> getLeaseIds() {
+        return leaseTtls.keySet();
+    }
+
+    @Override
+    public CompletableFuture<LeaseGrantResponse> grant(long ttl) {
+        long leaseId = nextLeaseId++;
+        leaseTtls.put(leaseId, ttl);
+        leaseKeys.put(leaseId, new HashSet<>());
+
+        io.etcd.jetcd.api.LeaseGrantResponse response = io.etcd.jetcd.api.LeaseGrantResponse.newBuilder()
+            .setID(leaseId)
+            .setTTL(ttl)
+            .build();
+        return CompletableFuture.completedFuture(new LeaseGrantResponse(response));
+    }
+
+    @Override
+    public CompletableFuture<LeaseGrantResponse> grant(long ttl, long timeout, TimeUnit unit) {
+        return grant(ttl);
+    }
+
+    @Override
+    public CompletableFuture<LeaseRevokeResponse> revoke(long leaseId) {
+        if (!leaseTtls.containsKey(leaseId)) {
+            return leaseNotFound();
+        }
+        expire(leaseId);
+        return CompletableFuture.completedFuture(new LeaseRevokeResponse(io.etcd.jetcd.api.LeaseRevokeResponse.getDefaultInstance()));
+    }
+
+    @Override
+    public CompletableFuture<LeaseKeepAliveResponse> keepAliveOnce(long leaseId) {
+        Long ttl = leaseTtls.get(leaseId);
+        if (ttl == null) {
+            return leaseNotFound();
+        }
+
+        io.etcd.jetcd.api.LeaseKeepAliveResponse response = io.etcd.jetcd.api.LeaseKeepAliveResponse.newBuilder()
+            .setID(leaseId)
+            .setTTL(ttl)
+            .build();
+        return CompletableFuture.completedFuture(new LeaseKeepAliveResponse(response));
+    }
+
+    private <T> CompletableFuture<T> leaseNotFound() {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(EtcdExceptionFactory.newEtcdException(ErrorCode.NOT_FOUND, "etcdserver: requested lease not found"));
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<LeaseTimeToLiveResponse> timeToLive(long leaseId, LeaseOption leaseOption) {
+        throw new UnsupportedOperationException("Unimplemented method 'timeToLive'");
+    }
+
+    @Override
+    public CloseableClient keepAlive(long leaseId, StreamObserver<LeaseKeepAliveResponse> observer) {
+        throw new UnsupportedOperationException("Unimplemented method 'keepAlive'");
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.etcd.internal.mocks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.protobuf.ByteString;
+
+import io.etcd.jetcd.ByteSequence;
+import io.etcd.jetcd.Watch;
+import io.etcd.jetcd.api.Event;
+import io.etcd.jetcd.api.KeyValue;
+import io.etcd.jetcd.options.WatchOption;
+import io.etcd.jetcd.watch.WatchResponse;
+
+public class MockEtcdWatchClient implements Watch {
+
+    private List<MockWatcher> watchers = new ArrayList<>();
+
+    public class MockWatcher implements Watcher {
+
+        private String keyPrefix;
+        private Listener listener;
+        private boolean isClosed = false;
+
+        public MockWatcher(String keyPrefix, Listener listener) {
+            this.keyPrefix = keyPrefix;
+            this.listener = listener;
+        }
+
+        public Listener getListener() {
+            return listener;
+        }
+
+        @Override
+        public boolean isClosed() {
+            return isClosed;
+        }
+
+        @Override
+        public void close() {
+            isClosed = true;
+        }
+
+        @Override
+        public void requestProgress() {
+            throw new UnsupportedOperationException("Unimplemented method 'requestProgress'");
+        }
+    }
+
+    @Override
+    public Watcher watch(ByteSequence key, WatchOption option, Listener listener) {
+        MockWatcher watcher = new MockWatcher(key.toString(), listener);
+        watchers.add(watcher);
+        return watcher;
+    }
+
+    public List<MockWatcher> getWatchers() {
+        return watchers;
+    }
+
+    public void firePut(String key, String value) {
+        firePut(key, value, 0);
+    }
+
+    public void firePut(String key, String value, long revision) {
+        fireEvent(Event.EventType.PUT, key, value, revision);
+    }
+
+    public void fireDelete(String key) {
+        fireDelete(key, 0);
+    }
+
+    public void fireDelete(String key, long revision) {
+        fireEvent(Event.EventType.DELETE, key, "", revision);
+    }
+
+    private void fireEvent(Event.EventType type, String key, String value, long revision) {
+        KeyValue kv = KeyValue.newBuilder()
+            .setKey(ByteString.copyFromUtf8(key))
+            .setValue(ByteString.copyFromUtf8(value))
+            .setModRevision(revision)
+            .build();
+        Event event = Event.newBuilder().setType(type).setKv(kv).build();
+        WatchResponse response = new WatchResponse(io.etcd.jetcd.api.WatchResponse.newBuilder().addEvents(event).build());
+
+        for (MockWatcher watcher : new ArrayList<>(watchers)) {
+            if (!watcher.isClosed() && key.startsWith(watcher.keyPrefix)) {
+                watcher.getListener().onNext(response);
+            }
+        }
+    }
+
+    @Override
+    public void requestProgress() {
+        throw new UnsupportedOperationException("Unimplemented method 'requestProgress'");
+    }
+
+    @Override
+    public void close() {
+        for (MockWatcher watcher : watchers) {
+            watcher.close();
+        }
+    }
+}
@@ -5,8 +5,10 @@
  */
 package dev.galasa.cps.rest;
 
+import java.time.Instant;
 import java.util.*;
-import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Null;
@@ -14,6 +16,8 @@ import dev.galasa.extensions.common.api.LogFactory;
 
 import dev.galasa.framework.spi.ConfigurationPropertyStoreException;
 import dev.galasa.framework.spi.IConfigurationPropertyStore;
+import dev.galasa.framework.spi.utils.ITimeService;
+import dev.galasa.framework.spi.utils.SystemTimeService;
 
 import org.apache.commons.logging.Log;
 
@@ -21,7 +25,12 @@ import org.apache.commons.logging.Log;
  * This class is a CPS implementation that delegates calls to the child CPS it gets passed.
  * But it caches responses.
  * 
- * Up-front the implementation reads the entire contents from the CPS and caches it.
+ * Namespaces are loaded from the child CPS the first time a property in them is used,
+ * so a run only pays for the namespaces it needs. The properties are held sorted by name,
+ * so prefix queries only visit the matching properties.
+ * 
+ * A loaded namespace is re-read from the child CPS when it is next used after the refresh
+ * interval has passed, so long-running engines see changes made in the ecosystem.
  * 
  * Set and Delete of properties are deleted, and the cache state is maintained.
  * 
@@ -29,33 +38,65 @@ import org.apache.commons.logging.Log;
  * - true : The cacheing is turned on.
  * - false : Calls pass directly through to the child CPS implementation.
  * Default value: false.
+ * 
+ * The refresh interval is set using the 'framework.cps.rest.cache.refresh.seconds' property.
+ * A value of 0 or less means namespaces are never refreshed.
+ * Default value: 300.
  */
 public class CacheCPS implements IConfigurationPropertyStore {
 
     // The key map key is the fully qualified property name
     // The value is the value of the property.
-    private Map<String,String> propertyCache ;
+    // Sorted so that all the properties with a given prefix are next to each other.
+    private ConcurrentSkipListMap<String,String> propertyCache ;
+
+    // The time each namespace was last loaded from the child CPS.
+    private Map<String,Instant> namespaceLoadTimes ;
+
+    // The namespaces known to the child CPS, and when we asked for them.
+    private Set<String> childNamespaces ;
+    private Instant childNamespacesLoadTime ;
 
     // We use this flag so that we don't try to prime the cache twice.
     private boolean isCachePrimed = false ;
 
     private IConfigurationPropertyStore childCPS ;
 
+    private ITimeService timeService ;
+
     private Log log ;
 
     private boolean isCacheEnabled = false;
 
+    private long refreshIntervalSeconds = DEFAULT_REFRESH_INTERVAL_SECONDS;
+
     /**
      * The CPS property which this extension draws from to control whether the cache is enabled or not.
      */
     public static final String FEATURE_FLAG_CPS_PROP_CACHED_CPS_ENABLED = "framework.cps.rest.cache.is.enabled";
 
+    /**
+     * The CPS property which controls how often a cached namespace is re-read from the child CPS.
+     */
+    public static final String CPS_PROP_CACHE_REFRESH_SECONDS = "framework.cps.rest.cache.refresh.seconds";
+
+    public static final long DEFAULT_REFRESH_INTERVAL_SECONDS = 300;
+
+    // Namespaces which are never loaded into the cache.
+    private static final String SECURE_NAMESPACE = "secure";
+
 
     public CacheCPS( IConfigurationPropertyStore childCPS , LogFactory logFactory) throws ConfigurationPropertyStoreException {
+        this(childCPS, logFactory, new SystemTimeService());
+    }
+
+    public CacheCPS( IConfigurationPropertyStore childCPS , LogFactory logFactory, ITimeService timeService) throws ConfigurationPropertyStoreException {
 
         this.log = logFactory.getLog(this.getClass());
-        this.propertyCache = new HashMap<String,String>();
+        this.propertyCache = new ConcurrentSkipListMap<String,String>();
+        this.namespaceLoadTimes = new ConcurrentHashMap<String,Instant>();
         this.childCPS = childCPS ;
+        this.timeService = timeService ;
     }
 
 
@@ -79,27 +120,78 @@ public class CacheCPS implements IConfigurationPropertyStore {
             if (!this.isCacheEnabled) {
                 log.info("CPS Cache is not enabled...");
             } else {
+                // Almost every run needs the framework namespace, and it holds the cache settings,
+                // so it is the only namespace loaded up front.
+                loadNamespace("framework");
+
+                String refreshValue = propertyCache.get(CPS_PROP_CACHE_REFRESH_SECONDS);
+                if (refreshValue != null && !refreshValue.isBlank()) {
+                    try {
+                        this.refreshIntervalSeconds = Long.parseLong(refreshValue.trim());
+                    } catch (NumberFormatException ex) {
+                        log.info("CPS Cache property "+CPS_PROP_CACHE_REFRESH_SECONDS+" value '"+refreshValue+"' is not a number, using "+DEFAULT_REFRESH_INTERVAL_SECONDS);
+                    }
+                }
+                log.info("CPS Cache is enabled, namespaces will be loaded when first used and refreshed every "+refreshIntervalSeconds+" seconds.");
+            }
+        }
+    }
 
-                log.info("CPS Cache is enabled, and being primed...");
-                List<String> namespaces = childCPS.getNamespaces();
-
-                for( String namespace : namespaces ) {
-
-                    if (!namespace.equals("secure")) {
-                        Map<String, String> propertiesFromNamespace = childCPS.getPropertiesFromNamespace(namespace);
+    private boolean isExpired(Instant loadTime) {
+        return refreshIntervalSeconds > 0 && timeService.now().isAfter(loadTime.plusSeconds(refreshIntervalSeconds));
+    }
 
-                        for( Entry<String,String> propertyInNamespace : propertiesFromNamespace.entrySet()){
-                            String propertyValue = propertyInNamespace.getValue();
-                            String longPropertyName = propertyInNamespace.getKey();
+    /**
+     * Make sure the namespace is in the cache and is not due a refresh.
+     */
+    private void ensureNamespaceLoaded(String namespace) throws ConfigurationPropertyStoreException {
+        if (namespace.equals(SECURE_NAMESPACE)) {
+            return;
+        }
 
-                            propertyCache.put(longPropertyName,propertyValue);
-                        }
-                    }
+        Instant loadTime = namespaceLoadTimes.get(namespace);
+        if (loadTime == null || isExpired(loadTime)) {
+            synchronized (this) {
+                // Another thread may have loaded it while we waited.
+                loadTime = namespaceLoadTimes.get(namespace);
+                if (loadTime == null || isExpired(loadTime)) {
+                    loadNamespace(namespace);
                 }
             }
-            log.info("CPS Cache primed with "+Integer.toString(propertyCache.size())+" properties.");
+        }
+    }
 
+    private synchronized void loadNamespace(String namespace) throws ConfigurationPropertyStoreException {
+        Map<String, String> propertiesFromNamespace = childCPS.getPropertiesFromNamespace(namespace);
+
+        // Drop anything which has been deleted since the namespace was last loaded,
+        // then bring the rest up to date.
+        getNamespaceView(namespace).keySet().retainAll(propertiesFromNamespace.keySet());
+        propertyCache.putAll(propertiesFromNamespace);
+
+        namespaceLoadTimes.put(namespace, timeService.now());
+        log.info("CPS Cache loaded namespace "+namespace+" with "+Integer.toString(propertiesFromNamespace.size())+" properties.");
+    }
+
+    private NavigableMap<String,String> getNamespaceView(String namespace) {
+        return getPrefixView(namespace + ".");
+    }
+
+    /**
+     * @return a live view of the cached properties whose names start with the prefix.
+     */
+    private NavigableMap<String,String> getPrefixView(String prefix) {
+        // Every name starting with the prefix sorts between the prefix itself and the prefix
+        // followed by the highest possible character.
+        return propertyCache.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private static String getNamespace(String propertyNameOrPrefix) {
+        int dotIndex = propertyNameOrPrefix.indexOf('.');
+        if (dotIndex < 0) {
+            return propertyNameOrPrefix;
         }
+        return propertyNameOrPrefix.substring(0, dotIndex);
     }
 
     @Override
@@ -107,20 +199,18 @@ public class CacheCPS implements IConfigurationPropertyStore {
         primeCaches(childCPS);
         List<String> results ;
         if (isCacheEnabled) {
-            results = new ArrayList<String>();
-
-            // Gather a set of the namespaces, so there are no duplicates.
-            Set<String> namespacesSet = new HashSet<>();
-            for (Map.Entry<String,String> entry : propertyCache.entrySet()){
-                String propertyName = entry.getKey();
-                String[] parts = propertyName.split("\\.");
-                if (parts.length > 1) {
-                    String namespace = parts[0];
-                    namespacesSet.add(namespace);
+            synchronized (this) {
+                if (childNamespaces == null || isExpired(childNamespacesLoadTime)) {
+                    childNamespaces = new HashSet<>(childCPS.getNamespaces());
+                    childNamespaces.remove(SECURE_NAMESPACE);
+                    childNamespacesLoadTime = timeService.now();
                 }
-            }
 
-            results.addAll(namespacesSet);
+                // Gather a set of the namespaces, so there are no duplicates.
+                Set<String> namespacesSet = new HashSet<>(childNamespaces);
+                namespacesSet.addAll(namespaceLoadTimes.keySet());
+                results = new ArrayList<String>(namespacesSet);
+            }
         } else {
             results = this.childCPS.getNamespaces();
         }
@@ -132,6 +222,7 @@ public class CacheCPS implements IConfigurationPropertyStore {
         primeCaches(childCPS);
         String result ;
         if (isCacheEnabled) {
+            ensureNamespaceLoaded(getNamespace(fullyQualifiedPropertyName));
             result = propertyCache.get(fullyQualifiedPropertyName);
         } else {
             result = this.childCPS.getProperty(fullyQualifiedPropertyName);
@@ -146,7 +237,7 @@ public class CacheCPS implements IConfigurationPropertyStore {
         // Delegate the set of the property to the child CPS
         childCPS.setProperty(key, value);
 
-        if (isCacheEnabled) {
+        if (isCacheEnabled && namespaceLoadTimes.containsKey(getNamespace(key))) {
             // The child changed the property value ok, so we should change the cache version also.
             propertyCache.put(key,value);
         }
@@ -160,14 +251,8 @@ public class CacheCPS implements IConfigurationPropertyStore {
 
         Map<String, String> results;
         if (isCacheEnabled) {
-            results = new HashMap<String, String>();
-            for( Entry<String,String> property : this.propertyCache.entrySet() ){
-                String propName = property.getKey();
-                if( propName.startsWith(prefix)) {
-                    String propValue = property.getValue();
-                    results.put(propName, propValue);
-                }
-            }
+            ensureNamespaceLoaded(getNamespace(prefix));
+            results = new HashMap<String, String>(getPrefixView(prefix));
         } else {
             results = this.childCPS.getPrefixedProperties(prefix);
         }
@@ -195,7 +280,8 @@ public class CacheCPS implements IConfigurationPropertyStore {
 
         Map<String, String> results ;
         if (this.isCacheEnabled) {
-            results = getPrefixedProperties(namespace);
+            ensureNamespaceLoaded(namespace);
+            results = new HashMap<String, String>(getNamespaceView(namespace));
         } else {
             results = childCPS.getPropertiesFromNamespace(namespace);
         }
@@ -10,8 +10,10 @@ import static org.assertj.core.api.Assertions.*;
 
 import dev.galasa.cps.rest.mocks.MockCPS;
 import dev.galasa.extensions.common.mocks.MockLogFactory;
+import dev.galasa.extensions.common.mocks.MockTimeService;
 import dev.galasa.extensions.common.api.LogFactory;
 
+import java.time.Instant;
 import java.util.*;
 
 public class TestCacheCPS {
@@ -348,8 +350,8 @@ public class TestCacheCPS {
         assertThat(frodo.get("framework.frodo.height")).isEqualTo("95cm");
         assertThat(frodo.get("framework.frodo.age")).isEqualTo("24");
 
-        // The child call should have been called twice as we prime the cache.
-        assertThat(mockCPS.callCounterForGetPropertiesFromNamespace).isEqualTo(2);
+        // The child call should have been called once, as only the framework namespace is loaded up front.
+        assertThat(mockCPS.callCounterForGetPropertiesFromNamespace).isEqualTo(1);
     } 
 
     @Test
@@ -418,4 +420,102 @@ public class TestCacheCPS {
         // Then...
         assertThat(namespaces).hasSize(2).contains("framework","mynamespace");
     }  
+
+    @Test
+    public void testNamespacesAreLoadedOnlyWhenFirstUsed() throws Exception {
+        // Given...
+        MockCPS mockCPS = new MockCPS(Map.of(
+            CacheCPS.FEATURE_FLAG_CPS_PROP_CACHED_CPS_ENABLED,"true",
+            "framework.frodo.age","24",
+            "mynamespace.bilbo.age", "116",
+            "othernamespace.gandalf.age", "2019"
+        ));
+        CacheCPS cache = new CacheCPS(mockCPS, logFactory);
+
+        // When...
+        String bilboAge = cache.getProperty("mynamespace.bilbo.age");
+        cache.getProperty("mynamespace.bilbo.height");
+        cache.getPrefixedProperties("mynamespace.bilbo");
+
+        // Then...
+        assertThat(bilboAge).isEqualTo("116");
+
+        // Only the framework namespace and the namespace we used should have been loaded,
+        // and no namespace list was needed to do that.
+        assertThat(mockCPS.callCounterForGetPropertiesFromNamespace).isEqualTo(2);
+        assertThat(mockCPS.callCounterForGetNamespaces).isEqualTo(0);
+    }
+
+    @Test
+    public void testNamespaceIsRefreshedAfterTheRefreshInterval() throws Exception {
+        // Given...
+        MockCPS mockCPS = new MockCPS(Map.of(
+            CacheCPS.FEATURE_FLAG_CPS_PROP_CACHED_CPS_ENABLED,"true",
+            CacheCPS.CPS_PROP_CACHE_REFRESH_SECONDS,"60",
+            "mynamespace.bilbo.age", "116",
+            "mynamespace.bilbo.height", "86cm"
+        ));
+        MockTimeService timeService = new MockTimeService(Instant.EPOCH);
+        CacheCPS cache = new CacheCPS(mockCPS, logFactory, timeService);
+        assertThat(cache.getProperty("mynamespace.bilbo.age")).isEqualTo("116");
+
+        // Someone changes the properties in the ecosystem behind our back...
+        mockCPS.properties.put("mynamespace.bilbo.age", "117");
+        mockCPS.properties.remove("mynamespace.bilbo.height");
+
+        // When...
+        timeService.setCurrentTime(Instant.EPOCH.plusSeconds(30));
+        String ageBeforeRefresh = cache.getProperty("mynamespace.bilbo.age");
+
+        timeService.setCurrentTime(Instant.EPOCH.plusSeconds(61));
+        String ageAfterRefresh = cache.getProperty("mynamespace.bilbo.age");
+        String heightAfterRefresh = cache.getProperty("mynamespace.bilbo.height");
+
+        // Then...
+        assertThat(ageBeforeRefresh).isEqualTo("116");
+        assertThat(ageAfterRefresh).isEqualTo("117");
+        assertThat(heightAfterRefresh).isNull();
+    }
+
+    @Test
+    public void testNamespaceIsNeverRefreshedWhenTheRefreshIntervalIsZero() throws Exception {
+        // Given...
+        MockCPS mockCPS = new MockCPS(Map.of(
+            CacheCPS.FEATURE_FLAG_CPS_PROP_CACHED_CPS_ENABLED,"true",
+            CacheCPS.CPS_PROP_CACHE_REFRESH_SECONDS,"0",
+            "mynamespace.bilbo.age", "116"
+        ));
+        MockTimeService timeService = new MockTimeService(Instant.EPOCH);
+        CacheCPS cache = new CacheCPS(mockCPS, logFactory, timeService);
+        cache.getProperty("mynamespace.bilbo.age");
+
+        // When...
+        mockCPS.properties.put("mynamespace.bilbo.age", "117");
+        timeService.setCurrentTime(Instant.EPOCH.plusSeconds(100000));
+        String age = cache.getProperty("mynamespace.bilbo.age");
+
+        // Then...
+        assertThat(age).isEqualTo("116");
+    }
+
+    @Test
+    public void testPrefixQueryDoesNotReturnPropertiesFromSimilarlyNamedNamespaces() throws Exception {
+        // Given...
+        MockCPS mockCPS = new MockCPS(Map.of(
+            CacheCPS.FEATURE_FLAG_CPS_PROP_CACHED_CPS_ENABLED,"true",
+            "hobbit.frodo.age","24",
+            "hobbit.frodoson.age","2",
+            "hobbits.frodo.age", "50"
+        ));
+        CacheCPS cache = new CacheCPS(mockCPS, logFactory);
+        cache.getPropertiesFromNamespace("hobbits");
+
+        // When...
+        Map<String, String> hobbit = cache.getPropertiesFromNamespace("hobbit");
+        Map<String, String> frodo = cache.getPrefixedProperties("hobbit.frodo.");
+
+        // Then...
+        assertThat(hobbit).containsOnlyKeys("hobbit.frodo.age", "hobbit.frodoson.age");
+        assertThat(frodo).containsOnlyKeys("hobbit.frodo.age");
+    }
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+
+package dev.galasa.events.kafka.internal;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+
+import dev.galasa.framework.spi.IEventProducer;
+import dev.galasa.framework.spi.events.IEvent;
+
+/**
+ * Sends events without a transaction per event. The send returns once the event is
+ * handed to the Kafka producer, which batches events up according to its linger and
+ * batch size settings. Handing it over can block while the producer fetches the
+ * topic metadata or waits for buffer space, for at most the producer's max.block.ms,
+ * which the factory sets low so a slow broker can not hold up the test.
+ *
+ * At most maxBufferedEvents events may be waiting to be acknowledged by the brokers.
+ * When that many are waiting further events are dropped rather than holding up the
+ * thread producing them. All waiting events are flushed when the producer is closed.
+ */
+public class BatchedKafkaEventProducer implements IEventProducer {
+
+    private static final Duration CLOSE_TIMEOUT          = Duration.ofSeconds(30);
+    private static final String   PRODUCER_METRICS_GROUP = "producer-metrics";
+
+    private final Log                      logger         = LogFactory.getLog(getClass());
+
+    private final Producer<String, String> producer;
+    private final String                   topic;
+    private final int                      maxBufferedEvents;
+    private final Semaphore                bufferedEvents;
+
+    private final AtomicLong               sentEvents     = new AtomicLong();
+    private final AtomicLong               failedEvents   = new AtomicLong();
+    private final AtomicLong               droppedEvents  = new AtomicLong();
+
+    public BatchedKafkaEventProducer(Producer<String, String> producer, String topic, int maxBufferedEvents) {
+        this.producer = producer;
+        this.topic = topic;
+        this.maxBufferedEvents = maxBufferedEvents;
+        this.bufferedEvents = new Semaphore(maxBufferedEvents);
+    }
+
+    @Override
+    public void sendEvent(IEvent event) {
+        if (!bufferedEvents.tryAcquire()) {
+            if (droppedEvents.incrementAndGet() == 1) {
+                logger.warn("Dropping events for topic " + topic + " as " + maxBufferedEvents + " events are waiting to be sent");
+            }
+            return;
+        }
+
+        try {
+            producer.send(new ProducerRecord<>(topic, event.toString()), (metadata, exception) -> {
+                bufferedEvents.release();
+                if (exception == null) {
+                    sentEvents.incrementAndGet();
+                } else {
+                    if (failedEvents.incrementAndGet() == 1) {
+                        logger.warn("Failed to send an event to topic " + topic, exception);
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            bufferedEvents.release();
+            failedEvents.incrementAndGet();
+            logger.warn("Failed to send an event to topic " + topic, e);
+        }
+    }
+
+    /**
+     * Wait for every event handed to the producer to be sent or to fail
+     */
+    public void flush() {
+        producer.flush();
+    }
+
+    @Override
+    public void close() {
+        try {
+            producer.flush();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to flush the events for topic " + topic, e);
+        }
+
+        logger.info("Kafka producer for topic " + topic + " sent " + sentEvents.get() + " events, "
+                + failedEvents.get() + " failed and " + droppedEvents.get() + " were dropped"
+                + ", average batch size " + getProducerMetric("batch-size-avg")
+                + " bytes, average time queued " + getProducerMetric("record-queue-time-avg") + "ms");
+
+        producer.close(CLOSE_TIMEOUT);
+    }
+
+    /**
+     * @param name the name of one of the Kafka producer-metrics, eg record-send-rate
+     * @return the current value of the metric, or null if the producer does not have it
+     */
+    public Object getProducerMetric(String name) {
+        for (Map.Entry<MetricName, ? extends Metric> metric : producer.metrics().entrySet()) {
+            if (PRODUCER_METRICS_GROUP.equals(metric.getKey().group()) && name.equals(metric.getKey().name())) {
+                return metric.getValue().metricValue();
+            }
+        }
+        return null;
+    }
+
+    public long getSentEvents() {
+        return sentEvents.get();
+    }
+
+    public long getFailedEvents() {
+        return failedEvents.get();
+    }
+
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    public int getBufferedEvents() {
+        return maxBufferedEvents - bufferedEvents.availablePermits();
+    }
+}
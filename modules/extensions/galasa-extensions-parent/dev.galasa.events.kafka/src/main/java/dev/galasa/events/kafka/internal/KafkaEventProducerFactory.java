@@ -7,34 +7,61 @@ package dev.galasa.events.kafka.internal;
 
 import java.util.Properties;
 
+import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.common.security.plain.PlainLoginModule;
 import org.apache.kafka.common.serialization.StringSerializer;
 
+import dev.galasa.framework.spi.AbstractManager;
 import dev.galasa.framework.spi.ConfigurationPropertyStoreException;
 import dev.galasa.framework.spi.EventsException;
 import dev.galasa.framework.spi.IConfigurationPropertyStoreService;
+import dev.galasa.framework.spi.IEventProducer;
 
 public class KafkaEventProducerFactory implements IEventProducerFactory {
 
+    public static final String MODE_TRANSACTIONAL = "transactional";
+    public static final String MODE_BATCHED       = "batched";
+
+    // Not a Kafka setting, removed from the properties before the producer is created
+    static final String BUFFERED_EVENTS_PROPERTY = "galasa.buffered.events";
+
+    private static final String DEFAULT_LINGER_MS       = "20";
+    private static final String DEFAULT_BATCH_SIZE      = "65536";
+    private static final String DEFAULT_BUFFERED_EVENTS = "10000";
+    // How long a send may block waiting for topic metadata or buffer space, Kafka's default is 60s
+    private static final String DEFAULT_MAX_BLOCK_MS    = "500";
+
     private final String AUTH_TOKEN;
     private String runName;
 
     public KafkaEventProducerFactory(String authToken, String runName) {
         this.AUTH_TOKEN = authToken;
+        this.runName = runName;
     }
 
-    public KafkaEventProducer createProducer(Properties properties, String topic) throws EventsException {
-        KafkaEventProducer eventProducer = new KafkaEventProducer(properties, topic);
-        return eventProducer;
+    public IEventProducer createProducer(Properties properties, String topic) throws EventsException {
+        if (properties.containsKey("transactional.id")) {
+            return new KafkaEventProducer(properties, topic);
+        }
+
+        Properties producerProperties = new Properties();
+        producerProperties.putAll(properties);
+        int bufferedEvents = Integer.parseInt((String) producerProperties.remove(BUFFERED_EVENTS_PROPERTY));
+
+        return new BatchedKafkaEventProducer(new KafkaProducer<String, String>(producerProperties), topic, bufferedEvents);
     }
 
+    /**
+     * The producer is transactional unless kafka.producer.mode is batched. A batched
+     * producer is tuned with kafka.producer.linger.ms, kafka.producer.batch.size,
+     * kafka.producer.buffered.events, kafka.producer.max.block.ms and
+     * kafka.producer.idempotence
+     */
     public Properties createProducerConfig(IConfigurationPropertyStoreService cps, String topic) throws KafkaException {
         Properties properties = new Properties();
 
         try {
             String bootstrapServers = cps.getProperty("bootstrap", "servers");
-            // Transactional IDs need to be unique for each producer
-            String transactionalId = runName + "-" + topic;
 
             // Needed to get the Kafka classes at runtime
             Thread.currentThread().setContextClassLoader(this.getClass().getClassLoader());
@@ -49,13 +76,50 @@ public class KafkaEventProducerFactory implements IEventProducerFactory {
             properties.put("ssl.protocol", "TLSv1.2");
             properties.put("ssl.enabled.protocols", "TLSv1.2");
             properties.put("ssl.endpoint.identification.algorithm", "HTTPS");
-            properties.put("transactional.id", transactionalId);
+
+            String mode = getProperty(cps, "mode", MODE_TRANSACTIONAL);
+            if (MODE_BATCHED.equalsIgnoreCase(mode)) {
+                boolean idempotent = Boolean.parseBoolean(getProperty(cps, "idempotence", "true"));
+
+                properties.put("linger.ms", getNumber(cps, "linger.ms", DEFAULT_LINGER_MS));
+                properties.put("batch.size", getNumber(cps, "batch.size", DEFAULT_BATCH_SIZE));
+                properties.put("max.block.ms", getNumber(cps, "max.block.ms", DEFAULT_MAX_BLOCK_MS));
+                properties.put("enable.idempotence", Boolean.toString(idempotent));
+                properties.put("acks", idempotent ? "all" : "1");
+                properties.put(BUFFERED_EVENTS_PROPERTY, getNumber(cps, "buffered.events", DEFAULT_BUFFERED_EVENTS));
+            } else if (MODE_TRANSACTIONAL.equalsIgnoreCase(mode)) {
+                // Transactional IDs need to be unique for each producer
+                String transactionalId = runName + "-" + topic;
+                properties.put("transactional.id", transactionalId);
+            } else {
+                throw new KafkaException("Invalid Kafka producer mode '" + mode + "', expected " + MODE_TRANSACTIONAL + " or " + MODE_BATCHED);
+            }
 
         } catch (ConfigurationPropertyStoreException e) {
             throw new KafkaException("Unable to retrieve Kafka properties from the CPS", e);
         }
 
         return properties;
-    }   
-    
+    }
+
+    private String getProperty(IConfigurationPropertyStoreService cps, String suffix, String defaultValue) throws ConfigurationPropertyStoreException {
+        String value = AbstractManager.nulled(cps.getProperty("producer", suffix));
+        if (value == null) {
+            return defaultValue;
+        }
+        return value.trim();
+    }
+
+    private String getNumber(IConfigurationPropertyStoreService cps, String suffix, String defaultValue) throws ConfigurationPropertyStoreException, KafkaException {
+        String value = getProperty(cps, suffix, defaultValue);
+        try {
+            if (Integer.parseInt(value) < 0) {
+                throw new NumberFormatException();
+            }
+        } catch (NumberFormatException e) {
+            throw new KafkaException("Invalid value '" + value + "' for CPS property kafka.producer." + suffix);
+        }
+        return value;
+    }
+
 }
@@ -12,8 +12,8 @@ import dev.galasa.framework.spi.IEventsService;
 import dev.galasa.framework.spi.events.IEvent;
 
 import java.util.Map;
-import java.util.HashMap;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -28,8 +28,9 @@ public class KafkaEventsService implements IEventsService {
 
     // The EventProducers are cached so they can be reused for performance
     // Keyed on the name of the topic as one EventProducer is made for each topic
+    // Concurrent as events are produced from more than one thread.
     // Note: Private but getter method is so unit tests can access this.
-    private Map<String, IEventProducer> producers = new HashMap<String, IEventProducer>();
+    private Map<String, IEventProducer> producers = new ConcurrentHashMap<String, IEventProducer>();
 
     public KafkaEventsService(IConfigurationPropertyStoreService cps, IEventProducerFactory producerFactory) {
         this.cps = cps;
@@ -71,8 +72,13 @@ public class KafkaEventsService implements IEventsService {
     @Override
     public void shutdown() {
         logger.info("Shutting down all cached producers");
+        // Closing a producer flushes any events it is still batching
         for (Map.Entry<String, IEventProducer> entry : producers.entrySet()) {
-            entry.getValue().close();
+            try {
+                entry.getValue().close();
+            } catch (RuntimeException e) {
+                logger.error("Unable to close the producer for the topic " + entry.getKey(), e);
+            }
         }
         producers.clear();
     }
@@ -0,0 +1,148 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.events.kafka;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.Test;
+
+import dev.galasa.events.kafka.internal.BatchedKafkaEventProducer;
+import dev.galasa.events.kafka.internal.KafkaEventProducerFactory;
+import dev.galasa.events.kafka.internal.KafkaException;
+import dev.galasa.extensions.common.mocks.cps.MockConfigurationPropertyStoreService;
+import dev.galasa.extensions.common.mocks.events.MockEvent;
+
+public class TestBatchedKafkaEventProducer {
+
+    private MockProducer<String, String> createMockProducer() {
+        return new MockProducer<>(false, new StringSerializer(), new StringSerializer());
+    }
+
+    @Test
+    public void TestEventsAreSentWithoutWaitingForTheBrokers() throws Exception {
+        // Given...
+        MockProducer<String, String> mockProducer = createMockProducer();
+        BatchedKafkaEventProducer producer = new BatchedKafkaEventProducer(mockProducer, "Topic.MyTopic", 10);
+
+        // When...
+        producer.sendEvent(new MockEvent("2024-06-16T12:49:01.921998Z", "first"));
+        producer.sendEvent(new MockEvent("2024-06-16T12:49:01.921998Z", "second"));
+
+        // Then...
+        assertThat(mockProducer.history()).hasSize(2);
+        assertThat(mockProducer.transactionInFlight()).isFalse();
+        assertThat(producer.getBufferedEvents()).isEqualTo(2);
+        assertThat(producer.getSentEvents()).isZero();
+
+        // When...
+        mockProducer.completeNext();
+        mockProducer.errorNext(new RuntimeException("broker unavailable"));
+
+        // Then...
+        assertThat(producer.getBufferedEvents()).isZero();
+        assertThat(producer.getSentEvents()).isEqualTo(1);
+        assertThat(producer.getFailedEvents()).isEqualTo(1);
+    }
+
+    @Test
+    public void TestEventsAreDroppedWhenTheBufferIsFull() throws Exception {
+        // Given...
+        MockProducer<String, String> mockProducer = createMockProducer();
+        BatchedKafkaEventProducer producer = new BatchedKafkaEventProducer(mockProducer, "Topic.MyTopic", 2);
+
+        // When...
+        for (int i = 0; i < 5; i++) {
+            producer.sendEvent(new MockEvent("2024-06-16T12:49:01.921998Z", "event " + i));
+        }
+
+        // Then...
+        assertThat(mockProducer.history()).hasSize(2);
+        assertThat(producer.getDroppedEvents()).isEqualTo(3);
+
+        // When...
+        mockProducer.completeNext();
+        producer.sendEvent(new MockEvent("2024-06-16T12:49:01.921998Z", "after room was made"));
+
+        // Then...
+        assertThat(mockProducer.history()).hasSize(3);
+    }
+
+    @Test
+    public void TestCloseFlushesTheBufferedEvents() throws Exception {
+        // Given...
+        MockProducer<String, String> mockProducer = createMockProducer();
+        BatchedKafkaEventProducer producer = new BatchedKafkaEventProducer(mockProducer, "Topic.MyTopic", 10);
+        producer.sendEvent(new MockEvent("2024-06-16T12:49:01.921998Z", "first"));
+        producer.sendEvent(new MockEvent("2024-06-16T12:49:01.921998Z", "second"));
+
+        // When...
+        producer.close();
+
+        // Then...
+        assertThat(producer.getSentEvents()).isEqualTo(2);
+        assertThat(producer.getBufferedEvents()).isZero();
+        assertThat(mockProducer.closed()).isTrue();
+    }
+
+    @Test
+    public void TestBatchedModeConfigIsNotTransactional() throws Exception {
+        // Given...
+        Map<String, String> props = new HashMap<String, String>();
+        props.put("bootstrap.servers", "broker1,broker2");
+        props.put("producer.mode", "batched");
+        props.put("producer.linger.ms", "50");
+        KafkaEventProducerFactory factory = new KafkaEventProducerFactory("token", "U123");
+
+        // When...
+        Properties config = factory.createProducerConfig(new MockConfigurationPropertyStoreService(props), "Topic.MyTopic");
+
+        // Then...
+        assertThat(config).doesNotContainKey("transactional.id")
+            .containsEntry("linger.ms", "50")
+            .containsEntry("batch.size", "65536")
+            .containsEntry("max.block.ms", "500")
+            .containsEntry("enable.idempotence", "true")
+            .containsEntry("acks", "all");
+    }
+
+    @Test
+    public void TestTransactionalModeIsTheDefault() throws Exception {
+        // Given...
+        Map<String, String> props = new HashMap<String, String>();
+        props.put("bootstrap.servers", "broker1,broker2");
+        KafkaEventProducerFactory factory = new KafkaEventProducerFactory("token", "U123");
+
+        // When...
+        Properties config = factory.createProducerConfig(new MockConfigurationPropertyStoreService(props), "Topic.MyTopic");
+
+        // Then...
+        assertThat(config).containsEntry("transactional.id", "U123-Topic.MyTopic")
+            .doesNotContainKey("linger.ms");
+    }
+
+    @Test
+    public void TestInvalidModeReturnsError() throws Exception {
+        // Given...
+        Map<String, String> props = new HashMap<String, String>();
+        props.put("bootstrap.servers", "broker1,broker2");
+        props.put("producer.mode", "fast");
+        KafkaEventProducerFactory factory = new KafkaEventProducerFactory("token", "U123");
+
+        // When...
+        KafkaException thrown = catchThrowableOfType(
+            () -> factory.createProducerConfig(new MockConfigurationPropertyStoreService(props), "Topic.MyTopic"), KafkaException.class);
+
+        // Then...
+        assertThat(thrown).isNotNull();
+        assertThat(thrown.getMessage()).contains("Invalid Kafka producer mode 'fast'");
+    }
+}
@@ -6,6 +6,7 @@
 package dev.galasa.ras.couchdb.internal;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.net.URISyntaxException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
@@ -20,6 +21,8 @@ import javax.validation.constraints.NotNull;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 import org.apache.commons.logging.Log;
 import org.apache.http.HttpEntity;
@@ -51,11 +54,14 @@ import dev.galasa.framework.spi.ras.RasSearchCriteriaStatus;
 import dev.galasa.framework.spi.ras.RasTestClass;
 import dev.galasa.framework.spi.ras.ResultArchiveStoreFileStore;
 import dev.galasa.extensions.common.api.LogFactory;
-import dev.galasa.extensions.common.couchdb.pojos.IdRev;
-import dev.galasa.extensions.common.couchdb.pojos.Row;
 import dev.galasa.extensions.common.couchdb.pojos.ViewResponse;
 import dev.galasa.extensions.common.couchdb.pojos.ViewRow;
 import dev.galasa.extensions.common.api.HttpRequestFactory;
+import dev.galasa.ras.couchdb.internal.pojos.AllDocsKeys;
+import dev.galasa.ras.couchdb.internal.pojos.AllDocsRow;
+import dev.galasa.ras.couchdb.internal.pojos.BulkDocs;
+import dev.galasa.ras.couchdb.internal.pojos.BulkDocsResult;
+import dev.galasa.ras.couchdb.internal.pojos.DeletedDocument;
 import dev.galasa.ras.couchdb.internal.pojos.Find;
 import dev.galasa.ras.couchdb.internal.pojos.FoundRuns;
 import dev.galasa.ras.couchdb.internal.pojos.TestStructureCouchdb;
@@ -72,6 +78,10 @@ public class CouchdbDirectoryService implements IResultArchiveStoreDirectoryServ
 
     private static final int COUCHDB_RESULTS_LIMIT_PER_QUERY = 100;
 
+    // The number of runs fetched in each page of _all_docs, and the most documents deleted in one _bulk_docs request
+    private static final int COUCHDB_ALL_DOCS_PAGE_SIZE = 1000;
+    private static final int COUCHDB_BULK_DOCS_LIMIT = 1000;
+
     public CouchdbDirectoryService(CouchdbRasStore store, LogFactory logFactory, HttpRequestFactory requestFactory) {
         this.store = store;
         this.logFactory = logFactory;
@@ -147,7 +157,45 @@ public class CouchdbDirectoryService implements IResultArchiveStoreDirectoryServ
 
         ArrayList<IRunResult> runs = new ArrayList<>();
 
-        HttpGet httpGet = requestFactory.getHttpGetRequest(store.getCouchdbUri() + "/" + CouchdbRasStore.RUNS_DB + "/_all_docs");
+        // *** Page through the runs in document id order, each page starting after the last id of the previous one
+        String lastId = null;
+        while (true) {
+            AllDocsPage page = getAllRunsPage(lastId, runs);
+            if (page.rowCount < COUCHDB_ALL_DOCS_PAGE_SIZE || page.lastId == null) {
+                break;
+            }
+            lastId = page.lastId;
+        }
+
+        return runs;
+    }
+
+    private static class AllDocsPage {
+        private int    rowCount;
+        private String lastId;
+    }
+
+    /**
+     * Get one page of run documents using _all_docs with include_docs=true, so the
+     * runs come back with the page rather than being fetched one at a time. The
+     * response is parsed a row at a time, so only the run results are kept.
+     */
+    private AllDocsPage getAllRunsPage(String afterId, List<IRunResult> runs) throws ResultArchiveStoreException {
+        AllDocsPage page = new AllDocsPage();
+
+        HttpGet httpGet;
+        try {
+            URIBuilder builder = new URIBuilder(store.getCouchdbUri() + "/" + CouchdbRasStore.RUNS_DB + "/_all_docs");
+            builder.addParameter("include_docs", "true");
+            builder.addParameter("limit", Integer.toString(COUCHDB_ALL_DOCS_PAGE_SIZE));
+            if (afterId != null) {
+                builder.addParameter("startkey", store.getGson().toJson(afterId));
+                builder.addParameter("skip", "1");
+            }
+            httpGet = requestFactory.getHttpGetRequest(builder.build().toString());
+        } catch (URISyntaxException e) {
+            throw new ResultArchiveStoreException(e);
+        }
 
         try (CloseableHttpResponse response = store.getHttpClient().execute(httpGet)) {
             StatusLine statusLine = response.getStatusLine();
@@ -155,24 +203,32 @@ public class CouchdbDirectoryService implements IResultArchiveStoreDirectoryServ
                 throw new CouchdbRasException("Unable to find runs - " + statusLine.toString());
             }
 
-            HttpEntity entity = response.getEntity();
-            String responseEntity = EntityUtils.toString(entity);
-            FoundRuns found = store.getGson().fromJson(responseEntity, FoundRuns.class);
-            if (found.rows == null) {
-                throw new CouchdbRasException("Unable to find rows - Invalid JSON response");
-            }
-
-            if (found.warning != null) {
-                logger.warn("CouchDB warning detected - " + found.warning);
-            }
-
-            for (Row row : found.rows) {
-                CouchdbRunResult cdbrr = fetchRun(row.id);
-                if (cdbrr != null) {
-                    if (cdbrr.getTestStructure() != null && cdbrr.getTestStructure().isValid()) {
-                        runs.add(cdbrr);
+            boolean foundRows = false;
+            try (JsonReader reader = new JsonReader(new InputStreamReader(response.getEntity().getContent(), UTF8))) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    if ("rows".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                        foundRows = true;
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            AllDocsRow row = store.getGson().fromJson(reader, AllDocsRow.class);
+                            page.rowCount++;
+                            page.lastId = row.id;
+                            addRun(row, runs);
+                        }
+                        reader.endArray();
+                    } else if ("warning".equals(name) && reader.peek() == JsonToken.STRING) {
+                        logger.warn("CouchDB warning detected - " + reader.nextString());
+                    } else {
+                        reader.skipValue();
                     }
                 }
+                reader.endObject();
+            }
+
+            if (!foundRows) {
+                throw new CouchdbRasException("Unable to find rows - Invalid JSON response");
             }
         } catch (CouchdbRasException e) {
             throw e;
@@ -180,7 +236,17 @@ public class CouchdbDirectoryService implements IResultArchiveStoreDirectoryServ
             throw new ResultArchiveStoreException("Unable to find runs", e);
         }
 
-        return runs;
+        return page;
+    }
+
+    private void addRun(AllDocsRow row, List<IRunResult> runs) {
+        if (row.id == null || row.id.startsWith("_design/") || row.doc == null) {
+            return;
+        }
+
+        if (row.doc.isValid()) {
+            runs.add(new CouchdbRunResult(store, row.doc, logFactory));
+        }
     }
 
     private CouchdbRunResult fetchRun(String id) throws ParseException, IOException, ResultArchiveStoreException {
@@ -442,19 +508,99 @@ public class CouchdbDirectoryService implements IResultArchiveStoreDirectoryServ
     }
 
     private void discardRunLogs(List<String> ids) throws ResultArchiveStoreException {
-        for (String id : ids) {
-            discardRecord(CouchdbRasStore.LOG_DB, id);
-        }
+        discardRecords(CouchdbRasStore.LOG_DB, ids);
     }
 
     private void discardRunArtifacts(List<String> ids) throws ResultArchiveStoreException {
-        for (String id : ids) {
-            discardRecord(CouchdbRasStore.ARTIFACTS_DB, id);
+        discardRecords(CouchdbRasStore.ARTIFACTS_DB, ids);
+    }
+
+    /**
+     * Delete a set of documents with one request to look up their revisions and one
+     * _bulk_docs request to delete them, rather than a pair of requests per document.
+     * Documents which no longer exist are ignored.
+     */
+    private void discardRecords(String databaseName, List<String> ids) throws ResultArchiveStoreException {
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+
+        for (int start = 0; start < ids.size(); start += COUCHDB_BULK_DOCS_LIMIT) {
+            List<String> batchIds = ids.subList(start, Math.min(ids.size(), start + COUCHDB_BULK_DOCS_LIMIT));
+
+            BulkDocs bulkDocs = new BulkDocs();
+            bulkDocs.docs = new ArrayList<>();
+            for (AllDocsRow row : getRevisions(databaseName, batchIds)) {
+                if (row.id != null && row.value != null && row.value.rev != null && !Boolean.TRUE.equals(row.value.deleted)) {
+                    bulkDocs.docs.add(new DeletedDocument(row.id, row.value.rev));
+                }
+            }
+
+            if (!bulkDocs.docs.isEmpty()) {
+                deleteDocuments(databaseName, bulkDocs);
+            }
         }
     }
 
-    private void discardRecord(String databaseName, String id) throws ResultArchiveStoreException {
-        discardRecord(databaseName, id, getRevision(databaseName, id));
+    private List<AllDocsRow> getRevisions(String databaseName, List<String> ids) throws ResultArchiveStoreException {
+        HttpPost httpPost = requestFactory.getHttpPostRequest(store.getCouchdbUri() + "/" + databaseName + "/_all_docs");
+
+        AllDocsKeys keys = new AllDocsKeys();
+        keys.keys = ids;
+        httpPost.setEntity(new StringEntity(store.getGson().toJson(keys), UTF8));
+
+        try (CloseableHttpResponse response = store.getHttpClient().execute(httpPost)) {
+            StatusLine statusLine = response.getStatusLine();
+            String responseEntity = EntityUtils.toString(response.getEntity());
+
+            if (statusLine.getStatusCode() != HttpStatus.SC_OK) {
+                throw new CouchdbRasException("Unable to find documents in " + databaseName + " - " + statusLine.toString());
+            }
+
+            AllDocsRows found = store.getGson().fromJson(responseEntity, AllDocsRows.class);
+            if (found == null || found.rows == null) {
+                throw new CouchdbRasException("Unable to find rows - Invalid JSON response");
+            }
+            return found.rows;
+        } catch (CouchdbRasException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ResultArchiveStoreException("Unable to find documents in " + databaseName, e);
+        }
+    }
+
+    private static class AllDocsRows {
+        private List<AllDocsRow> rows;
+    }
+
+    private void deleteDocuments(String databaseName, BulkDocs bulkDocs) throws ResultArchiveStoreException {
+        HttpPost httpPost = requestFactory.getHttpPostRequest(store.getCouchdbUri() + "/" + databaseName + "/_bulk_docs");
+        httpPost.setEntity(new StringEntity(store.getGson().toJson(bulkDocs), UTF8));
+
+        try (CloseableHttpResponse response = store.getHttpClient().execute(httpPost)) {
+            StatusLine statusLine = response.getStatusLine();
+            String responseEntity = EntityUtils.toString(response.getEntity());
+
+            if (statusLine.getStatusCode() != HttpStatus.SC_CREATED) {
+                throw new CouchdbRasException("Unable to delete documents from " + databaseName + " - " + statusLine.toString());
+            }
+
+            BulkDocsResult[] results = store.getGson().fromJson(responseEntity, BulkDocsResult[].class);
+            if (results == null) {
+                throw new CouchdbRasException("Unable to delete documents from " + databaseName + " - Invalid JSON response");
+            }
+
+            for (BulkDocsResult result : results) {
+                if (result.error != null && !"not_found".equals(result.error)) {
+                    throw new CouchdbRasException("Unable to delete document " + result.id + " from " + databaseName
+                            + " - " + result.error + ": " + result.reason);
+                }
+            }
+        } catch (CouchdbRasException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ResultArchiveStoreException("Failed to delete documents from " + databaseName, e);
+        }
     }
 
     private void discardRecord(String databaseName, String id, String revision) throws ResultArchiveStoreException {
@@ -479,31 +625,6 @@ public class CouchdbDirectoryService implements IResultArchiveStoreDirectoryServ
         }
     }
 
-    private String getRevision(String databaseName, String id) throws ResultArchiveStoreException {
-        HttpGet httpGet = requestFactory.getHttpGetRequest(store.getCouchdbUri() + "/"+ databaseName+"/"+id);
-
-        try (CloseableHttpResponse response = store.getHttpClient().execute(httpGet)) {
-            StatusLine statusLine = response.getStatusLine();
-            HttpEntity entity = response.getEntity();
-            String responseEntity = EntityUtils.toString(entity);
-
-            if (statusLine.getStatusCode() != HttpStatus.SC_OK) {
-                throw new CouchdbRasException("Unable to find runs - " + statusLine.toString());
-            }
-
-            IdRev found = store.getGson().fromJson(responseEntity, IdRev.class);
-            if (found._id == null) {
-                throw new CouchdbRasException("Unable to find runs - Invalid JSON response");
-            }
-            if (found._rev == null) {
-                throw new CouchdbRasException("Unable to find rev - Invalid JSON response");
-            }
-            return found._rev;
-        } catch (Exception e) {
-            throw new ResultArchiveStoreException(e);
-        }
-    }
-
     private JsonObject buildGetRunsQuery(IRasSearchCriteria... searchCriterias) throws ResultArchiveStoreException {
         JsonObject selector = new JsonObject();
         JsonArray and = new JsonArray();
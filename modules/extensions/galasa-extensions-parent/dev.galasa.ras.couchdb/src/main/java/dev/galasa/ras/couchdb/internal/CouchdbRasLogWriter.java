@@ -0,0 +1,322 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.ras.couchdb.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.logging.Log;
+
+import dev.galasa.extensions.common.api.LogFactory;
+import dev.galasa.framework.spi.ResultArchiveStoreException;
+
+/**
+ * Writes the run log to the RAS on a background thread.
+ *
+ * Log lines are put on a bounded queue by the test thread and returned straight away.
+ * The writer thread takes them off the queue in batches, a batch being sent when it
+ * is full or when its oldest line has waited for the maximum delay.
+ *
+ * The run document only needs updating so it refers to the new log records, so that
+ * update is made once the queue has been drained rather than after every batch, and
+ * as it is made by the writer thread there is never more than one in flight.
+ *
+ * If the queue is full the test thread waits for space, so a test producing log
+ * faster than the RAS can store it is slowed down rather than running out of memory.
+ */
+public class CouchdbRasLogWriter implements Runnable {
+
+    /**
+     * Where the writer sends the batches of log lines.
+     */
+    public interface LogBatchStore {
+
+        /**
+         * Store a batch of log lines as a single log record
+         */
+        void storeLogLines(@NotNull List<String> lines) throws ResultArchiveStoreException;
+
+        /**
+         * Called once the queued log lines have been stored, so the run can be
+         * updated to refer to the new log records
+         */
+        void logLinesStored() throws ResultArchiveStoreException;
+    }
+
+    // *** Put on the queue to wake up the writer thread when a flush is wanted
+    private static final String           FLUSH_MARKER         = new String("flush");
+
+    private static final long             FLUSH_TIMEOUT_MILLIS = 30000;
+    private static final long             OFFER_WAIT_MILLIS    = 100;
+
+    private final Log                     logger;
+
+    private final LogBatchStore           store;
+    private final int                     batchSize;
+    private final long                    maxBatchDelayMillis;
+
+    private final LinkedBlockingQueue<String> queue;
+
+    private final Object                  flushLock            = new Object();
+    private long                          flushesRequested     = 0;
+    private long                          flushesCompleted     = 0;
+
+    private volatile boolean              stopping             = false;
+    private volatile boolean              running              = false;
+    private Thread                        writerThread;
+
+    // *** Only used by the writer thread, or by the shutdown thread once the writer has stopped
+    private final ArrayList<String>       pending;
+    private long                          pendingSince         = 0;
+    private long                          lastStructureUpdate  = 0;
+    private boolean                       linesStoredSinceUpdate = false;
+
+    /**
+     * @param store               where the log lines are sent
+     * @param logFactory          used to create the logger
+     * @param batchSize           the maximum number of lines in a log record
+     * @param maxBatchDelayMillis how long a line may wait before a part filled batch is sent
+     * @param queueCapacity       how many lines can be waiting before writers are blocked
+     */
+    public CouchdbRasLogWriter(LogBatchStore store, LogFactory logFactory, int batchSize, long maxBatchDelayMillis, int queueCapacity) {
+        this.logger = logFactory.getLog(getClass());
+        this.store = store;
+        this.batchSize = batchSize;
+        this.maxBatchDelayMillis = maxBatchDelayMillis;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.pending = new ArrayList<>(batchSize);
+    }
+
+    public synchronized void start() {
+        if (writerThread != null) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this, "couchdb-ras-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Queue log lines to be written, waiting for space if the queue is full.
+     */
+    public void writeLines(@NotNull List<String> lines) throws ResultArchiveStoreException {
+        for (String line : lines) {
+            try {
+                while (!queue.offer(line, OFFER_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (!running) {
+                        throw new ResultArchiveStoreException("The log writer has stopped, unable to store the test log");
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ResultArchiveStoreException("Interrupted waiting to store the test log", e);
+            }
+        }
+    }
+
+    /**
+     * Wait for every line queued so far to be stored and the run to be updated.
+     */
+    public void flush() {
+        if (!running) {
+            return;
+        }
+
+        synchronized (flushLock) {
+            long target = ++flushesRequested;
+
+            // *** If the queue is full the writer is busy and will see the request anyway
+            queue.offer(FLUSH_MARKER);
+
+            long deadline = System.currentTimeMillis() + FLUSH_TIMEOUT_MILLIS;
+            while (flushesCompleted < target && running) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    logger.warn("Timed out waiting for the test log to be flushed");
+                    return;
+                }
+                try {
+                    flushLock.wait(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop the writer thread once it has stored everything already queued. Anything it
+     * fails to store is stored on the calling thread.
+     */
+    public void shutdown() {
+        Thread thread;
+        synchronized (this) {
+            thread = writerThread;
+            stopping = true;
+        }
+
+        if (thread != null) {
+            queue.offer(FLUSH_MARKER);
+            try {
+                thread.join(FLUSH_TIMEOUT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (thread.isAlive()) {
+                logger.warn("The log writer did not finish storing the test log in time");
+                return;
+            }
+        }
+
+        // *** Pick up anything left behind, or everything if the thread was never started
+        writeQueuedLines(true);
+        updateStructure();
+    }
+
+    public int getQueuedLineCount() {
+        return queue.size();
+    }
+
+    @Override
+    public void run() {
+        lastStructureUpdate = System.currentTimeMillis();
+        try {
+            while (true) {
+                long flushTarget;
+                synchronized (flushLock) {
+                    flushTarget = flushesRequested;
+                }
+                boolean flushWanted = flushTarget > flushesCompleted;
+
+                if (!flushWanted && !stopping) {
+                    waitForLine();
+                    synchronized (flushLock) {
+                        flushTarget = flushesRequested;
+                    }
+                    flushWanted = flushTarget > flushesCompleted;
+                }
+
+                boolean drainAll = flushWanted || stopping;
+                takeQueuedLines();
+
+                long now = System.currentTimeMillis();
+                if (pending.size() >= batchSize
+                        || (!pending.isEmpty() && (drainAll || now - pendingSince >= maxBatchDelayMillis))) {
+                    writeQueuedLines(drainAll);
+                }
+
+                if (linesStoredSinceUpdate
+                        && (drainAll || (pending.isEmpty() && queue.isEmpty())
+                            || now - lastStructureUpdate >= maxBatchDelayMillis)) {
+                    updateStructure();
+                }
+
+                if (flushWanted) {
+                    synchronized (flushLock) {
+                        flushesCompleted = Math.max(flushesCompleted, flushTarget);
+                        flushLock.notifyAll();
+                    }
+                }
+
+                if (stopping && pending.isEmpty() && queue.isEmpty()) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running = false;
+            synchronized (flushLock) {
+                flushLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Wait for the next line, or until the oldest pending line is due to be sent.
+     */
+    private void waitForLine() throws InterruptedException {
+        long wait = maxBatchDelayMillis;
+        if (!pending.isEmpty()) {
+            wait = pendingSince + maxBatchDelayMillis - System.currentTimeMillis();
+            if (wait <= 0) {
+                return;
+            }
+        }
+
+        String line = queue.poll(wait, TimeUnit.MILLISECONDS);
+        if (line != null && line != FLUSH_MARKER) {
+            addPending(line);
+        }
+    }
+
+    /**
+     * Move lines from the queue into the pending batch, up to the batch size
+     */
+    private void takeQueuedLines() {
+        while (pending.size() < batchSize) {
+            String line = queue.poll();
+            if (line == null) {
+                return;
+            }
+            if (line != FLUSH_MARKER) {
+                addPending(line);
+            }
+        }
+    }
+
+    private void addPending(String line) {
+        if (pending.isEmpty()) {
+            pendingSince = System.currentTimeMillis();
+        }
+        pending.add(line);
+    }
+
+    /**
+     * Send the pending batch
+     *
+     * @param drainAll true to carry on until everything queued has been sent
+     */
+    private void writeQueuedLines(boolean drainAll) {
+        while (true) {
+            takeQueuedLines();
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            try {
+                store.storeLogLines(new ArrayList<>(pending));
+                linesStoredSinceUpdate = true;
+            } catch (Exception e) {
+                logger.error("Unable to store " + pending.size() + " lines of the test log", e);
+            }
+            pending.clear();
+
+            if (!drainAll) {
+                return;
+            }
+        }
+    }
+
+    private void updateStructure() {
+        if (!linesStoredSinceUpdate) {
+            return;
+        }
+        linesStoredSinceUpdate = false;
+        lastStructureUpdate = System.currentTimeMillis();
+        try {
+            store.logLinesStored();
+        } catch (Exception e) {
+            logger.error("Unable to update the run with the new log records", e);
+        }
+    }
+}
@@ -56,6 +56,13 @@ public class CouchdbRasStore extends CouchdbStore implements IResultArchiveStore
     public static final String RUNS_DB              = "galasa_run";
     public static final String LOG_DB               = "galasa_log";
 
+    // *** The most lines held in a single log record, and how long a part filled record waits before it is sent
+    private static final int   LOG_BATCH_SIZE             = 100;
+    private static final long  LOG_BATCH_MAX_DELAY_MILLIS = 1000;
+
+    // *** How many log lines can be waiting to be sent before the test is made to wait
+    private static final int   LOG_QUEUE_CAPACITY         = 10000;
+
     private final Log                          logger            ;
 
     private final IFramework                   framework;                                         // NOSONAR
@@ -72,9 +79,10 @@ public class CouchdbRasStore extends CouchdbStore implements IResultArchiveStore
 
     private long                               logOrder           = 0;
 
-    private final ArrayList<String>            logCache           = new ArrayList<>(100);
+    private CouchdbRasLogWriter                logWriter;
 
     private ArrayList<String>                  logIds             = new ArrayList<>();
+    private int                                logIdsInRunDocument = 0;
     private ArrayList<String>                  artifactDocumentId = new ArrayList<>();;
     private String                             artifactDocumentRev;
 
@@ -120,6 +128,10 @@ public class CouchdbRasStore extends CouchdbStore implements IResultArchiveStore
             }
 
             createArtifactDocument();
+
+            this.logWriter = new CouchdbRasLogWriter(new LogBatchStore(), this.logFactory,
+                LOG_BATCH_SIZE, LOG_BATCH_MAX_DELAY_MILLIS, LOG_QUEUE_CAPACITY);
+            this.logWriter.start();
         }
 
         ResultArchiveStoreFileStore fileStore = new ResultArchiveStoreFileStore();
@@ -151,26 +163,17 @@ public class CouchdbRasStore extends CouchdbStore implements IResultArchiveStore
 
         String[] lines = message.split("\r\n?|\n");
 
-        synchronized (logCache) {
-            logCache.addAll(Arrays.asList(lines));
-            if (logCache.size() >= 100) {
-                flushLogCache();
-            }
-        }
+        logWriter.writeLines(Arrays.asList(lines));
     }
 
-    private void flushLogCache() throws ResultArchiveStoreException {
+    /**
+     * Store a batch of log lines as a new log record. Called on the log writer thread.
+     */
+    private void storeLogLines(List<String> lines) throws ResultArchiveStoreException {
         LogLines logLines = new LogLines();
-        synchronized (logCache) {
-            if (logCache.isEmpty()) {
-                return;
-            }
-            logLines.lines = new ArrayList<>(logCache);
-            logOrder++;
-            logLines.order = logOrder;
-
-            logCache.clear();
-        }
+        logLines.lines = lines;
+        logOrder++;
+        logLines.order = logOrder;
         logLines.runName = this.run.getName();
         logLines.runId = this.runDocumentId;
 
@@ -186,8 +189,10 @@ public class CouchdbRasStore extends CouchdbStore implements IResultArchiveStore
                 throw new CouchdbException("Unable to store the test structure - Invalid JSON response");
             }
 
-            this.logIds.add(putPostResponse.id);
-            this.updateTestStructure(lastTestStructure);
+            // *** The log ids are serialised in to the run document, so only change them under the same lock
+            synchronized (this) {
+                this.logIds.add(putPostResponse.id);
+            }
         } catch (CouchdbException e) {
             throw new ResultArchiveStoreException(e);
         } catch (Exception e) {
@@ -195,6 +200,16 @@ public class CouchdbRasStore extends CouchdbStore implements IResultArchiveStore
         }
     }
 
+    /**
+     * Update the run document so it refers to the new log records, unless a test
+     * structure update has already done so.
+     */
+    private synchronized void updateLogRecordIds() throws ResultArchiveStoreException {
+        if (this.logIds.size() != this.logIdsInRunDocument) {
+            this.updateTestStructure(lastTestStructure);
+        }
+    }
+
     @Override
     public void writeLog(@NotNull List<String> messages) throws ResultArchiveStoreException {
         if (this.run == null) {
@@ -237,6 +252,7 @@ public class CouchdbRasStore extends CouchdbStore implements IResultArchiveStore
                 }
                 this.runDocumentId = putPostResponse.id;
                 this.runDocumentRevision = putPostResponse.rev;
+                this.logIdsInRunDocument = this.logIds.size();
         } catch (CouchdbException e){
             throw new ResultArchiveStoreException(e);
         }
@@ -291,20 +307,16 @@ public class CouchdbRasStore extends CouchdbStore implements IResultArchiveStore
 
     @Override
     public void flush() {
-        try {
-            flushLogCache();
-        } catch (ResultArchiveStoreException e) {
-            logger.error("Error with heartbeat flush", e);
+        if (this.logWriter != null) {
+            this.logWriter.flush();
         }
     }
 
     @Override
     public void shutdown() {
         this.shutdown = true;
-        try {
-            flushLogCache();
-        } catch (ResultArchiveStoreException e) {
-            logger.error("Error with shutdown flush", e);
+        if (this.logWriter != null) {
+            this.logWriter.shutdown();
         }
 
         try {
@@ -360,4 +372,17 @@ public class CouchdbRasStore extends CouchdbStore implements IResultArchiveStore
    public HttpRequestFactory getRequestFactory() {
      return this.httpRequestFactory;
    }
+
+    private class LogBatchStore implements CouchdbRasLogWriter.LogBatchStore {
+
+        @Override
+        public void storeLogLines(@NotNull List<String> lines) throws ResultArchiveStoreException {
+            CouchdbRasStore.this.storeLogLines(lines);
+        }
+
+        @Override
+        public void logLinesStored() throws ResultArchiveStoreException {
+            CouchdbRasStore.this.updateLogRecordIds();
+        }
+    }
 }
@@ -0,0 +1,15 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.ras.couchdb.internal.pojos;
+
+import java.util.List;
+
+// The request body used to look up a set of documents with POST /{db}/_all_docs
+public class AllDocsKeys {
+
+    public List<String> keys; // NOSONAR
+
+}
@@ -0,0 +1,21 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.ras.couchdb.internal.pojos;
+
+// A row returned by the _all_docs endpoint. The doc is only present if include_docs=true was requested
+public class AllDocsRow {
+
+    public String               id;    // NOSONAR
+
+    public String               key;   // NOSONAR
+
+    public AllDocsRevision      value; // NOSONAR
+
+    public TestStructureCouchdb doc;   // NOSONAR
+
+    public String               error; // NOSONAR
+
+}
@@ -0,0 +1,15 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.ras.couchdb.internal.pojos;
+
+import java.util.List;
+
+// The request body for POST /{db}/_bulk_docs
+public class BulkDocs {
+
+    public List<DeletedDocument> docs; // NOSONAR
+
+}
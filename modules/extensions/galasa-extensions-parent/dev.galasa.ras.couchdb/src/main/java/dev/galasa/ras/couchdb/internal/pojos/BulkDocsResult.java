@@ -0,0 +1,21 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.ras.couchdb.internal.pojos;
+
+// One entry in the array returned by POST /{db}/_bulk_docs
+public class BulkDocsResult {
+
+    public String  id;     // NOSONAR
+
+    public String  rev;    // NOSONAR
+
+    public Boolean ok;     // NOSONAR
+
+    public String  error;  // NOSONAR
+
+    public String  reason; // NOSONAR
+
+}
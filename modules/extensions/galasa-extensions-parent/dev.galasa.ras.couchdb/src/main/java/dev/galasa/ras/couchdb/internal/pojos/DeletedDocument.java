@@ -0,0 +1,22 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.ras.couchdb.internal.pojos;
+
+// A document to be deleted with _bulk_docs, the revision must be the current one
+public class DeletedDocument {
+
+    public String  _id;             // NOSONAR
+
+    public String  _rev;            // NOSONAR
+
+    public boolean _deleted = true; // NOSONAR
+
+    public DeletedDocument(String id, String rev) {
+        this._id = id;
+        this._rev = rev;
+    }
+
+}
@@ -11,6 +11,7 @@ import java.io.IOException;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import javax.validation.constraints.NotNull;
 
@@ -21,7 +22,6 @@ import org.apache.http.client.methods.HttpPost;
 import org.apache.http.util.EntityUtils;
 import org.junit.Test;
 
-import dev.galasa.extensions.common.couchdb.pojos.IdRev;
 import dev.galasa.extensions.common.impl.HttpRequestFactoryImpl;
 import dev.galasa.extensions.common.mocks.BaseHttpInteraction;
 import dev.galasa.extensions.common.mocks.HttpInteraction;
@@ -42,6 +42,9 @@ import dev.galasa.framework.spi.ras.RasSortField;
 import dev.galasa.framework.spi.teststructure.TestStructure;
 import dev.galasa.ras.couchdb.internal.mocks.CouchdbTestFixtures;
 import dev.galasa.ras.couchdb.internal.mocks.MockLogFactory;
+import dev.galasa.ras.couchdb.internal.pojos.AllDocsRevision;
+import dev.galasa.ras.couchdb.internal.pojos.AllDocsRow;
+import dev.galasa.ras.couchdb.internal.pojos.BulkDocsResult;
 import dev.galasa.ras.couchdb.internal.pojos.FoundRuns;
 import dev.galasa.ras.couchdb.internal.pojos.TestStructureCouchdb;
 
@@ -97,11 +100,34 @@ public class CouchdbDirectoryServiceTest {
         }
     }
 
-    class GetDocumentByIdFromCouchdbInteraction extends BaseHttpInteraction {
+    class PostCouchdbDocumentsInteraction extends BaseHttpInteraction {
 
-        public GetDocumentByIdFromCouchdbInteraction(String expectedUri, int statusCode, IdRev idRev) {
+        private String[] expectedRequestBodyParts;
+
+        public PostCouchdbDocumentsInteraction(String expectedUri, int statusCode, Object responsePayload, String... expectedRequestBodyParts) {
             super(expectedUri, statusCode);
-            setResponsePayload(idRev);
+            setResponsePayload(responsePayload);
+            this.expectedRequestBodyParts = expectedRequestBodyParts;
+        }
+
+        @Override
+        public void validateRequest(HttpHost host, HttpRequest request) throws RuntimeException {
+            super.validateRequest(host,request);
+            assertThat(request.getRequestLine().getMethod()).isEqualTo("POST");
+            try {
+                String requestBody = EntityUtils.toString(((HttpPost) request).getEntity());
+                assertThat(requestBody).contains(expectedRequestBodyParts);
+            } catch (IOException ex) {
+                fail("Failed to parse POST request body");
+            }
+        }
+    }
+
+    class GetAllDocsFromCouchdbInteraction extends BaseHttpInteraction {
+
+        public GetAllDocsFromCouchdbInteraction(String expectedUri, List<AllDocsRow> rows) {
+            super(expectedUri, HttpStatus.SC_OK);
+            setResponsePayload(Map.of("total_rows", rows.size(), "rows", rows));
         }
 
         @Override
@@ -134,6 +160,97 @@ public class CouchdbDirectoryServiceTest {
         return mockTestStructure;
     }
 
+    private AllDocsRow createAllDocsRow(String id, String revision, TestStructureCouchdb doc) {
+        AllDocsRow row = new AllDocsRow();
+        row.id = id;
+        row.key = id;
+        row.value = new AllDocsRevision();
+        row.value.rev = revision;
+        row.doc = doc;
+        return row;
+    }
+
+    private AllDocsRow createMissingAllDocsRow(String id) {
+        AllDocsRow row = new AllDocsRow();
+        row.key = id;
+        row.error = "not_found";
+        return row;
+    }
+
+    private BulkDocsResult createBulkDocsResult(String id, String error) {
+        BulkDocsResult result = new BulkDocsResult();
+        result.id = id;
+        if (error == null) {
+            result.ok = true;
+            result.rev = "2-deleted";
+        } else {
+            result.error = error;
+            result.reason = "something went wrong";
+        }
+        return result;
+    }
+
+    //------------------------------------------
+    //
+    // Tests for getting all runs
+    //
+    //------------------------------------------
+
+    @Test
+    public void testGetRunsWithNoCriteriaReturnsRunsFromAllDocsWithoutFetchingEachRun() throws Exception {
+        // Given...
+        List<AllDocsRow> rows = List.of(
+            createAllDocsRow("_design/docs", "1-abc", null),
+            createAllDocsRow("run1", "1-abc", createRunTestStructure("run1")),
+            createAllDocsRow("run2", "1-abc", new TestStructureCouchdb()),
+            createAllDocsRow("run3", "1-abc", createRunTestStructure("run3"))
+        );
+
+        String expectedUri = "http://my.uri/galasa_run/_all_docs?include_docs=true&limit=1000";
+        List<HttpInteraction> interactions = List.of(
+            new GetAllDocsFromCouchdbInteraction(expectedUri, rows)
+        );
+
+        MockLogFactory mockLogFactory = new MockLogFactory();
+        CouchdbRasStore mockRasStore = fixtures.createCouchdbRasStore(interactions, mockLogFactory);
+        CouchdbDirectoryService directoryService = new CouchdbDirectoryService(mockRasStore, mockLogFactory, new HttpRequestFactoryImpl());
+
+        // When...
+        List<IRunResult> runs = directoryService.getRuns();
+
+        // Then...
+        // The design document and the run without a name are skipped
+        assertThat(runs).extracting(IRunResult::getRunId).containsExactly("cdb-run1", "cdb-run3");
+    }
+
+    @Test
+    public void testGetRunsWithNoCriteriaPagesThroughAllDocs() throws Exception {
+        // Given...
+        List<AllDocsRow> firstPage = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String runId = String.format("run%04d", i);
+            firstPage.add(createAllDocsRow(runId, "1-abc", createRunTestStructure(runId)));
+        }
+        List<AllDocsRow> lastPage = List.of(createAllDocsRow("run1000", "1-abc", createRunTestStructure("run1000")));
+
+        String baseUri = "http://my.uri/galasa_run/_all_docs?include_docs=true&limit=1000";
+        List<HttpInteraction> interactions = List.of(
+            new GetAllDocsFromCouchdbInteraction(baseUri, firstPage),
+            new GetAllDocsFromCouchdbInteraction(baseUri + "&startkey=%22run0999%22&skip=1", lastPage)
+        );
+
+        MockLogFactory mockLogFactory = new MockLogFactory();
+        CouchdbRasStore mockRasStore = fixtures.createCouchdbRasStore(interactions, mockLogFactory);
+        CouchdbDirectoryService directoryService = new CouchdbDirectoryService(mockRasStore, mockLogFactory, new HttpRequestFactoryImpl());
+
+        // When...
+        List<IRunResult> runs = directoryService.getRuns();
+
+        // Then...
+        assertThat(runs).hasSize(1001);
+        assertThat(runs.get(1000).getRunId()).isEqualTo("cdb-run1000");
+    }
+
     //------------------------------------------
     //
     // Tests for getting runs by criteria
@@ -564,10 +681,7 @@ public class CouchdbDirectoryServiceTest {
         String runId = "ABC123";
         TestStructureCouchdb mockRun1 = createRunTestStructure(runId);
 
-        IdRev mockIdRev = new IdRev();
         String revision = "this-is-a-revision";
-        mockIdRev._id = "this-is-an-id";
-        mockIdRev._rev = revision;
 
         String artifactId1 = "artifact1";
         String artifactId2 = "artifact2";
@@ -585,17 +699,21 @@ public class CouchdbDirectoryServiceTest {
         String artifactsDbUri = baseUri + "/" + CouchdbRasStore.ARTIFACTS_DB;
         String logsDbUri = baseUri + "/" + CouchdbRasStore.LOG_DB;
         List<HttpInteraction> interactions = List.of(            
-            // Start discarding the run's log records
-            new GetDocumentByIdFromCouchdbInteraction(logsDbUri + "/" + logId1, HttpStatus.SC_OK, mockIdRev),
-            new DeleteDocumentFromCouchdbInteraction(logsDbUri + "/" + logId1 + "?rev=" + revision, HttpStatus.SC_OK),
-            new GetDocumentByIdFromCouchdbInteraction(logsDbUri + "/" + logId2, HttpStatus.SC_OK, mockIdRev),
-            new DeleteDocumentFromCouchdbInteraction(logsDbUri + "/" + logId2 + "?rev=" + revision, HttpStatus.SC_OK),
+            // Discard the run's log records with one lookup and one bulk delete
+            new PostCouchdbDocumentsInteraction(logsDbUri + "/_all_docs", HttpStatus.SC_OK,
+                Map.of("rows", List.of(createAllDocsRow(logId1, revision, null), createAllDocsRow(logId2, revision, null))),
+                "\"keys\"", logId1, logId2),
+            new PostCouchdbDocumentsInteraction(logsDbUri + "/_bulk_docs", HttpStatus.SC_CREATED,
+                List.of(createBulkDocsResult(logId1, null), createBulkDocsResult(logId2, null)),
+                logId1, logId2, revision, "\"_deleted\": true"),
             
-            // Start discarding the run's artifact records
-            new GetDocumentByIdFromCouchdbInteraction(artifactsDbUri + "/" + artifactId1, HttpStatus.SC_OK, mockIdRev),
-            new DeleteDocumentFromCouchdbInteraction(artifactsDbUri + "/" + artifactId1 + "?rev=" + revision, HttpStatus.SC_OK),
-            new GetDocumentByIdFromCouchdbInteraction(artifactsDbUri + "/" + artifactId2, HttpStatus.SC_OK, mockIdRev),
-            new DeleteDocumentFromCouchdbInteraction(artifactsDbUri + "/" + artifactId2 + "?rev=" + revision, HttpStatus.SC_OK),
+            // Discard the run's artifact records in the same way
+            new PostCouchdbDocumentsInteraction(artifactsDbUri + "/_all_docs", HttpStatus.SC_OK,
+                Map.of("rows", List.of(createAllDocsRow(artifactId1, revision, null), createAllDocsRow(artifactId2, revision, null))),
+                artifactId1, artifactId2),
+            new PostCouchdbDocumentsInteraction(artifactsDbUri + "/_bulk_docs", HttpStatus.SC_CREATED,
+                List.of(createBulkDocsResult(artifactId1, null), createBulkDocsResult(artifactId2, null)),
+                artifactId1, artifactId2),
 
             // Delete the record of the run
             new DeleteDocumentFromCouchdbInteraction(runDbUri + "?rev=" + mockRun1._rev, HttpStatus.SC_OK)
@@ -618,10 +736,7 @@ public class CouchdbDirectoryServiceTest {
         String runId = "ABC123";
         TestStructureCouchdb mockRun1 = createRunTestStructure(runId);
 
-        IdRev mockIdRev = new IdRev();
         String revision = "this-is-a-revision";
-        mockIdRev._id = "this-is-an-id";
-        mockIdRev._rev = revision;
 
         String logId1 = "log1"; 
         String logId2 = "log2"; 
@@ -633,11 +748,13 @@ public class CouchdbDirectoryServiceTest {
         String runDbUri = baseUri + "/" + CouchdbRasStore.RUNS_DB + "/" + runId;
         String logsDbUri = baseUri + "/" + CouchdbRasStore.LOG_DB;
         List<HttpInteraction> interactions = List.of(
-            // Start discarding the run's log records
-            new GetDocumentByIdFromCouchdbInteraction(logsDbUri + "/" + logId1, HttpStatus.SC_OK, mockIdRev),
-            new DeleteDocumentFromCouchdbInteraction(logsDbUri + "/" + logId1 + "?rev=" + revision, HttpStatus.SC_OK),
-            new GetDocumentByIdFromCouchdbInteraction(logsDbUri + "/" + logId2, HttpStatus.SC_OK, mockIdRev),
-            new DeleteDocumentFromCouchdbInteraction(logsDbUri + "/" + logId2 + "?rev=" + revision, HttpStatus.SC_OK),
+            // Discard the run's log records, one of which has already gone
+            new PostCouchdbDocumentsInteraction(logsDbUri + "/_all_docs", HttpStatus.SC_OK,
+                Map.of("rows", List.of(createAllDocsRow(logId1, revision, null), createMissingAllDocsRow(logId2))),
+                logId1, logId2),
+            new PostCouchdbDocumentsInteraction(logsDbUri + "/_bulk_docs", HttpStatus.SC_CREATED,
+                List.of(createBulkDocsResult(logId1, null)),
+                logId1),
 
             // Delete the record of the run
             new DeleteDocumentFromCouchdbInteraction(runDbUri + "?rev=" + mockRun1._rev, HttpStatus.SC_OK)
@@ -705,4 +822,37 @@ public class CouchdbDirectoryServiceTest {
         assertThat(thrown).isNotNull();
         assertThat(thrown.getMessage()).contains("Unable to delete run", runId);
     }
+
+    @Test
+    public void testDiscardRunWithFailedBulkDeleteThrowsCorrectError() throws Exception {
+        // Given...
+        String runId = "ABC123";
+        TestStructureCouchdb mockRun1 = createRunTestStructure(runId);
+
+        String revision = "this-is-a-revision";
+        String logId1 = "log1";
+        mockRun1.setLogRecordIds(List.of(logId1));
+
+        String logsDbUri = "http://my.uri/" + CouchdbRasStore.LOG_DB;
+        List<HttpInteraction> interactions = List.of(
+            new PostCouchdbDocumentsInteraction(logsDbUri + "/_all_docs", HttpStatus.SC_OK,
+                Map.of("rows", List.of(createAllDocsRow(logId1, revision, null))), logId1),
+            new PostCouchdbDocumentsInteraction(logsDbUri + "/_bulk_docs", HttpStatus.SC_CREATED,
+                List.of(createBulkDocsResult(logId1, "conflict")), logId1)
+        );
+
+        MockLogFactory mockLogFactory = new MockLogFactory();
+        CouchdbRasStore mockRasStore = fixtures.createCouchdbRasStore(interactions, mockLogFactory);
+        CouchdbDirectoryService directoryService = new CouchdbDirectoryService(mockRasStore, mockLogFactory, new HttpRequestFactoryImpl());
+
+        // When...
+        ResultArchiveStoreException thrown = catchThrowableOfType(() -> {
+            directoryService.discardRun(mockRun1);
+        }, ResultArchiveStoreException.class);
+
+        // Then...
+        // The run record should not have been deleted, as its logs are still there
+        assertThat(thrown).isNotNull();
+        assertThat(thrown.getMessage()).contains("Unable to delete document", logId1, "conflict");
+    }
 }
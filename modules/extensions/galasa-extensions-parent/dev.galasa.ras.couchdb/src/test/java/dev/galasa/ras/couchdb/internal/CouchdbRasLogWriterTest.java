@@ -0,0 +1,189 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.ras.couchdb.internal;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import javax.validation.constraints.NotNull;
+
+import org.junit.Test;
+
+import dev.galasa.framework.spi.ResultArchiveStoreException;
+import dev.galasa.ras.couchdb.internal.mocks.MockLogFactory;
+
+public class CouchdbRasLogWriterTest {
+
+    private static class MockLogBatchStore implements CouchdbRasLogWriter.LogBatchStore {
+
+        private final List<List<String>> batches          = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger      structureUpdates = new AtomicInteger();
+        private CountDownLatch           blockStore       = new CountDownLatch(0);
+        private boolean                  failNextStore    = false;
+
+        @Override
+        public void storeLogLines(@NotNull List<String> lines) throws ResultArchiveStoreException {
+            try {
+                blockStore.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failNextStore) {
+                failNextStore = false;
+                throw new ResultArchiveStoreException("simulated failure");
+            }
+            batches.add(lines);
+        }
+
+        @Override
+        public void logLinesStored() {
+            structureUpdates.incrementAndGet();
+        }
+
+        public List<String> getAllLines() {
+            ArrayList<String> lines = new ArrayList<>();
+            synchronized (batches) {
+                for (List<String> batch : batches) {
+                    lines.addAll(batch);
+                }
+            }
+            return lines;
+        }
+    }
+
+    private List<String> createLines(int count) {
+        ArrayList<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            lines.add("line " + i);
+        }
+        return lines;
+    }
+
+    private void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("Timed out waiting for the log writer").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testFlushWritesFullBatchesInOrderAndUpdatesRunOnce() throws Exception {
+        // Given...
+        MockLogBatchStore store = new MockLogBatchStore();
+        store.blockStore = new CountDownLatch(1);
+        CouchdbRasLogWriter writer = new CouchdbRasLogWriter(store, new MockLogFactory(), 100, 60000, 1000);
+        writer.start();
+
+        // When...
+        writer.writeLines(createLines(250));
+        store.blockStore.countDown();
+        writer.flush();
+
+        // Then...
+        assertThat(store.batches).extracting(List::size).containsExactly(100, 100, 50);
+        assertThat(store.getAllLines()).isEqualTo(createLines(250));
+        assertThat(store.structureUpdates.get()).isEqualTo(1);
+
+        writer.shutdown();
+    }
+
+    @Test
+    public void testPartBatchIsSentAfterMaximumDelay() throws Exception {
+        // Given...
+        MockLogBatchStore store = new MockLogBatchStore();
+        CouchdbRasLogWriter writer = new CouchdbRasLogWriter(store, new MockLogFactory(), 100, 50, 1000);
+        writer.start();
+
+        // When...
+        writer.writeLines(createLines(5));
+
+        // Then...
+        waitFor(() -> store.structureUpdates.get() == 1);
+        assertThat(store.batches).hasSize(1);
+        assertThat(store.getAllLines()).isEqualTo(createLines(5));
+
+        writer.shutdown();
+    }
+
+    @Test
+    public void testShutdownStoresEverythingQueued() throws Exception {
+        // Given...
+        MockLogBatchStore store = new MockLogBatchStore();
+        CouchdbRasLogWriter writer = new CouchdbRasLogWriter(store, new MockLogFactory(), 100, 60000, 1000);
+        writer.start();
+        writer.writeLines(createLines(120));
+
+        // When...
+        writer.shutdown();
+
+        // Then...
+        assertThat(store.getAllLines()).isEqualTo(createLines(120));
+        assertThat(store.structureUpdates.get()).isEqualTo(1);
+        assertThat(writer.getQueuedLineCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testWriterWaitsWhenQueueIsFull() throws Exception {
+        // Given...
+        MockLogBatchStore store = new MockLogBatchStore();
+        store.blockStore = new CountDownLatch(1);
+        CouchdbRasLogWriter writer = new CouchdbRasLogWriter(store, new MockLogFactory(), 10, 60000, 20);
+        writer.start();
+
+        // When...
+        Thread producer = new Thread(() -> {
+            try {
+                writer.writeLines(createLines(100));
+            } catch (ResultArchiveStoreException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        producer.start();
+        producer.join(200);
+
+        // Then...
+        assertThat(producer.isAlive()).as("producer should be waiting for space in the queue").isTrue();
+        assertThat(writer.getQueuedLineCount()).isLessThanOrEqualTo(20);
+
+        store.blockStore.countDown();
+        producer.join(10000);
+        assertThat(producer.isAlive()).isFalse();
+
+        writer.shutdown();
+        assertThat(store.getAllLines()).isEqualTo(createLines(100));
+    }
+
+    @Test
+    public void testFailedBatchDoesNotStopTheWriter() throws Exception {
+        // Given...
+        MockLogBatchStore store = new MockLogBatchStore();
+        store.failNextStore = true;
+        MockLogFactory logFactory = new MockLogFactory();
+        CouchdbRasLogWriter writer = new CouchdbRasLogWriter(store, logFactory, 10, 60000, 1000);
+        writer.start();
+
+        // When...
+        writer.writeLines(createLines(10));
+        writer.flush();
+        writer.writeLines(createLines(5));
+        writer.flush();
+
+        // Then...
+        assertThat(store.batches).hasSize(1);
+        assertThat(store.getAllLines()).isEqualTo(createLines(5));
+        assertThat(logFactory.toString()).contains("Unable to store 10 lines of the test log");
+
+        writer.shutdown();
+    }
+}
@@ -118,6 +118,11 @@ public class MockIRun implements IRun {
         throw new UnsupportedOperationException("Unimplemented method 'isSharedEnvironment'");
     }
 
+    @Override
+    public boolean isHeartbeatLeased() {
+        throw new UnsupportedOperationException("Unimplemented method 'isHeartbeatLeased'");
+    }
+
     @Override
     public String getGherkin() {
         throw new UnsupportedOperationException("Unimplemented method 'getGherkin'");
@@ -66,11 +66,17 @@ public class OidcProvider implements IOidcProvider {
 
     private static final String BEARER_TOKEN_SCOPE = "openid offline_access profile";
     private static final int JWK_REFRESH_INTERVAL_MINUTES = 10;
+    private static final int MAX_VERIFIED_TOKENS = 1000;
+    private static final int VERIFIED_TOKEN_STATS_INTERVAL = 10000;
 
-    private JsonArray jsonWebKeys;
-    private Instant nextJwkRefresh = Instant.EPOCH;
+    // Volatile so a request can check whether a refresh is due without taking the lock
+    private volatile JsonArray jsonWebKeys;
+    private volatile Instant nextJwkRefresh = Instant.EPOCH;
     private ITimeService timeService;
 
+    // JWTs whose signatures have been verified, cleared whenever the issuer's keys change
+    private VerifiedTokenCache verifiedTokens;
+
     private URI issuerUrl;
     private URI authorizationEndpoint;
     private URI tokenEndpoint;
@@ -83,6 +89,7 @@ public class OidcProvider implements IOidcProvider {
             this.issuerUrl = new URI(issuerUrl);
             this.httpClient = httpClient;
             this.timeService = timeService;
+            this.verifiedTokens = new VerifiedTokenCache(MAX_VERIFIED_TOKENS, timeService);
 
             this.authorizationEndpoint = URI.create(issuerUrl + "/auth");
             this.tokenEndpoint = URI.create(issuerUrl + "/token");
@@ -241,11 +248,7 @@ public class OidcProvider implements IOidcProvider {
      * Gets a JSON Web Key with a given key ID ('kid') from an OpenID connect issuer's /keys endpoint, returned as a JSON object
      */
     public synchronized JsonWebKey getJsonWebKeyByKeyId(String keyId) throws IOException, InterruptedException {
-        // Check if it is time to refresh the cached JSON web keys
-        if (jsonWebKeys == null || nextJwkRefresh.isBefore(timeService.now())) {
-            logger.info("Refreshing cached JSON Web Keys");
-            refreshJsonWebKeys();
-        }
+        refreshJsonWebKeysIfDue();
 
         // Iterate over the JSON array of JWKs, finding the one that matches the given key ID
         JsonWebKey matchingKey = null;
@@ -263,6 +266,22 @@ public class OidcProvider implements IOidcProvider {
      * Checks if a given JWT is valid or not
      */
     public boolean isJwtValid(String jwt) throws NoSuchAlgorithmException, InvalidKeySpecException, IOException, InterruptedException {
+        // A verified token is accepted without taking the lock unless the keys are due to be
+        // refreshed, as a key rotation clears the cached tokens
+        boolean isRefreshDue = isJwkRefreshDue();
+        if (!isRefreshDue && verifiedTokens.isVerified(jwt)) {
+            logVerifiedTokenStats();
+            return true;
+        }
+
+        if (isRefreshDue) {
+            refreshJsonWebKeysIfDue();
+            if (verifiedTokens.isVerified(jwt)) {
+                logVerifiedTokenStats();
+                return true;
+            }
+        }
+
         boolean isValid = false;
         try {
             DecodedJWT decodedJwt = JWT.decode(jwt);
@@ -275,15 +294,34 @@ public class OidcProvider implements IOidcProvider {
 
                 decodedJwt = verifier.verify(jwt);
                 isValid = (decodedJwt != null);
+                if (isValid) {
+                    verifiedTokens.addVerifiedToken(jwt, decodedJwt.getExpiresAtAsInstant());
+                }
             }
 
         } catch (JWTVerificationException e) {
             // The JWT is not valid
             logger.error("Invalid JWT '" + jwt + "'. Reason: " + e.getMessage(), e);
         }
+        logVerifiedTokenStats();
         return isValid;
     }
 
+    public VerifiedTokenCache getVerifiedTokenCache() {
+        return verifiedTokens;
+    }
+
+    private void logVerifiedTokenStats() {
+        if (!logger.isDebugEnabled()) {
+            return;
+        }
+        long lookups = verifiedTokens.getHits() + verifiedTokens.getMisses();
+        if (lookups % VERIFIED_TOKEN_STATS_INTERVAL == 0) {
+            logger.debug("Verified JWT cache: " + verifiedTokens.size() + " tokens, hit rate "
+                + String.format("%.1f", verifiedTokens.getHitRate() * 100) + "% over " + lookups + " requests");
+        }
+    }
+
     // Constructs an RSA public key from a JSON Web Key (JWK) that contains the provided key ID
     // A JWK contains the following fields:
     // {
@@ -361,11 +399,32 @@ public class OidcProvider implements IOidcProvider {
     }
 
 
+    /**
+     * Refreshes the cached JSON Web Keys if it is time to do so
+     */
+    private synchronized void refreshJsonWebKeysIfDue() throws IOException, InterruptedException {
+        if (isJwkRefreshDue()) {
+            logger.info("Refreshing cached JSON Web Keys");
+            refreshJsonWebKeys();
+        }
+    }
+
+    private boolean isJwkRefreshDue() {
+        return jsonWebKeys == null || nextJwkRefresh.isBefore(timeService.now());
+    }
+
     /**
      * Refreshes the cached JSON Web Keys used to verify the signature of JWTs
      */
     private void refreshJsonWebKeys() throws IOException, InterruptedException {
-        jsonWebKeys = getJsonWebKeysFromIssuer();
+        JsonArray updatedJwks = getJsonWebKeysFromIssuer();
+
+        // If the issuer has rotated its keys, tokens signed by the old keys must be verified again
+        if (jsonWebKeys != null && !jsonWebKeys.equals(updatedJwks)) {
+            logger.info("JSON Web Keys have changed, clearing the verified JWT cache");
+            verifiedTokens.clear();
+        }
+        jsonWebKeys = updatedJwks;
 
         // Update the next refresh time by the refresh interval
         nextJwkRefresh = Instant.now().plus(JWK_REFRESH_INTERVAL_MINUTES, ChronoUnit.MINUTES);
@@ -0,0 +1,121 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.api.authentication.internal;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import dev.galasa.framework.spi.utils.ITimeService;
+
+/**
+ * A bounded cache of JWTs whose signatures have already been verified, so a client
+ * sending the same token on every request only has it verified once.
+ *
+ * Tokens are held as a SHA-256 hash rather than the token itself, and each entry
+ * expires at the token's own expiry time. When the cache is full the least recently
+ * used token is dropped.
+ */
+public class VerifiedTokenCache {
+
+    private final ITimeService          timeService;
+    private final Map<String, Instant> verifiedTokens;
+
+    private final AtomicLong            hits   = new AtomicLong();
+    private final AtomicLong            misses = new AtomicLong();
+
+    public VerifiedTokenCache(int maxTokens, ITimeService timeService) {
+        this.timeService = timeService;
+        this.verifiedTokens = new LinkedHashMap<String, Instant>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Instant> eldest) {
+                return size() > maxTokens;
+            }
+        };
+    }
+
+    /**
+     * @param jwt the token sent by the client
+     * @return true if the token was verified before and has not yet expired
+     */
+    public synchronized boolean isVerified(String jwt) {
+        String tokenHash = hash(jwt);
+        Instant expiresAt = verifiedTokens.get(tokenHash);
+
+        boolean isVerified = false;
+        if (expiresAt != null) {
+            if (timeService.now().isBefore(expiresAt)) {
+                isVerified = true;
+            } else {
+                verifiedTokens.remove(tokenHash);
+            }
+        }
+
+        if (isVerified) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return isVerified;
+    }
+
+    /**
+     * Record that a token's signature has been verified. Tokens without an expiry
+     * time are not cached.
+     *
+     * @param jwt       the verified token
+     * @param expiresAt the token's expiry time, the 'exp' claim
+     */
+    public synchronized void addVerifiedToken(String jwt, Instant expiresAt) {
+        if (expiresAt != null && timeService.now().isBefore(expiresAt)) {
+            verifiedTokens.put(hash(jwt), expiresAt);
+        }
+    }
+
+    /**
+     * Forget every verified token, used when the keys that signed them may have changed
+     */
+    public synchronized void clear() {
+        verifiedTokens.clear();
+    }
+
+    public synchronized int size() {
+        return verifiedTokens.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the fraction of lookups that found a verified token, 0 if there have been none
+     */
+    public double getHitRate() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return (total == 0) ? 0 : (double) hitCount / total;
+    }
+
+    private String hash(String jwt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(jwt.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
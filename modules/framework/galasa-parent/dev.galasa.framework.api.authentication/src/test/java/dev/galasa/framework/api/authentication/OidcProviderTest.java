@@ -544,6 +544,79 @@ public class OidcProviderTest {
         assertThat(result).isTrue();
     }
 
+    @Test
+    public void testIsJwtValidWithSameJwtTwiceOnlyVerifiesTheSignatureOnce() throws Exception {
+        // Given...
+        String issuer = "http://dummy-issuer";
+        String keyId = "mock-key";
+
+        KeyPair mockKeyPair = generateMockRsaKeyPair();
+        RSAPublicKey mockPublicKey =  (RSAPublicKey) mockKeyPair.getPublic();
+        RSAPrivateKey mockPrivateKey =  (RSAPrivateKey) mockKeyPair.getPrivate();
+
+        JsonObject mockJwk = createMockJwkObject(keyId, mockPublicKey);
+        HttpResponse<Object> mockJwkResponse = createMockJwksResponse(mockJwk);
+
+        String validJwt = JWT.create()
+            .withIssuer(issuer)
+            .withKeyId(keyId)
+            .withExpiresAt(Instant.now().plus(1, ChronoUnit.HOURS))
+            .sign(Algorithm.RSA256(mockPublicKey, mockPrivateKey));
+
+        MockHttpClient mockHttpClient = new MockHttpClient(createMockOidcDiscoveryResponse());
+        MockTimeService mockTimeService = new MockTimeService(Instant.now());
+        OidcProvider oidcProvider = new OidcProvider(issuer, mockHttpClient, mockTimeService);
+
+        mockHttpClient.setMockResponse(mockJwkResponse);
+
+        // When...
+        boolean firstResult = oidcProvider.isJwtValid(validJwt);
+        boolean secondResult = oidcProvider.isJwtValid(validJwt);
+
+        // Then...
+        assertThat(firstResult).isTrue();
+        assertThat(secondResult).isTrue();
+        assertThat(oidcProvider.getVerifiedTokenCache().getHits()).isEqualTo(1);
+        assertThat(oidcProvider.getVerifiedTokenCache().getMisses()).isEqualTo(1);
+        assertThat(oidcProvider.getVerifiedTokenCache().getHitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    public void testIsJwtValidAfterKeyRotationVerifiesTheJwtAgain() throws Exception {
+        // Given...
+        String issuer = "http://dummy-issuer";
+        String keyId = "mock-key";
+
+        KeyPair mockKeyPair = generateMockRsaKeyPair();
+        RSAPublicKey mockPublicKey =  (RSAPublicKey) mockKeyPair.getPublic();
+        RSAPrivateKey mockPrivateKey =  (RSAPrivateKey) mockKeyPair.getPrivate();
+
+        String validJwt = JWT.create()
+            .withIssuer(issuer)
+            .withKeyId(keyId)
+            .withExpiresAt(Instant.now().plus(1, ChronoUnit.HOURS))
+            .sign(Algorithm.RSA256(mockPublicKey, mockPrivateKey));
+
+        MockHttpClient mockHttpClient = new MockHttpClient(createMockOidcDiscoveryResponse());
+        MockTimeService mockTimeService = new MockTimeService(Instant.now());
+        OidcProvider oidcProvider = new OidcProvider(issuer, mockHttpClient, mockTimeService);
+
+        mockHttpClient.setMockResponse(createMockJwksResponse(createMockJwkObject(keyId, mockPublicKey)));
+        assertThat(oidcProvider.isJwtValid(validJwt)).isTrue();
+
+        // When...
+        // The issuer replaces its key and the cached keys are due to be refreshed
+        KeyPair rotatedKeyPair = generateMockRsaKeyPair();
+        mockHttpClient.setMockResponse(createMockJwksResponse(createMockJwkObject("rotated-key", (RSAPublicKey) rotatedKeyPair.getPublic())));
+        mockTimeService.setCurrentTime(mockTimeService.now().plus(11, ChronoUnit.MINUTES));
+
+        boolean result = oidcProvider.isJwtValid(validJwt);
+
+        // Then...
+        assertThat(result).isFalse();
+        assertThat(oidcProvider.getVerifiedTokenCache().getHits()).isEqualTo(0);
+    }
+
     @Test
     public void testGetOpenIdConfigurationReturnsValidConfig() throws Exception {
         // Given...
@@ -0,0 +1,91 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.api.authentication.internal;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import org.junit.Test;
+
+import dev.galasa.framework.api.common.mocks.MockTimeService;
+
+public class VerifiedTokenCacheTest {
+
+    @Test
+    public void testVerifiedTokenIsCachedUntilItExpires() throws Exception {
+        // Given...
+        MockTimeService mockTimeService = new MockTimeService(Instant.now());
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, mockTimeService);
+
+        // When...
+        cache.addVerifiedToken("my-jwt", mockTimeService.now().plus(5, ChronoUnit.MINUTES));
+
+        // Then...
+        assertThat(cache.isVerified("my-jwt")).isTrue();
+        assertThat(cache.isVerified("another-jwt")).isFalse();
+
+        // When...
+        mockTimeService.setCurrentTime(mockTimeService.now().plus(5, ChronoUnit.MINUTES));
+
+        // Then...
+        assertThat(cache.isVerified("my-jwt")).isFalse();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    public void testTokensWithoutAnExpiryAreNotCached() throws Exception {
+        // Given...
+        MockTimeService mockTimeService = new MockTimeService(Instant.now());
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, mockTimeService);
+
+        // When...
+        cache.addVerifiedToken("no-expiry-jwt", null);
+        cache.addVerifiedToken("expired-jwt", mockTimeService.now().minusSeconds(1));
+
+        // Then...
+        assertThat(cache.size()).isZero();
+        assertThat(cache.getHitRate()).isZero();
+    }
+
+    @Test
+    public void testLeastRecentlyUsedTokenIsDroppedWhenFull() throws Exception {
+        // Given...
+        MockTimeService mockTimeService = new MockTimeService(Instant.now());
+        VerifiedTokenCache cache = new VerifiedTokenCache(2, mockTimeService);
+        Instant expiry = mockTimeService.now().plus(1, ChronoUnit.HOURS);
+
+        cache.addVerifiedToken("first-jwt", expiry);
+        cache.addVerifiedToken("second-jwt", expiry);
+
+        // When...
+        cache.isVerified("first-jwt");
+        cache.addVerifiedToken("third-jwt", expiry);
+
+        // Then...
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.isVerified("first-jwt")).isTrue();
+        assertThat(cache.isVerified("third-jwt")).isTrue();
+        assertThat(cache.isVerified("second-jwt")).isFalse();
+    }
+
+    @Test
+    public void testClearForgetsAllTokens() throws Exception {
+        // Given...
+        MockTimeService mockTimeService = new MockTimeService(Instant.now());
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, mockTimeService);
+        cache.addVerifiedToken("my-jwt", mockTimeService.now().plus(1, ChronoUnit.HOURS));
+
+        // When...
+        cache.clear();
+
+        // Then...
+        assertThat(cache.isVerified("my-jwt")).isFalse();
+    }
+}
@@ -225,7 +225,11 @@ public class MockHttpServletRequest implements HttpServletRequest {
 
     @Override
     public String getParameter(String name) {
-        throw new UnsupportedOperationException("Unimplemented method 'getParameter'");
+        String[] values = parameterMap.get(name);
+        if (values == null || values.length == 0) {
+            return null;
+        }
+        return values[0];
     }
 
     @Override
@@ -142,6 +142,11 @@ public class MockIRun implements IRun{
         return false;
     }
 
+    @Override
+    public boolean isHeartbeatLeased() {
+        return false;
+    }
+
     @Override
     public String getGherkin() {
         throw new UnsupportedOperationException("Unimplemented method 'getGherkin'");
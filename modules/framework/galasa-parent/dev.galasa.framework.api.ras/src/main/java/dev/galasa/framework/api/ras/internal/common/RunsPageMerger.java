@@ -0,0 +1,236 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.api.ras.internal.common;
+
+import static dev.galasa.framework.api.common.ServletErrorMessage.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import javax.servlet.http.HttpServletResponse;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import dev.galasa.framework.api.common.InternalServletException;
+import dev.galasa.framework.api.common.ServletError;
+import dev.galasa.framework.spi.IResultArchiveStoreDirectoryService;
+import dev.galasa.framework.spi.IRunResult;
+import dev.galasa.framework.spi.ResultArchiveStoreException;
+import dev.galasa.framework.spi.ras.IRasSearchCriteria;
+import dev.galasa.framework.spi.ras.RasRunResultPage;
+import dev.galasa.framework.spi.ras.RasSortField;
+import dev.galasa.framework.spi.teststructure.TestStructure;
+
+/**
+ * Builds cursor based pages of runs from several RAS directory services, merging the
+ * pages each service returns so the runs come out in sort order overall.
+ *
+ * Each service is asked for its runs sorted by the sort field. The next run of the
+ * merged page is always taken from whichever service has the next run in order,
+ * and a service is asked for its next page only once its current page is used up.
+ *
+ * The cursor of a merged page records, for each service, the cursor of the page to
+ * carry on from and how many runs of that page have already been returned. When there
+ * is only one service its own cursors are passed straight through.
+ */
+public class RunsPageMerger {
+
+    private final List<IResultArchiveStoreDirectoryService> directoryServices;
+    private final RasSortField                              sortField;
+    private final Comparator<TestStructure>                 comparator;
+    private final IRasSearchCriteria[]                      criteria;
+
+    /**
+     * @param directoryServices the services to get runs from
+     * @param sortField         the sort passed to the services, using test structure field names
+     * @param comparator        the same order as the sort field, used to merge the pages
+     * @param criteria          the criteria the runs must match
+     */
+    public RunsPageMerger(
+        List<IResultArchiveStoreDirectoryService> directoryServices,
+        RasSortField sortField,
+        Comparator<TestStructure> comparator,
+        IRasSearchCriteria[] criteria
+    ) {
+        this.directoryServices = directoryServices;
+        this.sortField = sortField;
+        this.comparator = comparator;
+        this.criteria = criteria;
+    }
+
+    public RasRunResultPage getPage(String pageCursor, int maxResults) throws ResultArchiveStoreException, InternalServletException {
+        if (directoryServices.size() == 1) {
+            return directoryServices.get(0).getRunsPage(maxResults, sortField, pageCursor, criteria);
+        }
+
+        List<ServiceRuns> sources = decodeCursor(pageCursor);
+
+        PriorityQueue<ServiceRuns> nextRun = new PriorityQueue<>(
+            Math.max(1, sources.size()),
+            Comparator.<ServiceRuns, TestStructure>comparing(ServiceRuns::peekStructure, comparator)
+                .thenComparingInt(source -> source.serviceIndex)
+        );
+        for (ServiceRuns source : sources) {
+            if (source.fill(maxResults)) {
+                nextRun.add(source);
+            }
+        }
+
+        List<IRunResult> runs = new ArrayList<>();
+        while (runs.size() < maxResults && !nextRun.isEmpty()) {
+            ServiceRuns source = nextRun.poll();
+            runs.add(source.take());
+            if (source.fill(maxResults)) {
+                nextRun.add(source);
+            }
+        }
+
+        return new RasRunResultPage(runs, encodeCursor(sources));
+    }
+
+    private List<ServiceRuns> decodeCursor(String pageCursor) throws InternalServletException {
+        List<ServiceRuns> sources = new ArrayList<>();
+        if (pageCursor == null) {
+            for (int i = 0; i < directoryServices.size(); i++) {
+                sources.add(new ServiceRuns(i, null, 0));
+            }
+            return sources;
+        }
+
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(pageCursor), StandardCharsets.UTF_8);
+            JsonArray positions = JsonParser.parseString(json).getAsJsonArray();
+            if (positions.size() != directoryServices.size()) {
+                throw new IllegalArgumentException("Cursor does not match the RAS stores");
+            }
+
+            for (int i = 0; i < positions.size(); i++) {
+                JsonElement position = positions.get(i);
+                if (position.isJsonNull()) {
+                    // *** This service has no more runs
+                    continue;
+                }
+                JsonObject positionObject = position.getAsJsonObject();
+                JsonElement cursor = positionObject.get("cursor");
+                int skip = positionObject.get("skip").getAsInt();
+                sources.add(new ServiceRuns(i, (cursor == null || cursor.isJsonNull()) ? null : cursor.getAsString(), skip));
+            }
+        } catch (RuntimeException e) {
+            ServletError error = new ServletError(GAL5004_ERROR_RETRIEVING_PAGE);
+            throw new InternalServletException(error, HttpServletResponse.SC_BAD_REQUEST, e);
+        }
+        return sources;
+    }
+
+    private String encodeCursor(List<ServiceRuns> sources) {
+        JsonArray positions = new JsonArray();
+        for (int i = 0; i < directoryServices.size(); i++) {
+            positions.add((JsonElement) null);
+        }
+
+        boolean moreRuns = false;
+        for (ServiceRuns source : sources) {
+            JsonObject position = source.getResumePosition();
+            if (position != null) {
+                positions.set(source.serviceIndex, position);
+                moreRuns = true;
+            }
+        }
+
+        if (!moreRuns) {
+            return null;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(positions.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The runs from one service, a page at a time
+     */
+    private class ServiceRuns {
+
+        private final int        serviceIndex;
+
+        // *** The cursor used to get the current page, and the index of the next run in it
+        private String           pageCursor;
+        private int              index;
+
+        private List<IRunResult> page;
+        private List<TestStructure> structures;
+        private String           nextPageCursor;
+        private boolean          exhausted = false;
+
+        private ServiceRuns(int serviceIndex, String pageCursor, int skip) {
+            this.serviceIndex = serviceIndex;
+            this.pageCursor = pageCursor;
+            this.index = skip;
+        }
+
+        /**
+         * Make sure there is a run ready to take, getting the next page if needed
+         *
+         * @return false if the service has no more runs
+         */
+        private boolean fill(int maxResults) throws ResultArchiveStoreException {
+            while (!exhausted && (page == null || index >= page.size())) {
+                if (page != null) {
+                    if (nextPageCursor == null || page.isEmpty()) {
+                        exhausted = true;
+                        break;
+                    }
+                    pageCursor = nextPageCursor;
+                    index = 0;
+                }
+
+                RasRunResultPage runsPage = directoryServices.get(serviceIndex).getRunsPage(maxResults, sortField, pageCursor, criteria);
+                page = runsPage.getRuns();
+                nextPageCursor = runsPage.getNextCursor();
+                structures = new ArrayList<>(page.size());
+                for (IRunResult run : page) {
+                    structures.add(run.getTestStructure());
+                }
+            }
+            return !exhausted;
+        }
+
+        private TestStructure peekStructure() {
+            return structures.get(index);
+        }
+
+        private IRunResult take() {
+            return page.get(index++);
+        }
+
+        /**
+         * @return where to carry on from in the next merged page, or null if there are no more runs
+         */
+        private JsonObject getResumePosition() {
+            if (exhausted) {
+                return null;
+            }
+
+            JsonObject position = new JsonObject();
+            if (page != null && index >= page.size()) {
+                // *** This page is used up, so carry on from the start of the next one
+                if (nextPageCursor == null || page.isEmpty()) {
+                    return null;
+                }
+                position.addProperty("cursor", nextPageCursor);
+                position.addProperty("skip", 0);
+            } else {
+                position.addProperty("cursor", pageCursor);
+                position.addProperty("skip", index);
+            }
+            return position;
+        }
+    }
+}
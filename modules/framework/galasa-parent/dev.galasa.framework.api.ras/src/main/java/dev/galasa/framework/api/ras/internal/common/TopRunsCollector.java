@@ -0,0 +1,99 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.api.ras.internal.common;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import dev.galasa.framework.spi.IRunResult;
+import dev.galasa.framework.spi.ResultArchiveStoreException;
+import dev.galasa.framework.spi.teststructure.TestStructure;
+
+/**
+ * Keeps the first few runs in sort order out of any number of runs offered to it,
+ * together with a count of every run offered.
+ *
+ * This lets a numbered page be built from a large result set while only holding the
+ * runs up to the end of that page, rather than sorting every run. Runs which sort
+ * equally keep the order they were offered in.
+ */
+public class TopRunsCollector {
+
+    private static final int MAX_INITIAL_CAPACITY = 1024;
+
+    private final Comparator<SortableRun>    order;
+    private final PriorityQueue<SortableRun> worstFirst;
+    private final int                        limit;
+
+    private int                              totalRuns = 0;
+    private long                             sequence  = 0;
+
+    /**
+     * @param comparator the order the runs are wanted in
+     * @param limit      how many runs to keep
+     */
+    public TopRunsCollector(Comparator<TestStructure> comparator, int limit) {
+        this.order = Comparator.<SortableRun, TestStructure>comparing(run -> run.testStructure, comparator)
+            .thenComparingLong(run -> run.sequence);
+        this.limit = Math.max(0, limit);
+        this.worstFirst = new PriorityQueue<>(Math.min(this.limit, MAX_INITIAL_CAPACITY) + 1, order.reversed());
+    }
+
+    public void addAll(List<IRunResult> runs) throws ResultArchiveStoreException {
+        for (IRunResult run : runs) {
+            add(run);
+        }
+    }
+
+    public void add(IRunResult run) throws ResultArchiveStoreException {
+        totalRuns++;
+        if (limit == 0) {
+            return;
+        }
+
+        SortableRun candidate = new SortableRun(run, run.getTestStructure(), sequence++);
+        if (worstFirst.size() < limit) {
+            worstFirst.add(candidate);
+        } else if (order.compare(candidate, worstFirst.peek()) < 0) {
+            // *** It beats the worst run we are keeping, so replace that one
+            worstFirst.poll();
+            worstFirst.add(candidate);
+        }
+    }
+
+    public int getTotalRuns() {
+        return totalRuns;
+    }
+
+    /**
+     * @return the runs kept, in sort order
+     */
+    public List<IRunResult> getSortedRuns() {
+        List<SortableRun> sorted = new ArrayList<>(worstFirst);
+        Collections.sort(sorted, order);
+
+        List<IRunResult> runs = new ArrayList<>(sorted.size());
+        for (SortableRun run : sorted) {
+            runs.add(run.run);
+        }
+        return runs;
+    }
+
+    private static class SortableRun {
+        private final IRunResult    run;
+        private final TestStructure testStructure;
+        private final long          sequence;
+
+        private SortableRun(IRunResult run, TestStructure testStructure, long sequence) {
+            this.run = run;
+            this.testStructure = testStructure;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -5,8 +5,6 @@
  */
 package dev.galasa.framework.api.ras.internal.routes;
 
-import org.apache.commons.collections4.ListUtils;
-
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
@@ -18,6 +16,8 @@ import dev.galasa.framework.api.common.QueryParameters;
 import dev.galasa.framework.TestRunLifecycleStatus;
 import dev.galasa.framework.api.ras.internal.common.RasQueryParameters;
 import dev.galasa.framework.api.ras.internal.common.RunResultUtility;
+import dev.galasa.framework.api.ras.internal.common.RunsPageMerger;
+import dev.galasa.framework.api.ras.internal.common.TopRunsCollector;
 import dev.galasa.framework.spi.FrameworkException;
 import dev.galasa.framework.spi.IFramework;
 import dev.galasa.framework.spi.IResultArchiveStoreDirectoryService;
@@ -34,6 +34,8 @@ import dev.galasa.framework.spi.ras.RasSearchCriteriaRunName;
 import dev.galasa.framework.spi.ras.RasSearchCriteriaStatus;
 import dev.galasa.framework.spi.ras.RasSearchCriteriaTestName;
 import dev.galasa.framework.spi.ras.RasSortField;
+import dev.galasa.framework.spi.ras.RasTestStructureComparator;
+import dev.galasa.framework.spi.teststructure.TestStructure;
 import dev.galasa.framework.spi.utils.GalasaGson;
 
 import static dev.galasa.framework.api.common.ServletErrorMessage.*;
@@ -57,9 +59,14 @@ public class RunQueryRoute extends RunsRoute {
     private final Map<String, String> sortKeyMap = Map.of(
         "from", "queued",
         "to", "endTime",
-        "testclass", "testName"
+        "testclass", "testName",
+        "result", "result"
     );
 
+    // Numbered pages sort test classes by their short names rather than their full names
+    private static final String TESTCLASS_SORT_KEY = "testclass";
+    private static final String NUMBERED_PAGE_TESTCLASS_FIELD = "testShortName";
+
 	public RunQueryRoute(ResponseBuilder responseBuilder, IFramework framework) {
 		/* Regex to match endpoints:
 		*  -> /ras/runs
@@ -87,8 +94,6 @@ public class RunQueryRoute extends RunsRoute {
         boolean includeCursor = queryParams.getIncludeCursor();
         String pageCursor = queryParams.getPageCursor();
 
-		List<RasRunResult> runs = new ArrayList<>();
-
 		/* Get list of Run Ids from the URL -
 		If a Run ID parameter list is present in the URL then only return that run / those runs
 		Do not filter as well */
@@ -97,25 +102,25 @@ public class RunQueryRoute extends RunsRoute {
         // Default to sorting in descending order based on the "queued time" of runs
         RasSortField sortValue = queryParams.getSortValue("from:desc");
 
-        RasRunResultPage runsPage = null;
         String responseJson = null;
         try {
-            if (runIds != null && runIds.size() > 0) {
-                runs = getRunsByIds(runIds);
-            } else {
+            if ((runIds == null || runIds.isEmpty()) && (includeCursor || pageCursor != null)) {
                 List<IRasSearchCriteria> criteria = getCriteria(queryParams);
-                if (includeCursor || pageCursor != null) {
-                    runsPage = getRunsPage(pageCursor, pageSize, formatSortField(sortValue), criteria);
+                RasRunResultPage runsPage = getRunsPage(pageCursor, pageSize, formatSortField(sortValue), criteria);
+                responseJson = buildResponseBody(runsPage, pageSize);
+            } else {
+                // Only the runs up to the end of the requested page are kept and sorted
+                TopRunsCollector collector = new TopRunsCollector(
+                    buildRunsComparator(queryParams, sortValue),
+                    getLastRunIndex(pageNum, pageSize)
+                );
+
+                if (runIds != null && runIds.size() > 0) {
+                    collector.addAll(getRunsByIds(runIds));
                 } else {
-                    runs = getRuns(criteria);
+                    collectRuns(getCriteria(queryParams), collector);
                 }
-            }
-    
-            if (runsPage == null) {
-                runs = sortResults(runs, queryParams, sortValue);
-                responseJson = buildResponseBody(runs, pageNum, pageSize);
-            } else {
-                responseJson = buildResponseBody(runsPage, pageSize);
+                responseJson = buildResponseBody(collector, pageNum, pageSize);
             }
         } catch (ResultArchiveStoreException e) {
             ServletError error = new ServletError(GAL5003_ERROR_RETRIEVING_RUNS);
@@ -125,6 +130,11 @@ public class RunQueryRoute extends RunsRoute {
         return responseJson;
 	}
 
+    private int getLastRunIndex(int pageNum, int pageSize) {
+        long lastRunIndex = (long) Math.max(pageNum, 0) * Math.max(pageSize, 0);
+        return (int) Math.min(lastRunIndex, Integer.MAX_VALUE);
+    }
+
     private RasSortField formatSortField(RasSortField sortValue) {
         RasSortField sortField = null;
         if (sortValue != null) {
@@ -141,15 +151,15 @@ public class RunQueryRoute extends RunsRoute {
         return sortField;
     }
 
-    private List<RasRunResult> getRunsByIds(List<String> runIds) throws InternalServletException {
-        List<RasRunResult> runs = new ArrayList<>();
+    private List<IRunResult> getRunsByIds(List<String> runIds) throws InternalServletException {
+        List<IRunResult> runs = new ArrayList<>();
 
         for (String runId : runIds) {
             try {
                 IRunResult run = getRunByRunId(runId.trim());
 
                 if (run != null) {
-                    runs.add(RunResultUtility.toRunResult(run, true));
+                    runs.add(run);
                 }
             } catch (ResultArchiveStoreException e) {
                 ServletError error = new ServletError(GAL5002_INVALID_RUN_ID,runId);
@@ -178,30 +188,27 @@ public class RunQueryRoute extends RunsRoute {
 		return criteria ;
 	}
 
-	private String buildResponseBody(List<RasRunResult> runs, int pageNum, int pageSize) throws InternalServletException {
+	private String buildResponseBody(TopRunsCollector collector, int pageNum, int pageSize) throws InternalServletException, ResultArchiveStoreException {
 
-		//Splits up the pages based on the page size
-		List<List<RasRunResult>> paginatedResults = ListUtils.partition(runs, pageSize);
+		int totalRuns = collector.getTotalRuns();
 
-		//Building the object to be returned by the API and splitting
-        JsonObject runsPage = null;
-        try {
-            if ((pageNum == 1) && paginatedResults.isEmpty()) {
-                // No results at all, so return one page saying that.
-                runsPage = pageToJson(runs, runs.size(), 1, pageSize,1);
-            } else {
-                runsPage = pageToJson(
-                    paginatedResults.get(pageNum - 1),
-                    runs.size(),
-                    pageNum,
-                    pageSize,
-                    paginatedResults.size()
-                );
-            }
-        } catch (IndexOutOfBoundsException e) {
-            ServletError error = new ServletError(GAL5004_ERROR_RETRIEVING_PAGE);
-            throw new InternalServletException(error, HttpServletResponse.SC_BAD_REQUEST, e);
-        }
+		// No results at all still gives one page saying that
+		int numPages = 1;
+		if (totalRuns > 0 && pageSize > 0) {
+			numPages = (int) ((totalRuns + (long) pageSize - 1) / pageSize);
+		}
+
+		if (pageNum < 1 || pageNum > numPages || pageSize < 1) {
+			ServletError error = new ServletError(GAL5004_ERROR_RETRIEVING_PAGE);
+			throw new InternalServletException(error, HttpServletResponse.SC_BAD_REQUEST);
+		}
+
+		// Only the runs on the requested page are converted into the response format
+		List<IRunResult> sortedRuns = collector.getSortedRuns();
+		int pageStart = Math.min((pageNum - 1) * pageSize, sortedRuns.size());
+		List<RasRunResult> runsInPage = convertRunsToRunResults(sortedRuns.subList(pageStart, sortedRuns.size()));
+
+		JsonObject runsPage = pageToJson(runsInPage, totalRuns, pageNum, pageSize, numPages);
         return gson.toJson(runsPage);
 	}
 
@@ -285,43 +292,37 @@ public class RunQueryRoute extends RunsRoute {
 		return obj;
 	}
 
-	private List<RasRunResult> getRuns(List<IRasSearchCriteria> critList) throws ResultArchiveStoreException, InternalServletException {
+	private void collectRuns(List<IRasSearchCriteria> critList, TopRunsCollector collector) throws ResultArchiveStoreException {
 
 		IRasSearchCriteria[] criteria = new IRasSearchCriteria[critList.size()];
 
 		critList.toArray(criteria);
 
-		// Collect all the runs from all the RAS stores into a single list
-		List<IRunResult> runs = new ArrayList<>();
+		// Offer the runs from each RAS store in turn, so only the runs which could be on the page are held
 		for (IResultArchiveStoreDirectoryService directoryService : getFramework().getResultArchiveStore().getDirectoryServices()) {
-			runs.addAll(directoryService.getRuns(criteria));
+			collector.addAll(directoryService.getRuns(criteria));
 		}
-
-		List<RasRunResult> runResults = convertRunsToRunResults(runs);
-
-		return runResults;
 	}
 
-	private RasRunResultPage getRunsPage(String pageCursor, int maxResults, RasSortField primarySort, List<IRasSearchCriteria> critList) throws ResultArchiveStoreException {
+	private RasRunResultPage getRunsPage(String pageCursor, int maxResults, RasSortField primarySort, List<IRasSearchCriteria> critList) throws ResultArchiveStoreException, InternalServletException {
 
 		IRasSearchCriteria[] criteria = new IRasSearchCriteria[critList.size()];
 
 		critList.toArray(criteria);
-        
-		// Collect all the runs from all the RAS stores into a single list
-		List<IRunResult> runs = new ArrayList<>();
-        String nextCursor = null;
-		for (IResultArchiveStoreDirectoryService directoryService : getFramework().getResultArchiveStore().getDirectoryServices()) {
-            RasRunResultPage runsPage = directoryService.getRunsPage(maxResults, primarySort, pageCursor, criteria);
-			runs.addAll(runsPage.getRuns());
-            
-            String nextRunsToken = runsPage.getNextCursor();
-            if (nextRunsToken != null) {
-                nextCursor = nextRunsToken;
-            }
-		}
 
-		return new RasRunResultPage(runs, nextCursor);
+        // The RAS stores sort their own runs, so the pages from each store are merged in the same order
+        Comparator<TestStructure> comparator = (a, b) -> 0;
+        if (primarySort != null && RasTestStructureComparator.isSupported(primarySort.getFieldName())) {
+            comparator = new RasTestStructureComparator(primarySort);
+        }
+
+        RunsPageMerger merger = new RunsPageMerger(
+            getFramework().getResultArchiveStore().getDirectoryServices(),
+            primarySort,
+            comparator,
+            criteria
+        );
+		return merger.getPage(pageCursor, maxResults);
 	}
 
     private List<RasRunResult> convertRunsToRunResults(List<IRunResult> runs) throws ResultArchiveStoreException {
@@ -333,128 +334,18 @@ public class RunQueryRoute extends RunsRoute {
         return runResults;
     }
 
-	class SortByQueuedTime implements Comparator<RasRunResult> {
-
-		@Override
-		public int compare(RasRunResult a, RasRunResult b) {
-			Instant aQueuedTime = a.getTestStructure().getQueued();
-			Instant bQueuedTime = b.getTestStructure().getQueued();
-
-			if (aQueuedTime == null) {
-				if (bQueuedTime == null) {
-					return 0;
-				}
-				return -1;
-			}
-			if (bQueuedTime == null) {
-				return 1;
-			}
-			return aQueuedTime.compareTo(bQueuedTime);
-		}
-	}
-
-	class SortByEndTime implements Comparator<RasRunResult> {
-
-		@Override
-		public int compare(RasRunResult a, RasRunResult b) {
-			Instant aEndTime = a.getTestStructure().getEndTime();
-			Instant bEndTime = b.getTestStructure().getEndTime();
-
-			if (aEndTime == null) {
-				if (bEndTime == null) {
-					return 0;
-				}
-				return -1;
-			}
-			if (bEndTime == null) {
-				return 1;
-			}
-			return aEndTime.compareTo(bEndTime);
-		}
-	}
-
-	class SortByTestClass implements Comparator<RasRunResult>{
-
-		@Override
-		public int compare(RasRunResult a, RasRunResult b) {
-			String aTestClass = a.getTestStructure().getTestShortName();
-			String bTestClass = b.getTestStructure().getTestShortName();
-
-			if (aTestClass == null) {
-				if (bTestClass == null) {
-					return 0;
-				}
-				return -1;
-			}
-			if (bTestClass == null) {
-				return 1;
-			}
-			return aTestClass.compareTo(bTestClass);
-		}
-	}
-
-	class SortByResult implements Comparator<RasRunResult>{
-
-		@Override
-		public int compare(RasRunResult a, RasRunResult b) {
-			String aResult = a.getTestStructure().getResult();
-			String bResult = b.getTestStructure().getResult();
-
-			if (aResult == null) {
-				if (bResult == null) {
-					return 0;
-				}
-				return -1;
-			}
-			if (bResult == null) {
-				return 1;
-			}
-			return aResult.compareTo(bResult);
-		}
-	}
-
-	private List<RasRunResult> sortResults(
-		List<RasRunResult> unsortedRuns,
-		RasQueryParameters queryParams,
-		RasSortField sortValue
-	) throws InternalServletException {
-
-		// shallow-clone the input list so we don't change it.
-		List<RasRunResult> runs = new ArrayList<RasRunResult>();
-		runs.addAll(unsortedRuns);
-
-        Comparator<RasRunResult> runsComparator = buildRunsComparator(queryParams, sortValue);
-
-        Collections.sort(runs, runsComparator);
-        return runs;
-	}
-
-    private Comparator<RasRunResult> buildRunsComparator(RasQueryParameters queryParams, RasSortField sortField) throws InternalServletException {
-        Comparator<RasRunResult> runsComparator = null;
-
+    private Comparator<TestStructure> buildRunsComparator(RasQueryParameters queryParams, RasSortField sortField) throws InternalServletException {
         String sortFieldName = sortField.getFieldName();
-        if (sortFieldName.equals("from")) {
-            runsComparator = new SortByQueuedTime();
-        } else if (sortFieldName.equals("to")) {
-            runsComparator = new SortByEndTime();
-        } else if (sortFieldName.equals("testclass")) {
-            runsComparator = new SortByTestClass();
-        } else if (sortFieldName.equals("result")) {
-            runsComparator = new SortByResult();
-        } else {
+        String testStructureFieldName = sortKeyMap.get(sortFieldName);
+        if (TESTCLASS_SORT_KEY.equals(sortFieldName)) {
+            testStructureFieldName = NUMBERED_PAGE_TESTCLASS_FIELD;
+        }
+        if (testStructureFieldName == null) {
             ServletError error = new ServletError(GAL5011_SORT_VALUE_NOT_RECOGNIZED, sortFieldName);
             throw new InternalServletException(error, HttpServletResponse.SC_BAD_REQUEST);
         }
 
-        // Reverse the comparator if the direction is "desc"
-        if (!queryParams.isAscending(sortField)) {
-            runsComparator = runsComparator.reversed();
-        }
-
-        // Ensure null values appear last
-        runsComparator = Comparator.nullsLast(runsComparator);
-
-        return runsComparator;
+        return new RasTestStructureComparator(testStructureFieldName, queryParams.isAscending(sortField));
     }
 
 	Instant getQueriedFromTime(RasQueryParameters params, Instant defaultFromTimestamp) throws InternalServletException {
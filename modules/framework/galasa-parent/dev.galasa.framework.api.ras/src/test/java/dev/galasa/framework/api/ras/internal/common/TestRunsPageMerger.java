@@ -0,0 +1,154 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.api.ras.internal.common;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.validation.constraints.NotNull;
+
+import org.junit.Test;
+
+import dev.galasa.framework.api.common.InternalServletException;
+import dev.galasa.framework.api.ras.internal.mocks.MockResultArchiveStoreDirectoryService;
+import dev.galasa.framework.api.ras.internal.mocks.MockRunResult;
+import dev.galasa.framework.spi.IResultArchiveStoreDirectoryService;
+import dev.galasa.framework.spi.IRunResult;
+import dev.galasa.framework.spi.ResultArchiveStoreException;
+import dev.galasa.framework.spi.ras.IRasSearchCriteria;
+import dev.galasa.framework.spi.ras.RasRunResultPage;
+import dev.galasa.framework.spi.ras.RasSortField;
+import dev.galasa.framework.spi.ras.RasTestStructureComparator;
+import dev.galasa.framework.spi.teststructure.TestStructure;
+
+public class TestRunsPageMerger {
+
+    /**
+     * A directory service which returns its runs a page at a time, using the index of the
+     * first run of the page as the cursor
+     */
+    private static class PagedDirectoryService extends MockResultArchiveStoreDirectoryService {
+
+        private final List<IRunResult> runs;
+        private int pagesRequested = 0;
+
+        public PagedDirectoryService(List<IRunResult> runs) {
+            super(runs);
+            this.runs = runs;
+        }
+
+        @Override
+        public @NotNull RasRunResultPage getRunsPage(int maxResults, RasSortField primarySort, String pageCursor, @NotNull IRasSearchCriteria... searchCriterias) throws ResultArchiveStoreException {
+            pagesRequested++;
+            int start = (pageCursor == null) ? 0 : Integer.parseInt(pageCursor);
+            int end = Math.min(start + maxResults, runs.size());
+            String nextCursor = (end < runs.size()) ? Integer.toString(end) : null;
+            return new RasRunResultPage(new ArrayList<>(runs.subList(start, end)), nextCursor);
+        }
+    }
+
+    private IRunResult createRun(String runName, long queuedSeconds) {
+        TestStructure testStructure = new TestStructure();
+        testStructure.setRunName(runName);
+        testStructure.setQueued(Instant.ofEpochSecond(queuedSeconds));
+        return new MockRunResult(runName, testStructure, null, null);
+    }
+
+    private List<String> getRunIds(List<IRunResult> runs) {
+        List<String> runIds = new ArrayList<>();
+        for (IRunResult run : runs) {
+            runIds.add(run.getRunId());
+        }
+        return runIds;
+    }
+
+    private RunsPageMerger createMerger(List<IResultArchiveStoreDirectoryService> services) {
+        RasSortField sortField = new RasSortField("queued", "desc");
+        return new RunsPageMerger(services, sortField, new RasTestStructureComparator(sortField), new IRasSearchCriteria[0]);
+    }
+
+    @Test
+    public void testPagesFromSeveralStoresAreMergedInOrder() throws Exception {
+        // Given...
+        PagedDirectoryService store1 = new PagedDirectoryService(List.of(
+            createRun("A1", 90), createRun("A2", 70), createRun("A3", 40), createRun("A4", 10)
+        ));
+        PagedDirectoryService store2 = new PagedDirectoryService(List.of(
+            createRun("B1", 80), createRun("B2", 60), createRun("B3", 50)
+        ));
+        RunsPageMerger merger = createMerger(List.of(store1, store2));
+
+        // When...
+        List<String> runIds = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            RasRunResultPage page = merger.getPage(cursor, 3);
+            runIds.addAll(getRunIds(page.getRuns()));
+            pageSizes.add(page.getRuns().size());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        // Then...
+        assertThat(runIds).containsExactly("A1", "B1", "A2", "B2", "B3", "A3", "A4");
+        assertThat(pageSizes).containsExactly(3, 3, 1);
+    }
+
+    @Test
+    public void testStoreWithNoMoreRunsIsNotAskedAgain() throws Exception {
+        // Given...
+        PagedDirectoryService store1 = new PagedDirectoryService(List.of(
+            createRun("A1", 90), createRun("A2", 80), createRun("A3", 70)
+        ));
+        PagedDirectoryService store2 = new PagedDirectoryService(new ArrayList<>());
+        RunsPageMerger merger = createMerger(List.of(store1, store2));
+
+        // When...
+        RasRunResultPage firstPage = merger.getPage(null, 2);
+        RasRunResultPage secondPage = merger.getPage(firstPage.getNextCursor(), 2);
+
+        // Then...
+        assertThat(getRunIds(firstPage.getRuns())).containsExactly("A1", "A2");
+        assertThat(getRunIds(secondPage.getRuns())).containsExactly("A3");
+        assertThat(secondPage.getNextCursor()).isNull();
+        assertThat(store2.pagesRequested).isEqualTo(1);
+    }
+
+    @Test
+    public void testSingleStoreCursorIsPassedThrough() throws Exception {
+        // Given...
+        PagedDirectoryService store = new PagedDirectoryService(List.of(
+            createRun("A1", 90), createRun("A2", 80), createRun("A3", 70)
+        ));
+        RunsPageMerger merger = createMerger(List.of(store));
+
+        // When...
+        RasRunResultPage page = merger.getPage(null, 2);
+
+        // Then...
+        assertThat(getRunIds(page.getRuns())).containsExactly("A1", "A2");
+        assertThat(page.getNextCursor()).isEqualTo("2");
+    }
+
+    @Test
+    public void testInvalidCursorIsRejected() throws Exception {
+        // Given...
+        RunsPageMerger merger = createMerger(List.of(
+            new PagedDirectoryService(new ArrayList<>()),
+            new PagedDirectoryService(new ArrayList<>())
+        ));
+
+        // When...
+        Throwable thrown = catchThrowable(() -> merger.getPage("not-a-cursor", 10));
+
+        // Then...
+        assertThat(thrown).isInstanceOf(InternalServletException.class);
+        assertThat(thrown.getMessage()).contains("GAL5004");
+    }
+}
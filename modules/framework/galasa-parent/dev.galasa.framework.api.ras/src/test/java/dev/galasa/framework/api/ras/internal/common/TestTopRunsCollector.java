@@ -0,0 +1,84 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.api.ras.internal.common;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import dev.galasa.framework.api.ras.internal.mocks.MockRunResult;
+import dev.galasa.framework.spi.IRunResult;
+import dev.galasa.framework.spi.ras.RasTestStructureComparator;
+import dev.galasa.framework.spi.teststructure.TestStructure;
+
+public class TestTopRunsCollector {
+
+    private IRunResult createRun(String runName, long queuedSeconds) {
+        TestStructure testStructure = new TestStructure();
+        testStructure.setRunName(runName);
+        testStructure.setQueued(Instant.ofEpochSecond(queuedSeconds));
+        return new MockRunResult(runName, testStructure, null, null);
+    }
+
+    private List<String> getRunIds(List<IRunResult> runs) {
+        List<String> runIds = new ArrayList<>();
+        for (IRunResult run : runs) {
+            runIds.add(run.getRunId());
+        }
+        return runIds;
+    }
+
+    @Test
+    public void testCollectorKeepsOnlyTheFirstRunsInOrder() throws Exception {
+        // Given...
+        TopRunsCollector collector = new TopRunsCollector(new RasTestStructureComparator("queued", false), 3);
+
+        // When...
+        collector.add(createRun("R1", 10));
+        collector.add(createRun("R2", 50));
+        collector.add(createRun("R3", 30));
+        collector.add(createRun("R4", 40));
+        collector.add(createRun("R5", 20));
+
+        // Then...
+        assertThat(collector.getTotalRuns()).isEqualTo(5);
+        assertThat(getRunIds(collector.getSortedRuns())).containsExactly("R2", "R4", "R3");
+    }
+
+    @Test
+    public void testCollectorKeepsTheOrderRunsWereAddedInWhenTheySortEqually() throws Exception {
+        // Given...
+        TopRunsCollector collector = new TopRunsCollector(new RasTestStructureComparator("queued", true), 3);
+
+        // When...
+        collector.add(createRun("R1", 10));
+        collector.add(createRun("R2", 10));
+        collector.add(createRun("R3", 10));
+        collector.add(createRun("R4", 10));
+
+        // Then...
+        assertThat(collector.getTotalRuns()).isEqualTo(4);
+        assertThat(getRunIds(collector.getSortedRuns())).containsExactly("R1", "R2", "R3");
+    }
+
+    @Test
+    public void testCollectorWithNoRoomStillCountsRuns() throws Exception {
+        // Given...
+        TopRunsCollector collector = new TopRunsCollector(new RasTestStructureComparator("queued", true), 0);
+
+        // When...
+        collector.add(createRun("R1", 10));
+        collector.add(createRun("R2", 20));
+
+        // Then...
+        assertThat(collector.getTotalRuns()).isEqualTo(2);
+        assertThat(collector.getSortedRuns()).isEmpty();
+    }
+}
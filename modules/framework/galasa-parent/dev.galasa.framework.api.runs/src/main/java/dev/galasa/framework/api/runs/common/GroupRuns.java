@@ -7,6 +7,7 @@ package dev.galasa.framework.api.runs.common;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.servlet.ServletException;
@@ -14,6 +15,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.validation.constraints.NotNull;
 
+import dev.galasa.framework.beans.SubmitRunRequest;
 import dev.galasa.framework.spi.IFramework;
 import dev.galasa.framework.spi.IFrameworkRuns.SharedEnvironmentPhase;
 import dev.galasa.api.runs.ScheduleRequest;
@@ -84,38 +86,48 @@ public class GroupRuns extends BaseRoute {
         ScheduleStatus status = new ScheduleStatus();
         status.setComplete(false);
             
+        SharedEnvironmentPhase senvPhase = null;
+        String sharedEnvironmentPhase = request.getSharedEnvironmentPhase();
+        if (sharedEnvironmentPhase != null) {
+            try {
+                senvPhase = SharedEnvironmentPhase.valueOf(request.getSharedEnvironmentPhase());
+            } catch (Throwable t) {
+                ServletError error = new ServletError(GAL5022_UNABLE_TO_PARSE_SHARED_ENVIRONMENT_PHASE,sharedEnvironmentPhase);
+                throw new InternalServletException(error, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, t);
+            }
+        }
+
+        if(jwtRequestor == null){
+            jwtRequestor = request.getRequestor(); 
+        }
+
+        // *** Submit all the runs together so the framework can reserve their run numbers
+        // *** and write them to the DSS in bulk, rather than one at a time
+        List<SubmitRunRequest> runRequests = new ArrayList<>();
         for (String className : request.getClassNames()) {
             // className is in format bundle/testClass
             String[] classNameSplit = className.split("/");
-
-            SharedEnvironmentPhase senvPhase = null;
-            String sharedEnvironmentPhase = request.getSharedEnvironmentPhase();
-            if (sharedEnvironmentPhase != null) {
-                try {
-                    senvPhase = SharedEnvironmentPhase.valueOf(request.getSharedEnvironmentPhase());
-                } catch (Throwable t) {
-                    ServletError error = new ServletError(GAL5022_UNABLE_TO_PARSE_SHARED_ENVIRONMENT_PHASE,sharedEnvironmentPhase);
-                    throw new InternalServletException(error, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, t);
-                }
-            }
-
-            if(jwtRequestor == null){
-                jwtRequestor = request.getRequestor(); 
-            }
             try {
-                IRun newRun = framework.getFrameworkRuns().submitRun(request.getRequestorType(), jwtRequestor, classNameSplit[0], classNameSplit[1],
+                runRequests.add(new SubmitRunRequest(request.getRequestorType(), jwtRequestor, classNameSplit[0], classNameSplit[1],
                         groupName, request.getMavenRepository(), request.getObr(), request.getTestStream(), false,
                         request.isTrace(), request.getOverrides(), 
                         senvPhase, 
                         request.getSharedEnvironmentRunName(),
-                        "java");
-                
-                status.getRuns().add(newRun.getSerializedRun());
+                        "java"));
             } catch (FrameworkException fe) {
                 ServletError error = new ServletError(GAL5021_UNABLE_TO_SUBMIT_RUNS, className);  
                 throw new InternalServletException(error, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, fe);
             }
         }
+
+        try {
+            for (IRun newRun : framework.getFrameworkRuns().submitRuns(runRequests)) {
+                status.getRuns().add(newRun.getSerializedRun());
+            }
+        } catch (FrameworkException fe) {
+            ServletError error = new ServletError(GAL5021_UNABLE_TO_SUBMIT_RUNS, String.join(", ", request.getClassNames()));  
+            throw new InternalServletException(error, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, fe);
+        }
         return status;
     }
 }
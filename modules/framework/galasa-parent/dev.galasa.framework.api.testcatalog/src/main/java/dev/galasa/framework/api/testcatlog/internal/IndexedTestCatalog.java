@@ -0,0 +1,394 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.api.testcatlog.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * A stream's test catalog held in memory, with the test classes indexed by
+ * bundle, package, class and tag so that a few tests can be looked up without
+ * sending the whole catalog.
+ *
+ * The catalog as it is served, its gzipped form and its ETag are worked out once
+ * when the catalog is stored rather than on every request. An instance is never
+ * changed, an update to the catalog creates a new one.
+ */
+class IndexedTestCatalog {
+
+    private static final String            GZIP_SUFFIX = "-gzip";
+
+    private final JsonObject               catalog;
+    private final byte[]                   content;
+    private final byte[]                   gzippedContent;
+    private final String                   etag;
+
+    private final FileTime                 lastModified;
+    private final long                     size;
+
+    private final Map<String, Set<String>> byBundle    = new TreeMap<>();
+    private final Map<String, Set<String>> byPackage   = new TreeMap<>();
+    private final Map<String, Set<String>> byClass     = new TreeMap<>();
+    private final Map<String, Set<String>> byTag       = new TreeMap<>();
+
+    /**
+     * @param catalog      the parsed catalog
+     * @param content      the catalog as it is stored and served
+     * @param lastModified when the stored catalog was last modified, so a change
+     *                     made by another API server can be spotted
+     * @throws IOException
+     */
+    IndexedTestCatalog(JsonObject catalog, byte[] content, FileTime lastModified) throws IOException {
+        this.catalog = catalog;
+        this.content = content;
+        this.gzippedContent = gzip(content);
+        this.etag = "\"" + sha256(content) + "\"";
+        this.lastModified = lastModified;
+        this.size = content.length;
+
+        JsonObject jsonClasses = catalog.getAsJsonObject("classes");
+        if (jsonClasses != null) {
+            for (Entry<String, JsonElement> entry : jsonClasses.entrySet()) {
+                if (entry.getValue().isJsonObject()) {
+                    index(entry.getKey(), entry.getValue().getAsJsonObject());
+                }
+            }
+        }
+    }
+
+    private void index(String fullName, JsonObject jsonClass) {
+        addToIndex(byBundle, getString(jsonClass, "bundle"), fullName);
+        addToIndex(byPackage, getString(jsonClass, "package"), fullName);
+
+        // *** A class can be asked for by its full or its short name
+        addToIndex(byClass, getString(jsonClass, "name"), fullName);
+        addToIndex(byClass, getString(jsonClass, "shortName"), fullName);
+
+        JsonArray jsonTags = getArray(jsonClass, "tags");
+        if (jsonTags != null) {
+            for (JsonElement tag : jsonTags) {
+                if (tag.isJsonPrimitive()) {
+                    addToIndex(byTag, tag.getAsString(), fullName);
+                }
+            }
+        }
+    }
+
+    private void addToIndex(Map<String, Set<String>> index, String key, String fullName) {
+        if (key != null) {
+            index.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(fullName);
+        }
+    }
+
+    /**
+     * @return true if this was read from a stored catalog with this modified time and size
+     */
+    boolean isCurrent(FileTime lastModified, long size) {
+        return this.lastModified != null && this.lastModified.equals(lastModified) && this.size == size;
+    }
+
+    byte[] getContent() {
+        return content;
+    }
+
+    byte[] getGzippedContent() {
+        return gzippedContent;
+    }
+
+    /**
+     * @param isGzipped
+     * @param query     the query string the response is for, or null for the
+     *                  whole catalog
+     * @return the ETag of a response from this catalog
+     */
+    String getETag(boolean isGzipped, String query) {
+        String tag = etag.substring(0, etag.length() - 1);
+        if (query != null) {
+            tag += "-" + Integer.toHexString(query.hashCode());
+        }
+        if (isGzipped) {
+            tag += GZIP_SUFFIX;
+        }
+        return tag + "\"";
+    }
+
+    /**
+     * @param ifNoneMatch the If-None-Match header, may be null
+     * @param query       the query string the response is for, or null for the
+     *                    whole catalog
+     * @return true if the client already has this version of the response,
+     *         gzipped or not
+     */
+    boolean isNotModified(String ifNoneMatch, String query) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        String identityETag = getETag(false, query);
+        String gzipETag = getETag(true, query);
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(identityETag) || tag.equals(gzipETag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find the test classes matching all of the criteria given, a null criterion
+     * matching every class
+     *
+     * @param bundle
+     * @param packageName
+     * @param className   the full or short name of the class
+     * @param tag
+     * @return a catalog of the matching classes, in the order they are in the catalog
+     */
+    JsonObject query(String bundle, String packageName, String className, String tag) {
+        Set<String> matches = null;
+        matches = narrow(matches, byBundle, bundle);
+        matches = narrow(matches, byPackage, packageName);
+        matches = narrow(matches, byClass, className);
+        matches = narrow(matches, byTag, tag);
+
+        JsonObject jsonResult = new JsonObject();
+        JsonObject jsonResultClasses = new JsonObject();
+        jsonResult.add("classes", jsonResultClasses);
+
+        JsonObject jsonClasses = catalog.getAsJsonObject("classes");
+        if (jsonClasses == null) {
+            return jsonResult;
+        }
+
+        if (matches == null) {
+            for (Entry<String, JsonElement> entry : jsonClasses.entrySet()) {
+                jsonResultClasses.add(entry.getKey(), entry.getValue());
+            }
+        } else {
+            for (String fullName : matches) {
+                jsonResultClasses.add(fullName, jsonClasses.get(fullName));
+            }
+        }
+
+        return jsonResult;
+    }
+
+    private Set<String> narrow(Set<String> matches, Map<String, Set<String>> index, String key) {
+        if (key == null) {
+            return matches;
+        }
+
+        Set<String> found = index.getOrDefault(key, Collections.emptySet());
+        if (matches == null) {
+            return found;
+        }
+
+        Set<String> narrowed = new LinkedHashSet<>(matches);
+        narrowed.retainAll(found);
+        return narrowed;
+    }
+
+    /**
+     * Create the catalog that results from replacing the bundles in the update.
+     * Bundles which are not in the update are left as they are.
+     *
+     * @param update a test catalog of the bundles which have changed
+     * @return the merged catalog, which is not yet indexed
+     */
+    JsonObject merge(JsonObject update) {
+        JsonObject merged = catalog.deepCopy();
+
+        Set<String> updatedBundles = new HashSet<>();
+        JsonObject jsonUpdateBundles = update.getAsJsonObject("bundles");
+        if (jsonUpdateBundles != null) {
+            updatedBundles.addAll(jsonUpdateBundles.keySet());
+        }
+
+        // *** Remove everything from the bundles being replaced
+        Set<String> removed = new HashSet<>();
+        removed.addAll(removeBundles(merged.getAsJsonObject("classes"), updatedBundles));
+        removed.addAll(removeBundles(merged.getAsJsonObject("sharedEnvironments"), updatedBundles));
+        removeNames(merged.getAsJsonObject("packages"), removed);
+        removeNames(merged.getAsJsonObject("tags"), removed);
+
+        JsonObject jsonBundles = merged.getAsJsonObject("bundles");
+        if (jsonBundles != null) {
+            for (String bundle : updatedBundles) {
+                jsonBundles.remove(bundle);
+            }
+        }
+
+        // *** Then add the bundles from the update
+        for (Entry<String, JsonElement> entry : update.entrySet()) {
+            String section = entry.getKey();
+            JsonElement value = entry.getValue();
+
+            switch (section) {
+                case "classes":
+                case "sharedEnvironments":
+                case "bundles":
+                    addMembers(merged, section, value);
+                    break;
+                case "packages":
+                case "tags":
+                    addNames(merged, section, value);
+                    break;
+                default:
+                    merged.add(section, value);
+            }
+        }
+
+        return merged;
+    }
+
+    private Set<String> removeBundles(JsonObject jsonSection, Set<String> bundles) {
+        Set<String> removed = new HashSet<>();
+        if (jsonSection == null) {
+            return removed;
+        }
+
+        Iterator<Entry<String, JsonElement>> entries = jsonSection.entrySet().iterator();
+        while (entries.hasNext()) {
+            Entry<String, JsonElement> entry = entries.next();
+            String bundle = null;
+            if (entry.getValue().isJsonObject()) {
+                bundle = getString(entry.getValue().getAsJsonObject(), "bundle");
+            }
+            if (bundle != null && bundles.contains(bundle)) {
+                removed.add(entry.getKey());
+                entries.remove();
+            }
+        }
+        return removed;
+    }
+
+    private void removeNames(JsonObject jsonSection, Set<String> names) {
+        if (jsonSection == null || names.isEmpty()) {
+            return;
+        }
+
+        Iterator<Entry<String, JsonElement>> entries = jsonSection.entrySet().iterator();
+        while (entries.hasNext()) {
+            Entry<String, JsonElement> entry = entries.next();
+            if (!entry.getValue().isJsonArray()) {
+                continue;
+            }
+
+            JsonArray kept = new JsonArray();
+            for (JsonElement name : entry.getValue().getAsJsonArray()) {
+                if (!name.isJsonPrimitive() || !names.contains(name.getAsString())) {
+                    kept.add(name);
+                }
+            }
+
+            if (kept.size() == 0) {
+                entries.remove();
+            } else {
+                entry.setValue(kept);
+            }
+        }
+    }
+
+    private void addMembers(JsonObject merged, String section, JsonElement value) {
+        if (!value.isJsonObject()) {
+            return;
+        }
+
+        JsonObject jsonSection = merged.getAsJsonObject(section);
+        if (jsonSection == null) {
+            jsonSection = new JsonObject();
+            merged.add(section, jsonSection);
+        }
+        for (Entry<String, JsonElement> entry : value.getAsJsonObject().entrySet()) {
+            jsonSection.add(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void addNames(JsonObject merged, String section, JsonElement value) {
+        if (!value.isJsonObject()) {
+            return;
+        }
+
+        JsonObject jsonSection = merged.getAsJsonObject(section);
+        if (jsonSection == null) {
+            jsonSection = new JsonObject();
+            merged.add(section, jsonSection);
+        }
+        for (Entry<String, JsonElement> entry : value.getAsJsonObject().entrySet()) {
+            if (!entry.getValue().isJsonArray()) {
+                continue;
+            }
+
+            JsonArray jsonNames = getArray(jsonSection, entry.getKey());
+            if (jsonNames == null) {
+                jsonNames = new JsonArray();
+                jsonSection.add(entry.getKey(), jsonNames);
+            }
+            for (JsonElement name : entry.getValue().getAsJsonArray()) {
+                if (!jsonNames.contains(name)) {
+                    jsonNames.add(name);
+                }
+            }
+        }
+    }
+
+    private static String getString(JsonObject json, String name) {
+        JsonElement value = json.get(name);
+        if (value == null || !value.isJsonPrimitive()) {
+            return null;
+        }
+        return value.getAsString();
+    }
+
+    private static JsonArray getArray(JsonObject json, String name) {
+        JsonElement value = json.get(name);
+        if (value == null || !value.isJsonArray()) {
+            return null;
+        }
+        return value.getAsJsonArray();
+    }
+
+    static byte[] gzip(byte[] content) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (GZIPOutputStream gzos = new GZIPOutputStream(baos)) {
+            gzos.write(content);
+        }
+        return baos.toByteArray();
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest(content)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -7,11 +7,15 @@ package dev.galasa.framework.api.testcatlog.internal;
 
 import java.io.IOException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -39,7 +43,18 @@ import dev.galasa.framework.spi.utils.GalasaGson;
 /**
  * Basic Test Catalog store
  * 
- *  
+ * GET /testcatalog/{stream} returns the stream's catalog, or with any of the
+ * bundle, package, class and tag query parameters just the matching test
+ * classes. Responses carry an ETag and are gzipped if the client accepts it.
+ * 
+ * PUT /testcatalog/{stream} replaces the catalog, or with merge=true replaces
+ * only the bundles in the request.
+ * 
+ * Merges are only serialised within one instance of the servlet. If more than
+ * one API server replica shares the catalog directory, concurrent merges to the
+ * same stream from different replicas can lose updates, the last one written
+ * wins. Catalogs read by a replica are checked against the modification time
+ * and size of the file, so changes written by another replica are picked up.
  *
  */
 @Component(service = Servlet.class, scope = ServiceScope.PROTOTYPE, property = {
@@ -56,6 +71,9 @@ public class TestcatalogStreams extends HttpServlet {
 
     private Path              catalogDirectory;                                                       // NOSONAR
 
+    // *** The catalogs read so far, by stream name
+    private final Map<String, IndexedTestCatalog> catalogs = new ConcurrentHashMap<>();
+
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
 
@@ -75,19 +93,52 @@ public class TestcatalogStreams extends HttpServlet {
 //				return;
 //			}
 
-            Path actualFile = catalogDirectory.resolve(streamName);
-
-            if (!Files.exists(actualFile)) {
+            IndexedTestCatalog catalog = getCatalog(streamName);
+            if (catalog == null) {
                 resp.sendError(HttpServletResponse.SC_NOT_FOUND, "Test Catalog is missing");
                 return;
             }
 
+            // *** A query for some of the test classes is answered from the index,
+            // *** otherwise the whole catalog is sent
+            String bundle = req.getParameter("bundle");
+            String packageName = req.getParameter("package");
+            String className = req.getParameter("class");
+            String tag = req.getParameter("tag");
+
+            String query = null;
+            if (bundle != null || packageName != null || className != null || tag != null) {
+                query = "bundle=" + bundle + "&package=" + packageName + "&class=" + className + "&tag=" + tag;
+            }
+
+            boolean isGzipped = acceptsGzip(req);
+
+            resp.setHeader("ETag", catalog.getETag(isGzipped, query));
+            resp.setHeader("Vary", "Accept-Encoding");
             resp.setContentType("application/json");
-            resp.setContentLengthLong(Files.size(actualFile));
 
-            Files.copy(actualFile, resp.getOutputStream());
+            if (catalog.isNotModified(req.getHeader("If-None-Match"), query)) {
+                resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+
+            byte[] content;
+            if (query == null) {
+                content = isGzipped ? catalog.getGzippedContent() : catalog.getContent();
+            } else {
+                content = gson.toJson(catalog.query(bundle, packageName, className, tag)).getBytes(StandardCharsets.UTF_8);
+                if (isGzipped) {
+                    content = IndexedTestCatalog.gzip(content);
+                }
+            }
 
+            if (isGzipped) {
+                resp.setHeader("Content-Encoding", "gzip");
+            }
+            resp.setContentLengthLong(content.length);
             resp.setStatus(200);
+
+            resp.getOutputStream().write(content);
         } catch (JsonParseException e) {
             throw new IOException("Problem processing the test catalog request", e); // NOSONAR TODO put in proper json
                                                                                      // error response
@@ -133,10 +184,23 @@ public class TestcatalogStreams extends HttpServlet {
                 return;
             }
 
-            Path actualFile = catalogDirectory.resolve(streamName);
+            // *** With merge=true only the bundles in the request are replaced,
+            // *** otherwise the request replaces the whole catalog
+            boolean isMerge = Boolean.parseBoolean(req.getParameter("merge"));
 
-            Files.write(actualFile, jsonData.getBytes("utf-8"), StandardOpenOption.CREATE,
-                    StandardOpenOption.TRUNCATE_EXISTING);
+            synchronized (catalogs) {
+                IndexedTestCatalog existing = null;
+                if (isMerge) {
+                    existing = getCatalog(streamName);
+                }
+
+                if (existing != null) {
+                    tc = existing.merge(tc);
+                    jsonData = gson.toJson(tc);
+                }
+
+                writeCatalog(streamName, tc, jsonData.getBytes(StandardCharsets.UTF_8));
+            }
 
             logger.info("Test Catalog written for stream " + streamName);
 
@@ -150,6 +214,87 @@ public class TestcatalogStreams extends HttpServlet {
         }
     }
 
+    /**
+     * @return the stream's catalog, read again if it has been changed since it was
+     *         last read, or null if the stream has no catalog
+     */
+    private IndexedTestCatalog getCatalog(String streamName) throws IOException {
+        Path actualFile = catalogDirectory.resolve(streamName);
+
+        IndexedTestCatalog catalog = catalogs.get(streamName);
+        if (!Files.exists(actualFile)) {
+            if (catalog != null) {
+                catalogs.remove(streamName, catalog);
+            }
+            return null;
+        }
+
+        if (catalog != null && catalog.isCurrent(Files.getLastModifiedTime(actualFile), Files.size(actualFile))) {
+            return catalog;
+        }
+
+        synchronized (catalogs) {
+            // *** Another request may have read it while we waited
+            FileTime lastModified = Files.getLastModifiedTime(actualFile);
+            catalog = catalogs.get(streamName);
+            if (catalog != null && catalog.isCurrent(lastModified, Files.size(actualFile))) {
+                return catalog;
+            }
+
+            byte[] content = Files.readAllBytes(actualFile);
+
+            JsonObject jsonCatalog = gson.fromJson(new String(content, StandardCharsets.UTF_8), JsonObject.class);
+            if (jsonCatalog == null) {
+                jsonCatalog = new JsonObject();
+            }
+
+            catalog = new IndexedTestCatalog(jsonCatalog, content, lastModified);
+            catalogs.put(streamName, catalog);
+        }
+        return catalog;
+    }
+
+    /**
+     * Write the catalog to a temporary file which is then moved into place, so a
+     * reader never sees a partly written catalog
+     */
+    private void writeCatalog(String streamName, JsonObject jsonCatalog, byte[] content) throws IOException {
+        // *** Not a valid stream name, so never read as a catalog
+        Path tempDirectory = catalogDirectory.resolve(".tmp");
+        Files.createDirectories(tempDirectory);
+
+        Path tempFile = Files.createTempFile(tempDirectory, streamName, ".json");
+        try {
+            Files.write(tempFile, content);
+
+            Path actualFile = catalogDirectory.resolve(streamName);
+            try {
+                Files.move(tempFile, actualFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, actualFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            catalogs.put(streamName, new IndexedTestCatalog(jsonCatalog, content, Files.getLastModifiedTime(actualFile)));
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private boolean acceptsGzip(HttpServletRequest req) {
+        String acceptEncoding = req.getHeader("Accept-Encoding");
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        for (String encoding : acceptEncoding.split(",")) {
+            String[] parts = encoding.trim().split(";");
+            if ("gzip".equalsIgnoreCase(parts[0].trim())) {
+                return !(parts.length > 1 && parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?"));
+            }
+        }
+        return false;
+    }
+
     private boolean checkPath(HttpServletResponse resp, String path) throws IOException {
         Matcher m = patternValidStreamName.matcher(path);
         if (!m.matches()) {
@@ -190,11 +335,13 @@ public class TestcatalogStreams extends HttpServlet {
         } else {
             catalogDirectory = null;
         }
+        catalogs.clear();
     }
 
     @Deactivate
     void deactivate() {
         this.catalogDirectory = null;
+        catalogs.clear();
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,204 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.api.testcatlog.internal;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.attribute.FileTime;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import dev.galasa.framework.spi.utils.GalasaGson;
+
+public class TestIndexedTestCatalog {
+
+    private final GalasaGson gson = new GalasaGson();
+
+    private JsonObject createTestClass(JsonObject jsonCatalog, String bundle, String packageName, String shortName, String... tags) {
+        String name = packageName + "." + shortName;
+        String fullName = bundle + "/" + name;
+
+        JsonObject jsonClass = new JsonObject();
+        jsonClass.addProperty("name", name);
+        jsonClass.addProperty("bundle", bundle);
+        jsonClass.addProperty("shortName", shortName);
+        jsonClass.addProperty("package", packageName);
+        JsonArray jsonClassTags = new JsonArray();
+        jsonClass.add("tags", jsonClassTags);
+        jsonCatalog.getAsJsonObject("classes").add(fullName, jsonClass);
+
+        addName(jsonCatalog.getAsJsonObject("packages"), packageName, fullName);
+
+        JsonObject jsonBundles = jsonCatalog.getAsJsonObject("bundles");
+        if (!jsonBundles.has(bundle)) {
+            JsonObject jsonBundle = new JsonObject();
+            jsonBundle.add("packages", new JsonObject());
+            jsonBundles.add(bundle, jsonBundle);
+        }
+        addName(jsonBundles.getAsJsonObject(bundle).getAsJsonObject("packages"), packageName, fullName);
+
+        for (String tag : tags) {
+            jsonClassTags.add(tag);
+            addName(jsonCatalog.getAsJsonObject("tags"), tag, fullName);
+        }
+        return jsonClass;
+    }
+
+    private void addName(JsonObject jsonSection, String key, String fullName) {
+        if (!jsonSection.has(key)) {
+            jsonSection.add(key, new JsonArray());
+        }
+        jsonSection.getAsJsonArray(key).add(fullName);
+    }
+
+    private JsonObject createCatalog() {
+        JsonObject jsonCatalog = new JsonObject();
+        jsonCatalog.addProperty("name", "my-stream");
+        jsonCatalog.add("classes", new JsonObject());
+        jsonCatalog.add("packages", new JsonObject());
+        jsonCatalog.add("bundles", new JsonObject());
+        jsonCatalog.add("tags", new JsonObject());
+        jsonCatalog.add("sharedEnvironments", new JsonObject());
+        return jsonCatalog;
+    }
+
+    private IndexedTestCatalog index(JsonObject jsonCatalog) throws Exception {
+        byte[] content = gson.toJson(jsonCatalog).getBytes(StandardCharsets.UTF_8);
+        return new IndexedTestCatalog(jsonCatalog, content, FileTime.fromMillis(1000));
+    }
+
+    private IndexedTestCatalog createIndexedCatalog() throws Exception {
+        JsonObject jsonCatalog = createCatalog();
+        createTestClass(jsonCatalog, "bundle.a", "dev.galasa.a", "FirstTest", "smoke");
+        createTestClass(jsonCatalog, "bundle.a", "dev.galasa.a", "SecondTest", "smoke", "slow");
+        createTestClass(jsonCatalog, "bundle.b", "dev.galasa.b", "ThirdTest", "slow");
+        return index(jsonCatalog);
+    }
+
+    @Test
+    public void testQueryByEachCriterion() throws Exception {
+        // Given...
+        IndexedTestCatalog catalog = createIndexedCatalog();
+
+        // When...
+        JsonObject byBundle = catalog.query("bundle.a", null, null, null);
+        JsonObject byPackage = catalog.query(null, "dev.galasa.b", null, null);
+        JsonObject byShortName = catalog.query(null, null, "SecondTest", null);
+        JsonObject byName = catalog.query(null, null, "dev.galasa.a.FirstTest", null);
+        JsonObject byTag = catalog.query(null, null, null, "slow");
+
+        // Then...
+        assertThat(byBundle.getAsJsonObject("classes").keySet())
+            .containsExactly("bundle.a/dev.galasa.a.FirstTest", "bundle.a/dev.galasa.a.SecondTest");
+        assertThat(byPackage.getAsJsonObject("classes").keySet()).containsExactly("bundle.b/dev.galasa.b.ThirdTest");
+        assertThat(byShortName.getAsJsonObject("classes").keySet()).containsExactly("bundle.a/dev.galasa.a.SecondTest");
+        assertThat(byName.getAsJsonObject("classes").keySet()).containsExactly("bundle.a/dev.galasa.a.FirstTest");
+        assertThat(byTag.getAsJsonObject("classes").keySet())
+            .containsExactly("bundle.a/dev.galasa.a.SecondTest", "bundle.b/dev.galasa.b.ThirdTest");
+        assertThat(byTag.getAsJsonObject("classes").getAsJsonObject("bundle.b/dev.galasa.b.ThirdTest")
+            .get("shortName").getAsString()).isEqualTo("ThirdTest");
+    }
+
+    @Test
+    public void testQueryMatchesAllTheCriteriaGiven() throws Exception {
+        // Given...
+        IndexedTestCatalog catalog = createIndexedCatalog();
+
+        // When...
+        JsonObject matched = catalog.query("bundle.a", null, null, "slow");
+        JsonObject unmatched = catalog.query("bundle.b", null, null, "smoke");
+        JsonObject unknown = catalog.query(null, null, null, "no-such-tag");
+
+        // Then...
+        assertThat(matched.getAsJsonObject("classes").keySet()).containsExactly("bundle.a/dev.galasa.a.SecondTest");
+        assertThat(unmatched.getAsJsonObject("classes").keySet()).isEmpty();
+        assertThat(unknown.getAsJsonObject("classes").keySet()).isEmpty();
+    }
+
+    @Test
+    public void testETagChangesWithTheCatalogAndMatchesIfNoneMatch() throws Exception {
+        // Given...
+        IndexedTestCatalog catalog = createIndexedCatalog();
+        JsonObject jsonChanged = createCatalog();
+        createTestClass(jsonChanged, "bundle.a", "dev.galasa.a", "FirstTest");
+        IndexedTestCatalog changed = index(jsonChanged);
+
+        // When...
+        String etag = catalog.getETag(false, null);
+        String gzipETag = catalog.getETag(true, null);
+        String queryETag = catalog.getETag(false, "bundle=bundle.a");
+
+        // Then...
+        assertThat(etag).startsWith("\"").endsWith("\"");
+        assertThat(gzipETag).isNotEqualTo(etag);
+        assertThat(queryETag).isNotEqualTo(etag);
+        assertThat(changed.getETag(false, null)).isNotEqualTo(etag);
+
+        assertThat(catalog.isNotModified(etag, null)).isTrue();
+        assertThat(catalog.isNotModified(gzipETag, null)).isTrue();
+        assertThat(catalog.isNotModified("\"other\", W/" + etag, null)).isTrue();
+        assertThat(catalog.isNotModified("*", null)).isTrue();
+        assertThat(catalog.isNotModified(null, null)).isFalse();
+        assertThat(catalog.isNotModified(etag, "bundle=bundle.a")).isFalse();
+        assertThat(changed.isNotModified(etag, null)).isFalse();
+    }
+
+    @Test
+    public void testGzippedContentIsTheCatalog() throws Exception {
+        // Given...
+        IndexedTestCatalog catalog = createIndexedCatalog();
+
+        // When...
+        byte[] unzipped;
+        try (GZIPInputStream gzis = new GZIPInputStream(new ByteArrayInputStream(catalog.getGzippedContent()))) {
+            unzipped = gzis.readAllBytes();
+        }
+
+        // Then...
+        assertThat(unzipped).isEqualTo(catalog.getContent());
+        assertThat(catalog.isCurrent(FileTime.fromMillis(1000), catalog.getContent().length)).isTrue();
+        assertThat(catalog.isCurrent(FileTime.fromMillis(2000), catalog.getContent().length)).isFalse();
+    }
+
+    @Test
+    public void testMergeReplacesOnlyTheBundlesInTheUpdate() throws Exception {
+        // Given...
+        IndexedTestCatalog catalog = createIndexedCatalog();
+
+        JsonObject jsonUpdate = createCatalog();
+        jsonUpdate.addProperty("build", "2");
+        createTestClass(jsonUpdate, "bundle.a", "dev.galasa.a", "FirstTest", "fast");
+        createTestClass(jsonUpdate, "bundle.a", "dev.galasa.a2", "NewTest");
+
+        // When...
+        JsonObject jsonMerged = catalog.merge(jsonUpdate);
+        IndexedTestCatalog merged = index(jsonMerged);
+
+        // Then...
+        assertThat(jsonMerged.getAsJsonObject("classes").keySet()).containsExactlyInAnyOrder(
+            "bundle.a/dev.galasa.a.FirstTest", "bundle.a/dev.galasa.a2.NewTest", "bundle.b/dev.galasa.b.ThirdTest");
+        assertThat(jsonMerged.getAsJsonObject("bundles").keySet()).containsExactlyInAnyOrder("bundle.a", "bundle.b");
+        assertThat(jsonMerged.getAsJsonObject("packages").getAsJsonArray("dev.galasa.a")).hasSize(1);
+        assertThat(jsonMerged.getAsJsonObject("packages").getAsJsonArray("dev.galasa.a2")).hasSize(1);
+        assertThat(jsonMerged.getAsJsonObject("tags").has("smoke")).isFalse();
+        assertThat(jsonMerged.getAsJsonObject("tags").getAsJsonArray("slow")).hasSize(1);
+        assertThat(jsonMerged.get("name").getAsString()).isEqualTo("my-stream");
+        assertThat(jsonMerged.get("build").getAsString()).isEqualTo("2");
+
+        assertThat(merged.query(null, null, null, "fast").getAsJsonObject("classes").keySet())
+            .containsExactly("bundle.a/dev.galasa.a.FirstTest");
+        assertThat(merged.query(null, null, null, "smoke").getAsJsonObject("classes").keySet()).isEmpty();
+
+        // The catalog merged into is not changed
+        assertThat(catalog.query(null, null, null, "smoke").getAsJsonObject("classes").keySet()).hasSize(2);
+    }
+}
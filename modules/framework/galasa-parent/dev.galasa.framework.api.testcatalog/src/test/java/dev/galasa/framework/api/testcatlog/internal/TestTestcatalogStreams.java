@@ -0,0 +1,278 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.api.testcatlog.internal;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import dev.galasa.framework.api.common.mocks.MockHttpServletRequest;
+import dev.galasa.framework.api.common.mocks.MockHttpServletResponse;
+import dev.galasa.framework.api.common.mocks.MockServletOutputStream;
+import dev.galasa.framework.spi.utils.GalasaGson;
+
+public class TestTestcatalogStreams {
+
+    @Rule
+    public TemporaryFolder     temporaryFolder = new TemporaryFolder();
+
+    private final GalasaGson   gson            = new GalasaGson();
+
+    private Path               catalogDirectory;
+
+    private TestcatalogStreams servlet;
+
+    @Before
+    public void setUp() throws Exception {
+        catalogDirectory = temporaryFolder.newFolder("testcatalog").toPath();
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("framework.testcatalog.directory", catalogDirectory.toUri().toURL().toString());
+
+        servlet = new TestcatalogStreams();
+        servlet.activate(properties);
+    }
+
+    private JsonObject createCatalog(String... testClasses) {
+        JsonObject jsonCatalog = new JsonObject();
+        jsonCatalog.add("classes", new JsonObject());
+        jsonCatalog.add("packages", new JsonObject());
+        jsonCatalog.add("bundles", new JsonObject());
+        jsonCatalog.add("tags", new JsonObject());
+
+        // *** Each test class is given as bundle/package/shortName
+        for (String testClass : testClasses) {
+            String[] parts = testClass.split("/");
+            String bundle = parts[0];
+            String packageName = parts[1];
+            String name = packageName + "." + parts[2];
+            String fullName = bundle + "/" + name;
+
+            JsonObject jsonClass = new JsonObject();
+            jsonClass.addProperty("name", name);
+            jsonClass.addProperty("bundle", bundle);
+            jsonClass.addProperty("shortName", parts[2]);
+            jsonClass.addProperty("package", packageName);
+            jsonCatalog.getAsJsonObject("classes").add(fullName, jsonClass);
+
+            JsonObject jsonPackages = jsonCatalog.getAsJsonObject("packages");
+            if (!jsonPackages.has(packageName)) {
+                jsonPackages.add(packageName, new JsonArray());
+            }
+            jsonPackages.getAsJsonArray(packageName).add(fullName);
+
+            JsonObject jsonBundles = jsonCatalog.getAsJsonObject("bundles");
+            if (!jsonBundles.has(bundle)) {
+                JsonObject jsonBundle = new JsonObject();
+                jsonBundle.add("packages", new JsonObject());
+                jsonBundles.add(bundle, jsonBundle);
+            }
+        }
+        return jsonCatalog;
+    }
+
+    private MockHttpServletResponse put(String stream, JsonObject jsonCatalog, boolean merge) throws Exception {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Content-Type", "application/json");
+        MockHttpServletRequest req = new MockHttpServletRequest("/" + stream, gson.toJson(jsonCatalog), "PUT", headers);
+        if (merge) {
+            req.setQueryParameter("merge", "true");
+        }
+
+        MockHttpServletResponse resp = new MockHttpServletResponse();
+        servlet.doPut(req, resp);
+        return resp;
+    }
+
+    private MockHttpServletResponse get(String stream, Map<String, String[]> parameters, Map<String, String> headers) throws Exception {
+        MockHttpServletRequest req = new MockHttpServletRequest(parameters, "/" + stream, headers);
+        MockHttpServletResponse resp = new MockHttpServletResponse();
+        servlet.doGet(req, resp);
+        return resp;
+    }
+
+    private MockHttpServletResponse get(String stream) throws Exception {
+        return get(stream, new HashMap<>(), new HashMap<>());
+    }
+
+    private JsonObject getContent(MockHttpServletResponse resp) throws Exception {
+        return gson.fromJson(resp.getOutputStream().toString(), JsonObject.class);
+    }
+
+    @Test
+    public void testPutCatalogCanBeRead() throws Exception {
+        // Given...
+        put("my-stream", createCatalog("bundle.a/dev.galasa.a/FirstTest"), false);
+
+        // When...
+        MockHttpServletResponse resp = get("my-stream");
+
+        // Then...
+        assertThat(resp.getStatus()).isEqualTo(200);
+        assertThat(resp.getHeader("ETag")).isNotBlank();
+        assertThat(resp.getHeader("Content-Encoding")).isNull();
+        assertThat(getContent(resp).getAsJsonObject("classes").keySet()).containsExactly("bundle.a/dev.galasa.a.FirstTest");
+    }
+
+    @Test
+    public void testMergePutReplacesOnlyTheBundlesInTheRequest() throws Exception {
+        // Given...
+        put("my-stream", createCatalog("bundle.a/dev.galasa.a/FirstTest", "bundle.b/dev.galasa.b/SecondTest"), false);
+
+        // When...
+        MockHttpServletResponse putResp = put("my-stream", createCatalog("bundle.a/dev.galasa.a/NewTest"), true);
+        MockHttpServletResponse resp = get("my-stream");
+
+        // Then...
+        assertThat(putResp.getStatus()).isEqualTo(200);
+        assertThat(getContent(resp).getAsJsonObject("classes").keySet())
+            .containsExactlyInAnyOrder("bundle.a/dev.galasa.a.NewTest", "bundle.b/dev.galasa.b.SecondTest");
+    }
+
+    @Test
+    public void testPutWithoutMergeReplacesTheCatalog() throws Exception {
+        // Given...
+        put("my-stream", createCatalog("bundle.a/dev.galasa.a/FirstTest", "bundle.b/dev.galasa.b/SecondTest"), false);
+
+        // When...
+        put("my-stream", createCatalog("bundle.a/dev.galasa.a/NewTest"), false);
+        MockHttpServletResponse resp = get("my-stream");
+
+        // Then...
+        assertThat(getContent(resp).getAsJsonObject("classes").keySet()).containsExactly("bundle.a/dev.galasa.a.NewTest");
+    }
+
+    @Test
+    public void testGetIsGzippedWhenTheClientAcceptsIt() throws Exception {
+        // Given...
+        put("my-stream", createCatalog("bundle.a/dev.galasa.a/FirstTest"), false);
+        String plainETag = get("my-stream").getHeader("ETag");
+
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Accept-Encoding", "deflate, gzip;q=0.8");
+
+        // When...
+        MockHttpServletResponse resp = get("my-stream", new HashMap<>(), headers);
+
+        // Then...
+        assertThat(resp.getStatus()).isEqualTo(200);
+        assertThat(resp.getHeader("Content-Encoding")).isEqualTo("gzip");
+        assertThat(resp.getHeader("ETag")).isNotEqualTo(plainETag);
+
+        byte[] gzipped = ((MockServletOutputStream) resp.getOutputStream()).toByteArray();
+        assertThat(resp.getHeader("Content-Length")).isEqualTo(Integer.toString(gzipped.length));
+        try (GZIPInputStream gzipStream = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            JsonObject jsonCatalog = gson.fromJson(new String(gzipStream.readAllBytes(), StandardCharsets.UTF_8), JsonObject.class);
+            assertThat(jsonCatalog.getAsJsonObject("classes").keySet()).containsExactly("bundle.a/dev.galasa.a.FirstTest");
+        }
+    }
+
+    @Test
+    public void testGetIsNotGzippedWhenTheClientRefusesIt() throws Exception {
+        // Given...
+        put("my-stream", createCatalog("bundle.a/dev.galasa.a/FirstTest"), false);
+
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Accept-Encoding", "gzip;q=0");
+
+        // When...
+        MockHttpServletResponse resp = get("my-stream", new HashMap<>(), headers);
+
+        // Then...
+        assertThat(resp.getHeader("Content-Encoding")).isNull();
+        assertThat(getContent(resp).getAsJsonObject("classes").keySet()).containsExactly("bundle.a/dev.galasa.a.FirstTest");
+    }
+
+    @Test
+    public void testGetWithMatchingIfNoneMatchIsNotModified() throws Exception {
+        // Given...
+        put("my-stream", createCatalog("bundle.a/dev.galasa.a/FirstTest"), false);
+        String etag = get("my-stream").getHeader("ETag");
+
+        Map<String, String> headers = new HashMap<>();
+        headers.put("If-None-Match", etag);
+
+        // When...
+        MockHttpServletResponse resp = get("my-stream", new HashMap<>(), headers);
+
+        // Then...
+        assertThat(resp.getStatus()).isEqualTo(304);
+        assertThat(resp.getHeader("ETag")).isEqualTo(etag);
+        assertThat(resp.getOutputStream().toString()).isEmpty();
+    }
+
+    @Test
+    public void testGetWithIfNoneMatchIsSentAgainOnceTheCatalogChanges() throws Exception {
+        // Given...
+        put("my-stream", createCatalog("bundle.a/dev.galasa.a/FirstTest"), false);
+        String etag = get("my-stream").getHeader("ETag");
+        put("my-stream", createCatalog("bundle.a/dev.galasa.a/NewTest"), false);
+
+        Map<String, String> headers = new HashMap<>();
+        headers.put("If-None-Match", etag);
+
+        // When...
+        MockHttpServletResponse resp = get("my-stream", new HashMap<>(), headers);
+
+        // Then...
+        assertThat(resp.getStatus()).isEqualTo(200);
+        assertThat(resp.getHeader("ETag")).isNotEqualTo(etag);
+        assertThat(getContent(resp).getAsJsonObject("classes").keySet()).containsExactly("bundle.a/dev.galasa.a.NewTest");
+    }
+
+    @Test
+    public void testQueryParametersReturnOnlyTheMatchingClasses() throws Exception {
+        // Given...
+        put("my-stream", createCatalog("bundle.a/dev.galasa.a/FirstTest", "bundle.b/dev.galasa.b/SecondTest"), false);
+        String wholeETag = get("my-stream").getHeader("ETag");
+
+        Map<String, String[]> parameters = new HashMap<>();
+        parameters.put("bundle", new String[] { "bundle.b" });
+
+        // When...
+        MockHttpServletResponse resp = get("my-stream", parameters, new HashMap<>());
+
+        // Then...
+        assertThat(resp.getStatus()).isEqualTo(200);
+        assertThat(resp.getHeader("ETag")).isNotEqualTo(wholeETag);
+        assertThat(getContent(resp).getAsJsonObject("classes").keySet()).containsExactly("bundle.b/dev.galasa.b.SecondTest");
+    }
+
+    @Test
+    public void testCatalogChangedOutsideTheServletIsReadAgain() throws Exception {
+        // Given...
+        put("my-stream", createCatalog("bundle.a/dev.galasa.a/FirstTest"), false);
+        String etag = get("my-stream").getHeader("ETag");
+
+        // Written by another replica sharing the directory
+        Path catalogFile = catalogDirectory.resolve("my-stream");
+        FileTime lastModified = Files.getLastModifiedTime(catalogFile);
+        Files.write(catalogFile, gson.toJson(createCatalog("bundle.c/dev.galasa.c/OtherTest")).getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(catalogFile, FileTime.fromMillis(lastModified.toMillis() + 10000));
+
+        // When...
+        MockHttpServletResponse resp = get("my-stream");
+
+        // Then...
+        assertThat(resp.getHeader("ETag")).isNotEqualTo(etag);
+        assertThat(getContent(resp).getAsJsonObject("classes").keySet()).containsExactly("bundle.c/dev.galasa.c.OtherTest");
+    }
+}
@@ -11,6 +11,7 @@ import java.util.Properties;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -32,6 +33,9 @@ import dev.galasa.framework.spi.FrameworkException;
 import dev.galasa.framework.spi.IConfigurationPropertyStoreService;
 import dev.galasa.framework.spi.IDynamicStatusStoreService;
 import dev.galasa.framework.spi.IFramework;
+import dev.galasa.framework.spi.IRun;
+import dev.galasa.framework.spi.IRunRegistry;
+import dev.galasa.framework.spi.IRunRegistryListener;
 import io.prometheus.client.exporter.HTTPServer;
 
 @Component(service = { DockerController.class })
@@ -48,6 +52,10 @@ public class DockerController {
 
     private Health                   healthServer;
 
+    private IRunRegistry             runRegistry;
+    private RunPoll                  runPoll;
+    private final AtomicBoolean      pollTriggered    = new AtomicBoolean(false);
+
     public void run(Properties bootstrapProperties, Properties overrideProperties) throws FrameworkException {
 
         // *** Add shutdown hook to allow for orderly shutdown
@@ -148,10 +156,16 @@ public class DockerController {
         
         getImageId(dockerClient, settings.getEngineImage());
 
+        // *** Start the run registry, so the run polling works from memory and we
+        // *** can react as soon as a run is queued
+        runRegistry = framework.getFrameworkRuns().getRunRegistry();
+        runRegistry.addListener(new QueuedRunListener());
+        scheduledExecutorService.scheduleWithFixedDelay(new RunRegistryRefresh(), 5, 5, TimeUnit.MINUTES);
+
         // *** Start the run polling
         RunDeleted runDeleted = new RunDeleted(settings, dockerClient, framework.getFrameworkRuns());
         scheduledExecutorService.scheduleWithFixedDelay(runDeleted, 0, settings.getRunPoll(), TimeUnit.SECONDS);
-        RunPoll runPoll = new RunPoll(dss, settings, dockerClient, framework.getFrameworkRuns());
+        runPoll = new RunPoll(dss, settings, dockerClient, framework.getFrameworkRuns());
         scheduledExecutorService.scheduleWithFixedDelay(runPoll, 1, settings.getRunPoll(), TimeUnit.SECONDS);
 
         logger.info("Docker controller has started");
@@ -173,6 +187,9 @@ public class DockerController {
             logger.error("Unable to shutdown the scheduler");
         }
 
+        // *** Stop the run registry
+        runRegistry.shutdown();
+
         // *** Stop the metics server
         if (metricsPort > 0) {
             this.metricsServer.stop();
@@ -189,6 +206,41 @@ public class DockerController {
 
     }
 
+    private void triggerPoll() {
+        // *** Only queue one extra poll however many runs are queued at once
+        if (pollTriggered.compareAndSet(false, true)) {
+            scheduledExecutorService.execute(() -> {
+                pollTriggered.set(false);
+                runPoll.run();
+            });
+        }
+    }
+
+    private class QueuedRunListener implements IRunRegistryListener {
+        @Override
+        public void runChanged(String runName, String previousStatus, IRun run) {
+            if (run == null || run.isLocal() || runPoll == null) {
+                return;
+            }
+
+            if ("queued".equals(run.getStatus()) && !"queued".equals(previousStatus)) {
+                logger.debug("Run " + runName + " has been queued, triggering a poll");
+                triggerPoll();
+            }
+        }
+    }
+
+    private class RunRegistryRefresh implements Runnable {
+        @Override
+        public void run() {
+            try {
+                runRegistry.refresh();
+            } catch (Exception e) {
+                logger.error("Unable to refresh the run registry", e);
+            }
+        }
+    }
+
     private class ShutdownHook extends Thread {
         @Override
         public void run() {
@@ -57,7 +57,7 @@ public class RunPoll implements Runnable {
     }
 
     @Override
-    public void run() {
+    public synchronized void run() {
         logger.info("Looking for new runs");
 
         try {
@@ -11,6 +11,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -21,6 +22,9 @@ import dev.galasa.framework.spi.FrameworkException;
 import dev.galasa.framework.spi.IConfigurationPropertyStoreService;
 import dev.galasa.framework.spi.IDynamicStatusStoreService;
 import dev.galasa.framework.spi.IFramework;
+import dev.galasa.framework.spi.IRun;
+import dev.galasa.framework.spi.IRunRegistry;
+import dev.galasa.framework.spi.IRunRegistryListener;
 import io.kubernetes.client.openapi.ApiClient;
 import io.kubernetes.client.openapi.Configuration;
 import io.kubernetes.client.ProtoClient;
@@ -44,6 +48,7 @@ public class K8sController {
     private Health                   healthServer;
 
     private TestPodScheduler podScheduler;
+    private PodCache podCache;
     private ScheduledFuture<?> pollFuture;
 
     private RunDeleted runDeleted;
@@ -52,6 +57,9 @@ public class K8sController {
 
     private Settings settings;
 
+    private IRunRegistry runRegistry;
+    private final AtomicBoolean pollTriggered = new AtomicBoolean(false);
+
     public void run(Properties bootstrapProperties, Properties overrideProperties) throws FrameworkException {
 
         // *** Add shutdown hook to allow for orderly shutdown
@@ -85,6 +93,16 @@ public class K8sController {
         ProtoClient pc = new ProtoClient(client);
         CoreV1Api api = new CoreV1Api();
 
+        // *** The pod watch is long running, so needs a client without a read timeout
+        CoreV1Api watchApi;
+        try {
+            ApiClient watchClient = Config.defaultClient();
+            watchClient.setReadTimeout(0);
+            watchApi = new CoreV1Api(watchClient);
+        } catch (IOException e) {
+            throw new FrameworkException("Unable to load Kubernetes API", e);
+        }
+
         // *** Fetch the settings
 
         settings = new Settings(this, api);
@@ -136,10 +154,22 @@ public class K8sController {
         } else {
             logger.info("Health monitoring disabled");
         }
+        // *** Start the run registry, so the run polling works from memory and we
+        // *** can react as soon as a run is queued
+        runRegistry = framework.getFrameworkRuns().getRunRegistry();
+        runRegistry.addListener(new QueuedRunListener());
+        scheduledExecutorService.scheduleWithFixedDelay(new RunRegistryRefresh(), 5, 5, TimeUnit.MINUTES);
+
+        // *** Start the engine pod cache, a pod finishing frees an engine so try to launch another
+        podCache = new PodCache(api, watchApi, settings, this::triggerPoll);
+        Thread podCacheThread = new Thread(podCache, "PodCache");
+        podCacheThread.setDaemon(true);
+        podCacheThread.start();
+
         // *** Start the run polling
-        runDeleted = new RunDeleted(settings, api, pc, framework.getFrameworkRuns());
+        runDeleted = new RunDeleted(settings, api, pc, framework.getFrameworkRuns(), podCache, dss);
         scheduleDelete();
-        podScheduler = new TestPodScheduler(dss, settings, api, framework.getFrameworkRuns());
+        podScheduler = new TestPodScheduler(dss, settings, api, framework.getFrameworkRuns(), podCache);
         schedulePoll();
 
         
@@ -163,6 +193,13 @@ public class K8sController {
             logger.error("Unable to shutdown the scheduler");
         }
 
+        // *** Stop launching engines and watching the pods
+        podScheduler.shutdown();
+        podCache.shutdown();
+
+        // *** Stop the run registry
+        runRegistry.shutdown();
+
         // *** Stop the metics server
         if (metricsPort > 0) {
             this.metricsServer.close();
@@ -187,6 +224,16 @@ public class K8sController {
         pollFuture = scheduledExecutorService.scheduleWithFixedDelay(podScheduler, 1, settings.getPoll(), TimeUnit.SECONDS);
     }
 
+    private void triggerPoll() {
+        // *** Only queue one extra poll however many runs are queued at once
+        if (podScheduler != null && !shutdown && pollTriggered.compareAndSet(false, true)) {
+            scheduledExecutorService.execute(() -> {
+                pollTriggered.set(false);
+                podScheduler.run();
+            });
+        }
+    }
+
     private void scheduleDelete() {
         if (deleteFuture != null) {
             this.deleteFuture.cancel(false);
@@ -195,6 +242,31 @@ public class K8sController {
         deleteFuture = scheduledExecutorService.scheduleWithFixedDelay(runDeleted, 0, settings.getPoll(), TimeUnit.SECONDS);
     }
 
+    private class QueuedRunListener implements IRunRegistryListener {
+        @Override
+        public void runChanged(String runName, String previousStatus, IRun run) {
+            if (run == null || run.isLocal() || podScheduler == null) {
+                return;
+            }
+
+            if ("queued".equals(run.getStatus()) && !"queued".equals(previousStatus)) {
+                logger.debug("Run " + runName + " has been queued, triggering a poll");
+                triggerPoll();
+            }
+        }
+    }
+
+    private class RunRegistryRefresh implements Runnable {
+        @Override
+        public void run() {
+            try {
+                runRegistry.refresh();
+            } catch (Exception e) {
+                logger.error("Unable to refresh the run registry", e);
+            }
+        }
+    }
+
     private class ShutdownHook extends Thread {
         @Override
         public void run() {
@@ -0,0 +1,257 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.k8s.controller;
+
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.google.gson.reflect.TypeToken;
+
+import io.kubernetes.client.openapi.apis.CoreV1Api;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import io.kubernetes.client.openapi.models.V1Pod;
+import io.kubernetes.client.openapi.models.V1PodList;
+import io.kubernetes.client.openapi.models.V1PodStatus;
+import io.kubernetes.client.openapi.models.V1Status;
+import io.kubernetes.client.util.Watch;
+
+/**
+ * An informer style cache of the engine pods owned by this controller.
+ *
+ * The pods are listed once and then kept up to date from a Kubernetes watch, so
+ * the scheduler can check how many engines are active without listing every pod
+ * before each launch. The cache is relisted if the watch falls too far behind,
+ * if the engine label changes or when the resync period expires.
+ */
+public class PodCache implements Runnable {
+
+    private static final Type      WATCH_TYPE         = new TypeToken<Watch.Response<V1Pod>>() {}.getType();
+
+    private static final int       WATCH_TIMEOUT_SECS = 300;
+    private static final Duration  RESYNC_PERIOD      = Duration.ofMinutes(10);
+    private static final long      ERROR_DELAY_MILLIS = 5000;
+
+    private final Log              logger             = LogFactory.getLog(getClass());
+
+    private final ConcurrentHashMap<String, V1Pod> pods = new ConcurrentHashMap<>();
+
+    private final CoreV1Api        api;
+    private final CoreV1Api        watchApi;
+    private final Settings         settings;
+    private final Runnable         capacityListener;
+
+    private volatile boolean       synced             = false;
+    private volatile boolean       shutdown           = false;
+    private volatile Watch<V1Pod>  currentWatch;
+
+    private String                 resourceVersion;
+    private String                 listedLabel;
+    private Instant                lastList           = Instant.EPOCH;
+
+    /**
+     * @param api              the API used to list the pods
+     * @param watchApi         the API used for the long running watch, its client
+     *                         should not have a read timeout
+     * @param settings         the controller settings
+     * @param capacityListener called when an engine pod has terminated or been
+     *                         deleted, may be null
+     */
+    public PodCache(CoreV1Api api, CoreV1Api watchApi, Settings settings, Runnable capacityListener) {
+        this.api = api;
+        this.watchApi = watchApi;
+        this.settings = settings;
+        this.capacityListener = capacityListener;
+    }
+
+    /**
+     * Return a copy of the engine pods currently known to the controller. If
+     * the cache has not yet been populated the pods are listed directly.
+     */
+    public @NotNull List<V1Pod> getPods() throws K8sControllerException {
+        if (!synced) {
+            return TestPodScheduler.getPods(api, settings);
+        }
+        return new ArrayList<>(pods.values());
+    }
+
+    public boolean isSynced() {
+        return synced;
+    }
+
+    /**
+     * Record a pod that has just been created, so it is counted before the
+     * watch event for it arrives.
+     */
+    public void podCreated(V1Pod pod) {
+        if (pod != null && pod.getMetadata() != null && pod.getMetadata().getName() != null) {
+            pods.putIfAbsent(pod.getMetadata().getName(), pod);
+        }
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        Watch<V1Pod> watch = currentWatch;
+        if (watch != null) {
+            try {
+                watch.close();
+            } catch (Exception e) {
+                logger.debug("Problem closing the pod watch", e);
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        while (!shutdown) {
+            try {
+                if (resourceVersion == null
+                        || !settings.getEngineLabel().equals(listedLabel)
+                        || Instant.now().isAfter(lastList.plus(RESYNC_PERIOD))) {
+                    relist();
+                }
+                watch();
+            } catch (Exception e) {
+                if (shutdown) {
+                    break;
+                }
+                logger.error("Problem watching the engine pods, will relist", e);
+                resourceVersion = null;
+                try {
+                    Thread.sleep(ERROR_DELAY_MILLIS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        logger.info("Engine pod watch has stopped");
+    }
+
+    void relist() throws K8sControllerException {
+        String label = settings.getEngineLabel();
+        V1PodList list;
+        try {
+            list = api.listNamespacedPod(settings.getNamespace())
+                .labelSelector("galasa-engine-controller=" + label)
+                .execute();
+        } catch (Exception e) {
+            throw new K8sControllerException("Failed retrieving pods", e);
+        }
+
+        // *** Replace the cache contents, keeping only the pods that still exist
+        ArrayList<String> listedNames = new ArrayList<>();
+        for (V1Pod pod : list.getItems()) {
+            String name = pod.getMetadata().getName();
+            listedNames.add(name);
+            pods.put(name, pod);
+        }
+        pods.keySet().retainAll(listedNames);
+
+        this.resourceVersion = list.getMetadata().getResourceVersion();
+        this.listedLabel = label;
+        this.lastList = Instant.now();
+        this.synced = true;
+
+        logger.debug("Engine pod cache relisted, " + pods.size() + " pods at resource version " + resourceVersion);
+    }
+
+    private void watch() throws Exception {
+        String label = listedLabel;
+        try (Watch<V1Pod> watch = Watch.createWatch(watchApi.getApiClient(),
+                watchApi.listNamespacedPod(settings.getNamespace())
+                    .labelSelector("galasa-engine-controller=" + label)
+                    .resourceVersion(resourceVersion)
+                    .allowWatchBookmarks(true)
+                    .timeoutSeconds(WATCH_TIMEOUT_SECS)
+                    .watch(true)
+                    .buildCall(null),
+                WATCH_TYPE)) {
+            currentWatch = watch;
+
+            for (Watch.Response<V1Pod> event : watch) {
+                if (shutdown) {
+                    return;
+                }
+                if (!handleEvent(event.type, event.object, event.status)) {
+                    // *** The watch has expired, so we have to relist
+                    resourceVersion = null;
+                    return;
+                }
+                if (!label.equals(settings.getEngineLabel())) {
+                    return;
+                }
+            }
+        } finally {
+            currentWatch = null;
+        }
+    }
+
+    /**
+     * Apply a single watch event to the cache
+     *
+     * @return false if the watch is no longer valid and the cache must be relisted
+     */
+    boolean handleEvent(String type, V1Pod pod, V1Status status) {
+        if ("ERROR".equals(type)) {
+            logger.info("Engine pod watch returned an error, "
+                    + (status == null ? "no status" : status.getCode() + " " + status.getMessage()));
+            return false;
+        }
+
+        if (pod == null || pod.getMetadata() == null) {
+            return true;
+        }
+
+        V1ObjectMeta metadata = pod.getMetadata();
+        if (metadata.getResourceVersion() != null) {
+            resourceVersion = metadata.getResourceVersion();
+        }
+
+        String name = metadata.getName();
+        switch (type) {
+            case "ADDED":
+            case "MODIFIED":
+                V1Pod previous = pods.put(name, pod);
+                if (isTerminated(pod) && (previous == null || !isTerminated(previous))) {
+                    capacityChanged();
+                }
+                break;
+            case "DELETED":
+                if (pods.remove(name) != null) {
+                    capacityChanged();
+                }
+                break;
+            default:
+                // *** BOOKMARK events only move the resource version on
+                break;
+        }
+        return true;
+    }
+
+    private void capacityChanged() {
+        if (capacityListener != null) {
+            capacityListener.run();
+        }
+    }
+
+    private static boolean isTerminated(V1Pod pod) {
+        V1PodStatus status = pod.getStatus();
+        if (status == null) {
+            return false;
+        }
+        String phase = status.getPhase();
+        return "failed".equalsIgnoreCase(phase) || "succeeded".equalsIgnoreCase(phase);
+    }
+}
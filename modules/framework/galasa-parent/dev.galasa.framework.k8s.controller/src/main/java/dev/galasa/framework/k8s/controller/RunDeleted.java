@@ -5,12 +5,16 @@
  */
 package dev.galasa.framework.k8s.controller;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.IDynamicStatusStoreService;
 import dev.galasa.framework.spi.IFrameworkRuns;
 import dev.galasa.framework.spi.IRun;
 import io.kubernetes.client.openapi.ApiException;
@@ -19,19 +23,41 @@ import io.kubernetes.client.openapi.apis.CoreV1Api;
 import io.kubernetes.client.openapi.models.V1Pod;
 import io.kubernetes.client.proto.V1.Namespace;
 
+/**
+ * Deletes the terminated engine pods of runs which have been deleted.
+ *
+ * A pod is labelled with the first run its engine ran. An engine which can run more
+ * than one test goes on to claim other runs, which record the first run of the engine,
+ * so the pod is kept while any of them still exists, even though the first run may
+ * have been purged.
+ */
 public class RunDeleted implements Runnable {
-    private final Log            logger = LogFactory.getLog(getClass());
+    private static final String              ENGINE_FIRST_RUN_SUFFIX = ".engine.first.run";
+
+    private final Log                        logger = LogFactory.getLog(getClass());
 
-    private final Settings       settings;
-    private final CoreV1Api      api;
-    private final ProtoClient    pc;
-    private final IFrameworkRuns runs;
+    private final Settings                   settings;
+    private final CoreV1Api                  api;
+    private final ProtoClient                pc;
+    private final IFrameworkRuns             runs;
+    private final PodCache                   podCache;
+    private final IDynamicStatusStoreService dss;
 
     public RunDeleted(Settings settings, CoreV1Api api, ProtoClient pc, IFrameworkRuns runs) {
+        this(settings, api, pc, runs, null);
+    }
+
+    public RunDeleted(Settings settings, CoreV1Api api, ProtoClient pc, IFrameworkRuns runs, PodCache podCache) {
+        this(settings, api, pc, runs, podCache, null);
+    }
+
+    public RunDeleted(Settings settings, CoreV1Api api, ProtoClient pc, IFrameworkRuns runs, PodCache podCache, IDynamicStatusStoreService dss) {
         this.settings = settings;
         this.api = api;
         this.pc = pc;
         this.runs = runs;
+        this.podCache = podCache;
+        this.dss = dss;
     }
 
     @Override
@@ -39,9 +65,15 @@ public class RunDeleted implements Runnable {
         logger.info("Starting Deleted runs scan");
 
         try {
-            List<V1Pod> pods = TestPodScheduler.getPods(api, settings);
+            List<V1Pod> pods;
+            if (podCache != null) {
+                pods = podCache.getPods();
+            } else {
+                pods = TestPodScheduler.getPods(api, settings);
+            }
             TestPodScheduler.filterTerminated(pods);
 
+            Set<String> enginesInUse = null;
             for (V1Pod pod : pods) {
                 Map<String, String> labels = pod.getMetadata().getLabels();
                 String runName = labels.get("galasa-run");
@@ -54,6 +86,15 @@ public class RunDeleted implements Runnable {
                     continue;
                 }
 
+                // *** Only read when needed, as most pods are still running their first run
+                if (enginesInUse == null) {
+                    enginesInUse = getEngineFirstRuns();
+                }
+                if (enginesInUse.contains(runName)) {
+                    logger.debug("Keeping pod " + pod.getMetadata().getName() + " as its engine has gone on to another run");
+                    continue;
+                }
+
                 logger.info("Deleting pod " + pod.getMetadata().getName() + " as run has been deleted");
                 deletePod(pod);
             }
@@ -64,6 +105,23 @@ public class RunDeleted implements Runnable {
 
     }
 
+    /**
+     * @return the first runs of the engines which have gone on to runs which still exist
+     */
+    private Set<String> getEngineFirstRuns() throws DynamicStatusStoreException {
+        Set<String> firstRuns = new HashSet<>();
+        if (dss == null) {
+            return firstRuns;
+        }
+
+        for (Map.Entry<String, String> entry : dss.getPrefix("run.").entrySet()) {
+            if (entry.getKey().endsWith(ENGINE_FIRST_RUN_SUFFIX)) {
+                firstRuns.add(entry.getValue());
+            }
+        }
+        return firstRuns;
+    }
+
     private void deletePod(V1Pod pod) {
         try {
             String podName = pod.getMetadata().getName();
@@ -6,6 +6,7 @@
 package dev.galasa.framework.k8s.controller;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -43,8 +44,12 @@ public class Settings implements Runnable {
 
     private int               runPoll                     = 60;
     private int               maxEngines                  = 0;
+    private int               engineLaunchRate            = 10;
+    private int               engineLaunchThreads         = 5;
+    private int               engineMaxRuns               = 1;
 
     private ArrayList<String> requestorsByScheduleID      = new ArrayList<>();
+    private HashMap<String, Integer> poolWeights          = new HashMap<>();
 
     private final CoreV1Api   api;
     private String            oldConfigMapResourceVersion = "";
@@ -145,6 +150,9 @@ public class Settings implements Runnable {
 
         this.bootstrap = updateProperty(configMapData, "bootstrap", "http://bootstrap", this.bootstrap);
         this.maxEngines = updateProperty(configMapData, "max_engines", 1, this.maxEngines);
+        this.engineLaunchRate = updateProperty(configMapData, "engine_launch_rate", 10, this.engineLaunchRate);
+        this.engineLaunchThreads = updateProperty(configMapData, "engine_launch_threads", 5, this.engineLaunchThreads);
+        this.engineMaxRuns = updateProperty(configMapData, "engine_max_runs", 1, this.engineMaxRuns);
         this.engineLabel = updateProperty(configMapData, "engine_label", "k8s-standard-engine", this.engineLabel);
         this.engineImage = updateProperty(configMapData, "engine_image", "ghcr.io/galasa-dev/galasa-boot-embedded-amd64", this.engineImage);
         this.engineMemory = updateProperty(configMapData, "engine_memory", 300, this.engineMemory);
@@ -162,9 +170,42 @@ public class Settings implements Runnable {
         }
 
         setRequestorsByScheduleId(configMapData);
+        setPoolWeights(configMapData);
         setEngineCapabilities(configMapData);
     }
 
+    private void setPoolWeights(Map<String, String> configMapData) throws K8sControllerException {
+        // *** Format is pool=weight,pool=weight where a pool is a requestor or requestor/group
+        String newWeights = getPropertyFromData(configMapData, "pool_weights", "");
+        HashMap<String, Integer> newPoolWeights = new HashMap<>();
+
+        for (String entry : newWeights.split(",")) {
+            entry = entry.trim();
+            if (entry.isEmpty()) {
+                continue;
+            }
+
+            int equals = entry.lastIndexOf('=');
+            try {
+                if (equals < 1) {
+                    throw new NumberFormatException();
+                }
+                int weight = Integer.parseInt(entry.substring(equals + 1).trim());
+                if (weight < 1) {
+                    throw new NumberFormatException();
+                }
+                newPoolWeights.put(entry.substring(0, equals).trim(), weight);
+            } catch (NumberFormatException e) {
+                throw new K8sControllerException("Invalid value provided for pool_weights in settings configmap");
+            }
+        }
+
+        if (!poolWeights.equals(newPoolWeights)) {
+            logger.info("Setting Pool Weights from '" + poolWeights + "' to '" + newPoolWeights + "'");
+            poolWeights = newPoolWeights;
+        }
+    }
+
     private void setRequestorsByScheduleId(Map<String, String> configMapData) {
         String newRequestors = getPropertyFromData(configMapData, "scheduled_requestors", null);
         ArrayList<String> newRequestorsByScheduleid = new ArrayList<>();
@@ -294,6 +335,40 @@ public class Settings implements Runnable {
         return this.requestorsByScheduleID;
     }
 
+    /**
+     * @return the scheduling weight of a requestor or requestor/group pool,
+     *         pools without a configured weight have a weight of 1
+     */
+    public int getPoolWeight(String poolId) {
+        Integer weight = this.poolWeights.get(poolId);
+        if (weight == null) {
+            return 1;
+        }
+        return weight;
+    }
+
+    /**
+     * @return the maximum number of engine pods to create per second
+     */
+    public int getEngineLaunchRate() {
+        return this.engineLaunchRate;
+    }
+
+    /**
+     * @return the maximum number of engine pods being created at the same time
+     */
+    public int getEngineLaunchThreads() {
+        return this.engineLaunchThreads;
+    }
+
+    /**
+     * @return the most runs an engine pod will run before it exits, an engine
+     *         which can run more than one claims further compatible runs itself
+     */
+    public int getEngineMaxRuns() {
+        return this.engineMaxRuns;
+    }
+
     public String getNodeArch() {
         return this.nodeArch;
     }
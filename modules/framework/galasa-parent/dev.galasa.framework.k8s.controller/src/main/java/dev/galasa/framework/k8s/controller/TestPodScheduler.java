@@ -16,6 +16,12 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.validation.constraints.NotNull;
 
@@ -23,9 +29,11 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import dev.galasa.framework.spi.Environment;
+import dev.galasa.framework.spi.FrameworkException;
 import dev.galasa.framework.spi.IDynamicStatusStoreService;
 import dev.galasa.framework.spi.IFrameworkRuns;
 import dev.galasa.framework.spi.IRun;
+import dev.galasa.framework.spi.RunFilter;
 import dev.galasa.framework.spi.SystemEnvironment;
 import dev.galasa.framework.spi.creds.FrameworkEncryptionService;
 import io.kubernetes.client.openapi.ApiException;
@@ -67,31 +75,39 @@ public class TestPodScheduler implements Runnable {
     private final IDynamicStatusStoreService dss;
     private final IFrameworkRuns             runs;
     private final QueuedComparator           queuedComparator = new QueuedComparator();
+    private final PodCache                   podCache;
+
+    private final ScheduledThreadPoolExecutor launchExecutor  = new ScheduledThreadPoolExecutor(1);
+    private final Set<String>                launchingRuns    = ConcurrentHashMap.newKeySet();
+    private long                             nextLaunchNanos  = System.nanoTime();
+
+    // *** Registered once, the default collector registry rejects duplicate metrics
+    private static final Counter             submittedRuns    = Counter.build()
+            .name("galasa_k8s_controller_submitted_runs")
+            .help("The number of runs submitted by the Kubernetes controller").register();
 
-    private Counter                          submittedRuns;
     private Environment                      env              = new SystemEnvironment();
 
 
-    public TestPodScheduler(IDynamicStatusStoreService dss, Settings settings, CoreV1Api api, IFrameworkRuns runs) {
-        this(new SystemEnvironment(), dss, settings, api, runs);
+    public TestPodScheduler(IDynamicStatusStoreService dss, Settings settings, CoreV1Api api, IFrameworkRuns runs, PodCache podCache) {
+        this(new SystemEnvironment(), dss, settings, api, runs, podCache);
     }
 
     public TestPodScheduler(Environment env, IDynamicStatusStoreService dss, Settings settings, CoreV1Api api, IFrameworkRuns runs) {
+        this(env, dss, settings, api, runs, null);
+    }
+
+    public TestPodScheduler(Environment env, IDynamicStatusStoreService dss, Settings settings, CoreV1Api api, IFrameworkRuns runs, PodCache podCache) {
         this.env = env;
         this.settings = settings;
         this.api = api;
         this.runs = runs;
         this.dss = dss;
-
-        // *** Create metrics
-
-        this.submittedRuns = Counter.build().name("galasa_k8s_controller_submitted_runs")
-                .help("The number of runs submitted by the Kubernetes controller").register();
-
+        this.podCache = podCache;
     }
 
     @Override
-    public void run() {
+    public synchronized void run() {
         logger.info("Looking for new runs");
 
         try {
@@ -99,11 +115,11 @@ public class TestPodScheduler implements Runnable {
             List<IRun> queuedRuns = this.runs.getQueuedRuns();
             // TODO filter by capability
 
-            // *** Remove all the local runs
+            // *** Remove all the local runs and those we are already launching
             Iterator<IRun> queuedRunsIterator = queuedRuns.iterator();
             while (queuedRunsIterator.hasNext()) {
                 IRun run = queuedRunsIterator.next();
-                if (run.isLocal()) {
+                if (run.isLocal() || launchingRuns.contains(run.getName())) {
                     queuedRunsIterator.remove();
                 }
             }
@@ -113,45 +129,135 @@ public class TestPodScheduler implements Runnable {
                 return;
             }
 
-            while (true) {
-                // *** Check we are not at max engines
-                List<V1Pod> pods = getPods(this.api, this.settings);
-                filterActiveRuns(pods);
-                logger.info("Active runs=" + pods.size() + ",max=" + settings.getMaxEngines());
-
-                int currentActive = pods.size();
-                if (currentActive >= settings.getMaxEngines()) {
-                    logger.info(
-                            "Not looking for runs, currently at maximim engines (" + settings.getMaxEngines() + ")");
-                    return;
-                }
+            // *** Check we are not at max engines, the pods come from the cache so
+            // *** we only need to work out the capacity once per dispatch
+            List<V1Pod> pods = getEnginePods();
+            filterActiveRuns(pods);
+            int currentActive = pods.size() + launchingRuns.size();
+            logger.info("Active runs=" + currentActive + ",max=" + settings.getMaxEngines());
+
+            int capacity = settings.getMaxEngines() - currentActive;
+            if (capacity <= 0) {
+                logger.info(
+                        "Not looking for runs, currently at maximim engines (" + settings.getMaxEngines() + ")");
+                return;
+            }
 
-                // List<IRun> activeRuns = this.runs.getActiveRuns();
+            List<IRun> selectedRuns = selectRuns(queuedRuns, getControllerActiveRuns(), capacity);
+            launchRuns(selectedRuns);
+        } catch (Exception e) {
+            logger.error("Unable to poll for new runs", e);
+        }
 
-                // TODO Create the group algorithim same as the galasa scheduler
+        return;
+    }
 
-                // *** Build pool lists
-                // HashMap<String, Pool> queuePools = getPools(queuedRuns);
-                // HashMap<String, Pool> activePools = getPools(activeRuns);
+    /**
+     * Stop launching engines, any pod creations already in progress are allowed
+     * to finish
+     */
+    public void shutdown() {
+        launchExecutor.shutdown();
+        try {
+            launchExecutor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-                // *** cheat for the moment
-                Collections.sort(queuedRuns, queuedComparator);
+    /**
+     * Select the runs to launch, sharing the available engines between the
+     * requestor pools.
+     *
+     * Each time an engine is handed out it goes to the pool with the fewest
+     * active runs for its weight, and within a pool the run that has been queued
+     * the longest is launched first.
+     *
+     * @param queuedRuns the queued runs that could be launched
+     * @param activeRuns the runs this controller is already running
+     * @param capacity   the number of engines available
+     * @return the runs to launch, in the order they should be launched
+     */
+    List<IRun> selectRuns(@NotNull List<IRun> queuedRuns, @NotNull List<IRun> activeRuns, int capacity) {
+        HashMap<String, Pool> queuedPools = getPools(queuedRuns);
+
+        for (IRun run : activeRuns) {
+            Pool pool = queuedPools.get(getPoolId(run));
+            if (pool != null) {
+                pool.active++;
+            }
+        }
 
-                IRun selectedRun = queuedRuns.remove(0);
+        PriorityQueue<Pool> pools = new PriorityQueue<>();
+        for (Pool pool : queuedPools.values()) {
+            Collections.sort(pool.runs, queuedComparator);
+            pools.add(pool);
+        }
 
-                startPod(selectedRun);
+        ArrayList<IRun> selectedRuns = new ArrayList<>();
+        while (selectedRuns.size() < capacity && !pools.isEmpty()) {
+            Pool pool = pools.poll();
+            selectedRuns.add(pool.runs.remove(0));
+            pool.active++;
+            if (!pool.runs.isEmpty()) {
+                pools.add(pool);
+            }
+        }
 
-                if (!queuedRuns.isEmpty()) {
-                    Thread.sleep(600); // *** Slight delay to allow Kubernetes to catch up
-                } else {
-                    return;
-                }
+        return selectedRuns;
+    }
+
+    private void launchRuns(List<IRun> selectedRuns) {
+        int threads = Math.max(1, settings.getEngineLaunchThreads());
+        if (launchExecutor.getCorePoolSize() != threads) {
+            launchExecutor.setCorePoolSize(threads);
+        }
+
+        // *** Spread the launches out at the configured rate rather than sleeping
+        // *** between them, so pod creation can overlap
+        long interval = TimeUnit.SECONDS.toNanos(1) / Math.max(1, settings.getEngineLaunchRate());
+        long now = System.nanoTime();
+        long nextLaunch = Math.max(now, nextLaunchNanos);
+
+        for (IRun run : selectedRuns) {
+            launchingRuns.add(run.getName());
+            try {
+                launchExecutor.schedule(() -> {
+                    try {
+                        startPod(run);
+                    } finally {
+                        launchingRuns.remove(run.getName());
+                    }
+                }, nextLaunch - now, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                launchingRuns.remove(run.getName());
+                logger.info("Not launching run " + run.getName() + " as the scheduler is shutting down");
+                return;
             }
-        } catch (Exception e) {
-            logger.error("Unable to poll for new runs", e);
+            nextLaunch += interval;
         }
 
-        return;
+        nextLaunchNanos = nextLaunch;
+    }
+
+    private List<V1Pod> getEnginePods() throws K8sControllerException {
+        if (this.podCache != null) {
+            return this.podCache.getPods();
+        }
+        return getPods(this.api, this.settings);
+    }
+
+    private List<IRun> getControllerActiveRuns() throws FrameworkException {
+        List<IRun> activeRuns = this.runs.getRunSnapshot(new RunFilter().withControllers(settings.getPodName()));
+
+        Iterator<IRun> activeRunsIterator = activeRuns.iterator();
+        while (activeRunsIterator.hasNext()) {
+            String status = activeRunsIterator.next().getStatus();
+            if ("queued".equals(status) || "finished".equals(status)) {
+                activeRunsIterator.remove();
+            }
+        }
+        return activeRuns;
     }
 
     private void startPod(IRun run) {
@@ -181,11 +287,14 @@ public class TestPodScheduler implements Runnable {
             while (!successful) {
                 try {
                     // System.out.println(newPod.toString());
-                    api.createNamespacedPod(namespace, newPod).pretty("true").execute();
+                    V1Pod createdPod = api.createNamespacedPod(namespace, newPod).pretty("true").execute();
 
                     logger.info("Engine Pod " + newPod.getMetadata().getName() + " started");
                     successful = true;
                     submittedRuns.inc();
+                    if (this.podCache != null) {
+                        this.podCache.podCreated(createdPod);
+                    }
                     break;
                 } catch (ApiException e) {
                     String response = e.getResponseBody();
@@ -289,6 +398,10 @@ public class TestPodScheduler implements Runnable {
         if (isTraceEnabled) {
             args.add("--trace");
         }
+        if (this.settings.getEngineMaxRuns() > 1) {
+            args.add("--maxruns");
+            args.add(Integer.toString(this.settings.getEngineMaxRuns()));
+        }
 
         V1ResourceRequirements resources = new V1ResourceRequirements();
         container.setResources(resources);
@@ -379,7 +492,8 @@ public class TestPodScheduler implements Runnable {
             String poolid = getPoolId(run);
             Pool pool = pools.get(poolid);
             if (pool == null) {
-                pool = new Pool(poolid);
+                pool = new Pool(poolid, settings.getPoolWeight(poolid));
+                pools.put(poolid, pool);
             }
             pool.runs.add(run);
         }
@@ -450,15 +564,26 @@ public class TestPodScheduler implements Runnable {
 
     private static class Pool implements Comparable<Pool> {
         private String          id;
+        private int             weight;
+        private int             active;
         private ArrayList<IRun> runs = new ArrayList<>();
 
-        public Pool(String id) {
+        public Pool(String id, int weight) {
             this.id = id;
+            this.weight = weight;
         }
 
         @Override
         public int compareTo(Pool o) {
-            return runs.size() - o.runs.size();
+            // *** The pool with the smallest share of active runs for its weight goes first
+            int result = Long.compare((long) active * o.weight, (long) o.active * weight);
+            if (result == 0) {
+                result = runs.get(0).getQueued().compareTo(o.runs.get(0).getQueued());
+            }
+            if (result == 0) {
+                result = id.compareTo(o.id);
+            }
+            return result;
         }
 
     }
@@ -0,0 +1,71 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.k8s.controller;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import io.kubernetes.client.openapi.models.V1Pod;
+import io.kubernetes.client.openapi.models.V1PodStatus;
+import io.kubernetes.client.openapi.models.V1Status;
+
+public class PodCacheTest {
+
+    private V1Pod createPod(String name, String phase, String resourceVersion) {
+        V1Pod pod = new V1Pod();
+        pod.setMetadata(new V1ObjectMeta().name(name).resourceVersion(resourceVersion));
+        pod.setStatus(new V1PodStatus().phase(phase));
+        return pod;
+    }
+
+    @Test
+    public void testTerminatedPodNotifiesCapacityListenerOnce() throws Exception {
+        // Given...
+        AtomicInteger notifications = new AtomicInteger();
+        PodCache cache = new PodCache(null, null, null, notifications::incrementAndGet);
+
+        // When...
+        cache.handleEvent("ADDED", createPod("engine-u1", "Running", "1"), null);
+        cache.handleEvent("MODIFIED", createPod("engine-u1", "Succeeded", "2"), null);
+        cache.handleEvent("MODIFIED", createPod("engine-u1", "Succeeded", "3"), null);
+
+        // Then...
+        assertThat(notifications.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDeletedPodNotifiesCapacityListenerOnlyIfCached() throws Exception {
+        // Given...
+        AtomicInteger notifications = new AtomicInteger();
+        PodCache cache = new PodCache(null, null, null, notifications::incrementAndGet);
+        cache.podCreated(createPod("engine-u1", "Pending", "1"));
+
+        // When...
+        cache.handleEvent("DELETED", createPod("engine-u1", "Running", "2"), null);
+        cache.handleEvent("DELETED", createPod("engine-u2", "Running", "3"), null);
+
+        // Then...
+        assertThat(notifications.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testWatchErrorRequestsRelist() throws Exception {
+        // Given...
+        PodCache cache = new PodCache(null, null, null, null);
+        V1Status status = new V1Status().code(410).message("too old resource version");
+
+        // When...
+        boolean stillValid = cache.handleEvent("ERROR", null, status);
+
+        // Then...
+        assertThat(stillValid).isFalse();
+        assertThat(cache.handleEvent("BOOKMARK", createPod(null, null, "99"), null)).isTrue();
+    }
+}
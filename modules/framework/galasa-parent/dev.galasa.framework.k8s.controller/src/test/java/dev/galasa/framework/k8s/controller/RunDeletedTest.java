@@ -0,0 +1,105 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.k8s.controller;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import dev.galasa.framework.mocks.MockDSSStore;
+import dev.galasa.framework.mocks.MockRun;
+import dev.galasa.framework.spi.IFrameworkRuns;
+import io.kubernetes.client.ProtoClient;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import io.kubernetes.client.openapi.models.V1Pod;
+import io.kubernetes.client.openapi.models.V1PodStatus;
+
+public class RunDeletedTest {
+
+    private V1Pod createPod(String runName, String phase) {
+        V1Pod pod = new V1Pod();
+        pod.setMetadata(new V1ObjectMeta().name("k8s-standard-engine-" + runName).putLabelsItem("galasa-run", runName));
+        pod.setStatus(new V1PodStatus().phase(phase));
+        return pod;
+    }
+
+    private RunDeleted createRunDeleted(List<V1Pod> pods, IFrameworkRuns runs, Map<String, String> dssProps, ProtoClient pc) throws Exception {
+        Settings settings = mock(Settings.class);
+        when(settings.getNamespace()).thenReturn("galasa");
+
+        PodCache podCache = mock(PodCache.class);
+        when(podCache.getPods()).thenReturn(new ArrayList<>(pods));
+
+        return new RunDeleted(settings, null, pc, runs, podCache, new MockDSSStore(dssProps));
+    }
+
+    @Test
+    public void testPodIsKeptWhileALaterRunOfItsEngineExists() throws Exception {
+        // Given...
+        // *** The pod is labelled with U1, which has been purged, but the engine went on to U2 and U3
+        List<V1Pod> pods = List.of(createPod("U1", "Succeeded"));
+
+        IFrameworkRuns runs = mock(IFrameworkRuns.class);
+        when(runs.getRun("U3")).thenReturn(new MockRun("bundle", "class", "U3", "stream", "obr", "repo", "me", false));
+
+        Map<String, String> dssProps = new HashMap<>();
+        dssProps.put("run.U3.status", "running");
+        dssProps.put("run.U3.engine.previous.run", "U2");
+        dssProps.put("run.U3.engine.first.run", "U1");
+
+        ProtoClient pc = mock(ProtoClient.class);
+        RunDeleted runDeleted = createRunDeleted(pods, runs, dssProps, pc);
+
+        // When...
+        runDeleted.run();
+
+        // Then...
+        verify(pc, never()).delete(any(), anyString());
+    }
+
+    @Test
+    public void testPodIsDeletedOnceEveryRunOfItsEngineHasGone() throws Exception {
+        // Given...
+        List<V1Pod> pods = List.of(createPod("U1", "Succeeded"), createPod("U4", "Succeeded"));
+
+        IFrameworkRuns runs = mock(IFrameworkRuns.class);
+
+        Map<String, String> dssProps = new HashMap<>();
+        dssProps.put("run.U5.status", "running");
+        dssProps.put("run.U5.engine.first.run", "U4");
+
+        ProtoClient pc = mock(ProtoClient.class);
+        RunDeleted runDeleted = createRunDeleted(pods, runs, dssProps, pc);
+
+        // When...
+        runDeleted.run();
+
+        // Then...
+        verify(pc).delete(any(), eq("/api/v1/namespaces/galasa/pods/k8s-standard-engine-U1"));
+        verify(pc, never()).delete(any(), eq("/api/v1/namespaces/galasa/pods/k8s-standard-engine-U4"));
+    }
+
+    @Test
+    public void testRunningPodIsNotDeleted() throws Exception {
+        // Given...
+        List<V1Pod> pods = List.of(createPod("U1", "Running"));
+        IFrameworkRuns runs = mock(IFrameworkRuns.class);
+        ProtoClient pc = mock(ProtoClient.class);
+        RunDeleted runDeleted = createRunDeleted(pods, runs, new HashMap<>(), pc);
+
+        // When...
+        runDeleted.run();
+
+        // Then...
+        verify(pc, never()).delete(any(), anyString());
+    }
+}
@@ -7,6 +7,7 @@ package dev.galasa.framework.k8s.controller;
 
 import static org.assertj.core.api.Assertions.*;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -17,6 +18,8 @@ import org.junit.Test;
 import dev.galasa.framework.mocks.MockEnvironment;
 import dev.galasa.framework.mocks.MockIDynamicStatusStoreService;
 import dev.galasa.framework.mocks.MockIFrameworkRuns;
+import dev.galasa.framework.mocks.MockRun;
+import dev.galasa.framework.spi.IRun;
 import dev.galasa.framework.spi.creds.FrameworkEncryptionService;
 import io.kubernetes.client.openapi.apis.CoreV1Api;
 import io.kubernetes.client.openapi.models.V1ConfigMap;
@@ -50,6 +53,54 @@ public class TestPodSchedulerTest {
             // Do nothing...
         }
     }
+
+    class MockQueuedRun extends MockRun {
+
+        private String group;
+        private Instant queued;
+
+        public MockQueuedRun(String runName, String requestor, String group, Instant queued) {
+            super("bundle", "class", runName, "stream", "obr", "repo", requestor, false);
+            this.group = group;
+            this.queued = queued;
+        }
+
+        @Override
+        public String getGroup() {
+            return this.group;
+        }
+
+        @Override
+        public Instant getQueued() {
+            return this.queued;
+        }
+    }
+
+    private TestPodScheduler createScheduler(Map<String, String> extraSettings) throws Exception {
+        V1ConfigMap mockConfigMap = createMockConfigMap();
+        mockConfigMap.getData().putAll(extraSettings);
+
+        MockSettings settings = new MockSettings(mockConfigMap, new MockK8sController(), null);
+        settings.init();
+
+        return new TestPodScheduler(new MockEnvironment(), new MockIDynamicStatusStoreService(), settings, null, new MockIFrameworkRuns(new ArrayList<>()));
+    }
+
+    private List<IRun> createQueuedRuns(String requestor, String group, int count, Instant firstQueued) {
+        List<IRun> runs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            runs.add(new MockQueuedRun(requestor + "-" + group + "-" + i, requestor, group, firstQueued.plusSeconds(i)));
+        }
+        return runs;
+    }
+
+    private List<String> getRequestors(List<IRun> runs) {
+        List<String> requestors = new ArrayList<>();
+        for (IRun run : runs) {
+            requestors.add(run.getRequestor());
+        }
+        return requestors;
+    }
     
     private V1ConfigMap createMockConfigMap() {
         V1ConfigMap configMap = new V1ConfigMap();
@@ -160,4 +211,144 @@ public class TestPodSchedulerTest {
         String expectedEncryptionKeysMountPath = "/encryption";
         assertPodDetailsAreCorrect(pod, runName, podName, expectedEncryptionKeysMountPath, settings);
     }
+
+    @Test
+    public void testWarmEnginePodIsToldHowManyRunsItCanRun() throws Exception {
+        // Given...
+        V1ConfigMap mockConfigMap = createMockConfigMap();
+        mockConfigMap.getData().put("engine_max_runs", "20");
+        MockSettings settings = new MockSettings(mockConfigMap, new MockK8sController(), null);
+        settings.init();
+
+        TestPodScheduler runPoll = new TestPodScheduler(new MockEnvironment(), new MockIDynamicStatusStoreService(), settings, null, new MockIFrameworkRuns(new ArrayList<>()));
+
+        // When...
+        V1Pod pod = runPoll.createTestPod("run1", settings.getEngineLabel() + "-run1", false);
+
+        // Then...
+        List<String> args = pod.getSpec().getContainers().get(0).getArgs();
+        assertThat(args).containsSequence("--maxruns", "20");
+    }
+
+    @Test
+    public void testSingleRunEnginePodHasNoMaxRuns() throws Exception {
+        // Given...
+        MockSettings settings = new MockSettings(createMockConfigMap(), new MockK8sController(), null);
+        settings.init();
+
+        TestPodScheduler runPoll = new TestPodScheduler(new MockEnvironment(), new MockIDynamicStatusStoreService(), settings, null, new MockIFrameworkRuns(new ArrayList<>()));
+
+        // When...
+        V1Pod pod = runPoll.createTestPod("run1", settings.getEngineLabel() + "-run1", false);
+
+        // Then...
+        assertThat(pod.getSpec().getContainers().get(0).getArgs()).doesNotContain("--maxruns");
+    }
+
+    @Test
+    public void testSelectRunsSharesEnginesBetweenRequestors() throws Exception {
+        // Given...
+        TestPodScheduler scheduler = createScheduler(Map.of());
+
+        // *** alice queued everything first, so a pure FIFO would give her every engine
+        Instant now = Instant.now();
+        List<IRun> queuedRuns = new ArrayList<>();
+        queuedRuns.addAll(createQueuedRuns("alice", "g1", 10, now.minusSeconds(600)));
+        queuedRuns.addAll(createQueuedRuns("bob", "g1", 2, now));
+
+        // When...
+        List<IRun> selectedRuns = scheduler.selectRuns(queuedRuns, new ArrayList<>(), 4);
+
+        // Then...
+        assertThat(getRequestors(selectedRuns)).containsExactly("alice", "bob", "alice", "bob");
+        assertThat(selectedRuns.get(0).getName()).isEqualTo("alice-g1-0");
+        assertThat(selectedRuns.get(2).getName()).isEqualTo("alice-g1-1");
+    }
+
+    @Test
+    public void testSelectRunsTakesActiveRunsIntoAccount() throws Exception {
+        // Given...
+        TestPodScheduler scheduler = createScheduler(Map.of());
+
+        Instant now = Instant.now();
+        List<IRun> queuedRuns = new ArrayList<>();
+        queuedRuns.addAll(createQueuedRuns("alice", "g1", 5, now.minusSeconds(600)));
+        queuedRuns.addAll(createQueuedRuns("bob", "g1", 5, now));
+
+        List<IRun> activeRuns = createQueuedRuns("alice", "g1", 3, now.minusSeconds(1200));
+
+        // When...
+        List<IRun> selectedRuns = scheduler.selectRuns(queuedRuns, activeRuns, 4);
+
+        // Then...
+        assertThat(getRequestors(selectedRuns)).containsExactly("bob", "bob", "bob", "alice");
+    }
+
+    @Test
+    public void testSelectRunsUsesPoolWeights() throws Exception {
+        // Given...
+        TestPodScheduler scheduler = createScheduler(Map.of("pool_weights", "alice=3"));
+
+        Instant now = Instant.now();
+        List<IRun> queuedRuns = new ArrayList<>();
+        queuedRuns.addAll(createQueuedRuns("alice", "g1", 10, now));
+        queuedRuns.addAll(createQueuedRuns("bob", "g1", 10, now.minusSeconds(600)));
+
+        // When...
+        List<IRun> selectedRuns = scheduler.selectRuns(queuedRuns, new ArrayList<>(), 8);
+
+        // Then...
+        assertThat(getRequestors(selectedRuns)).filteredOn("alice"::equals).hasSize(6);
+        assertThat(getRequestors(selectedRuns)).filteredOn("bob"::equals).hasSize(2);
+    }
+
+    @Test
+    public void testSelectRunsSplitsScheduledRequestorsByGroup() throws Exception {
+        // Given...
+        TestPodScheduler scheduler = createScheduler(Map.of("scheduled_requestors", "pipeline"));
+
+        Instant now = Instant.now();
+        List<IRun> queuedRuns = new ArrayList<>();
+        queuedRuns.addAll(createQueuedRuns("pipeline", "nightly", 10, now.minusSeconds(600)));
+        queuedRuns.addAll(createQueuedRuns("pipeline", "build", 10, now));
+
+        // When...
+        List<IRun> selectedRuns = scheduler.selectRuns(queuedRuns, new ArrayList<>(), 4);
+
+        // Then...
+        List<String> groups = new ArrayList<>();
+        for (IRun run : selectedRuns) {
+            groups.add(run.getGroup());
+        }
+        assertThat(groups).containsExactly("nightly", "build", "nightly", "build");
+    }
+
+    @Test
+    public void testSelectRunsDoesNotExceedCapacity() throws Exception {
+        // Given...
+        TestPodScheduler scheduler = createScheduler(Map.of());
+        List<IRun> queuedRuns = createQueuedRuns("alice", "g1", 3, Instant.now());
+
+        // When...
+        List<IRun> noCapacity = scheduler.selectRuns(new ArrayList<>(queuedRuns), new ArrayList<>(), 0);
+        List<IRun> spareCapacity = scheduler.selectRuns(new ArrayList<>(queuedRuns), new ArrayList<>(), 10);
+
+        // Then...
+        assertThat(noCapacity).isEmpty();
+        assertThat(spareCapacity).hasSize(3);
+    }
+
+    @Test
+    public void testInvalidPoolWeightIsRejected() throws Exception {
+        // Given...
+        V1ConfigMap mockConfigMap = createMockConfigMap();
+        mockConfigMap.getData().put("pool_weights", "alice=lots");
+        MockSettings settings = new MockSettings(mockConfigMap, new MockK8sController(), null);
+
+        // When...
+        Throwable thrown = catchThrowable(() -> settings.init());
+
+        // Then...
+        assertThat(thrown).isInstanceOf(K8sControllerException.class).hasMessageContaining("pool_weights");
+    }
 }
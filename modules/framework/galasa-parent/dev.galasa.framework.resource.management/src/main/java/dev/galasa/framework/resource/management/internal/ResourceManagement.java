@@ -32,6 +32,7 @@ import dev.galasa.framework.spi.IDynamicStatusStoreService;
 import dev.galasa.framework.spi.IFramework;
 import dev.galasa.framework.spi.IResourceManagement;
 import dev.galasa.framework.spi.IResourceManagementProvider;
+import dev.galasa.framework.spi.IRunRegistry;
 import io.prometheus.client.Counter;
 import io.prometheus.client.exporter.HTTPServer;
 
@@ -165,6 +166,17 @@ public class ResourceManagement implements IResourceManagement {
             logger.info("Health monitoring disabled");
         }
 
+        // *** Start the run registry, so the run monitors work from memory rather
+        // *** than scanning the DSS on every pass
+        IRunRegistry runRegistry = framework.getFrameworkRuns().getRunRegistry();
+        scheduledExecutorService.scheduleWithFixedDelay(() -> {
+            try {
+                runRegistry.refresh();
+            } catch (Exception e) {
+                logger.error("Unable to refresh the run registry", e);
+            }
+        }, 5, 5, TimeUnit.MINUTES);
+
         // *** Locate all the Resource Management providers in the framework
         try {
             final ServiceReference<?>[] rmpServiceReference = bundleContext
@@ -229,6 +241,7 @@ public class ResourceManagement implements IResourceManagement {
 
         // *** Ask the run watch to terminate
         runWatch.shutdown();
+        runRegistry.shutdown();
 
         // *** shutdown the providers
         for (IResourceManagementProvider provider : resourceManagementProviders) {
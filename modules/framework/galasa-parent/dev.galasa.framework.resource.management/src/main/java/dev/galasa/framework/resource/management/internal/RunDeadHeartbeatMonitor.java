@@ -10,38 +10,96 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import dev.galasa.framework.spi.AbstractManager;
+import dev.galasa.framework.spi.DynamicStatusStoreException;
 import dev.galasa.framework.spi.FrameworkException;
 import dev.galasa.framework.spi.IConfigurationPropertyStoreService;
 import dev.galasa.framework.spi.IDynamicStatusStoreService;
+import dev.galasa.framework.spi.IDynamicStatusStoreWatcher;
 import dev.galasa.framework.spi.IFramework;
 import dev.galasa.framework.spi.IFrameworkRuns;
 import dev.galasa.framework.spi.IResourceManagement;
 import dev.galasa.framework.spi.IRun;
 
+/**
+ * Finds runs whose engine has died, so they can be deleted or requeued.
+ * 
+ * Runs are swept periodically for heartbeats which have not been updated within
+ * resource.management.dead.heartbeat.timeout. If framework.heartbeat.lease.ttl is
+ * set, runs whose engine holds a heartbeat lease are left out of the sweep, as the
+ * engine does not keep the heartbeat up to date while it holds the lease. Instead
+ * a dead engine is noticed as soon as the DSS deletes its lease key, by watching
+ * for it.
+ */
 public class RunDeadHeartbeatMonitor implements Runnable {
 
+    private static final String                      LEASE_KEY_SUFFIX           = ".heartbeat.lease";
+
+    // *** Time for an engine which is finishing normally to remove its heartbeat after its lease
+    private static final long                        LEASE_EXPIRY_GRACE_SECONDS = 20;
+
     private final IResourceManagement                resourceManagement;
     private final IConfigurationPropertyStoreService cps;
+    private final IDynamicStatusStoreService         dss;
     private final IFrameworkRuns                     frameworkRuns;
     private final Log                                logger = LogFactory.getLog(this.getClass());
 
     private final DateTimeFormatter                  dtf    = DateTimeFormatter.ofPattern("yyyy-MM-dd hh:mm:ss")
             .withZone(ZoneId.systemDefault());
 
+    private UUID                                     leaseWatchId;
+
     protected RunDeadHeartbeatMonitor(IFramework framework, IResourceManagement resourceManagement,
             IDynamicStatusStoreService dss, RunResourceManagement runResourceManagement,
             IConfigurationPropertyStoreService cps) throws FrameworkException {
         this.resourceManagement = resourceManagement;
         this.frameworkRuns = framework.getFrameworkRuns();
         this.cps = cps;
+        this.dss = dss;
+
+        if (isLeaseEnabled()) {
+            try {
+                this.leaseWatchId = this.dss.watchPrefix(new LeaseExpiryWatcher(), "run.");
+            } catch (DynamicStatusStoreException e) {
+                logger.warn("Unable to watch for expired heartbeat leases, relying on the heartbeat timeout alone", e);
+            }
+        }
+
         this.logger.info("Run Dead Heartbeat Monitor initialised");
     }
 
+    private boolean isLeaseEnabled() {
+        try {
+            String ttl = AbstractManager.nulled(cps.getProperty("heartbeat.lease", "ttl"));
+            return ttl != null && Long.parseLong(ttl) > 0;
+        } catch (Exception e) {
+            logger.warn("Problem with framework.heartbeat.lease.ttl, not watching for expired heartbeat leases", e);
+            return false;
+        }
+    }
+
+    /**
+     * Stop watching for expired heartbeat leases
+     */
+    protected void shutdown() {
+        if (this.leaseWatchId == null) {
+            return;
+        }
+
+        try {
+            this.dss.unwatch(this.leaseWatchId);
+        } catch (DynamicStatusStoreException e) {
+            logger.error("Unable to remove the heartbeat lease watch", e);
+        }
+        this.leaseWatchId = null;
+    }
+
     @Override
     public void run() {
         int defaultDeadHeartbeatTime = 300; // ** 5 minutes
@@ -68,6 +126,11 @@ public class RunDeadHeartbeatMonitor implements Runnable {
                 String runName = run.getName();
                 logger.trace("Checking run " + runName);
 
+                if (run.isHeartbeatLeased()) {
+                    logger.trace("Run " + runName + " holds a heartbeat lease");
+                    continue;
+                }
+
                 Instant heartbeat = run.getHeartbeat();
                 if (heartbeat == null) {
                     logger.warn("Active run without heartbeat = " + runName + " ignoring");
@@ -78,15 +141,7 @@ public class RunDeadHeartbeatMonitor implements Runnable {
                 Instant now = Instant.now();
                 if (expires.compareTo(now) <= 0) {
                     logger.trace("Run " + runName + " has a dead heartbeat");
-                    String lastHeartbeat = dtf.format(LocalDateTime.ofInstant(heartbeat, ZoneId.systemDefault()));
-                    if (run.isLocal()) {
-                        /// TODO put time management into the framework
-                        logger.warn("Deleting run " + runName + ", last heartbeat was at " + lastHeartbeat);
-                        this.frameworkRuns.delete(runName);
-                    } else {
-                        logger.warn("Reseting run " + runName + ", last heartbeat was at " + lastHeartbeat);
-                        this.frameworkRuns.reset(runName);
-                    }
+                    recoverDeadRun(run, heartbeat);
                 } else {
                     logger.trace("Run " + runName + " heartbeat is ok");
                 }
@@ -99,4 +154,64 @@ public class RunDeadHeartbeatMonitor implements Runnable {
         logger.info("Finished Run Dead Heartbeat search");
     }
 
+    private void recoverDeadRun(IRun run, Instant heartbeat) throws FrameworkException {
+        String runName = run.getName();
+        String lastHeartbeat = dtf.format(LocalDateTime.ofInstant(heartbeat, ZoneId.systemDefault()));
+        if (run.isLocal()) {
+            /// TODO put time management into the framework
+            logger.warn("Deleting run " + runName + ", last heartbeat was at " + lastHeartbeat);
+            this.frameworkRuns.delete(runName);
+        } else {
+            logger.warn("Reseting run " + runName + ", last heartbeat was at " + lastHeartbeat);
+            this.frameworkRuns.reset(runName);
+        }
+    }
+
+    /**
+     * Called once the grace period after a heartbeat lease key was deleted is over
+     */
+    protected void checkExpiredLease(String runName) {
+        try {
+            IRun run = frameworkRuns.getRun(runName);
+            if (run == null || run.isSharedEnvironment()) {
+                return;
+            }
+
+            // *** An engine which finished normally removes its heartbeat too
+            Instant heartbeat = run.getHeartbeat();
+            if (heartbeat == null || "finished".equals(run.getStatus())) {
+                return;
+            }
+
+            // *** Another engine may have picked up the run since
+            if (dss.get("run." + runName + LEASE_KEY_SUFFIX) != null) {
+                return;
+            }
+
+            logger.trace("Run " + runName + " heartbeat lease has expired");
+            recoverDeadRun(run, heartbeat);
+        } catch (Throwable e) {
+            logger.error("Check of run " + runName + " after its heartbeat lease expired failed", e);
+        }
+    }
+
+    private class LeaseExpiryWatcher implements IDynamicStatusStoreWatcher {
+
+        @Override
+        public void propertyModified(String key, Event event, String oldValue, String newValue) {
+            if (event != Event.DELETE || key == null || !key.endsWith(LEASE_KEY_SUFFIX)) {
+                return;
+            }
+
+            String runName = key.substring("run.".length(), key.length() - LEASE_KEY_SUFFIX.length());
+            if (runName.isEmpty()) {
+                return;
+            }
+
+            logger.info("Heartbeat lease of run " + runName + " has gone, checking the run in " + LEASE_EXPIRY_GRACE_SECONDS + " seconds");
+            resourceManagement.getScheduledExecutorService().schedule(() -> checkExpiredLease(runName),
+                    LEASE_EXPIRY_GRACE_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
 }
\ No newline at end of file
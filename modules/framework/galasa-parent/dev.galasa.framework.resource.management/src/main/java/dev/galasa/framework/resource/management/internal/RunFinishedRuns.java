@@ -9,12 +9,15 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletionStage;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import dev.galasa.framework.spi.AbstractManager;
+import dev.galasa.framework.spi.DynamicStatusStoreFutures;
 import dev.galasa.framework.spi.FrameworkException;
 import dev.galasa.framework.spi.IConfigurationPropertyStoreService;
 import dev.galasa.framework.spi.IDynamicStatusStoreService;
@@ -22,11 +25,13 @@ import dev.galasa.framework.spi.IFramework;
 import dev.galasa.framework.spi.IFrameworkRuns;
 import dev.galasa.framework.spi.IResourceManagement;
 import dev.galasa.framework.spi.IRun;
+import dev.galasa.framework.spi.RunFilter;
 
 public class RunFinishedRuns implements Runnable {
 
     private final IResourceManagement                resourceManagement;
     private final IConfigurationPropertyStoreService cps;
+    private final IDynamicStatusStoreService         dss;
     private final IFrameworkRuns                     frameworkRuns;
     private final Log                                logger = LogFactory.getLog(this.getClass());
 
@@ -39,6 +44,7 @@ public class RunFinishedRuns implements Runnable {
         this.resourceManagement = resourceManagement;
         this.frameworkRuns = framework.getFrameworkRuns();
         this.cps = cps;
+        this.dss = dss;
         this.logger.info("Finished Runs Monitor initialised");
     }
 
@@ -57,7 +63,8 @@ public class RunFinishedRuns implements Runnable {
 
         logger.info("Starting Finished Run search");
         try {
-            List<IRun> runs = frameworkRuns.getAllRuns();
+            List<IRun> runs = frameworkRuns.getRunSnapshot(new RunFilter().withStatuses("finished"));
+            List<CompletionStage<Void>> deletes = new ArrayList<>();
             for (IRun run : runs) {
                 String runName = run.getName();
 
@@ -73,9 +80,12 @@ public class RunFinishedRuns implements Runnable {
                     String sFinished = dtf.format(LocalDateTime.ofInstant(finished, ZoneId.systemDefault()));
                     /// TODO put time management into the framework
                     logger.info("Deleting run " + runName + ", finished at " + sFinished);
-                    this.frameworkRuns.delete(runName);
+                    deletes.add(this.dss.deletePrefixAsync("run." + runName + "."));
                 }
             }
+
+            // *** The deletes are independent, so they were all requested without waiting
+            DynamicStatusStoreFutures.waitForAll(deletes);
         } catch (FrameworkException e) {
             logger.error("Scan of runs failed", e);
         }
@@ -26,6 +26,7 @@ public class RunResourceManagement implements IResourceManagementProvider {
     private IResourceManagement                resourceManagement;
     private IDynamicStatusStoreService         dss;
     private IConfigurationPropertyStoreService cps;
+    private RunDeadHeartbeatMonitor            runDeadHeartbeatMonitor;
 
     @Override
     public boolean initialise(IFramework framework, IResourceManagement resourceManagement)
@@ -46,8 +47,9 @@ public class RunResourceManagement implements IResourceManagementProvider {
     public void start() {
 
         try {
+            this.runDeadHeartbeatMonitor = new RunDeadHeartbeatMonitor(this.framework, this.resourceManagement, this.dss, this, cps);
             this.resourceManagement.getScheduledExecutorService().scheduleWithFixedDelay(
-                    new RunDeadHeartbeatMonitor(this.framework, this.resourceManagement, this.dss, this, cps),
+                    this.runDeadHeartbeatMonitor,
                     this.framework.getRandom().nextInt(20), 20, TimeUnit.SECONDS);
         } catch (FrameworkException e) {
             logger.error("Unable to initialise Run Dead Heartbeat monitor", e);
@@ -77,6 +79,9 @@ public class RunResourceManagement implements IResourceManagementProvider {
 
     @Override
     public void shutdown() {
+        if (this.runDeadHeartbeatMonitor != null) {
+            this.runDeadHeartbeatMonitor.shutdown();
+        }
     }
 
     @Override
@@ -18,6 +18,7 @@ import dev.galasa.framework.spi.IFramework;
 import dev.galasa.framework.spi.IFrameworkRuns;
 import dev.galasa.framework.spi.IResourceManagement;
 import dev.galasa.framework.spi.IRun;
+import dev.galasa.framework.spi.RunFilter;
 
 public class RunWaitingRuns implements Runnable {
 
@@ -39,7 +40,7 @@ public class RunWaitingRuns implements Runnable {
     public void run() {
         logger.info("Starting Waiting Run search");
         try {
-            List<IRun> runs = frameworkRuns.getAllRuns();
+            List<IRun> runs = frameworkRuns.getRunSnapshot(new RunFilter().withStatuses("waiting"));
             for (IRun run : runs) {
                 String runName = run.getName();
 
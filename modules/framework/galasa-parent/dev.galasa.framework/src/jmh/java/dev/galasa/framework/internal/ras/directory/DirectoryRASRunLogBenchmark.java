@@ -0,0 +1,86 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.internal.ras.directory;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares appending each run log message by opening and closing the file, as the
+ * directory RAS used to, with writing it through the buffered run log.
+ *
+ * Run with: gradle jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DirectoryRASRunLogBenchmark {
+
+    private static final int   BUFFER_SIZE    = 64 * 1024;
+    private static final long  FLUSH_INTERVAL = 1000;
+
+    @Param({ "80", "1000" })
+    public int                 messageLength;
+
+    private Path               directory;
+    private Path               appendedLog;
+    private DirectoryRASRunLog bufferedLog;
+    private byte[]             message;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        directory = Files.createTempDirectory("galasa-run-log-benchmark");
+        appendedLog = Files.createFile(directory.resolve("appended.log"));
+        bufferedLog = new DirectoryRASRunLog(directory.resolve("buffered.log"), BUFFER_SIZE, FLUSH_INTERVAL,
+                DirectoryRASRunLog.SyncPolicy.NONE);
+
+        // A log line like those written by the managers, padded to the length wanted
+        StringBuilder line = new StringBuilder("18/10/2026 12:00:00.000 INFO dev.galasa.BenchmarkManager - ");
+        while (line.length() < messageLength - 1) {
+            line.append('x');
+        }
+        line.setLength(messageLength - 1);
+        line.append('\n');
+        message = line.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        bufferedLog.close();
+        FileUtils.deleteDirectory(directory.toFile());
+    }
+
+    @Benchmark
+    public void appendWithFilesWrite() throws Exception {
+        Files.write(appendedLog, message, StandardOpenOption.APPEND);
+    }
+
+    @Benchmark
+    public void writeToBufferedRunLog() throws Exception {
+        bufferedLog.writeIfOpen(message);
+    }
+}
@@ -30,6 +30,7 @@ import dev.galasa.framework.spi.IResultArchiveStore;
 import dev.galasa.framework.spi.IRun;
 import dev.galasa.framework.spi.IShuttableFramework;
 import dev.galasa.framework.spi.ResultArchiveStoreException;
+import dev.galasa.framework.spi.teststructure.ManagerPhase;
 import dev.galasa.framework.spi.teststructure.TestStructure;
 import dev.galasa.framework.spi.utils.DssUtils;
 import dev.galasa.framework.spi.utils.GalasaGson;
@@ -197,6 +198,16 @@ public class BaseTestRunner {
         return testStructure;
     }
 
+    /**
+     * Copy how long each Manager took in the provisioning phases into the test structure
+     */
+    protected void recordManagerPhases(ITestRunManagers managers) {
+        List<ManagerPhase> managerPhases = managers.getManagerPhases();
+        if (managerPhases != null && !managerPhases.isEmpty()) {
+            this.testStructure.setManagerPhases(managerPhases);
+        }
+    }
+
     protected void writeTestStructure() {
         try {
             this.ras.updateTestStructure(testStructure);
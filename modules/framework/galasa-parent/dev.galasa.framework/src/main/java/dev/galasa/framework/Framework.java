@@ -451,6 +451,12 @@ public class Framework implements IFramework, IShuttableFramework {
             }
         }
 
+        // *** Write out the captured run log before the Result Archive Store goes
+        if (this.testRunLogCapture != null) {
+            shutdownLogger.trace("Shutting down the test run log capture");
+            this.testRunLogCapture.shutdown();
+        }
+
         // *** Shutdown the Result Archive Store
         if (this.rasService != null) {
             try {
@@ -6,15 +6,19 @@
 package dev.galasa.framework;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletionStage;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -30,12 +34,19 @@ import dev.galasa.framework.beans.SubmitRunRequest;
 import dev.galasa.framework.spi.AbstractManager;
 import dev.galasa.framework.spi.ConfigurationPropertyStoreException;
 import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.DssAdd;
+import dev.galasa.framework.spi.DssUpdate;
+import dev.galasa.framework.spi.DynamicStatusStoreFutures;
+import dev.galasa.framework.spi.DynamicStatusStoreMatchException;
 import dev.galasa.framework.spi.FrameworkException;
 import dev.galasa.framework.spi.IConfigurationPropertyStoreService;
+import dev.galasa.framework.spi.IDssAction;
 import dev.galasa.framework.spi.IDynamicStatusStoreService;
 import dev.galasa.framework.spi.IFramework;
 import dev.galasa.framework.spi.IFrameworkRuns;
 import dev.galasa.framework.spi.IRun;
+import dev.galasa.framework.spi.IRunRegistry;
+import dev.galasa.framework.spi.RunFilter;
 import dev.galasa.framework.spi.utils.GalasaGson;
 import dev.galasa.framework.spi.utils.GalasaGsonBuilder;
 
@@ -56,8 +67,13 @@ public class FrameworkRuns implements IFrameworkRuns {
 
     private final String                             RUN_PREFIX   = "run.";
 
+    // *** etcd rejects transactions with more than 128 operations by default
+    private static final int                         MAX_ACTIONS_PER_BATCH = 128;
+
     private final GalasaGson gson = new GalasaGson();
 
+    private volatile RunRegistry                     runRegistry;
+
     public FrameworkRuns(IFramework framework) throws FrameworkException {
         this.framework = framework;
         this.dss = framework.getDynamicStatusStoreService("framework");
@@ -93,53 +109,75 @@ public class FrameworkRuns implements IFrameworkRuns {
 
     @Override
     public @NotNull List<IRun> getQueuedRuns() throws FrameworkException {
-        List<IRun> runs = getAllRuns();
-        Iterator<IRun> iruns = runs.iterator();
-        while (iruns.hasNext()) {
-            IRun run = iruns.next();
-
-            if (!"queued".equals(run.getStatus())) {
-                iruns.remove();
-            }
-        }
-
-        return runs;
+        return getRunSnapshot(new RunFilter().withStatuses("queued"));
     }
 
     @Override
     public List<IRun> getAllRuns() throws FrameworkException {
-        HashMap<String, IRun> runs = new HashMap<>();
+        return getRunSnapshot(new RunFilter());
+    }
+
+    @Override
+    public @NotNull List<IRun> getRunSnapshot(@NotNull RunFilter filter) throws FrameworkException {
+        // *** The registry is not current while it is being primed or after it has lost its watch
+        RunRegistry registry = this.runRegistry;
+        if (registry != null && registry.isPrimed()) {
+            return registry.getRuns(filter);
+        }
 
         logger.trace("Fetching all runs from DSS");
         Map<String, String> runProperties = dss.getPrefix(RUN_PREFIX);
         logger.trace("Fetched all runs from DSS");
-        for (String key : runProperties.keySet()) {
-            Matcher matcher = runPattern.matcher(key);
+
+        // *** Split the properties by run so each run can be built without going back to the DSS
+        HashMap<String, Map<String, String>> propertiesByRun = new HashMap<>();
+        for (Map.Entry<String, String> entry : runProperties.entrySet()) {
+            Matcher matcher = runPattern.matcher(entry.getKey());
             if (matcher.find()) {
                 String runName = matcher.group(1);
-
-                if (!runs.containsKey(runName)) {
-                    runs.put(runName, new RunImpl(runName, this.dss));
-                }
+                propertiesByRun.computeIfAbsent(runName, k -> new HashMap<>()).put(entry.getKey(), entry.getValue());
             }
         }
 
-        LinkedList<IRun> returnRuns = new LinkedList<>(runs.values());
+        LinkedList<IRun> returnRuns = new LinkedList<>();
+        for (Map.Entry<String, Map<String, String>> entry : propertiesByRun.entrySet()) {
+            String runName = entry.getKey();
+            Map<String, String> properties = entry.getValue();
+            String prefix = RUN_PREFIX + runName + ".";
+
+            if (filter.isMatched(properties.get(prefix + "status"), properties.get(prefix + "requestor"),
+                    properties.get(prefix + "group"), properties.get(prefix + "controller"))) {
+                returnRuns.add(new RunImpl(runName, properties));
+            }
+        }
 
         return returnRuns;
     }
 
     @Override
-    public List<IRun> getAllGroupedRuns(@NotNull String groupName) throws FrameworkException {
-        List<IRun> allRuns = this.getAllRuns();
-        List<IRun> groupedRuns = new LinkedList<IRun>();
-
-        for (IRun run : allRuns) {
-            if (groupName.equals(run.getGroup())) {
-                groupedRuns.add(run);
+    public synchronized @NotNull IRunRegistry getRunRegistry() throws FrameworkException {
+        if (this.runRegistry == null) {
+            RunRegistry registry = new RunRegistry(this.dss, this::runRegistryShutdown);
+            try {
+                registry.start();
+            } catch (DynamicStatusStoreException e) {
+                registry.shutdown();
+                throw new FrameworkException("Unable to start the run registry", e);
             }
+            this.runRegistry = registry;
         }
-        return groupedRuns;
+        return this.runRegistry;
+    }
+
+    private synchronized void runRegistryShutdown(RunRegistry registry) {
+        if (this.runRegistry == registry) {
+            this.runRegistry = null;
+        }
+    }
+
+    @Override
+    public List<IRun> getAllGroupedRuns(@NotNull String groupName) throws FrameworkException {
+        return getRunSnapshot(new RunFilter().withGroups(groupName));
     }
 
     @Override
@@ -199,10 +237,58 @@ public class FrameworkRuns implements IFrameworkRuns {
         return submitRun(runRequest);
     }
 
+    @Override
+    public @NotNull List<IRun> submitRuns(@NotNull List<SubmitRunRequest> runRequests) throws FrameworkException {
+        IRun[] runs = new IRun[runRequests.size()];
+
+        // *** Runs that need a new run number are grouped by their type prefix, so each
+        // *** group can have its numbers reserved in one go
+        Map<String, List<Integer>> requestsByPrefix = new LinkedHashMap<>();
+        for (int i = 0; i < runRequests.size(); i++) {
+            SubmitRunRequest runRequest = runRequests.get(i);
+            setRunRequestDefaultsIfNotSet(runRequest);
+
+            if (runRequest.getSharedEnvironmentPhase() != null) {
+                runs[i] = submitSharedEnvironmentRun(runRequest);
+            } else {
+                String typePrefix = getRunTypePrefix(runRequest.getRunType());
+                requestsByPrefix.computeIfAbsent(typePrefix, prefix -> new ArrayList<>()).add(i);
+            }
+        }
+
+        try {
+            for (Map.Entry<String, List<Integer>> entry : requestsByPrefix.entrySet()) {
+                submitNumberedRuns(entry.getKey(), entry.getValue(), runRequests, runs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FrameworkException("Interrupted", e);
+        } catch (FrameworkException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new FrameworkException("Problem submitting jobs", e);
+        }
+        return Arrays.asList(runs);
+    }
+
     private boolean storeRun(String runName, SubmitRunRequest runRequest) throws DynamicStatusStoreException {
+        return DynamicStatusStoreFutures.waitFor(storeRunAsync(runName, runRequest));
+    }
+
+    private CompletionStage<Boolean> storeRunAsync(String runName, SubmitRunRequest runRequest) {
+        HashMap<String, String> otherRunProperties = getOtherRunProperties(runName, runRequest);
+
+        // *** See if we can setup the runnumber properties (clashes possible if low max
+        // number or sharing prefix
+        return this.dss.putSwapAsync(RUN_PREFIX + runName + ".test", null, runRequest.getBundleTest(), otherRunProperties);
+    }
+
+    /**
+     * Build the properties of a run, other than the test property which is used to claim the run name
+     */
+    private HashMap<String, String> getOtherRunProperties(String runName, SubmitRunRequest runRequest) {
         String bundleName = runRequest.getBundleName();
         String testName = runRequest.getTestName();
-        String bundleTest = runRequest.getBundleTest();
         String gherkinTest = runRequest.getGherkinTest();
         String runType = runRequest.getRunType();
         String mavenRepository = runRequest.getMavenRepository();
@@ -263,10 +349,7 @@ public class FrameworkRuns implements IFrameworkRuns {
 
             otherRunProperties.put(runPropertyPrefix + ".overrides", gson.toJson(overridesArray));
         }
-
-        // *** See if we can setup the runnumber properties (clashes possible if low max
-        // number or sharing prefix
-        return this.dss.putSwap(runPropertyPrefix + ".test", null, bundleTest, otherRunProperties);
+        return otherRunProperties;
     }
 
     @Override
@@ -295,6 +378,8 @@ public class FrameworkRuns implements IFrameworkRuns {
             return false;
         }
 
+        // *** The heartbeat must be gone before the run is queued, otherwise an engine
+        // *** could pick the run up while the old heartbeat is still there
         this.dss.delete(prefix + "heartbeat");
         this.dss.put(prefix + "status", "queued");
         return true;
@@ -309,7 +394,7 @@ public class FrameworkRuns implements IFrameworkRuns {
             return null;
         }
 
-        return new RunImpl(runname, this.dss);
+        return new RunImpl(runname, properties);
     }
 
     /**
@@ -389,23 +474,147 @@ public class FrameworkRuns implements IFrameworkRuns {
             }
 
             String sNewNumber = Integer.toString(latestNumber);
-            if (!this.dss.putSwap(pLastused, sLatestNumber, sNewNumber)) {
+            String tempRunName = typePrefix + sNewNumber;
+
+            // *** Claiming the run properties is what makes the number ours, lastused only
+            // *** says where to look next. So both are requested at once rather than
+            // *** waiting for lastused to be updated before trying to store the run
+            CompletionStage<Boolean> lastusedUpdated = this.dss.putSwapAsync(pLastused, sLatestNumber, sNewNumber);
+            CompletionStage<Boolean> runStored = storeRunAsync(tempRunName, runRequest);
+
+            DynamicStatusStoreFutures.waitFor(lastusedUpdated);
+            if (!DynamicStatusStoreFutures.waitFor(runStored)) {
                 Thread.sleep(this.framework.getRandom().nextInt(200)); // *** Wait for a bit, to avoid race
                 // conditions
-                continue; // Try again with the new latest number
+                continue; // *** Try again with the new latest number
             }
 
-            String tempRunName = typePrefix + sNewNumber;
+            runName = tempRunName; // *** Got it
+        }
+        return runName;
+    }
 
-            if (!storeRun(tempRunName, runRequest)) {
+    /**
+     * Submit runs of the same type prefix, reserving a block of run numbers for them
+     * all and then writing the runs in as few DSS transactions as possible
+     */
+    private void submitNumberedRuns(String typePrefix, List<Integer> requestIndexes, List<SubmitRunRequest> runRequests, IRun[] runs)
+            throws FrameworkException, InterruptedException {
+        List<String> runNames = reserveRunNames(typePrefix, requestIndexes.size());
+
+        List<Map<String, String>> runProperties = new ArrayList<>(requestIndexes.size());
+        for (int i = 0; i < requestIndexes.size(); i++) {
+            SubmitRunRequest runRequest = runRequests.get(requestIndexes.get(i));
+            runRequest.setSharedEnvironmentPhase(null);
+
+            HashMap<String, String> properties = getOtherRunProperties(runNames.get(i), runRequest);
+            properties.put(RUN_PREFIX + runNames.get(i) + ".test", runRequest.getBundleTest());
+            runProperties.add(properties);
+        }
+
+        // *** Split the runs into transactions, never splitting a run across two of them,
+        // *** and send all the transactions before waiting for any
+        List<List<Integer>> batches = new ArrayList<>();
+        List<CompletionStage<Void>> batchWrites = new ArrayList<>();
+        List<Integer> batch = new ArrayList<>();
+        int batchActions = 0;
+        for (int i = 0; i < runProperties.size(); i++) {
+            int runActions = runProperties.get(i).size();
+            if (!batch.isEmpty() && batchActions + runActions > MAX_ACTIONS_PER_BATCH) {
+                batches.add(batch);
+                batchWrites.add(writeRuns(batch, runNames, runProperties));
+                batch = new ArrayList<>();
+                batchActions = 0;
+            }
+            batch.add(i);
+            batchActions += runActions;
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+            batchWrites.add(writeRuns(batch, runNames, runProperties));
+        }
+
+        for (int b = 0; b < batches.size(); b++) {
+            boolean written = true;
+            try {
+                DynamicStatusStoreFutures.waitFor(batchWrites.get(b));
+            } catch (DynamicStatusStoreMatchException e) {
+                // *** One of the reserved run names is already in use, which can happen if the
+                // *** numbers have wrapped or the prefix is shared, so submit these runs singly
+                written = false;
+            }
+
+            for (int i : batches.get(b)) {
+                SubmitRunRequest runRequest = runRequests.get(requestIndexes.get(i));
+                String runName = runNames.get(i);
+                if (written) {
+                    runs[requestIndexes.get(i)] = new RunImpl(runName, runProperties.get(i));
+                } else {
+                    if (!storeRun(runName, runRequest)) {
+                        runName = assignNewRunName(runRequest);
+                    }
+                    runs[requestIndexes.get(i)] = new RunImpl(runName, this.dss);
+                }
+            }
+        }
+    }
+
+    private CompletionStage<Void> writeRuns(List<Integer> batch, List<String> runNames, List<Map<String, String>> runProperties) {
+        List<IDssAction> actions = new ArrayList<>();
+        for (int i : batch) {
+            String testKey = RUN_PREFIX + runNames.get(i) + ".test";
+            for (Map.Entry<String, String> property : runProperties.get(i).entrySet()) {
+                if (property.getKey().equals(testKey)) {
+                    // *** The transaction fails if any of the runs already exist
+                    actions.add(new DssAdd(property.getKey(), property.getValue()));
+                } else {
+                    actions.add(new DssUpdate(property.getKey(), property.getValue()));
+                }
+            }
+        }
+        return this.dss.performActionsAsync(actions.toArray(new IDssAction[actions.size()]));
+    }
+
+    /**
+     * Reserve a number of run names for a type prefix, moving the last used number on
+     * past a whole block at a time rather than one run at a time
+     */
+    private List<String> reserveRunNames(String typePrefix, int count) throws FrameworkException, InterruptedException {
+        int maxNumber = getPrefixMaxNumber(typePrefix);
+        String pLastused = "request.prefix." + typePrefix + ".lastused";
+
+        List<String> runNames = new ArrayList<>(count);
+        boolean maxlooped = false;
+        while (runNames.size() < count) {
+            String sLatestNumber = this.dss.get(pLastused);
+            int latestNumber = 0;
+            if (sLatestNumber != null && !sLatestNumber.trim().isEmpty()) {
+                latestNumber = Integer.parseInt(sLatestNumber);
+            }
+
+            boolean looping = false;
+            if (latestNumber >= maxNumber) { // *** have we reached the maximum number
+                if (maxlooped) {
+                    throw new FrameworkException("Not enough request type numbers available, looped twice");
+                }
+                latestNumber = 0;
+                looping = true;
+            }
+
+            int blockSize = Math.min(count - runNames.size(), maxNumber - latestNumber);
+            int lastNumber = latestNumber + blockSize;
+            if (!this.dss.putSwap(pLastused, sLatestNumber, Integer.toString(lastNumber))) {
                 Thread.sleep(this.framework.getRandom().nextInt(200)); // *** Wait for a bit, to avoid race
                 // conditions
-                continue; // *** Try again
+                continue; // *** Try again with the new latest number
             }
 
-            runName = tempRunName; // *** Got it
+            maxlooped = maxlooped || looping; // *** Safety check to make sure we havent gone through all the numbers again
+            for (int number = latestNumber + 1; number <= lastNumber; number++) {
+                runNames.add(typePrefix + number);
+            }
         }
-        return runName;
+        return runNames;
     }
 
     private IRun submitSharedEnvironmentRun(SubmitRunRequest runRequest) throws FrameworkException {
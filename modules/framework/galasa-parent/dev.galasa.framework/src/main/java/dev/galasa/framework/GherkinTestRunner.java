@@ -135,6 +135,7 @@ public class GherkinTestRunner extends BaseTestRunner {
                 isRunOK = false;
             }
 
+            recordManagerPhases(managers);
             updateStatus(TestRunLifecycleStatus.ENDING, null);
             managers.endOfTestRun();
 
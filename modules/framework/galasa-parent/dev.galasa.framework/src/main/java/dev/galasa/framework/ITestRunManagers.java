@@ -13,6 +13,7 @@ import dev.galasa.framework.spi.FrameworkException;
 import dev.galasa.framework.spi.IManager;
 import dev.galasa.framework.spi.Result;
 import dev.galasa.framework.spi.language.GalasaMethod;
+import dev.galasa.framework.spi.teststructure.ManagerPhase;
 
 public interface ITestRunManagers {
     public boolean anyReasonTestClassShouldBeIgnored() throws FrameworkException ;
@@ -29,6 +30,7 @@ public interface ITestRunManagers {
     public void startOfTestClass() throws FrameworkException;
     public void provisionDiscard();
     public void provisionStop();
+    public List<ManagerPhase> getManagerPhases();
     public Result anyReasonTestMethodShouldBeIgnored(@NotNull GalasaMethod galasaMethod) throws FrameworkException;
     public void fillAnnotatedFields(Object testClassObject) throws FrameworkException;
     public void startOfTestMethod(@NotNull GalasaMethod galasaMethod) throws FrameworkException;
@@ -0,0 +1,99 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A fixed size ring buffer of log lines which any number of threads can add to
+ * without taking a lock, and which a single thread drains.
+ *
+ * A producer claims a slot by moving the head on with a compare and set, then
+ * publishes its line into the slot. The consumer takes lines from the tail in order,
+ * stopping at a slot which has been claimed but not yet published.
+ */
+class LogLineRingBuffer {
+
+    private final AtomicReferenceArray<String> slots;
+    private final int                          mask;
+
+    // *** The next sequence to be claimed by a producer, and the next to be taken by the consumer
+    private final AtomicLong                   head = new AtomicLong();
+    private final AtomicLong                   tail = new AtomicLong();
+
+    /**
+     * @param capacity the most lines held, rounded up to a power of two
+     */
+    LogLineRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Add a line if there is room
+     *
+     * @return false if the buffer is full
+     */
+    boolean offer(String line) {
+        while (true) {
+            long sequence = head.get();
+            if (sequence - tail.get() >= slots.length()) {
+                return false;
+            }
+            if (head.compareAndSet(sequence, sequence + 1)) {
+                slots.lazySet(index(sequence), line);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Move lines from the buffer to a list, oldest first. Must only be called by
+     * the consumer thread.
+     *
+     * @return the number of lines moved
+     */
+    int drainTo(List<String> lines, int maxLines) {
+        long sequence = tail.get();
+        int drained = 0;
+        while (drained < maxLines) {
+            int index = index(sequence);
+            String line = slots.get(index);
+            if (line == null) {
+                // *** Either empty, or the producer has not published the line yet
+                break;
+            }
+            slots.lazySet(index, null);
+            lines.add(line);
+            sequence++;
+            drained++;
+        }
+        tail.lazySet(sequence);
+        return drained;
+    }
+
+    /**
+     * @return the number of lines claimed but not yet taken by the consumer
+     */
+    int size() {
+        return (int) Math.max(0, head.get() - tail.get());
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+
+    private int index(long sequence) {
+        return (int) sequence & mask;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import dev.galasa.framework.spi.FrameworkException;
+import dev.galasa.framework.spi.IManager;
+
+/**
+ * The provisioning dependencies between the active Managers, built from
+ * {@link IManager#areYouProvisionalDependentOn(IManager)}.
+ *
+ * A provisioning phase is run with each Manager starting as soon as the Managers it
+ * depends on have finished, so Managers which do not depend on each other run at the
+ * same time. The stop and discard phases are run in reverse, a Manager starting once
+ * all the Managers which depend on it have finished.
+ */
+class ManagerProvisioningGraph {
+
+    /**
+     * The work done for one Manager in a phase
+     */
+    interface ManagerTask {
+        void run(IManager manager) throws FrameworkException;
+    }
+
+    private final List<IManager>              managers;
+    private final Map<IManager, Set<IManager>> dependencies = new IdentityHashMap<>();
+    private final Map<IManager, Set<IManager>> dependents   = new IdentityHashMap<>();
+
+    /**
+     * @param managers the active Managers, already sorted into provisioning order
+     */
+    ManagerProvisioningGraph(List<IManager> managers) {
+        this.managers = new ArrayList<>(managers);
+
+        for (IManager manager : managers) {
+            dependencies.put(manager, new HashSet<>());
+            dependents.put(manager, new HashSet<>());
+        }
+
+        for (IManager manager : managers) {
+            for (IManager other : managers) {
+                if (manager != other && manager.areYouProvisionalDependentOn(other)) {
+                    dependencies.get(manager).add(other);
+                    dependents.get(other).add(manager);
+                }
+            }
+        }
+    }
+
+    /**
+     * Run a task for every Manager, in parallel where the dependencies allow.
+     *
+     * If a task fails no further tasks are started, the running tasks are allowed to
+     * finish and the first failure is thrown.
+     *
+     * @param executor where the tasks are run
+     * @param reverse  true to run the Managers which depend on a Manager before it
+     * @param task     the work for each Manager
+     * @throws FrameworkException if a task failed or the wait was interrupted
+     */
+    void run(ExecutorService executor, boolean reverse, ManagerTask task) throws FrameworkException {
+        Map<IManager, Set<IManager>> waitFor = reverse ? dependents : dependencies;
+
+        CompletionService<IManager> completion = new ExecutorCompletionService<>(executor);
+        Set<IManager> waiting = new LinkedHashSet<>(managers);
+        Set<IManager> finished = new HashSet<>();
+        int running = 0;
+        Throwable failure = null;
+
+        while (true) {
+            if (failure == null) {
+                Iterator<IManager> it = waiting.iterator();
+                while (it.hasNext()) {
+                    IManager manager = it.next();
+                    if (finished.containsAll(waitFor.get(manager))) {
+                        it.remove();
+                        completion.submit(() -> {
+                            task.run(manager);
+                            return manager;
+                        });
+                        running++;
+                    }
+                }
+            }
+
+            if (running == 0) {
+                break;
+            }
+
+            try {
+                Future<IManager> done = completion.take();
+                running--;
+                finished.add(done.get());
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new FrameworkException("Interrupted waiting for the Managers to provision", e);
+            }
+        }
+
+        if (failure instanceof FrameworkException) {
+            throw (FrameworkException) failure;
+        } else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        } else if (failure != null) {
+            throw new FrameworkException("Problem provisioning the Managers", failure);
+        }
+
+        if (!waiting.isEmpty()) {
+            throw new FrameworkException("Unable to provision the Managers as there is a circular dependency");
+        }
+    }
+}
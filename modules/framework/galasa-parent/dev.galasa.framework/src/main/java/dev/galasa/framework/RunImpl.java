@@ -35,15 +35,25 @@ public class RunImpl implements IRun {
     private final boolean local;
     private final boolean trace;
     private final boolean sharedEnvironment;
+    private final boolean heartbeatLeased;
     private final String  rasRunId;
 
     public RunImpl(String name, IDynamicStatusStoreService dss) throws DynamicStatusStoreException {
+        this(name, dss.getPrefix("run." + name));
+    }
+
+    /**
+     * Build a run from properties that have already been fetched from the DSS,
+     * avoiding another round trip to the DSS.
+     * 
+     * @param name          the run name
+     * @param runProperties the run properties, keyed by the full "run.&lt;name&gt;." property name
+     */
+    public RunImpl(String name, Map<String, String> runProperties) {
         this.name = name;
 
         String prefix = "run." + name + ".";
 
-        Map<String, String> runProperties = dss.getPrefix("run." + this.name);
-
         String sHeartbeat = runProperties.get(prefix + "heartbeat");
         if (sHeartbeat != null) {
             this.heartbeat = Instant.parse(sHeartbeat);
@@ -64,6 +74,7 @@ public class RunImpl implements IRun {
         local = Boolean.parseBoolean(runProperties.get(prefix + "local"));
         trace = Boolean.parseBoolean(runProperties.get(prefix + "trace"));
         sharedEnvironment = Boolean.parseBoolean(runProperties.get(prefix + "shared.environment"));
+        heartbeatLeased = runProperties.containsKey(prefix + "heartbeat.lease");
         gherkin = runProperties.get(prefix + "gherkin");
 
         String sQueued = runProperties.get(prefix + "queued");
@@ -207,6 +218,11 @@ public class RunImpl implements IRun {
         return this.sharedEnvironment;
     }
 
+    @Override
+    public boolean isHeartbeatLeased() {
+        return this.heartbeatLeased;
+    }
+
     @Override
     public String getGherkin() {
         return this.gherkin;
@@ -0,0 +1,508 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.IDynamicStatusStoreService;
+import dev.galasa.framework.spi.IDynamicStatusStoreWatcher;
+import dev.galasa.framework.spi.IRun;
+import dev.galasa.framework.spi.IRunRegistry;
+import dev.galasa.framework.spi.IRunRegistryListener;
+import dev.galasa.framework.spi.RunFilter;
+
+/**
+ * Keeps an in-memory copy of the run properties in the DSS, primed with a
+ * single getPrefix and then maintained from a watch on the run prefix.
+ *
+ * Watch events that arrive while the registry is being primed or refreshed
+ * are held back and replayed on top of the scan, so a change made during the
+ * scan is never overwritten by the older scanned value.
+ *
+ * Should the DSS stop the watch, the registry is no longer primed until the
+ * watch has been set again and the runs scanned once more, which is tried
+ * straight away and then at each refresh. Callers are expected to read the DSS
+ * while the registry is not primed, see {@link #isPrimed()}.
+ */
+public class RunRegistry implements IRunRegistry, IDynamicStatusStoreWatcher {
+
+    private final Log                                          logger             = LogFactory.getLog(RunRegistry.class);
+
+    private static final String                                RUN_PREFIX         = "run.";
+
+    private static final String                                STATUS             = "status";
+    private static final String                                REQUESTOR          = "requestor";
+    private static final String                                GROUP              = "group";
+    private static final String                                CONTROLLER         = "controller";
+
+    private final Pattern                                      runPattern         = Pattern.compile("^\\Qrun.\\E(\\w+)\\Q.\\E(.*)$");
+
+    private final IDynamicStatusStoreService                   dss;
+
+    private final HashMap<String, HashMap<String, String>>     propertiesByRun    = new HashMap<>();
+    private final HashMap<String, IRun>                        runs               = new HashMap<>();
+    private final HashMap<String, HashMap<String, Set<String>>> indexes            = new HashMap<>();
+
+    private final LinkedList<PendingEvent>                     pendingEvents      = new LinkedList<>();
+    private boolean                                            primed             = false;
+    private final Object                                       refreshLock        = new Object();
+
+    private final CopyOnWriteArrayList<IRunRegistryListener>   listeners          = new CopyOnWriteArrayList<>();
+    private final LinkedHashMap<String, String>                changedRuns        = new LinkedHashMap<>();
+    private boolean                                            notifyScheduled    = false;
+    private final ExecutorService                              notifier;
+
+    private UUID                                               watchId;
+    private boolean                                            shutdown           = false;
+    private final Consumer<RunRegistry>                        shutdownListener;
+
+    public RunRegistry(IDynamicStatusStoreService dss) {
+        this(dss, null);
+    }
+
+    /**
+     * @param shutdownListener told when the registry has been shut down, or null
+     */
+    public RunRegistry(IDynamicStatusStoreService dss, Consumer<RunRegistry> shutdownListener) {
+        this.dss = dss;
+        this.shutdownListener = shutdownListener;
+        this.notifier = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "RunRegistryNotifier");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.indexes.put(STATUS, new HashMap<>());
+        this.indexes.put(REQUESTOR, new HashMap<>());
+        this.indexes.put(GROUP, new HashMap<>());
+        this.indexes.put(CONTROLLER, new HashMap<>());
+    }
+
+    /**
+     * Start watching the run prefix and prime the registry from the DSS
+     *
+     * @throws DynamicStatusStoreException if the watch cannot be set or the runs cannot be read
+     */
+    public void start() throws DynamicStatusStoreException {
+        refresh();
+        logger.info("Run registry started with " + propertiesByRunCount() + " runs");
+    }
+
+    /**
+     * @return true if the registry holds all the runs and is being kept up to date by the watch
+     */
+    public synchronized boolean isPrimed() {
+        return this.primed;
+    }
+
+    @Override
+    public void refresh() throws DynamicStatusStoreException {
+        synchronized (refreshLock) {
+            boolean wasWatching;
+            synchronized (this) {
+                if (this.shutdown) {
+                    return;
+                }
+                this.primed = false;
+                wasWatching = this.watchId != null;
+            }
+
+            // *** Watch before the scan so nothing that happens during the scan is missed
+            if (!wasWatching) {
+                UUID newWatchId = this.dss.watchPrefix(this, RUN_PREFIX);
+                synchronized (this) {
+                    this.watchId = newWatchId;
+                }
+            }
+
+            Map<String, String> runProperties = null;
+            try {
+                logger.trace("Fetching all runs from DSS for the run registry");
+                runProperties = this.dss.getPrefix(RUN_PREFIX);
+            } finally {
+                synchronized (this) {
+                    if (runProperties != null) {
+                        loadSnapshot(runProperties);
+                    }
+
+                    // *** Without a scan the runs are only current if the watch has run throughout
+                    if (this.watchId != null && (runProperties != null || wasWatching)) {
+                        // *** Replay anything that changed while we were scanning
+                        for (PendingEvent pendingEvent : pendingEvents) {
+                            applyEvent(pendingEvent.key, pendingEvent.event, pendingEvent.newValue);
+                        }
+                        this.primed = true;
+                    }
+                    pendingEvents.clear();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void propertyModified(String key, Event event, String oldValue, String newValue) {
+        if (key == null || event == null) {
+            return;
+        }
+
+        synchronized (this) {
+            if (shutdown) {
+                return;
+            }
+
+            if (!primed) {
+                pendingEvents.add(new PendingEvent(key, event, newValue));
+                return;
+            }
+
+            applyEvent(key, event, newValue);
+        }
+    }
+
+    @Override
+    public void watchLost(Throwable cause) {
+        synchronized (this) {
+            if (shutdown) {
+                return;
+            }
+
+            this.watchId = null;
+            this.primed = false;
+            this.pendingEvents.clear();
+            notifier.execute(this::restartWatch);
+        }
+        logger.warn("The run registry watch has stopped, the runs will be read from the DSS until it has been set again", cause);
+    }
+
+    private void restartWatch() {
+        try {
+            refresh();
+            if (isPrimed()) {
+                logger.info("Run registry watch set again");
+            }
+        } catch (DynamicStatusStoreException e) {
+            logger.error("Unable to set the run registry watch again, it will be tried again at the next refresh", e);
+        }
+    }
+
+    @Override
+    public synchronized IRun getRun(@NotNull String runName) {
+        IRun run = runs.get(runName);
+        if (run != null) {
+            return run;
+        }
+
+        HashMap<String, String> properties = propertiesByRun.get(runName);
+        if (properties == null) {
+            return null;
+        }
+
+        run = new RunImpl(runName, new HashMap<>(properties));
+        runs.put(runName, run);
+        return run;
+    }
+
+    @Override
+    public synchronized @NotNull List<IRun> getRuns(@NotNull RunFilter filter) {
+        Set<String> candidates = null;
+        candidates = selectCandidates(candidates, STATUS, filter.getStatuses());
+        candidates = selectCandidates(candidates, REQUESTOR, filter.getRequestors());
+        candidates = selectCandidates(candidates, GROUP, filter.getGroups());
+        candidates = selectCandidates(candidates, CONTROLLER, filter.getControllers());
+
+        if (candidates == null) {
+            candidates = propertiesByRun.keySet();
+        }
+
+        LinkedList<IRun> returnRuns = new LinkedList<>();
+        for (String runName : candidates) {
+            HashMap<String, String> properties = propertiesByRun.get(runName);
+            if (properties == null) {
+                continue;
+            }
+
+            String prefix = RUN_PREFIX + runName + ".";
+            if (filter.isMatched(properties.get(prefix + STATUS), properties.get(prefix + REQUESTOR),
+                    properties.get(prefix + GROUP), properties.get(prefix + CONTROLLER))) {
+                returnRuns.add(getRun(runName));
+            }
+        }
+
+        return returnRuns;
+    }
+
+    @Override
+    public void addListener(@NotNull IRunRegistryListener listener) {
+        this.listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(@NotNull IRunRegistryListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    @Override
+    public void shutdown() {
+        UUID oldWatchId;
+        synchronized (this) {
+            this.shutdown = true;
+            this.primed = false;
+            oldWatchId = this.watchId;
+            this.watchId = null;
+        }
+
+        if (oldWatchId != null) {
+            try {
+                this.dss.unwatch(oldWatchId);
+            } catch (DynamicStatusStoreException e) {
+                logger.error("Unable to remove the run registry watch", e);
+            }
+        }
+        this.notifier.shutdown();
+
+        if (this.shutdownListener != null) {
+            this.shutdownListener.accept(this);
+        }
+    }
+
+    private synchronized int propertiesByRunCount() {
+        return propertiesByRun.size();
+    }
+
+    /**
+     * Narrow the candidate run names down to those indexed under one of the
+     * values, null candidates means no narrowing has been done yet
+     */
+    private Set<String> selectCandidates(Set<String> candidates, String property, Set<String> values) {
+        if (values.isEmpty()) {
+            return candidates;
+        }
+
+        HashMap<String, Set<String>> index = indexes.get(property);
+        HashSet<String> selected = new HashSet<>();
+        for (String value : values) {
+            Set<String> runNames = index.get(value);
+            if (runNames != null) {
+                selected.addAll(runNames);
+            }
+        }
+
+        if (candidates != null) {
+            selected.retainAll(candidates);
+        }
+        return selected;
+    }
+
+    private void loadSnapshot(Map<String, String> runProperties) {
+        HashMap<String, HashMap<String, String>> scannedRuns = new HashMap<>();
+        for (Map.Entry<String, String> entry : runProperties.entrySet()) {
+            Matcher matcher = runPattern.matcher(entry.getKey());
+            if (matcher.matches()) {
+                scannedRuns.computeIfAbsent(matcher.group(1), k -> new HashMap<>()).put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        // *** Remove the runs that have gone
+        for (String runName : new HashSet<>(propertiesByRun.keySet())) {
+            if (!scannedRuns.containsKey(runName)) {
+                String previousStatus = getStatus(runName);
+                unindexRun(runName);
+                propertiesByRun.remove(runName);
+                runs.remove(runName);
+                recordChange(runName, previousStatus);
+            }
+        }
+
+        // *** Add or replace the runs that are new or have changed
+        for (Map.Entry<String, HashMap<String, String>> entry : scannedRuns.entrySet()) {
+            String runName = entry.getKey();
+            HashMap<String, String> properties = entry.getValue();
+            if (properties.equals(propertiesByRun.get(runName))) {
+                continue;
+            }
+
+            String previousStatus = getStatus(runName);
+            unindexRun(runName);
+            propertiesByRun.put(runName, properties);
+            runs.remove(runName);
+            for (Map.Entry<String, String> property : properties.entrySet()) {
+                index(runName, property.getKey().substring(RUN_PREFIX.length() + runName.length() + 1), property.getValue());
+            }
+            recordChange(runName, previousStatus);
+        }
+    }
+
+    private void applyEvent(String key, Event event, String newValue) {
+        Matcher matcher = runPattern.matcher(key);
+        if (!matcher.matches()) {
+            return;
+        }
+
+        String runName = matcher.group(1);
+        String property = matcher.group(2);
+
+        String previousStatus = getStatus(runName);
+        HashMap<String, String> properties = propertiesByRun.get(runName);
+
+        if (event == Event.DELETE) {
+            if (properties == null) {
+                return;
+            }
+
+            String oldValue = properties.remove(key);
+            if (oldValue == null) {
+                return;
+            }
+            unindex(runName, property, oldValue);
+
+            if (properties.isEmpty()) {
+                propertiesByRun.remove(runName);
+            }
+        } else {
+            if (newValue == null) {
+                return;
+            }
+
+            if (properties == null) {
+                properties = new HashMap<>();
+                propertiesByRun.put(runName, properties);
+            }
+
+            String oldValue = properties.put(key, newValue);
+            if (newValue.equals(oldValue)) {
+                return;
+            }
+            if (oldValue != null) {
+                unindex(runName, property, oldValue);
+            }
+            index(runName, property, newValue);
+        }
+
+        runs.remove(runName);
+        recordChange(runName, previousStatus);
+    }
+
+    private String getStatus(String runName) {
+        HashMap<String, String> properties = propertiesByRun.get(runName);
+        if (properties == null) {
+            return null;
+        }
+        return properties.get(RUN_PREFIX + runName + "." + STATUS);
+    }
+
+    private void index(String runName, String property, String value) {
+        HashMap<String, Set<String>> index = indexes.get(property);
+        if (index == null) {
+            return;
+        }
+        index.computeIfAbsent(value, k -> new HashSet<>()).add(runName);
+    }
+
+    private void unindex(String runName, String property, String value) {
+        HashMap<String, Set<String>> index = indexes.get(property);
+        if (index == null) {
+            return;
+        }
+
+        Set<String> runNames = index.get(value);
+        if (runNames != null) {
+            runNames.remove(runName);
+            if (runNames.isEmpty()) {
+                index.remove(value);
+            }
+        }
+    }
+
+    private void unindexRun(String runName) {
+        HashMap<String, String> properties = propertiesByRun.get(runName);
+        if (properties == null) {
+            return;
+        }
+
+        String prefix = RUN_PREFIX + runName + ".";
+        for (String property : indexes.keySet()) {
+            String value = properties.get(prefix + property);
+            if (value != null) {
+                unindex(runName, property, value);
+            }
+        }
+    }
+
+    /**
+     * Remember the run has changed and make sure the listeners will be told,
+     * keeping the status from before the first of a burst of changes
+     */
+    private void recordChange(String runName, String previousStatus) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+
+        if (!changedRuns.containsKey(runName)) {
+            changedRuns.put(runName, previousStatus);
+        }
+
+        if (!notifyScheduled) {
+            notifyScheduled = true;
+            notifier.execute(this::notifyListeners);
+        }
+    }
+
+    private void notifyListeners() {
+        LinkedHashMap<String, String> changes;
+        HashMap<String, IRun> currentRuns = new HashMap<>();
+        synchronized (this) {
+            changes = new LinkedHashMap<>(changedRuns);
+            changedRuns.clear();
+            notifyScheduled = false;
+
+            for (String runName : changes.keySet()) {
+                currentRuns.put(runName, getRun(runName));
+            }
+        }
+
+        for (Map.Entry<String, String> change : changes.entrySet()) {
+            String runName = change.getKey();
+            for (IRunRegistryListener listener : listeners) {
+                try {
+                    listener.runChanged(runName, change.getValue(), currentRuns.get(runName));
+                } catch (Exception e) {
+                    logger.error("Run registry listener failed for run " + runName, e);
+                }
+            }
+        }
+    }
+
+    private static class PendingEvent {
+        private final String key;
+        private final Event  event;
+        private final String newValue;
+
+        private PendingEvent(String key, Event event, String newValue) {
+            this.key = key;
+            this.event = event;
+            this.newValue = newValue;
+        }
+    }
+}
@@ -12,11 +12,24 @@ import javax.validation.constraints.NotNull;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import dev.galasa.framework.spi.AbstractManager;
 import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.IConfigurationPropertyStoreService;
+import dev.galasa.framework.spi.IDynamicStatusStoreLease;
 import dev.galasa.framework.spi.IDynamicStatusStoreService;
 import dev.galasa.framework.spi.IFramework;
 import dev.galasa.framework.spi.IResultArchiveStore;
 
+/**
+ * Keeps the heartbeat of a test run up to date in the DSS.
+ * 
+ * If framework.heartbeat.lease.ttl is set and the DSS supports leases, the heartbeat
+ * lease key is also put attached to a lease which is kept alive here. Should the
+ * engine die, the DSS deletes the lease key once the time to live has passed, which
+ * resource management watches for, rather than waiting for the heartbeat to go stale.
+ * While the lease is held the heartbeat itself is only written when the heartbeat
+ * stops, so it is fresh should resource management need it once the lease has gone.
+ */
 public class TestRunHeartbeat extends Thread {
 
     private final Log                        logger        = LogFactory.getLog(this.getClass());
@@ -25,9 +38,13 @@ public class TestRunHeartbeat extends Thread {
     private final IDynamicStatusStoreService dss;
     private final IResultArchiveStore        ras;
     private final String                     key;
+    private final String                     leaseKey;
 
     private String                           lastHeartbeat = null;
 
+    private IDynamicStatusStoreLease         lease;
+    private long                             leaseKeepAliveInterval;
+
     private boolean                          shutdown      = false;
 
     protected TestRunHeartbeat(@NotNull IFramework framework) throws DynamicStatusStoreException {
@@ -35,9 +52,93 @@ public class TestRunHeartbeat extends Thread {
         this.dss = this.framework.getDynamicStatusStoreService("framework");
         this.ras = this.framework.getResultArchiveStore();
         this.key = "run." + framework.getTestRunName() + ".heartbeat";
+        this.leaseKey = this.key + ".lease";
 
         // *** Set the initial
         setHeartbeat();
+
+        createLease();
+    }
+
+    private void createLease() {
+        long ttl = getLeaseTtl();
+        if (ttl <= 0) {
+            return;
+        }
+
+        try {
+            this.lease = dss.putWithLease(leaseKey, lastHeartbeat, ttl);
+        } catch (DynamicStatusStoreException e) {
+            logger.warn("Unable to create the run heartbeat lease, relying on the heartbeat alone", e);
+            return;
+        }
+
+        if (this.lease == null) {
+            logger.info("The DSS does not support leases, relying on the heartbeat alone");
+            return;
+        }
+
+        // *** Renew well within the time to live so a slow renewal does not lose the lease
+        this.leaseKeepAliveInterval = Math.max(1000, (ttl * 1000) / 3);
+        logger.info("Run heartbeat lease created with a time to live of " + ttl + " seconds");
+    }
+
+    private long getLeaseTtl() {
+        try {
+            IConfigurationPropertyStoreService cps = this.framework.getConfigurationPropertyService("framework");
+            String ttl = AbstractManager.nulled(cps.getProperty("heartbeat.lease", "ttl"));
+            if (ttl != null) {
+                return Long.parseLong(ttl);
+            }
+        } catch (Exception e) {
+            logger.warn("Problem with framework.heartbeat.lease.ttl, not using a heartbeat lease", e);
+        }
+        return 0;
+    }
+
+    private void keepLeaseAlive() throws DynamicStatusStoreException {
+        if (!lease.keepAlive()) {
+            // ***
+            // *** The lease expired, so resource management may already be recovering
+            // *** this run. As with a heartbeat conflict we must immediately terminate
+            // ***
+            logger.fatal("The run heartbeat lease has expired");
+            logger.fatal("Cannot allow provision discard to run as this could affect the recovery of the run");
+            System.exit(0);
+        }
+    }
+
+    private void revokeLease() {
+        if (lease == null) {
+            return;
+        }
+
+        // *** Resource management goes back to the heartbeat once the lease has gone
+        try {
+            setHeartbeat();
+        } catch (DynamicStatusStoreException e) {
+            logger.error("Final heartbeat failed", e);
+        }
+
+        try {
+            lease.revoke();
+        } catch (DynamicStatusStoreException e) {
+            logger.error("Unable to revoke the run heartbeat lease", e);
+        }
+        lease = null;
+    }
+
+    /**
+     * The keep alives of the lease show the engine is alive, so only the result
+     * archive needs flushing
+     */
+    private void beat() throws DynamicStatusStoreException {
+        if (lease != null) {
+            this.ras.flush();
+            return;
+        }
+
+        setHeartbeat();
     }
 
     private void setHeartbeat() throws DynamicStatusStoreException {
@@ -69,18 +170,30 @@ public class TestRunHeartbeat extends Thread {
     public void run() {
 
         long nextHeartbeat = 0;
+        long nextLeaseKeepAlive = System.currentTimeMillis() + leaseKeepAliveInterval;
         while (!shutdown) {
             if (System.currentTimeMillis() >= nextHeartbeat) {
                 nextHeartbeat = System.currentTimeMillis() + 20000; // TODO do we been to parameterise this?
 
                 try {
-                    setHeartbeat();
+                    beat();
                 } catch (DynamicStatusStoreException e) {
                     logger.error("Heartbeat failed", e);
                     nextHeartbeat = System.currentTimeMillis() + 2000;
                 }
             }
 
+            if (lease != null && System.currentTimeMillis() >= nextLeaseKeepAlive) {
+                nextLeaseKeepAlive = System.currentTimeMillis() + leaseKeepAliveInterval;
+
+                try {
+                    keepLeaseAlive();
+                } catch (DynamicStatusStoreException e) {
+                    logger.error("Heartbeat lease keep alive failed", e);
+                    nextLeaseKeepAlive = System.currentTimeMillis() + 2000;
+                }
+            }
+
             try {
                 Thread.sleep(500);
             } catch (InterruptedException e) {
@@ -90,5 +203,6 @@ public class TestRunHeartbeat extends Thread {
             }
         }
 
+        revokeLease();
     }
 }
\ No newline at end of file
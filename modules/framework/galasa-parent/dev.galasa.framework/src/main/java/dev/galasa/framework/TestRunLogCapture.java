@@ -5,9 +5,23 @@
  */
 package dev.galasa.framework;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.core.Appender;
@@ -19,47 +33,205 @@ import org.apache.logging.log4j.core.config.Configuration;
 import org.apache.logging.log4j.core.config.LoggerConfig;
 import org.apache.logging.log4j.core.layout.PatternLayout;
 
+import dev.galasa.framework.spi.ConfigurationPropertyStoreException;
+import dev.galasa.framework.spi.IConfigurationPropertyStoreService;
+import dev.galasa.framework.spi.IFramework;
 import dev.galasa.framework.spi.IResultArchiveStore;
 import dev.galasa.framework.spi.ResultArchiveStoreException;
 
+/**
+ * Captures everything logged in a test run and writes it to the run log in the RAS.
+ *
+ * Logging threads only format the line and add it to a ring buffer, a drain thread
+ * writes the lines to the RAS in batches. What happens when the buffer is full is set
+ * by the CPS property framework.run.log.capture.overflow:
+ * <ul>
+ * <li>block - the logging thread waits for room, the default</li>
+ * <li>drop - the line is thrown away and counted</li>
+ * <li>spill - the line, and all those after it until the drain catches up, are written to a temporary file</li>
+ * </ul>
+ * Until the RAS is available the lines are held in the buffer, and are dropped if it fills.
+ *
+ * The drain thread parks while there is nothing to write, and is woken by the logging
+ * threads as they add lines, and by flush and shutdown.
+ */
 public class TestRunLogCapture implements Appender {
 
-    private final Framework         framework;
+    /**
+     * What to do with a line when the buffer is full
+     */
+    public enum OverflowPolicy {
+        BLOCK,
+        DROP,
+        SPILL;
+
+        public static OverflowPolicy fromProperty(String property) {
+            if (property != null) {
+                for (OverflowPolicy policy : values()) {
+                    if (policy.name().equalsIgnoreCase(property.trim())) {
+                        return policy;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    static final int                DEFAULT_CAPACITY   = 16384;
+    private static final int        MAX_BATCH_LINES    = 1000;
+    private static final long       BLOCK_PARK_NANOS   = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final int        MAX_WRITE_ATTEMPTS = 3;
+    private static final long       SHUTDOWN_FLUSH_MS  = 30000;
+
+    private final Log               logger             = LogFactory.getLog(getClass());
+
+    private final IFramework        framework;
+    private final LogLineRingBuffer buffer;
+    private final Thread            drainThread;
+    private final Configuration     installedConfig;
+
+    private volatile IResultArchiveStore ras;
+    private volatile OverflowPolicy overflowPolicy     = OverflowPolicy.BLOCK;
+    private volatile boolean        drainWaiting       = false;
+    private volatile boolean        stopping           = false;
 
-    private IResultArchiveStore     ras;
+    private PatternLayout           layout             = PatternLayout.newBuilder().withPattern("%d{HH:mm:ss} %p [%t] %c - %m%n").build();
+    private Level                   minimumLevel       = Level.ALL;
 
-    private final ArrayList<String> startupCache = new ArrayList<>();
-    private PatternLayout           layout       = PatternLayout.newBuilder().withPattern("%d{HH:mm:ss} %p [%t] %c - %m%n").build();
-    private Level                   minimumLevel = Level.ALL;
+    private volatile boolean        shutdown           = false;
 
-    private boolean                 shutdown     = false;
+    private State                   state              = State.STOPPED;
 
-    private State                   state        = State.STOPPED;
+    // *** Lines accepted into the buffer or spill file, and lines the drain thread has finished with
+    private final AtomicLong        acceptedLines      = new AtomicLong();
+    private final AtomicLong        completedLines     = new AtomicLong();
+    private final AtomicLong        droppedLines       = new AtomicLong();
+    private final AtomicLong        spilledLines       = new AtomicLong();
+
+    // *** Spill file state, guarded by spillLock
+    private final Object            spillLock          = new Object();
+    private volatile boolean        spilling           = false;
+    private Path                    spillFile;
+    private DataOutputStream        spillOutput;
+    private DataInputStream         spillInput;
+    private long                    spillPending       = 0;
 
     public TestRunLogCapture(Framework framework) {
-        this.framework = framework;
+        this(framework, DEFAULT_CAPACITY, true);
+    }
 
-        LoggerContext ctx = (LoggerContext) LogManager.getContext();
-        Configuration config = ctx.getConfiguration();
+    TestRunLogCapture(IFramework framework, int capacity, boolean installAppender) {
+        this.framework = framework;
+        this.buffer = new LogLineRingBuffer(capacity);
 
-        Appender stdout = config.getAppender("stdout");
-        if (stdout != null) {
-            this.layout = (PatternLayout) stdout.getLayout();
-        }
+        this.drainThread = new Thread(this::drain, "galasa-run-log-capture");
+        this.drainThread.setDaemon(true);
+        this.drainThread.start();
 
         start();
-        
-        config.addAppender(this);
-        config.getRootLogger().addAppender(this, null, null);
-        for (final LoggerConfig loggerConfig : config.getLoggers().values()) {
-            loggerConfig.addAppender(this, null, null);
+
+        Configuration config = null;
+        if (installAppender) {
+            LoggerContext ctx = (LoggerContext) LogManager.getContext();
+            config = ctx.getConfiguration();
+
+            Appender stdout = config.getAppender("stdout");
+            if (stdout != null) {
+                this.layout = (PatternLayout) stdout.getLayout();
+            }
+
+            config.addAppender(this);
+            config.getRootLogger().addAppender(this, null, null);
+            for (final LoggerConfig loggerConfig : config.getLoggers().values()) {
+                loggerConfig.addAppender(this, null, null);
+            }
         }
+        this.installedConfig = config;
     }
 
+    /**
+     * Stop capturing, write out everything already captured and stop the drain thread
+     */
     public void shutdown() {
+        if (this.shutdown) {
+            return;
+        }
         this.shutdown = true;
+
+        // *** Detach from the loggers so a later run in the same engine can attach its own capture
+        if (installedConfig != null) {
+            installedConfig.getRootLogger().removeAppender(getName());
+            for (final LoggerConfig loggerConfig : installedConfig.getLoggers().values()) {
+                loggerConfig.removeAppender(getName());
+            }
+        }
+
+        flush(SHUTDOWN_FLUSH_MS);
+
+        this.stopping = true;
+        LockSupport.unpark(drainThread);
+        try {
+            drainThread.join(SHUTDOWN_FLUSH_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        long dropped = droppedLines.get();
+        IResultArchiveStore currentRas = this.ras;
+        if (dropped > 0 && currentRas != null) {
+            try {
+                currentRas.writeLog(List.of(dropped + " log lines were dropped from the run log as the log capture buffer was full\n"));
+            } catch (ResultArchiveStoreException e) {
+                e.printStackTrace(); // *** Do not use logger, will cause a loop //NOSONAR
+            }
+        }
+
+        closeSpill();
     }
 
+    /**
+     * Wait until every line captured so far has been written to the RAS
+     *
+     * @param timeoutMillis how long to wait
+     * @return true if everything was written in time
+     */
+    public boolean flush(long timeoutMillis) {
+        long target = acceptedLines.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (completedLines.get() < target) {
+            if (System.nanoTime() > deadline || !drainThread.isAlive()) {
+                return false;
+            }
+            LockSupport.unpark(drainThread);
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of lines waiting to be written to the RAS, including any in the spill file
+     */
+    public long getQueueDepth() {
+        return acceptedLines.get() - completedLines.get();
+    }
+
+    /**
+     * @return the number of lines which have not been written to the RAS as the buffer was full or the RAS failed
+     */
+    public long getDroppedLines() {
+        return droppedLines.get();
+    }
+
+    /**
+     * @return the number of lines which have been written to the spill file
+     */
+    public long getSpilledLines() {
+        return spilledLines.get();
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
 
     @Override
     public void append(LogEvent event) {
@@ -71,45 +243,236 @@ public class TestRunLogCapture implements Appender {
             return;
         }
 
-        String message = this.layout.toSerializable(event);
-        String throwable = null;
+        capture(this.layout.toSerializable(event));
 
         if (event.getThrownProxy() != null) {
-            throwable = event.getThrownProxy().getExtendedStackTraceAsString();
+            capture(event.getThrownProxy().getExtendedStackTraceAsString());
+        }
+    }
+
+    void capture(String line) {
+        if (spilling && spill(line, false)) {
+            wakeDrain();
+            return;
+        }
+
+        if (buffer.offer(line)) {
+            acceptedLines.incrementAndGet();
+            wakeDrain();
+            return;
+        }
+
+        // *** The buffer is full. Until the RAS is available there is nothing to wait for, and
+        // *** the drain thread must never wait on itself
+        if (ras == null || Thread.currentThread() == drainThread) {
+            droppedLines.incrementAndGet();
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case DROP:
+                droppedLines.incrementAndGet();
+                break;
+            case SPILL:
+                if (spill(line, true)) {
+                    wakeDrain();
+                } else {
+                    droppedLines.incrementAndGet();
+                }
+                break;
+            case BLOCK:
+            default:
+                while (!buffer.offer(line)) {
+                    if (stopping || !drainThread.isAlive()) {
+                        droppedLines.incrementAndGet();
+                        return;
+                    }
+                    LockSupport.unpark(drainThread);
+                    LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                }
+                acceptedLines.incrementAndGet();
+                wakeDrain();
+                break;
+        }
+    }
+
+    private void wakeDrain() {
+        if (drainWaiting) {
+            LockSupport.unpark(drainThread);
+        }
+    }
+
+    /**
+     * Park the drain thread until a line is accepted, or flush or shutdown wakes it. The
+     * count of accepted lines is checked after saying the thread is waiting, as a logging
+     * thread adds to the count before checking, so one of them always sees the other.
+     *
+     * @param seenLines the count of accepted lines when the drain last looked for lines
+     */
+    private void awaitLines(long seenLines) {
+        drainWaiting = true;
+        if (acceptedLines.get() == seenLines && !stopping) {
+            LockSupport.park(this);
         }
+        drainWaiting = false;
+    }
 
-        if (ras == null) {
-            if (framework.isInitialised()) {
-                this.ras = framework.getResultArchiveStore();
-            } else {
-                startupCache.add(message);
-                if (throwable != null) {
-                    startupCache.add(throwable);
+    /**
+     * Write a line to the spill file. Once spilling has started every line goes to the spill file
+     * until the drain thread has emptied it, so the lines stay in order.
+     *
+     * @param start true to start spilling, false to only spill if it has already started
+     * @return true if the line was spilled
+     */
+    private boolean spill(String line, boolean start) {
+        synchronized (spillLock) {
+            if (!spilling && !start) {
+                return false;
+            }
+            try {
+                if (spillOutput == null) {
+                    spillFile = Files.createTempFile("galasa-run-log-", ".spill");
+                    spillFile.toFile().deleteOnExit();
+                    spillOutput = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(spillFile)));
                 }
+                byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+                spillOutput.writeInt(bytes.length);
+                spillOutput.write(bytes);
+            } catch (IOException e) {
+                e.printStackTrace(); // *** Do not use logger, will cause a loop //NOSONAR
+                return false;
+            }
+            spilling = true;
+            spillPending++;
+            acceptedLines.incrementAndGet();
+            spilledLines.incrementAndGet();
+            return true;
+        }
+    }
+
+    /**
+     * Read the oldest lines from the spill file, stopping spilling once it is empty
+     */
+    private void drainSpill(List<String> lines) {
+        synchronized (spillLock) {
+            if (spillPending == 0) {
                 return;
             }
+            try {
+                spillOutput.flush();
+                if (spillInput == null) {
+                    spillInput = new DataInputStream(new BufferedInputStream(Files.newInputStream(spillFile)));
+                }
+                while (spillPending > 0 && lines.size() < MAX_BATCH_LINES) {
+                    byte[] bytes = new byte[spillInput.readInt()];
+                    spillInput.readFully(bytes);
+                    lines.add(new String(bytes, StandardCharsets.UTF_8));
+                    spillPending--;
+                }
+            } catch (IOException e) {
+                e.printStackTrace(); // *** Do not use logger, will cause a loop //NOSONAR
+                droppedLines.addAndGet(spillPending);
+                completedLines.addAndGet(spillPending);
+                spillPending = 0;
+            }
+
+            if (spillPending == 0) {
+                closeSpill();
+                spilling = false;
+            }
         }
+    }
 
-        if (!startupCache.isEmpty()) {
+    private void closeSpill() {
+        synchronized (spillLock) {
             try {
-                this.ras.writeLog(startupCache);
-                this.startupCache.clear();
-            } catch (ResultArchiveStoreException e) {
+                if (spillInput != null) {
+                    spillInput.close();
+                }
+                if (spillOutput != null) {
+                    spillOutput.close();
+                }
+                if (spillFile != null) {
+                    Files.deleteIfExists(spillFile);
+                }
+            } catch (IOException e) {
                 e.printStackTrace(); // *** Do not use logger, will cause a loop //NOSONAR
-                startupCache.add(message);
+            }
+            spillInput = null;
+            spillOutput = null;
+            spillFile = null;
+        }
+    }
+
+    private void drain() {
+        ArrayList<String> batch = new ArrayList<>(MAX_BATCH_LINES);
+        while (true) {
+            long seenLines = acceptedLines.get();
+            if (ras == null) {
+                if (framework.isInitialised()) {
+                    this.overflowPolicy = readOverflowPolicy();
+                    this.ras = framework.getResultArchiveStore();
+                } else if (stopping) {
+                    return;
+                } else {
+                    awaitLines(seenLines);
+                    continue;
+                }
+            }
+
+            batch.clear();
+            buffer.drainTo(batch, MAX_BATCH_LINES);
+            if (batch.isEmpty() && spilling) {
+                drainSpill(batch);
+            }
+
+            if (batch.isEmpty()) {
+                if (stopping) {
+                    return;
+                }
+                awaitLines(seenLines);
+                continue;
+            }
+
+            write(batch);
+            completedLines.addAndGet(batch.size());
+        }
+    }
+
+    private void write(List<String> batch) {
+        for (int attempt = 1; attempt <= MAX_WRITE_ATTEMPTS; attempt++) {
+            try {
+                this.ras.writeLog(batch);
                 return;
+            } catch (ResultArchiveStoreException e) {
+                if (attempt == MAX_WRITE_ATTEMPTS) {
+                    e.printStackTrace(); // *** Do not use logger, will cause a loop //NOSONAR
+                    droppedLines.addAndGet(batch.size());
+                    return;
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100L * attempt));
             }
         }
+    }
 
+    private OverflowPolicy readOverflowPolicy() {
         try {
-            this.ras.writeLog(message);
-            if (throwable != null) {
-                this.ras.writeLog(throwable);
+            IConfigurationPropertyStoreService cps = framework.getConfigurationPropertyService("framework");
+            if (cps != null) {
+                String property = cps.getProperty("run.log.capture", "overflow");
+                OverflowPolicy policy = OverflowPolicy.fromProperty(property);
+                if (policy != null) {
+                    return policy;
+                }
+                if (property != null) {
+                    // *** Safe to log from the drain thread, as it never waits for room in the buffer
+                    logger.warn("Invalid framework.run.log.capture.overflow '" + property + "', using " + OverflowPolicy.BLOCK);
+                }
             }
-        } catch (ResultArchiveStoreException e) {
+        } catch (ConfigurationPropertyStoreException e) {
             e.printStackTrace(); // *** Do not use logger, will cause a loop //NOSONAR
-            startupCache.add(message);
         }
+        return OverflowPolicy.BLOCK;
     }
 
     @Override
@@ -168,4 +531,4 @@ public class TestRunLogCapture implements Appender {
     }
 
 
-}
\ No newline at end of file
+}
@@ -8,10 +8,14 @@ package dev.galasa.framework;
 import java.io.InputStream;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.text.*;
 
 import javax.validation.constraints.NotNull;
@@ -30,17 +34,23 @@ import org.osgi.framework.InvalidSyntaxException;
 import org.osgi.framework.ServiceReference;
 
 import dev.galasa.ManagerException;
+import dev.galasa.framework.spi.AbstractManager;
+import dev.galasa.framework.spi.ConfigurationPropertyStoreException;
 import dev.galasa.framework.spi.FrameworkException;
 import dev.galasa.framework.spi.FrameworkResourceUnavailableException;
+import dev.galasa.framework.spi.IConfigurationPropertyStoreService;
 import dev.galasa.framework.spi.IFramework;
 import dev.galasa.framework.spi.IManager;
 import dev.galasa.framework.spi.ResourceUnavailableException;
 import dev.galasa.framework.spi.Result;
 import dev.galasa.framework.spi.language.GalasaMethod;
 import dev.galasa.framework.spi.language.GalasaTest;
+import dev.galasa.framework.spi.teststructure.ManagerPhase;
 
 public class TestRunManagers implements ITestRunManagers {
 
+    private static final int      DEFAULT_PROVISIONING_THREADS = 4;
+
     private final List<IManager>  activeManagers         = new ArrayList<>();
     private final List<IManager>  activeManagersReversed = new ArrayList<>();
     private final Log             logger                 = LogFactory.getLog(TestRunManagers.class);
@@ -50,6 +60,36 @@ public class TestRunManagers implements ITestRunManagers {
 
     private final RepositoryAdmin repositoryAdmin;
 
+    private final List<ManagerPhase> managerPhases       = Collections.synchronizedList(new ArrayList<>());
+
+    // *** Only set if the Managers are to be provisioned in parallel
+    private ManagerProvisioningGraph provisioningGraph;
+    private ExecutorService          provisioningExecutor;
+
+    /**
+     * The provisioning phases, and whether the Managers are called in reverse
+     * provisioning order
+     */
+    private enum ProvisioningPhase {
+        GENERATE("generate", false),
+        BUILD("build", false),
+        START("start", false),
+        STOP("stop", true),
+        DISCARD("discard", true);
+
+        private final String  name;
+        private final boolean reverse;
+
+        ProvisioningPhase(String name, boolean reverse) {
+            this.name = name;
+            this.reverse = reverse;
+        }
+    }
+
+    private interface ProvisioningStep {
+        void provision(IManager manager) throws ManagerException, ResourceUnavailableException;
+    }
+
     public TestRunManagers(IFramework framework, GalasaTest galasaTest) throws FrameworkException {
         this.framework = framework;
         this.bundleContext = FrameworkUtil.getBundle(getClass()).getBundleContext();
@@ -69,6 +109,50 @@ public class TestRunManagers implements ITestRunManagers {
         logger.debug("The following Managers are sorted in provisioning order:-");
         reportManagers(false);
 
+        int provisioningThreads = getParallelProvisioningThreads();
+        if (provisioningThreads > 0) {
+            logger.debug("The Managers will be provisioned in parallel using " + provisioningThreads + " threads");
+            this.provisioningGraph = new ManagerProvisioningGraph(activeManagers);
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.provisioningExecutor = Executors.newFixedThreadPool(provisioningThreads, runnable -> {
+                Thread thread = new Thread(runnable, "galasa-manager-provisioning-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Parallel provisioning is switched on with the CPS property
+     * framework.managers.provision.parallel=true, the number of threads is set with
+     * framework.managers.provision.threads
+     * 
+     * @return the number of threads to provision with, or 0 to provision one Manager at a time
+     */
+    private int getParallelProvisioningThreads() {
+        try {
+            IConfigurationPropertyStoreService cps = framework.getConfigurationPropertyService("framework");
+            if (cps == null || !Boolean.parseBoolean(AbstractManager.nulled(cps.getProperty("managers.provision", "parallel")))) {
+                return 0;
+            }
+
+            String threads = AbstractManager.nulled(cps.getProperty("managers.provision", "threads"));
+            if (threads != null) {
+                try {
+                    int provisioningThreads = Integer.parseInt(threads);
+                    if (provisioningThreads > 0) {
+                        return provisioningThreads;
+                    }
+                } catch (NumberFormatException e) {
+                    // *** Drop through to the warning
+                }
+                logger.warn("Invalid framework.managers.provision.threads '" + threads + "', using " + DEFAULT_PROVISIONING_THREADS);
+            }
+            return DEFAULT_PROVISIONING_THREADS;
+        } catch (ConfigurationPropertyStoreException e) {
+            logger.warn("Unable to read the parallel provisioning properties, provisioning one Manager at a time", e);
+            return 0;
+        }
     }
 
     /**
@@ -474,54 +558,68 @@ public class TestRunManagers implements ITestRunManagers {
 
     @Override
     public void provisionGenerate() throws FrameworkException {
-        for (IManager manager : activeManagers) {
-            try {
-                manager.provisionGenerate();
-            } catch (ResourceUnavailableException e) {
-                throw new FrameworkResourceUnavailableException("Resources unavailable during provision generate", e);
-            } catch (ManagerException e) {
-                throw new FrameworkException(
-                        "Problem in provision generate for manager " + manager.getClass().getName(), e);
-            }
-        }
+        provision(ProvisioningPhase.GENERATE, IManager::provisionGenerate);
     }
 
     @Override
     public void provisionBuild() throws FrameworkException {
-        for (IManager manager : activeManagers) {
-            try {
-                manager.provisionBuild();
-            } catch (ManagerException e) {
-                throw new FrameworkException("Problem in provision build for manager " + manager.getClass().getName(),
-                        e);
-            }
-        }
+        provision(ProvisioningPhase.BUILD, IManager::provisionBuild);
     }
 
     @Override
     public void provisionStart() throws FrameworkException {
-        for (IManager manager : activeManagers) {
-            try {
-                manager.provisionStart();
-            } catch (ManagerException e) {
-                throw new FrameworkException("Problem in provision start for manager " + manager.getClass().getName(),
-                        e);
-            }
-
-        }
+        provision(ProvisioningPhase.START, IManager::provisionStart);
     }
 
     @Override
     public void provisionStop() {
-        for (IManager manager : activeManagersReversed) {
-            manager.provisionStop();
+        try {
+            provision(ProvisioningPhase.STOP, IManager::provisionStop);
+        } catch (FrameworkException e) {
+            logger.error("Problem in provision stop", e);
         }
     }
 
     @Override
     public void provisionDiscard() {
-        for (IManager manager : activeManagersReversed) {
-            manager.provisionDiscard();
+        try {
+            provision(ProvisioningPhase.DISCARD, IManager::provisionDiscard);
+        } catch (FrameworkException e) {
+            logger.error("Problem in provision discard", e);
+        }
+    }
+
+    @Override
+    public List<ManagerPhase> getManagerPhases() {
+        synchronized (managerPhases) {
+            return new ArrayList<>(managerPhases);
+        }
+    }
+
+    private void provision(ProvisioningPhase phase, ProvisioningStep step) throws FrameworkException {
+        if (provisioningGraph != null) {
+            provisioningGraph.run(provisioningExecutor, phase.reverse, manager -> provisionManager(phase, step, manager));
+            return;
+        }
+
+        for (IManager manager : phase.reverse ? activeManagersReversed : activeManagers) {
+            provisionManager(phase, step, manager);
+        }
+    }
+
+    private void provisionManager(ProvisioningPhase phase, ProvisioningStep step, IManager manager) throws FrameworkException {
+        Instant startTime = Instant.now();
+        try {
+            step.provision(manager);
+        } catch (ResourceUnavailableException e) {
+            if (phase == ProvisioningPhase.GENERATE) {
+                throw new FrameworkResourceUnavailableException("Resources unavailable during provision generate", e);
+            }
+            throw e;
+        } catch (ManagerException e) {
+            throw new FrameworkException("Problem in provision " + phase.name + " for manager " + manager.getClass().getName(), e);
+        } finally {
+            managerPhases.add(new ManagerPhase(manager.getClass().getName(), phase.name, startTime, Instant.now()));
         }
     }
 
@@ -636,6 +734,10 @@ public class TestRunManagers implements ITestRunManagers {
     
     @Override
     public void shutdown() {
+        if (provisioningExecutor != null) {
+            provisioningExecutor.shutdown();
+        }
+
         for (IManager manager : activeManagersReversed) {
             manager.shutdown();
         }
@@ -33,6 +33,8 @@ import dev.galasa.framework.spi.FrameworkException;
 import dev.galasa.framework.spi.FrameworkResourceUnavailableException;
 import dev.galasa.framework.spi.IDynamicStatusStoreService;
 import dev.galasa.framework.spi.IManager;
+import dev.galasa.framework.spi.IRun;
+import dev.galasa.framework.spi.IShuttableFramework;
 import dev.galasa.framework.spi.Result;
 import dev.galasa.framework.spi.language.GalasaTest;
 
@@ -55,6 +57,9 @@ public class TestRunner extends BaseTestRunner {
 
     private RunType                            runType;
 
+    // *** The run claimed for this engine to run next, if it may run more than one
+    private String                             nextRunName;
+
 
     /**
      * Run the supplied test class
@@ -70,6 +75,8 @@ public class TestRunner extends BaseTestRunner {
 
     public void runTest( ITestRunnerDataProvider dataProvider  ) throws TestRunException {
 
+        this.nextRunName = null;
+
         super.init(dataProvider);
 
         String testBundleName = run.getTestBundleName();
@@ -219,6 +226,7 @@ public class TestRunner extends BaseTestRunner {
 
             if (!isRunOK || this.runType == RunType.TEST || this.runType == RunType.SHARED_ENVIRONMENT_DISCARD) {
                 logger.debug("Test did not run OK... or runtype is not "+RunType.SHARED_ENVIRONMENT_BUILD.toString());
+                recordManagerPhases(managers);
                 updateStatus(TestRunLifecycleStatus.ENDING, null);
                 managers.endOfTestRun();
 
@@ -260,6 +268,10 @@ public class TestRunner extends BaseTestRunner {
                 if (!markedWaiting) {
                     deleteRunProperties(this.framework);
                 }
+
+                if (!markedWaiting && this.runType == RunType.TEST) {
+                    claimNextRun();
+                }
             } else if (this.runType == RunType.SHARED_ENVIRONMENT_BUILD) {
 
                 // Record all the CPS properties that were accessed
@@ -267,6 +279,7 @@ public class TestRunner extends BaseTestRunner {
                 // And all the overrides the test was passed.
                 saveAllOverridesPassedToArtifact(overrideProperties, this.fileSystem , this.ras);
                 
+                recordManagerPhases(managers);
                 updateStatus(TestRunLifecycleStatus.UP, "built");
             } else {
                 logger.error("Unrecognised end condition");
@@ -283,6 +296,73 @@ public class TestRunner extends BaseTestRunner {
 
 
 
+    /**
+     * Put a run this engine claimed back on the queue, for when the engine was unable
+     * to start it. The run is only reset if it is still allocated, a run that has been
+     * started is left for the normal recovery.
+     * 
+     * @param bootstrapProperties
+     * @param overrideProperties naming the claimed run
+     * @throws TestRunException if the run could not be requeued
+     */
+    public void requeueRun(Properties bootstrapProperties, Properties overrideProperties) throws TestRunException {
+        String runName = AbstractManager.nulled(overrideProperties.getProperty("framework.run.name"));
+        if (runName == null) {
+            throw new TestRunException("No run name provided to requeue");
+        }
+
+        IShuttableFramework framework;
+        try {
+            framework = new FrameworkInitialisation(bootstrapProperties, overrideProperties).getShutableFramework();
+        } catch (Exception e) {
+            throw new TestRunException("Unable to initialise the Framework Services", e);
+        }
+
+        try {
+            IRun claimedRun = framework.getFrameworkRuns().getRun(runName);
+            if (claimedRun != null && "allocated".equals(claimedRun.getStatus())) {
+                framework.getFrameworkRuns().reset(runName);
+                logger.info("Requeued run " + runName + " as this engine was unable to start it");
+            }
+        } catch (FrameworkException e) {
+            throw new TestRunException("Unable to requeue run " + runName, e);
+        } finally {
+            shutdownFramework(framework);
+        }
+    }
+
+    /**
+     * @return the run this engine has claimed to run next, or null if it should exit
+     */
+    public String getNextRunName() {
+        return this.nextRunName;
+    }
+
+    /**
+     * If the engine may run more tests, claim a compatible queued run for it to run next
+     */
+    private void claimNextRun() {
+        String runsRemaining = AbstractManager.nulled(overrideProperties.getProperty(WarmEngineRunClaimer.RUNS_REMAINING_PROPERTY));
+        if (runsRemaining == null) {
+            return;
+        }
+
+        try {
+            if (Integer.parseInt(runsRemaining) <= 0) {
+                return;
+            }
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid " + WarmEngineRunClaimer.RUNS_REMAINING_PROPERTY + " '" + runsRemaining + "', not claiming another run");
+            return;
+        }
+
+        try {
+            this.nextRunName = new WarmEngineRunClaimer(framework.getFrameworkRuns(), dss).claimNextRun(run);
+        } catch (FrameworkException e) {
+            logger.error("Unable to claim another run for this engine", e);
+        }
+    }
+
     private void generateEnvironment(TestClassWrapper testClassWrapper, ITestRunManagers managers, IDynamicStatusStoreService dss, String runName , boolean isRunOK) throws TestRunException {
         if(isRunOK){
             try {
@@ -0,0 +1,122 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.FrameworkException;
+import dev.galasa.framework.spi.IDynamicStatusStoreService;
+import dev.galasa.framework.spi.IFrameworkRuns;
+import dev.galasa.framework.spi.IRun;
+
+/**
+ * Lets an engine which has finished a run claim the next queued run it can run
+ * without being restarted.
+ *
+ * A run is compatible if it comes from the same stream, OBR and maven repository as
+ * the run just finished and has the same trace setting, so the bundles the engine has
+ * already resolved can be reused. Shared environment and gherkin runs are left for
+ * a new engine. The run is claimed with the same putSwap of the run status that the
+ * controllers use, so a run is only ever allocated once.
+ *
+ * Each claimed run records the first run of the engine, which is the run the engine
+ * pod is labelled with, so a controller can tell the pod is still in use once the
+ * first run has finished and been purged.
+ */
+class WarmEngineRunClaimer {
+
+    /** The override property telling the engine how many more runs it may claim */
+    static final String                RUNS_REMAINING_PROPERTY = "framework.engine.runs.remaining";
+
+    /** The DSS property of a claimed run naming the first run of the engine it is in */
+    static final String                ENGINE_FIRST_RUN_SUFFIX = ".engine.first.run";
+
+    private final Log                        logger = LogFactory.getLog(getClass());
+
+    private final IFrameworkRuns             frameworkRuns;
+    private final IDynamicStatusStoreService dss;
+
+    WarmEngineRunClaimer(@NotNull IFrameworkRuns frameworkRuns, @NotNull IDynamicStatusStoreService dss) {
+        this.frameworkRuns = frameworkRuns;
+        this.dss = dss;
+    }
+
+    /**
+     * @param finishedRun the run this engine has just finished
+     * @return the name of the run claimed, or null if there is no compatible queued run
+     */
+    String claimNextRun(@NotNull IRun finishedRun) throws FrameworkException {
+        if (finishedRun.isLocal()) {
+            return null;
+        }
+
+        List<IRun> compatibleRuns = new ArrayList<>();
+        for (IRun run : frameworkRuns.getQueuedRuns()) {
+            if (isCompatible(finishedRun, run)) {
+                compatibleRuns.add(run);
+            }
+        }
+        compatibleRuns.sort(Comparator.comparing(IRun::getQueued, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        String controller = dss.get("run." + finishedRun.getName() + ".controller");
+        String firstRun = dss.get("run." + finishedRun.getName() + ENGINE_FIRST_RUN_SUFFIX);
+        if (firstRun == null) {
+            firstRun = finishedRun.getName();
+        }
+
+        for (IRun run : compatibleRuns) {
+            String runName = run.getName();
+
+            Instant now = Instant.now();
+            HashMap<String, String> props = new HashMap<>();
+            if (controller != null) {
+                props.put("run." + runName + ".controller", controller);
+            }
+            props.put("run." + runName + ".allocated", now.toString());
+            props.put("run." + runName + ".allocate.timeout", now.plus(15, ChronoUnit.MINUTES).toString());
+            props.put("run." + runName + ".engine.previous.run", finishedRun.getName());
+            props.put("run." + runName + ENGINE_FIRST_RUN_SUFFIX, firstRun);
+
+            try {
+                if (dss.putSwap("run." + runName + ".status", "queued", "allocated", props)) {
+                    logger.info("Claimed run " + runName + " to run in the same engine as " + finishedRun.getName());
+                    return runName;
+                }
+            } catch (DynamicStatusStoreException e) {
+                throw new FrameworkException("Unable to claim run " + runName, e);
+            }
+            logger.debug("Run " + runName + " was allocated elsewhere");
+        }
+
+        return null;
+    }
+
+    private boolean isCompatible(IRun finishedRun, IRun run) {
+        if (run.isLocal() || run.getGherkin() != null || run.isSharedEnvironment()) {
+            return false;
+        }
+        if (run.getName().equals(finishedRun.getName())) {
+            return false;
+        }
+
+        return Objects.equals(run.getStream(), finishedRun.getStream())
+                && Objects.equals(run.getOBR(), finishedRun.getOBR())
+                && Objects.equals(run.getRepository(), finishedRun.getRepository())
+                && run.isTrace() == finishedRun.isTrace();
+    }
+}
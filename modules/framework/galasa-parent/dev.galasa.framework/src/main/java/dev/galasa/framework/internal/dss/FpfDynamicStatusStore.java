@@ -35,8 +35,17 @@ public class FpfDynamicStatusStore implements IDynamicStatusStore {
     private FrameworkPropertyFile fpf;
 
     public FpfDynamicStatusStore(URI file) throws DynamicStatusStoreException {
+        this(file, false);
+    }
+
+    /**
+     * @param file       - the DSS properties file
+     * @param journalled - true to use the journalled mode of the FPF
+     * @throws DynamicStatusStoreException
+     */
+    public FpfDynamicStatusStore(URI file, boolean journalled) throws DynamicStatusStoreException {
         try {
-            fpf = new FrameworkPropertyFile(file);
+            fpf = new FrameworkPropertyFile(file, journalled);
         } catch (FrameworkPropertyFileException e) {
             throw new DynamicStatusStoreException("Failed to create Framework property file", e);
         }
@@ -9,10 +9,16 @@ import java.net.URI;
 
 import javax.validation.constraints.NotNull;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.osgi.service.component.annotations.Component;
 
+import dev.galasa.framework.spi.AbstractManager;
+import dev.galasa.framework.spi.ConfigurationPropertyStoreException;
 import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.IConfigurationPropertyStoreService;
 import dev.galasa.framework.spi.IDynamicStatusStoreRegistration;
+import dev.galasa.framework.spi.IFramework;
 import dev.galasa.framework.spi.IFrameworkInitialisation;
 
 /**
@@ -23,6 +29,8 @@ import dev.galasa.framework.spi.IFrameworkInitialisation;
 @Component(service = { IDynamicStatusStoreRegistration.class })
 public class FpfDynamicStatusStoreRegistration implements IDynamicStatusStoreRegistration {
 
+    private final Log logger = LogFactory.getLog(getClass());
+
     /**
      * <p>
      * This method registers this as the only DSS Store.
@@ -36,8 +44,33 @@ public class FpfDynamicStatusStoreRegistration implements IDynamicStatusStoreReg
             throws DynamicStatusStoreException {
         URI dss = frameworkInitialisation.getDynamicStatusStoreUri();
         if (isFileUri(dss)) {
-            frameworkInitialisation.registerDynamicStatusStore(new FpfDynamicStatusStore(dss));
+            frameworkInitialisation.registerDynamicStatusStore(new FpfDynamicStatusStore(dss, isJournalled(frameworkInitialisation)));
+        }
+    }
+
+    /**
+     * <p>
+     * The DSS file is only written by the framework, so it can use the journalled mode
+     * of the FPF. This is switched on with the framework.dynamicstatus.store.journal
+     * property, which can be set in the CPS, bootstrap or overrides.
+     * </p>
+     * 
+     * @param frameworkInitialisation
+     * @return - true if the journalled mode has been asked for
+     */
+    private boolean isJournalled(IFrameworkInitialisation frameworkInitialisation) {
+        try {
+            IFramework framework = frameworkInitialisation.getFramework();
+            if (framework != null) {
+                IConfigurationPropertyStoreService cps = framework.getConfigurationPropertyService("framework");
+                if (cps != null) {
+                    return Boolean.parseBoolean(AbstractManager.nulled(cps.getProperty("dynamicstatus.store", "journal")));
+                }
+            }
+        } catch (ConfigurationPropertyStoreException e) {
+            logger.warn("Unable to read the DSS journal setting, the DSS file will not be journalled", e);
         }
+        return false;
     }
 
     /**
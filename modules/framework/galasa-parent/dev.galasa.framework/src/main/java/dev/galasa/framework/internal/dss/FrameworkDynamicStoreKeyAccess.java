@@ -12,6 +12,8 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Null;
@@ -22,6 +24,7 @@ import dev.galasa.framework.spi.IDssAction;
 import dev.galasa.framework.spi.IDssResourceAction;
 import dev.galasa.framework.spi.IDynamicStatusStore;
 import dev.galasa.framework.spi.IDynamicStatusStoreKeyAccess;
+import dev.galasa.framework.spi.IDynamicStatusStoreLease;
 import dev.galasa.framework.spi.IDynamicStatusStoreWatcher;
 
 /**
@@ -125,6 +128,19 @@ public class FrameworkDynamicStoreKeyAccess implements IDynamicStatusStoreKeyAcc
         return this.dssStore.putSwap(prefixKey(key), oldValue, newValue, newOthers);
     }
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see dev.galasa.framework.spi.IDynamicStatusStoreKeyAccess#putWithLease(java.lang.
+     * String, java.lang.String, long)
+     */
+    @Override
+    public IDynamicStatusStoreLease putWithLease(@NotNull String key, @NotNull String value, long ttlSeconds)
+            throws DynamicStatusStoreException {
+        Objects.requireNonNull(value);
+        return this.dssStore.putWithLease(prefixKey(key), value, ttlSeconds);
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -145,7 +161,13 @@ public class FrameworkDynamicStoreKeyAccess implements IDynamicStatusStoreKeyAcc
      */
     @Override
     public @NotNull Map<String, String> getPrefix(@NotNull String keyPrefix) throws DynamicStatusStoreException {
-        final Map<String, String> gotSet = this.dssStore.getPrefix(prefixKey(keyPrefix));
+        return unprefixKeys(this.dssStore.getPrefix(prefixKey(keyPrefix)));
+    }
+
+    /**
+     * Remove the namespace prefix from the keys returned by the store
+     */
+    private Map<String, String> unprefixKeys(Map<String, String> gotSet) throws DynamicStatusStoreException {
         final HashMap<String, String> returnSet = new HashMap<>();
 
         for (Entry<String, String> entry : gotSet.entrySet()) {
@@ -206,6 +228,104 @@ public class FrameworkDynamicStoreKeyAccess implements IDynamicStatusStoreKeyAcc
         this.dssStore.deletePrefix(prefixKey(keyPrefix));
     }
 
+    /*
+     * (non-Javadoc)
+     * 
+     * @see
+     * dev.galasa.framework.spi.IDynamicStatusStoreKeyAccess#get(java.util.Set)
+     */
+    @Override
+    public @NotNull Map<String, String> get(@NotNull Set<String> keys) throws DynamicStatusStoreException {
+        return unprefixKeys(this.dssStore.get(prefixKeys(keys)));
+    }
+
+    @Override
+    public CompletionStage<Void> putAsync(@NotNull String key, @NotNull String value) {
+        return this.dssStore.putAsync(prefixKey(key), value);
+    }
+
+    @Override
+    public CompletionStage<Void> putAsync(@NotNull Map<String, String> keyValues) {
+        return this.dssStore.putAsync(prefixKeys(keyValues));
+    }
+
+    @Override
+    public CompletionStage<Boolean> putSwapAsync(@NotNull String key, String oldValue, @NotNull String newValue) {
+        Objects.requireNonNull(newValue);
+        return this.dssStore.putSwapAsync(prefixKey(key), oldValue, newValue);
+    }
+
+    @Override
+    public CompletionStage<Boolean> putSwapAsync(@NotNull String key, String oldValue, @NotNull String newValue,
+            @NotNull Map<String, String> others) {
+        Objects.requireNonNull(newValue);
+        return this.dssStore.putSwapAsync(prefixKey(key), oldValue, newValue, prefixKeys(others));
+    }
+
+    @Override
+    public CompletionStage<String> getAsync(@NotNull String key) {
+        return this.dssStore.getAsync(prefixKey(key));
+    }
+
+    @Override
+    public CompletionStage<Map<String, String>> getAsync(@NotNull Set<String> keys) {
+        return this.dssStore.getAsync(prefixKeys(keys)).thenApply(this::unprefixKeysAsync);
+    }
+
+    @Override
+    public CompletionStage<Map<String, String>> getPrefixAsync(@NotNull String keyPrefix) {
+        return this.dssStore.getPrefixAsync(prefixKey(keyPrefix)).thenApply(this::unprefixKeysAsync);
+    }
+
+    @Override
+    public CompletionStage<Void> deleteAsync(@NotNull String key) {
+        return this.dssStore.deleteAsync(prefixKey(key));
+    }
+
+    @Override
+    public CompletionStage<Void> deleteAsync(@NotNull Set<String> keys) {
+        return this.dssStore.deleteAsync(prefixKeys(keys));
+    }
+
+    @Override
+    public CompletionStage<Void> deletePrefixAsync(@NotNull String keyPrefix) {
+        return this.dssStore.deletePrefixAsync(prefixKey(keyPrefix));
+    }
+
+    @Override
+    public CompletionStage<Void> performActionsAsync(IDssAction... actions) {
+        return this.dssStore.performActionsAsync(prefixActions(actions));
+    }
+
+    private Map<String, String> unprefixKeysAsync(Map<String, String> gotSet) {
+        try {
+            return unprefixKeys(gotSet);
+        } catch (DynamicStatusStoreException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private Set<String> prefixKeys(Set<String> keys) {
+        Objects.requireNonNull(keys);
+
+        final HashSet<String> newKeys = new HashSet<>();
+        for (final String key : keys) {
+            newKeys.add(prefixKey(key));
+        }
+        return newKeys;
+    }
+
+    private Map<String, String> prefixKeys(Map<String, String> keyValues) {
+        Objects.requireNonNull(keyValues);
+
+        final HashMap<String, String> newKeyValues = new HashMap<>();
+        for (final Entry<String, String> entry : keyValues.entrySet()) {
+            Objects.requireNonNull(entry.getValue());
+            newKeyValues.put(prefixKey(entry.getKey()), entry.getValue());
+        }
+        return newKeyValues;
+    }
+
     /**
      * Prefix the supplied key with the namespace
      *
@@ -249,11 +369,19 @@ public class FrameworkDynamicStoreKeyAccess implements IDynamicStatusStoreKeyAcc
             key = key.substring(this.offset);
             watcher.propertyModified(key, event, oldValue, newValue);
         }
+
+        @Override
+        public void watchLost(Throwable cause) {
+            watcher.watchLost(cause);
+        }
     }
 
     @Override
     public void performActions(IDssAction... actions) throws DynamicStatusStoreException, DynamicStatusStoreMatchException {
+        this.dssStore.performActions(prefixActions(actions));
+    }
 
+    private IDssAction[] prefixActions(IDssAction... actions) {
         IDssAction[] dssActions = new IDssAction[actions.length];
         for(int i = 0; i < actions.length; i++) {
             if (actions[i] instanceof IDssResourceAction) {
@@ -262,8 +390,7 @@ public class FrameworkDynamicStoreKeyAccess implements IDynamicStatusStoreKeyAcc
                 dssActions[i] = actions[i].applyPrefix(this.prefix);
             }
         }
-
-        this.dssStore.performActions(dssActions);
+        return dssActions;
     }
 
 }
\ No newline at end of file
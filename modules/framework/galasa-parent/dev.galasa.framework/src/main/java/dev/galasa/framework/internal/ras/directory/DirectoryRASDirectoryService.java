@@ -11,10 +11,12 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Base64;
-import java.util.Base64.Encoder;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.PriorityQueue;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 
@@ -29,6 +31,7 @@ import dev.galasa.framework.spi.ResultArchiveStoreException;
 import dev.galasa.framework.spi.ras.IRasSearchCriteria;
 import dev.galasa.framework.spi.ras.RasRunResultPage;
 import dev.galasa.framework.spi.ras.RasSortField;
+import dev.galasa.framework.spi.ras.RasTestStructureComparator;
 import dev.galasa.framework.spi.ras.RasTestClass;
 import dev.galasa.framework.spi.teststructure.TestStructure;
 import dev.galasa.framework.spi.utils.GalasaGson;
@@ -37,12 +40,23 @@ public class DirectoryRASDirectoryService implements IResultArchiveStoreDirector
 
     public final static String ID_PREFIX = "local-";
 
+    private final Log logger = LogFactory.getLog(getClass());
+
     private final Path baseDirectory;
     private final GalasaGson gson;
+    private final DirectoryRASIndex index;
 
     protected DirectoryRASDirectoryService(@NotNull Path baseDirectory, GalasaGson gson) {
+        this(baseDirectory, gson, null);
+    }
+
+    /**
+     * @param index the index of the runs, or null to read every run directory on each search
+     */
+    protected DirectoryRASDirectoryService(@NotNull Path baseDirectory, GalasaGson gson, DirectoryRASIndex index) {
         this.baseDirectory = baseDirectory;
         this.gson = gson;
+        this.index = index;
     }
 
     @Override
@@ -50,6 +64,17 @@ public class DirectoryRASDirectoryService implements IResultArchiveStoreDirector
 
         ArrayList<IRunResult> runs = new ArrayList<>();
 
+        if (index != null) {
+            // *** Only the runs which match are read from their run directories, and only when used
+            for (DirectoryRASIndex.IndexedRun indexedRun : getMatchingIndexedRuns(searchCriteria)) {
+                IRunResult run = createRunResult(indexedRun);
+                if (run != null) {
+                    runs.add(run);
+                }
+            }
+            return runs;
+        }
+
         List<DirectoryRASRunResult> allRuns = getAllRuns();
 
         boolean matched = true;
@@ -73,7 +98,164 @@ public class DirectoryRASDirectoryService implements IResultArchiveStoreDirector
     @Override
     public @NotNull RasRunResultPage getRunsPage(int maxResults, RasSortField primarySort, String pageToken, @NotNull IRasSearchCriteria... searchCriteria)
             throws ResultArchiveStoreException {
-        return new RasRunResultPage(getRuns(searchCriteria), null);
+        if (index != null) {
+            return getIndexedRunsPage(maxResults, primarySort, pageToken, searchCriteria);
+        }
+
+        List<IRunResult> runs = getRuns(searchCriteria);
+
+        // *** Sort here if we can, so callers merging pages from several stores get them in order
+        if (primarySort != null && RasTestStructureComparator.isSupported(primarySort.getFieldName())) {
+            RasTestStructureComparator comparator = new RasTestStructureComparator(primarySort);
+            IdentityHashMap<IRunResult, TestStructure> structures = new IdentityHashMap<>();
+            for (IRunResult run : runs) {
+                structures.put(run, run.getTestStructure());
+            }
+            runs.sort((a, b) -> comparator.compare(structures.get(a), structures.get(b)));
+        }
+
+        if (maxResults <= 0) {
+            return new RasRunResultPage(runs, null);
+        }
+
+        // *** The page token is the index of the first run in the page
+        int start = 0;
+        if (pageToken != null) {
+            try {
+                start = Integer.parseInt(pageToken);
+            } catch (NumberFormatException e) {
+                throw new ResultArchiveStoreException("Invalid page cursor '" + pageToken + "'", e);
+            }
+            if (start < 0) {
+                throw new ResultArchiveStoreException("Invalid page cursor '" + pageToken + "'");
+            }
+        }
+
+        int end = (int) Math.min((long) start + maxResults, runs.size());
+        List<IRunResult> page = new ArrayList<>();
+        if (start < end) {
+            page.addAll(runs.subList(start, end));
+        }
+
+        String nextCursor = null;
+        if (end < runs.size()) {
+            nextCursor = Integer.toString(end);
+        }
+        return new RasRunResultPage(page, nextCursor);
+    }
+
+    /**
+     * Get a page of runs using the index. The page token is the index entry of the last run
+     * on the previous page, so the next page carries on after it even if runs have been
+     * added since.
+     */
+    private @NotNull RasRunResultPage getIndexedRunsPage(int maxResults, RasSortField primarySort, String pageToken, IRasSearchCriteria... searchCriteria)
+            throws ResultArchiveStoreException {
+
+        Comparator<TestStructure> fieldOrder = (a, b) -> 0;
+        if (primarySort != null && RasTestStructureComparator.isSupported(primarySort.getFieldName())) {
+            fieldOrder = new RasTestStructureComparator(primarySort);
+        }
+
+        // *** Runs which sort equally are ordered by directory name, so every run has a fixed place
+        Comparator<DirectoryRASIndex.IndexedRun> order = Comparator
+            .comparing(DirectoryRASIndex.IndexedRun::getTestStructure, fieldOrder)
+            .thenComparing(DirectoryRASIndex.IndexedRun::getRunDirectoryName);
+
+        DirectoryRASIndex.IndexedRun previousRun = decodePageToken(pageToken);
+
+        // *** Keep one run more than the page holds, to know whether there is another page
+        int limit = (maxResults <= 0) ? Integer.MAX_VALUE : maxResults + 1;
+        PriorityQueue<DirectoryRASIndex.IndexedRun> worstFirst = new PriorityQueue<>(order.reversed());
+        for (DirectoryRASIndex.IndexedRun indexedRun : getMatchingIndexedRuns(searchCriteria)) {
+            if (previousRun != null && order.compare(indexedRun, previousRun) <= 0) {
+                continue;
+            }
+            worstFirst.add(indexedRun);
+            if (worstFirst.size() > limit) {
+                worstFirst.poll();
+            }
+        }
+
+        List<DirectoryRASIndex.IndexedRun> sortedRuns = new ArrayList<>(worstFirst);
+        sortedRuns.sort(order);
+
+        String nextCursor = null;
+        if (maxResults > 0 && sortedRuns.size() > maxResults) {
+            sortedRuns = sortedRuns.subList(0, maxResults);
+            nextCursor = encodePageToken(sortedRuns.get(maxResults - 1));
+        }
+
+        List<IRunResult> page = new ArrayList<>(sortedRuns.size());
+        for (DirectoryRASIndex.IndexedRun indexedRun : sortedRuns) {
+            IRunResult run = createRunResult(indexedRun);
+            if (run != null) {
+                page.add(run);
+            }
+        }
+        return new RasRunResultPage(page, nextCursor);
+    }
+
+    private String encodePageToken(DirectoryRASIndex.IndexedRun lastRun) {
+        String json = gson.toJson(lastRun);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private DirectoryRASIndex.IndexedRun decodePageToken(String pageToken) throws ResultArchiveStoreException {
+        if (pageToken == null) {
+            return null;
+        }
+
+        DirectoryRASIndex.IndexedRun previousRun = null;
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8);
+            previousRun = gson.fromJson(json, DirectoryRASIndex.IndexedRun.class);
+        } catch (RuntimeException e) {
+            throw new ResultArchiveStoreException("Invalid page cursor '" + pageToken + "'", e);
+        }
+
+        if (previousRun == null || previousRun.getRunDirectoryName() == null || previousRun.getTestStructure() == null) {
+            throw new ResultArchiveStoreException("Invalid page cursor '" + pageToken + "'");
+        }
+        return previousRun;
+    }
+
+    private List<DirectoryRASIndex.IndexedRun> getMatchingIndexedRuns(IRasSearchCriteria... searchCriteria) throws ResultArchiveStoreException {
+        List<DirectoryRASIndex.IndexedRun> matchingRuns = new ArrayList<>();
+        for (DirectoryRASIndex.IndexedRun indexedRun : index.getRuns()) {
+            boolean matched = true;
+            for (IRasSearchCriteria criteria : searchCriteria) {
+                if (!criteria.criteriaMatched(indexedRun.getTestStructure())) {
+                    matched = false;
+                    break;
+                }
+            }
+            if (matched) {
+                matchingRuns.add(indexedRun);
+            }
+        }
+        return matchingRuns;
+    }
+
+    /**
+     * @return a run result which reads the run directory when used, or null if the run has been deleted,
+     *         in which case it is removed from the index
+     */
+    private IRunResult createRunResult(DirectoryRASIndex.IndexedRun indexedRun) {
+        Path runDirectory = baseDirectory.resolve(indexedRun.getRunDirectoryName());
+        if (!Files.exists(runDirectory.resolve("structure.json"))) {
+            try {
+                index.removeRun(indexedRun.getRunDirectoryName());
+            } catch (ResultArchiveStoreException e) {
+                logger.warn("Unable to remove deleted run '" + indexedRun.getRunDirectoryName() + "' from the RAS index", e);
+            }
+            return null;
+        }
+        return DirectoryRASRunResult.createLazily(runDirectory, gson, createRunId(indexedRun.getRunDirectoryName()));
+    }
+
+    private static String createRunId(String relativePath) {
+        return ID_PREFIX + Base64.getEncoder().encodeToString(relativePath.getBytes(StandardCharsets.UTF_8));
     }
 
     @Override
@@ -91,13 +273,9 @@ public class DirectoryRASDirectoryService implements IResultArchiveStoreDirector
     public @NotNull List<String> getRequestors() throws ResultArchiveStoreException {
         HashSet<String> requestors = new HashSet<>();
 
-        for (DirectoryRASRunResult result : getAllRuns()) {
-            if(result!=null) {
-                TestStructure testStructure = result.getTestStructure();
-                if(testStructure != null && testStructure.getTestName()!=null) {
-                    requestors.add(testStructure.getRequestor());
-                }
-
+        for (TestStructure testStructure : getAllTestStructures()) {
+            if(testStructure != null && testStructure.getTestName()!=null) {
+                requestors.add(testStructure.getRequestor());
             }
         }
 
@@ -108,15 +286,11 @@ public class DirectoryRASDirectoryService implements IResultArchiveStoreDirector
     public @NotNull List<RasTestClass> getTests() throws ResultArchiveStoreException {
         HashMap<String,RasTestClass> tests = new HashMap<>();
         String key;
-        for (DirectoryRASRunResult result : getAllRuns()) {
-            if(result != null) {
-
-                TestStructure testStructure = result.getTestStructure();
-                if(testStructure != null && testStructure.getTestName()!=null) {
-                    key = testStructure.getBundle()+"/"+testStructure.getTestName();
-                    if(!tests.containsKey(key)){
-                        tests.put(key,new RasTestClass(testStructure.getTestName(), testStructure.getBundle()));
-                    }
+        for (TestStructure testStructure : getAllTestStructures()) {
+            if(testStructure != null && testStructure.getTestName()!=null) {
+                key = testStructure.getBundle()+"/"+testStructure.getTestName();
+                if(!tests.containsKey(key)){
+                    tests.put(key,new RasTestClass(testStructure.getTestName(), testStructure.getBundle()));
                 }
             }
         }
@@ -128,23 +302,38 @@ public class DirectoryRASDirectoryService implements IResultArchiveStoreDirector
     public @NotNull List<String> getResultNames() throws ResultArchiveStoreException {
         HashSet<String> results = new HashSet<>();
 
-        for (DirectoryRASRunResult result : getAllRuns()) {
-            if(result!=null) {
-                TestStructure testStructure = result.getTestStructure();
-                if(testStructure != null  ) {
-                    if(testStructure.getResult()==null) {
-                        results.add("UNKNOWN");
-                    }else { 
-                        results.add(testStructure.getResult());
-                    }
+        for (TestStructure testStructure : getAllTestStructures()) {
+            if(testStructure != null  ) {
+                if(testStructure.getResult()==null) {
+                    results.add("UNKNOWN");
+                }else { 
+                    results.add(testStructure.getResult());
                 }
-
             }
         }
 
         return new ArrayList<>(results);
     }
 
+    /**
+     * @return the test structures of every run, from the index if there is one
+     */
+    private @NotNull List<TestStructure> getAllTestStructures() throws ResultArchiveStoreException {
+        List<TestStructure> testStructures = new ArrayList<>();
+        if (index != null) {
+            for (DirectoryRASIndex.IndexedRun indexedRun : index.getRuns()) {
+                testStructures.add(indexedRun.getTestStructure());
+            }
+        } else {
+            for (DirectoryRASRunResult result : getAllRuns()) {
+                if (result != null) {
+                    testStructures.add(result.getTestStructure());
+                }
+            }
+        }
+        return testStructures;
+    }
+
     protected @NotNull List<DirectoryRASRunResult> getAllRuns() throws ResultArchiveStoreException {
 
         try {
@@ -167,7 +356,6 @@ public class DirectoryRASDirectoryService implements IResultArchiveStoreDirector
         private final Path                        base;
         private final List<DirectoryRASRunResult> results;
         private final GalasaGson                        gson;
-        private final Encoder                     encoder;
 
         private final Log                  logger = LogFactory.getLog(ConsumeRuns.class);
 
@@ -175,7 +363,6 @@ public class DirectoryRASDirectoryService implements IResultArchiveStoreDirector
             this.base    = base;
             this.results = results;
             this.gson    = gson;
-            this.encoder = Base64.getEncoder();
         }
 
         @Override
@@ -188,7 +375,7 @@ public class DirectoryRASDirectoryService implements IResultArchiveStoreDirector
             if (Files.exists(structureFile)) {
                 try {
                     Path relativePath = base.relativize(path);
-                    String id = ID_PREFIX + this.encoder.encodeToString(relativePath.toString().getBytes(StandardCharsets.UTF_8));
+                    String id = createRunId(relativePath.toString());
 
                     results.add(new DirectoryRASRunResult(path, gson, id));
                 } catch (Throwable t) {
@@ -0,0 +1,535 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.internal.ras.directory;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import dev.galasa.framework.spi.ResultArchiveStoreException;
+import dev.galasa.framework.spi.teststructure.TestStructure;
+import dev.galasa.framework.spi.utils.GalasaGson;
+import dev.galasa.framework.spi.utils.GalasaGsonBuilder;
+
+/**
+ * An index of the runs held in a directory RAS, so the runs can be searched without
+ * reading every structure.json.
+ *
+ * The index is an append-only file in the base directory with one JSON record per line,
+ * each holding the run directory name and the searchable fields of its test structure.
+ * A later record for a run replaces an earlier one. Records are appended whenever a run
+ * updates its test structure, and readers only read what has been appended since they
+ * last looked.
+ *
+ * Appends and rewrites of the index are serialised across processes with a lock file.
+ * If the index is missing or a record cannot be read, the index is rebuilt from the run
+ * directories. When most of the records have been replaced, found either when the index
+ * is loaded or as new records are read, the index is rewritten with a single record per
+ * run.
+ */
+public class DirectoryRASIndex {
+
+    public static final String  INDEX_FILE_NAME      = "runs.index";
+    private static final String LOCK_FILE_NAME       = "runs.index.lock";
+    private static final String TEMP_FILE_NAME       = "runs.index.tmp";
+    private static final String STRUCTURE_FILE_NAME  = "structure.json";
+
+    // *** Rewrite the index once it has this many times more records than runs
+    private static final int    COMPACTION_RATIO     = 4;
+    private static final int    COMPACTION_MINIMUM   = 1000;
+
+    // *** File locks are held per process, so threads in this process also need to take turns
+    private static final Object PROCESS_LOCK         = new Object();
+
+    private final Log           logger               = LogFactory.getLog(getClass());
+
+    private final Path          baseDirectory;
+    private final Path          indexFile;
+    private final Path          lockFile;
+    private final GalasaGson    gson;
+
+    // *** The runs read from the index so far, by run directory name
+    private final Map<String, TestStructure> runs    = new HashMap<>();
+    private boolean             loaded               = false;
+    private long                readOffset           = 0;
+    private Object              indexFileKey;
+    private long                recordsRead          = 0;
+
+    /**
+     * A run in the index
+     */
+    public static class IndexedRun {
+        private final String        runDirectoryName;
+        private final TestStructure testStructure;
+
+        public IndexedRun(String runDirectoryName, TestStructure testStructure) {
+            this.runDirectoryName = runDirectoryName;
+            this.testStructure = testStructure;
+        }
+
+        public String getRunDirectoryName() {
+            return runDirectoryName;
+        }
+
+        /**
+         * @return the searchable fields of the test structure, without the methods
+         */
+        public TestStructure getTestStructure() {
+            return testStructure;
+        }
+    }
+
+    // *** A line in the index file, a null structure means the run has gone
+    private static class IndexRecord {
+        private String        run;
+        private TestStructure structure;
+
+        private IndexRecord(String run, TestStructure structure) {
+            this.run = run;
+            this.structure = structure;
+        }
+    }
+
+    private static class IndexCorruptException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private IndexCorruptException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    private interface IndexAction {
+        void run() throws IOException;
+    }
+
+    public DirectoryRASIndex(@NotNull Path baseDirectory) {
+        this.baseDirectory = baseDirectory;
+        this.indexFile = baseDirectory.resolve(INDEX_FILE_NAME);
+        this.lockFile = baseDirectory.resolve(LOCK_FILE_NAME);
+
+        // *** Each record must be on a single line
+        this.gson = new GalasaGson();
+        this.gson.setGsonBuilder(new GalasaGsonBuilder(false));
+    }
+
+    /**
+     * Append the latest test structure of a run to the index
+     *
+     * @param runDirectoryName the name of the run directory within the base directory
+     * @param testStructure    the test structure of the run
+     */
+    public void recordRun(@NotNull String runDirectoryName, @NotNull TestStructure testStructure) throws ResultArchiveStoreException {
+        IndexRecord record = new IndexRecord(runDirectoryName, summarise(testStructure));
+        try {
+            withIndexLock(() -> appendRecords(List.of(record)));
+        } catch (IOException e) {
+            throw new ResultArchiveStoreException("Unable to update the RAS index '" + indexFile + "'", e);
+        }
+    }
+
+    /**
+     * Remove a run whose directory has been deleted, both here and in the index file
+     *
+     * @param runDirectoryName the name of the run directory within the base directory
+     */
+    public synchronized void removeRun(@NotNull String runDirectoryName) throws ResultArchiveStoreException {
+        if (runs.remove(runDirectoryName) == null) {
+            return;
+        }
+
+        try {
+            withIndexLock(() -> appendRecords(List.of(new IndexRecord(runDirectoryName, null))));
+        } catch (IOException e) {
+            throw new ResultArchiveStoreException("Unable to update the RAS index '" + indexFile + "'", e);
+        }
+    }
+
+    /**
+     * Read the test structure of a run directory and append it to the index
+     */
+    public void recordRunDirectory(@NotNull String runDirectoryName) throws ResultArchiveStoreException {
+        TestStructure testStructure = readTestStructure(baseDirectory.resolve(runDirectoryName));
+        if (testStructure != null) {
+            recordRun(runDirectoryName, testStructure);
+        }
+    }
+
+    /**
+     * @return every run in the index, bringing it up to date first
+     */
+    public synchronized @NotNull List<IndexedRun> getRuns() throws ResultArchiveStoreException {
+        try {
+            refresh();
+        } catch (IOException e) {
+            throw new ResultArchiveStoreException("Unable to read the RAS index '" + indexFile + "'", e);
+        }
+
+        List<IndexedRun> indexedRuns = new ArrayList<>(runs.size());
+        for (Map.Entry<String, TestStructure> run : runs.entrySet()) {
+            indexedRuns.add(new IndexedRun(run.getKey(), run.getValue()));
+        }
+        return indexedRuns;
+    }
+
+    /**
+     * Throw away the index and create it again from the run directories
+     */
+    public synchronized void rebuild() throws ResultArchiveStoreException {
+        try {
+            withIndexLock(this::rebuildLocked);
+        } catch (IOException e) {
+            throw new ResultArchiveStoreException("Unable to rebuild the RAS index '" + indexFile + "'", e);
+        }
+    }
+
+    /**
+     * @return the searchable fields of a test structure
+     */
+    public static TestStructure summarise(@NotNull TestStructure testStructure) {
+        TestStructure summary = new TestStructure();
+        summary.setRunName(testStructure.getRunName());
+        summary.setBundle(testStructure.getBundle());
+        summary.setTestName(testStructure.getTestName());
+        summary.setTestShortName(testStructure.getTestShortName());
+        summary.setRequestor(testStructure.getRequestor());
+        summary.setStatus(testStructure.getStatus());
+        summary.setResult(testStructure.getResult());
+        summary.setQueued(testStructure.getQueued());
+        summary.setStartTime(testStructure.getStartTime());
+        summary.setEndTime(testStructure.getEndTime());
+        return summary;
+    }
+
+    private void refresh() throws IOException {
+        if (!loaded || !Files.exists(indexFile)) {
+            load();
+            return;
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(indexFile, BasicFileAttributes.class);
+        if (!Objects.equals(attributes.fileKey(), indexFileKey) || attributes.size() < readOffset) {
+            // *** The index has been rewritten, so start again
+            load();
+            return;
+        }
+
+        if (attributes.size() > readOffset) {
+            try {
+                if (!readRecords()) {
+                    load();
+                    return;
+                }
+            } catch (IndexCorruptException e) {
+                logger.warn("The RAS index '" + indexFile + "' is corrupt, rebuilding it", e);
+                withIndexLock(this::rebuildLocked);
+                return;
+            }
+        }
+
+        if (isCompactionDue()) {
+            withIndexLock(this::compactLocked);
+        }
+    }
+
+    private boolean isCompactionDue() {
+        return recordsRead > COMPACTION_MINIMUM && recordsRead > (long) runs.size() * COMPACTION_RATIO;
+    }
+
+    /**
+     * Rewrite the index with a single record per run, reading anything appended since
+     * the last read first
+     */
+    private void compactLocked() throws IOException {
+        try {
+            if (!readRecords()) {
+                loadLocked();
+                return;
+            }
+        } catch (IndexCorruptException e) {
+            logger.warn("The RAS index '" + indexFile + "' is corrupt, rebuilding it", e);
+            rebuildLocked();
+            return;
+        }
+
+        if (isCompactionDue()) {
+            logger.debug("Compacting the RAS index '" + indexFile + "', " + recordsRead + " records for " + runs.size() + " runs");
+            writeIndex();
+        }
+    }
+
+    /**
+     * Read the whole index, adding any run directories it does not know about
+     */
+    private void load() throws IOException {
+        withIndexLock(this::loadLocked);
+        loaded = true;
+    }
+
+    private void loadLocked() throws IOException {
+        clear();
+        if (!Files.exists(indexFile)) {
+            logger.info("Creating the RAS index '" + indexFile + "'");
+            rebuildLocked();
+            return;
+        }
+
+        try {
+            // *** The index is only replaced under the lock, so it can not change while it is read here
+            if (!readRecords()) {
+                throw new IndexCorruptException("The index was replaced while it was locked", null);
+            }
+        } catch (IndexCorruptException e) {
+            logger.warn("The RAS index '" + indexFile + "' is corrupt, rebuilding it", e);
+            rebuildLocked();
+            return;
+        }
+
+        reconcile();
+
+        if (isCompactionDue()) {
+            writeIndex();
+        }
+    }
+
+    private void clear() {
+        runs.clear();
+        readOffset = 0;
+        recordsRead = 0;
+        indexFileKey = null;
+    }
+
+    /**
+     * Read the complete records added since the last read. A record still being written
+     * has no newline yet, so it is left for the next read.
+     *
+     * Java can not read the file key of an open channel, so it is read from the path
+     * before and after the channel is opened. If they are the same, the channel is open
+     * on the file with that key, and not on one which replaced it.
+     *
+     * @return false if the index file was replaced since the last read, and nothing was read
+     */
+    private boolean readRecords() throws IOException, IndexCorruptException {
+        Object fileKey = readFileKey();
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            if (!Objects.equals(fileKey, readFileKey())) {
+                return false;
+            }
+            if (readOffset > 0 && !Objects.equals(fileKey, indexFileKey)) {
+                return false;
+            }
+            indexFileKey = fileKey;
+
+            long size = channel.size();
+            if (size <= readOffset) {
+                return true;
+            }
+            if (size - readOffset > Integer.MAX_VALUE) {
+                throw new IndexCorruptException("The index is too large to read", null);
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate((int) (size - readOffset));
+            long position = readOffset;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    break;
+                }
+                position += read;
+            }
+
+            byte[] bytes = buffer.array();
+            int lineStart = 0;
+            for (int i = 0; i < buffer.position(); i++) {
+                if (bytes[i] == '\n') {
+                    applyRecord(new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8));
+                    lineStart = i + 1;
+                }
+            }
+            readOffset += lineStart;
+        }
+        return true;
+    }
+
+    private Object readFileKey() throws IOException {
+        return Files.readAttributes(indexFile, BasicFileAttributes.class).fileKey();
+    }
+
+    private void applyRecord(String line) throws IndexCorruptException {
+        if (line.isBlank()) {
+            return;
+        }
+
+        IndexRecord record;
+        try {
+            record = gson.fromJson(line, IndexRecord.class);
+        } catch (RuntimeException e) {
+            throw new IndexCorruptException("Unable to read an index record", e);
+        }
+        if (record == null || record.run == null) {
+            throw new IndexCorruptException("Index record has no run", null);
+        }
+
+        recordsRead++;
+        if (record.structure == null) {
+            runs.remove(record.run);
+        } else {
+            runs.put(record.run, record.structure);
+        }
+    }
+
+    /**
+     * Add any run directories missing from the index, and remove runs whose directories have gone
+     */
+    private void reconcile() throws IOException {
+        List<IndexRecord> changes = new ArrayList<>();
+
+        Set<String> runDirectoryNames = new HashSet<>(listRunDirectories());
+        for (String runDirectoryName : runDirectoryNames) {
+            if (!runs.containsKey(runDirectoryName)) {
+                TestStructure testStructure = readTestStructure(baseDirectory.resolve(runDirectoryName));
+                if (testStructure != null) {
+                    TestStructure summary = summarise(testStructure);
+                    runs.put(runDirectoryName, summary);
+                    changes.add(new IndexRecord(runDirectoryName, summary));
+                }
+            }
+        }
+
+        List<String> missing = new ArrayList<>(runs.keySet());
+        missing.removeAll(runDirectoryNames);
+        for (String runDirectoryName : missing) {
+            runs.remove(runDirectoryName);
+            changes.add(new IndexRecord(runDirectoryName, null));
+        }
+
+        if (!changes.isEmpty()) {
+            appendRecords(changes);
+            recordsRead += changes.size();
+            readOffset = Files.size(indexFile);
+            indexFileKey = readFileKey();
+        }
+    }
+
+    private void rebuildLocked() throws IOException {
+        clear();
+        for (String runDirectoryName : listRunDirectories()) {
+            TestStructure testStructure = readTestStructure(baseDirectory.resolve(runDirectoryName));
+            if (testStructure != null) {
+                runs.put(runDirectoryName, summarise(testStructure));
+            }
+        }
+        writeIndex();
+        loaded = true;
+    }
+
+    /**
+     * Replace the index file with one record for each run
+     */
+    private void writeIndex() throws IOException {
+        Path tempFile = baseDirectory.resolve(TEMP_FILE_NAME);
+
+        StringBuilder content = new StringBuilder();
+        for (Map.Entry<String, TestStructure> run : runs.entrySet()) {
+            content.append(gson.toJson(new IndexRecord(run.getKey(), run.getValue()))).append('\n');
+        }
+
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+
+        try {
+            Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        recordsRead = runs.size();
+        readOffset = Files.size(indexFile);
+        indexFileKey = readFileKey();
+    }
+
+    /**
+     * Append records with a single write, so readers never see part of one
+     */
+    private void appendRecords(List<IndexRecord> records) throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (IndexRecord record : records) {
+            content.append(gson.toJson(record)).append('\n');
+        }
+
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    private void withIndexLock(IndexAction action) throws IOException {
+        synchronized (PROCESS_LOCK) {
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock lock = channel.lock();
+                try {
+                    action.run();
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+    }
+
+    private List<String> listRunDirectories() throws IOException {
+        List<String> runDirectoryNames = new ArrayList<>();
+        try (Stream<Path> stream = Files.list(baseDirectory)) {
+            stream.forEach(path -> {
+                if (Files.isDirectory(path) && Files.exists(path.resolve(STRUCTURE_FILE_NAME))) {
+                    runDirectoryNames.add(path.getFileName().toString());
+                }
+            });
+        }
+        return runDirectoryNames;
+    }
+
+    private TestStructure readTestStructure(Path runDirectory) {
+        Path structureFile = runDirectory.resolve(STRUCTURE_FILE_NAME);
+        if (!Files.exists(structureFile)) {
+            return null;
+        }
+
+        try (InputStreamReader in = new InputStreamReader(Files.newInputStream(structureFile), StandardCharsets.UTF_8)) {
+            return gson.fromJson(in, TestStructure.class);
+        } catch (Exception e) {
+            logger.trace("Unable to read the test structure from " + structureFile.toString());
+            return null;
+        }
+    }
+}
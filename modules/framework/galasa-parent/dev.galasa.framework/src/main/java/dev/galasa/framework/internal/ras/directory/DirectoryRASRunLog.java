@@ -0,0 +1,183 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.internal.ras.directory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.constraints.NotNull;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * The run log of a directory RAS run, written through a buffer to a file channel which
+ * stays open for the whole run.
+ *
+ * The buffer is written to the file when it is full, when it has held data for the
+ * flush interval, and when the log is flushed or closed. How often the file is forced
+ * to disk is set by the sync policy.
+ */
+public class DirectoryRASRunLog {
+
+    /**
+     * When the run log is forced to disk
+     */
+    public enum SyncPolicy {
+        /** Leave it to the operating system */
+        NONE,
+        /** When the log is flushed or closed */
+        FLUSH,
+        /** Every time the buffer is written to the file */
+        WRITE;
+
+        public static SyncPolicy fromProperty(String property) {
+            if (property != null) {
+                for (SyncPolicy policy : values()) {
+                    if (policy.name().equalsIgnoreCase(property.trim())) {
+                        return policy;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    private final Log                      logger = LogFactory.getLog(getClass());
+
+    private final Path                     runLog;
+    private final FileChannel              channel;
+    private final ByteBuffer               buffer;
+    private final SyncPolicy               syncPolicy;
+    private final ScheduledExecutorService flusher;
+
+    private boolean                        closed = false;
+
+    /**
+     * @param runLog              the run log file, which is appended to
+     * @param bufferSize          how many bytes are held before they are written to the file
+     * @param flushIntervalMillis the longest that data is held before it is written to the file
+     * @param syncPolicy          when the file is forced to disk
+     */
+    public DirectoryRASRunLog(@NotNull Path runLog, int bufferSize, long flushIntervalMillis, @NotNull SyncPolicy syncPolicy) throws IOException {
+        this.runLog = runLog;
+        this.channel = FileChannel.open(runLog, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        this.syncPolicy = syncPolicy;
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "directory-ras-run-log-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void write(@NotNull byte[] bytes) throws IOException {
+        if (closed) {
+            throw new IOException("The run log " + runLog + " has been closed");
+        }
+
+        if (bytes.length > buffer.remaining()) {
+            writeBuffer();
+        }
+
+        if (bytes.length > buffer.capacity()) {
+            // *** Too big to buffer, so write it straight out
+            writeFully(ByteBuffer.wrap(bytes));
+            if (syncPolicy == SyncPolicy.WRITE) {
+                channel.force(false);
+            }
+        } else {
+            buffer.put(bytes);
+        }
+    }
+
+    /**
+     * Write to the log unless it has been closed. The check and the write are made
+     * under the same lock, so the log can not be closed between them.
+     * 
+     * @return false if the log has been closed and nothing was written
+     */
+    public synchronized boolean writeIfOpen(@NotNull byte[] bytes) throws IOException {
+        if (closed) {
+            return false;
+        }
+        write(bytes);
+        return true;
+    }
+
+    /**
+     * Write everything buffered to the file, forcing it to disk unless the sync policy is NONE
+     */
+    public synchronized void flush() throws IOException {
+        if (closed) {
+            return;
+        }
+        writeBuffer();
+        if (syncPolicy != SyncPolicy.NONE) {
+            channel.force(false);
+        }
+    }
+
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        flusher.shutdown();
+        try {
+            flush();
+        } finally {
+            closed = true;
+            channel.close();
+        }
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    private void flushQuietly() {
+        try {
+            synchronized (this) {
+                if (!closed) {
+                    writeBuffer();
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Unable to write to the run log " + runLog, e);
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        if (buffer.position() == 0) {
+            return;
+        }
+
+        buffer.flip();
+        try {
+            writeFully(buffer);
+        } finally {
+            buffer.clear();
+        }
+
+        if (syncPolicy == SyncPolicy.WRITE) {
+            channel.force(false);
+        }
+    }
+
+    private void writeFully(ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+    }
+}
@@ -21,40 +21,74 @@ import dev.galasa.framework.spi.utils.GalasaGson;
 public class DirectoryRASRunResult implements IRunResult {
 
     private final Path                           runDirectory;
-    private final TestStructure                  testStructure;
-    private final DirectoryRASFileSystemProvider fileSystemProvider;
+    private final GalasaGson                     gson;
     private final String                         id;
 
+    // *** Set when the run result is created, or on first use when it is created from the RAS index
+    private TestStructure                        testStructure;
+    private DirectoryRASFileSystemProvider       fileSystemProvider;
+
     protected DirectoryRASRunResult(Path runDirectory, GalasaGson gson, String id)
             throws JsonSyntaxException, JsonIOException, IOException {
         this.runDirectory = runDirectory;
+        this.gson         = gson;
         this.id           = id;
 
-        Path structureFile = this.runDirectory.resolve("structure.json");
-        
-        try (InputStreamReader in = new InputStreamReader(Files.newInputStream(structureFile))){
-           this.testStructure = gson.fromJson(in, TestStructure.class);
-        }
-    
-
+        this.testStructure = readTestStructure();
         this.fileSystemProvider = new DirectoryRASFileSystemProvider(this.runDirectory);
     }
+
+    /**
+     * Create a run result which reads the run directory when it is first used
+     */
+    protected static DirectoryRASRunResult createLazily(Path runDirectory, GalasaGson gson, String id) {
+        return new DirectoryRASRunResult(runDirectory, gson, id, true);
+    }
+
+    private DirectoryRASRunResult(Path runDirectory, GalasaGson gson, String id, boolean lazy) {
+        this.runDirectory = runDirectory;
+        this.gson         = gson;
+        this.id           = id;
+    }
     
     //for testing purposes
     protected DirectoryRASRunResult() {
     	this.testStructure = null;
     	this.runDirectory = null;
     	this.fileSystemProvider = null;
+    	this.gson               = null;
     	this.id                 = null;
     }
 
+    private TestStructure readTestStructure() throws JsonSyntaxException, JsonIOException, IOException {
+        Path structureFile = this.runDirectory.resolve("structure.json");
+        
+        try (InputStreamReader in = new InputStreamReader(Files.newInputStream(structureFile))){
+           return gson.fromJson(in, TestStructure.class);
+        }
+    }
+
     @Override
-    public TestStructure getTestStructure() throws ResultArchiveStoreException {
+    public synchronized TestStructure getTestStructure() throws ResultArchiveStoreException {
+        if (this.testStructure == null && this.runDirectory != null) {
+            try {
+                this.testStructure = readTestStructure();
+            } catch (Exception e) {
+                throw new ResultArchiveStoreException("Unable to read the test structure of run " + this.runDirectory.toString(), e);
+            }
+        }
         return this.testStructure;
     }
 
     @Override
-    public Path getArtifactsRoot() throws ResultArchiveStoreException {
+    public synchronized Path getArtifactsRoot() throws ResultArchiveStoreException {
+        if (this.fileSystemProvider == null && this.runDirectory != null) {
+            try {
+                this.fileSystemProvider = new DirectoryRASFileSystemProvider(this.runDirectory);
+            } catch (IOException e) {
+                throw new ResultArchiveStoreException("Unable to read the artifacts of run " + this.runDirectory.toString(), e);
+            }
+        }
         return this.fileSystemProvider.getActualFileSystem().getPath("/");
     }
 
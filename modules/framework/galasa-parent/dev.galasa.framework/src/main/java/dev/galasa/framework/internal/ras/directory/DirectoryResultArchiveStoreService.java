@@ -20,8 +20,13 @@ import java.util.Objects;
 
 import javax.validation.constraints.NotNull;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.osgi.service.component.annotations.Component;
 
+import dev.galasa.framework.spi.AbstractManager;
+import dev.galasa.framework.spi.ConfigurationPropertyStoreException;
+import dev.galasa.framework.spi.IConfigurationPropertyStoreService;
 import dev.galasa.framework.spi.IFramework;
 import dev.galasa.framework.spi.IResultArchiveStoreDirectoryService;
 import dev.galasa.framework.spi.IResultArchiveStoreService;
@@ -40,20 +45,27 @@ public class DirectoryResultArchiveStoreService implements IResultArchiveStoreSe
 
     private static final Charset           UTF8     = Charset.forName("utf-8");
 
+    private static final int               DEFAULT_LOG_BUFFER_SIZE           = 64 * 1024;
+    private static final long              DEFAULT_LOG_FLUSH_INTERVAL_MILLIS = 1000;
+
     private final IFramework               framework;                           // NOSONAR
     private final URI                      rasUri;
     private final Path                     baseDirectory;
+    private final DirectoryRASIndex        index;
 
     private boolean                        shutdown = false;
 
     private Path                           runDirectory;
     private Path                           testStructureFile;
     private Path                           runLog;
+    private DirectoryRASRunLog             runLogWriter;
 
     private final GalasaGson                     gson     = new GalasaGson();
 
     private DirectoryRASFileSystemProvider provider;
 
+    private final Log                      logger   = LogFactory.getLog(getClass());
+
     public DirectoryResultArchiveStoreService(IFramework framework, URI rasUri) throws ResultArchiveStoreException {
         this.framework = framework;
         this.rasUri = rasUri;
@@ -66,6 +78,7 @@ public class DirectoryResultArchiveStoreService implements IResultArchiveStoreSe
             throw new ResultArchiveStoreException(
                     "Unable to create the RAS base directory '" + this.baseDirectory + "'", e);
         }
+        this.index = new DirectoryRASIndex(this.baseDirectory);
 
         // *** Get the runname to create the directory
         final String runName = this.framework.getTestRunName();
@@ -78,9 +91,10 @@ public class DirectoryResultArchiveStoreService implements IResultArchiveStoreSe
         this.testStructureFile = this.runDirectory.resolve("structure.json");
         this.runLog = this.runDirectory.resolve("run.log");
 
-        // *** Create an empty run log so we append it
+        // *** Create an empty run log and keep it open so we can append to it
         try {
             Files.createFile(this.runLog);
+            this.runLogWriter = createRunLogWriter();
         } catch (final IOException e) {
             throw new ResultArchiveStoreException("Unable to create Run Log", e);
         }
@@ -94,6 +108,50 @@ public class DirectoryResultArchiveStoreService implements IResultArchiveStoreSe
 
     }
 
+    /**
+     * Create the run log writer, using the framework.resultarchive.directory.log.* properties
+     * if they are set
+     */
+    private DirectoryRASRunLog createRunLogWriter() throws IOException {
+        int bufferSize = DEFAULT_LOG_BUFFER_SIZE;
+        long flushIntervalMillis = DEFAULT_LOG_FLUSH_INTERVAL_MILLIS;
+        DirectoryRASRunLog.SyncPolicy syncPolicy = DirectoryRASRunLog.SyncPolicy.NONE;
+
+        try {
+            IConfigurationPropertyStoreService cps = this.framework.getConfigurationPropertyService("framework");
+            if (cps != null) {
+                String property = AbstractManager.nulled(cps.getProperty("resultarchive.directory.log", "buffer.size"));
+                if (property != null) {
+                    bufferSize = Integer.parseInt(property.trim());
+                }
+                property = AbstractManager.nulled(cps.getProperty("resultarchive.directory.log", "flush.interval"));
+                if (property != null) {
+                    flushIntervalMillis = Long.parseLong(property.trim());
+                }
+                property = AbstractManager.nulled(cps.getProperty("resultarchive.directory.log", "sync"));
+                if (property != null) {
+                    DirectoryRASRunLog.SyncPolicy configuredPolicy = DirectoryRASRunLog.SyncPolicy.fromProperty(property);
+                    if (configuredPolicy == null) {
+                        logger.warn("Unrecognised run log sync policy '" + property + "', expected none, flush or write");
+                    } else {
+                        syncPolicy = configuredPolicy;
+                    }
+                }
+            }
+        } catch (ConfigurationPropertyStoreException | NumberFormatException e) {
+            logger.warn("Unable to read the run log settings, using the defaults", e);
+        }
+
+        if (bufferSize < 1) {
+            bufferSize = DEFAULT_LOG_BUFFER_SIZE;
+        }
+        if (flushIntervalMillis < 1) {
+            flushIntervalMillis = DEFAULT_LOG_FLUSH_INTERVAL_MILLIS;
+        }
+
+        return new DirectoryRASRunLog(this.runLog, bufferSize, flushIntervalMillis, syncPolicy);
+    }
+
     /**
      * Setup the run directory
      *
@@ -114,6 +172,7 @@ public class DirectoryResultArchiveStoreService implements IResultArchiveStoreSe
                     movePath = this.runDirectory.resolveSibling(runname + "-" + Integer.toString(i));
                     if (!Files.exists(movePath)) {
                         Files.move(runDirectory, movePath);
+                        indexRunDirectory(movePath.getFileName().toString());
                         break;
                     }
                 }
@@ -151,12 +210,20 @@ public class DirectoryResultArchiveStoreService implements IResultArchiveStoreSe
             message = framework.getConfidentialTextService().removeConfidentialText(message);
 
         try {
-            Files.write(this.runLog, message.getBytes(UTF8), StandardOpenOption.APPEND);
+            appendToRunLog(message.getBytes(UTF8));
         } catch (final Exception e) {
             throw new ResultArchiveStoreException("Unable to write message to run log", e);
         }
     }
 
+    private void appendToRunLog(byte[] bytes) throws IOException {
+        DirectoryRASRunLog writer = this.runLogWriter;
+        if (writer == null || !writer.writeIfOpen(bytes)) {
+            // *** Messages logged once the RAS has shut down go straight to the file
+            Files.write(this.runLog, bytes, StandardOpenOption.APPEND);
+        }
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -190,6 +257,21 @@ public class DirectoryResultArchiveStoreService implements IResultArchiveStoreSe
         } catch (final Exception e) {
             throw new ResultArchiveStoreException("Unable to write the test structure", e);
         }
+
+        // *** The index is rebuilt from the run directories if it is ever wrong, so don't fail the run
+        try {
+            this.index.recordRun(this.runDirectory.getFileName().toString(), testStructure);
+        } catch (final ResultArchiveStoreException e) {
+            logger.warn("Unable to add the test structure to the RAS index", e);
+        }
+    }
+
+    private void indexRunDirectory(String runDirectoryName) {
+        try {
+            this.index.recordRunDirectory(runDirectoryName);
+        } catch (final ResultArchiveStoreException e) {
+            logger.warn("Unable to add run directory '" + runDirectoryName + "' to the RAS index", e);
+        }
     }
 
     /*
@@ -204,10 +286,24 @@ public class DirectoryResultArchiveStoreService implements IResultArchiveStoreSe
 
     @Override
     public void flush() {
+        if (this.runLogWriter != null) {
+            try {
+                this.runLogWriter.flush();
+            } catch (final IOException e) {
+                logger.warn("Unable to flush the run log", e);
+            }
+        }
     }
 
     @Override
     public void shutdown() {
+        if (this.runLogWriter != null) {
+            try {
+                this.runLogWriter.close();
+            } catch (final IOException e) {
+                logger.warn("Unable to close the run log", e);
+            }
+        }
         this.shutdown = true;
     }
 
@@ -218,7 +314,7 @@ public class DirectoryResultArchiveStoreService implements IResultArchiveStoreSe
     @Override
     public @NotNull List<IResultArchiveStoreDirectoryService> getDirectoryServices() {
         ArrayList<IResultArchiveStoreDirectoryService> dirs = new ArrayList<>(1);
-        dirs.add(new DirectoryRASDirectoryService(this.baseDirectory, gson));
+        dirs.add(new DirectoryRASDirectoryService(this.baseDirectory, gson, this.index));
         return dirs;
     }
 
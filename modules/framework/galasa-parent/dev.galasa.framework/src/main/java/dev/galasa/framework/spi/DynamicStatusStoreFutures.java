@@ -0,0 +1,85 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.spi;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Waits for the stages returned by the asynchronous methods of
+ * {@link IDynamicStatusStoreKeyAccess}, reporting failures as
+ * {@link DynamicStatusStoreException}s as the synchronous methods would.
+ */
+public final class DynamicStatusStoreFutures {
+
+    private DynamicStatusStoreFutures() {
+    }
+
+    /**
+     * Wait for a DSS request to complete
+     * 
+     * @param stage - the request
+     * @return the result of the request
+     * @throws DynamicStatusStoreException if the request failed or the wait was
+     *                                     interrupted
+     */
+    public static <T> T waitFor(@NotNull CompletionStage<T> stage) throws DynamicStatusStoreException {
+        try {
+            return stage.toCompletableFuture().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DynamicStatusStoreException("Interrupted waiting for the DSS", e);
+        } catch (ExecutionException e) {
+            throw toDynamicStatusStoreException(e.getCause());
+        }
+    }
+
+    /**
+     * Wait for several DSS requests to complete. Every request is waited for even
+     * if one fails, the first failure is then reported.
+     * 
+     * @param stages - the requests
+     * @return the results of the requests, in the same order
+     * @throws DynamicStatusStoreException if any request failed or the wait was
+     *                                     interrupted
+     */
+    public static <T> List<T> waitForAll(@NotNull Collection<? extends CompletionStage<T>> stages)
+            throws DynamicStatusStoreException {
+        List<CompletableFuture<T>> futures = new ArrayList<>(stages.size());
+        for (CompletionStage<T> stage : stages) {
+            futures.add(stage.toCompletableFuture());
+        }
+
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).join();
+        } catch (CompletionException e) {
+            // *** Reported from the first failed request below
+        }
+
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            results.add(waitFor(future));
+        }
+        return results;
+    }
+
+    private static DynamicStatusStoreException toDynamicStatusStoreException(Throwable cause) {
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof DynamicStatusStoreException) {
+            return (DynamicStatusStoreException) cause;
+        }
+        return new DynamicStatusStoreException("DSS request failed", cause);
+    }
+}
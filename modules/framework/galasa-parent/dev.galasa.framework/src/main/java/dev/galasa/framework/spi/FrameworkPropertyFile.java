@@ -59,6 +59,7 @@ public class FrameworkPropertyFile implements FileAlterationListener {
     private String                 parent;
     private FileAlterationObserver observer;
     private FileAlterationMonitor  monitor;
+    private FrameworkPropertyFileJournal journal;
     private static Log             fpfLog            = LogFactory.getLog(FrameworkPropertyFile.class);
 
     /**
@@ -73,10 +74,37 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      */
 
     public FrameworkPropertyFile(URI file) throws FrameworkPropertyFileException {
+        this(file, false);
+    }
+
+    /**
+     * <p>
+     * In journalled mode the properties are held in a sorted map, changes are appended
+     * to a journal file next to the properties file rather than rewriting it, and
+     * changes made by other processes are picked up by watching the journal rather than
+     * by checking the file on every read. See {@link FrameworkPropertyFileJournal}.
+     * </p>
+     * 
+     * <p>
+     * The properties file is only brought up to date when the journal is compacted, so
+     * journalled mode must only be used for files which nothing else reads or writes
+     * directly.
+     * </p>
+     * 
+     * @param file       - URI of the java properties file
+     * @param journalled - true to use the journalled mode
+     * @throws FrameworkPropertyFileException
+     */
+    public FrameworkPropertyFile(URI file, boolean journalled) throws FrameworkPropertyFileException {
         this.file = file;
         this.propertyFile = new File(file);
         this.parent = propertyFile.getParent();
 
+        if (journalled) {
+            this.journal = new FrameworkPropertyFileJournal(propertyFile.toPath());
+            return;
+        }
+
         load();
 
         IOFileFilter filter = FileFilterUtils.nameFileFilter(propertyFile.getName());
@@ -98,6 +126,9 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      * @return - corresponding value from the key, null if non-exsisting
      */
     public synchronized String get(final String key) {
+        if (journal != null) {
+            return journal.get(key);
+        }
         observer.checkAndNotify();
         return currentProperties.getProperty(key);
 
@@ -114,6 +145,9 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      * @return A map of any size or null. The key is a string which starts with the specified prefix.
      */
     public synchronized Map<String, String> getPrefix(String keyPrefix) {
+        if (journal != null) {
+            return journal.getPrefix(keyPrefix);
+        }
         Map<String, String> values = new HashMap<>();
         observer.checkAndNotify();
         for (Object k : currentProperties.keySet()) {
@@ -134,6 +168,9 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      * @return - List of namespaces
      */
     public synchronized List<String> getNamespaces() {
+        if (journal != null) {
+            return journal.getNamespaces();
+        }
         List<String> namespaces = new ArrayList<>();
         observer.checkAndNotify();
         for (Object k : currentProperties.keySet()) {
@@ -156,6 +193,10 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      * @throws FrameworkPropertyFileException
      */
     public synchronized void delete(String key) throws FrameworkPropertyFileException {
+        if (journal != null) {
+            journal.delete(Set.of(key));
+            return;
+        }
         // Make the current properties as close to the values in the file as 
         // we can. So when we write they are up-to-date.
         if (observer!=null) {
@@ -185,6 +226,10 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      * @throws FrameworkPropertyFileException
      */
     public synchronized void delete(Set<String> keys) throws FrameworkPropertyFileException {
+        if (journal != null) {
+            journal.delete(keys);
+            return;
+        }
         // Make the current properties as close to the values in the file as 
         // we can. So when we write they are up-to-date.
         if (observer!=null) {
@@ -216,6 +261,10 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      * @throws FrameworkPropertyFileException
      */
     public synchronized void deletePrefix(String prefix) throws FrameworkPropertyFileException {
+        if (journal != null) {
+            journal.deletePrefix(prefix);
+            return;
+        }
         Set<String> deleteKeys = new HashSet<>();
 
         // refresh our cache of properties from the file contents.
@@ -263,6 +312,10 @@ public class FrameworkPropertyFile implements FileAlterationListener {
     }
 
     public synchronized void performActions(IDssAction... actions) throws DynamicStatusStoreException, DynamicStatusStoreMatchException {
+        if (journal != null) {
+            journal.performActions(actions);
+            return;
+        }
         synchronized (FrameworkPropertyFile.class) {
             try (FileChannel fileChannel = getWriteChannel(false)) {
                 Properties oldProperties = (Properties) this.currentProperties.clone();
@@ -394,6 +447,10 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      * @throws FrameworkPropertyFileException
      */
     public synchronized void set(String key, String value) throws FrameworkPropertyFileException {
+        if (journal != null) {
+            journal.set(key, value);
+            return;
+        }
 
         if (observer!=null) {
             observer.checkAndNotify();
@@ -426,6 +483,10 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      * @throws IOException
      */
     public synchronized void set(Map<String, String> values) throws FrameworkPropertyFileException, IOException {
+        if (journal != null) {
+            journal.set(values);
+            return;
+        }
         if (observer!=null) {
             observer.checkAndNotify();
         }
@@ -467,6 +528,9 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      */
     public synchronized UUID watch(IFrameworkPropertyFileWatcher watcher, String key)
             throws FrameworkPropertyFileException {
+        if (journal != null) {
+            return journal.watch(watcher, key, false);
+        }
         if (monitor == null) {
             monitor = new FileAlterationMonitor(50, observer);
             try {
@@ -492,6 +556,10 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      * @throws FrameworkPropertyFileException
      */
     public synchronized void unwatch(UUID watchId) throws FrameworkPropertyFileException {
+        if (journal != null) {
+            journal.unwatch(watchId);
+            return;
+        }
         this.watches.remove(watchId);
 
         if (this.watches.isEmpty() && this.monitor != null) {
@@ -518,6 +586,9 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      */
     public synchronized UUID watchPrefix(IFrameworkPropertyFileWatcher watcher, String keyPrefix)
             throws FrameworkPropertyFileException {
+        if (journal != null) {
+            return journal.watch(watcher, keyPrefix, true);
+        }
         if (monitor == null) {
             monitor = new FileAlterationMonitor(50, observer);
             try {
@@ -558,6 +629,9 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      */
     public synchronized boolean setAtomic(String key, String oldValue, String newValue)
             throws FrameworkPropertyFileException {
+        if (journal != null) {
+            return journal.setAtomic(key, oldValue, newValue, null);
+        }
 
         if (observer!=null) {
             observer.checkAndNotify();
@@ -613,6 +687,9 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      */
     public synchronized boolean setAtomic(String key, String oldValue, String newValue, Map<String, String> otherValues)
             throws FrameworkPropertyFileException {
+        if (journal != null) {
+            return journal.setAtomic(key, oldValue, newValue, otherValues);
+        }
 
         if (observer!=null) {
             observer.checkAndNotify();
@@ -653,6 +730,10 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      * @throws FrameworkPropertyFileException
      */
     public synchronized void destroy() throws FrameworkPropertyFileException {
+        if (journal != null) {
+            journal.destroy();
+            return;
+        }
         currentProperties = null;
         observer = null;
         try {
@@ -765,6 +846,10 @@ public class FrameworkPropertyFile implements FileAlterationListener {
      * @throws FrameworkPropertyFileException
      */
     public synchronized void load() throws FrameworkPropertyFileException {
+        if (journal != null) {
+            journal.reload();
+            return;
+        }
         Properties newProperties = new Properties();
         synchronized (FrameworkPropertyFile.class) {
             try (FileChannel fileChannel = getReadChannel(true)) {
@@ -916,6 +1001,10 @@ public class FrameworkPropertyFile implements FileAlterationListener {
     }
 
     public synchronized void shutdown() throws FrameworkPropertyFileException {
+        if (journal != null) {
+            journal.shutdown();
+            return;
+        }
         if (this.monitor != null) {
             try {
                 this.monitor.removeObserver(this.observer);
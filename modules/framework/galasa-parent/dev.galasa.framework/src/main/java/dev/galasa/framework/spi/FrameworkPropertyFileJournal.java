@@ -0,0 +1,847 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.spi;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import dev.galasa.framework.spi.IFrameworkPropertyFileWatcher.Event;
+
+/**
+ * The journalled mode of a {@link FrameworkPropertyFile}.
+ *
+ * The properties are held in a sorted map, so a prefix query only visits the keys with
+ * that prefix. Each change is appended to a journal file next to the property file as a
+ * single JSON line, so a write costs the size of the change rather than the size of the
+ * whole file. Once the journal is bigger than the property file it is compacted, by
+ * writing every property to the property file and starting a new journal.
+ *
+ * Reads are answered from memory. Changes made by other processes are read from the
+ * journal when a WatchService reports that it has changed, and always before a change
+ * is made, so conditional changes are checked against the latest values.
+ *
+ * The first line of the journal holds a generation id, which changes every time the
+ * journal is started again, and the modification time of the property file it applies
+ * to. Every process using the property file must use the journalled mode, as the property
+ * file alone does not hold the changes made since the last compaction.
+ *
+ * Changes are serialised across processes with a lock file. File locks are held per
+ * process, so threads in this process also take turns, on a monitor kept for each lock
+ * file, leaving journals of different files free to change at the same time.
+ */
+class FrameworkPropertyFileJournal {
+
+    static final String         JOURNAL_SUFFIX           = ".journal";
+    private static final String LOCK_SUFFIX              = ".lock";
+    private static final String TEMP_SUFFIX              = ".tmp";
+
+    // *** Compact once the journal is bigger than both this and the property file
+    private static final long   COMPACTION_MINIMUM_BYTES = 1024 * 1024;
+
+    private static final int    MAX_HEADER_BYTES         = 1024;
+
+    private static final Map<Path, Object> FILE_MONITORS = new ConcurrentHashMap<>();
+
+    private final Log           logger                   = LogFactory.getLog(getClass());
+
+    private final Path          propertyFile;
+    private final Path          journalFile;
+    private final Path          lockFile;
+    private final Object        fileMonitor;
+
+    private final TreeMap<String, String> properties     = new TreeMap<>();
+    private final Map<UUID, Watch>        watches        = new HashMap<>();
+
+    // *** How much of which journal has been read
+    private String              generation;
+    private long                readOffset;
+    private long                propertyFileSize;
+
+    private WatchService        watchService;
+
+    /**
+     * A change made to a property, reported to the watches
+     */
+    private static class Change {
+        private final String key;
+        private final String oldValue;
+        private final String newValue;
+
+        private Change(String key, String oldValue, String newValue) {
+            this.key = key;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+    }
+
+    /**
+     * The changes to be made by a single line of the journal. Values read through the
+     * record include the changes already made to it.
+     */
+    private class JournalRecord {
+        private final Map<String, String> set    = new LinkedHashMap<>();
+        private final Set<String>         delete = new LinkedHashSet<>();
+
+        private String get(String key) {
+            if (set.containsKey(key)) {
+                return set.get(key);
+            }
+            if (delete.contains(key)) {
+                return null;
+            }
+            return properties.get(key);
+        }
+
+        private void put(String key, String value) {
+            delete.remove(key);
+            set.put(key, value);
+        }
+
+        private void remove(String key) {
+            set.remove(key);
+            delete.add(key);
+        }
+
+        private Set<String> keysWithPrefix(String prefix) {
+            Set<String> keys = new LinkedHashSet<>(prefixMap(prefix).keySet());
+            keys.removeAll(delete);
+            for (String key : set.keySet()) {
+                if (key.startsWith(prefix)) {
+                    keys.add(key);
+                }
+            }
+            return keys;
+        }
+
+        private boolean isEmpty() {
+            return set.isEmpty() && delete.isEmpty();
+        }
+
+        private String toJson() {
+            JsonObject json = new JsonObject();
+            if (!set.isEmpty()) {
+                JsonObject setJson = new JsonObject();
+                for (Map.Entry<String, String> entry : set.entrySet()) {
+                    setJson.addProperty(entry.getKey(), entry.getValue());
+                }
+                json.add("set", setJson);
+            }
+            if (!delete.isEmpty()) {
+                JsonArray deleteJson = new JsonArray();
+                for (String key : delete) {
+                    deleteJson.add(key);
+                }
+                json.add("delete", deleteJson);
+            }
+            return json.toString();
+        }
+    }
+
+    private interface Update {
+        boolean apply(JournalRecord record) throws DynamicStatusStoreException;
+    }
+
+    private interface LockedAction<T, E extends Exception> {
+        T run() throws IOException, E;
+    }
+
+    FrameworkPropertyFileJournal(Path propertyFile) throws FrameworkPropertyFileException {
+        this.propertyFile = propertyFile;
+        this.journalFile = propertyFile.resolveSibling(propertyFile.getFileName() + JOURNAL_SUFFIX);
+        this.lockFile = propertyFile.resolveSibling(propertyFile.getFileName() + LOCK_SUFFIX);
+        this.fileMonitor = FILE_MONITORS.computeIfAbsent(lockFile.toAbsolutePath().normalize(), path -> new Object());
+
+        try {
+            withFileLock(() -> {
+                load(new ArrayList<>());
+                return null;
+            });
+        } catch (IOException e) {
+            throw new FrameworkPropertyFileException("Unable to load the journalled property file: " + propertyFile, e);
+        }
+
+        startWatchService();
+    }
+
+    synchronized String get(String key) {
+        refreshIfNotWatching();
+        return properties.get(key);
+    }
+
+    synchronized Map<String, String> getPrefix(String keyPrefix) {
+        refreshIfNotWatching();
+        return new HashMap<>(prefixMap(keyPrefix));
+    }
+
+    synchronized List<String> getNamespaces() {
+        refreshIfNotWatching();
+        List<String> namespaces = new ArrayList<>();
+        for (String key : properties.keySet()) {
+            int dot = key.indexOf('.');
+            if (dot < 0) {
+                continue;
+            }
+            String name = key.substring(0, dot);
+            if (namespaces.isEmpty() || !namespaces.get(namespaces.size() - 1).equals(name)) {
+                // *** The keys are sorted, so each namespace only appears in one run
+                namespaces.add(name);
+            }
+        }
+        return namespaces;
+    }
+
+    synchronized void set(String key, String value) throws FrameworkPropertyFileException {
+        updateProperties("Failed Setting value: " + key + "=" + value, record -> {
+            record.put(key, value);
+            return true;
+        });
+    }
+
+    synchronized void set(Map<String, String> values) throws FrameworkPropertyFileException {
+        updateProperties("Unable to set values", record -> {
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                record.put(entry.getKey(), entry.getValue());
+            }
+            return true;
+        });
+    }
+
+    synchronized boolean setAtomic(String key, String oldValue, String newValue, Map<String, String> otherValues)
+            throws FrameworkPropertyFileException {
+        return updateProperties("Failed to set atomically", record -> {
+            String currentValue = record.get(key);
+            if (oldValue == null ? currentValue != null : !oldValue.equals(currentValue)) {
+                return false;
+            }
+
+            record.put(key, newValue);
+            if (otherValues != null) {
+                for (Map.Entry<String, String> entry : otherValues.entrySet()) {
+                    record.put(entry.getKey(), entry.getValue());
+                }
+            }
+            return true;
+        });
+    }
+
+    synchronized void delete(Set<String> keys) throws FrameworkPropertyFileException {
+        updateProperties("Unable to delete keys.", record -> {
+            for (String key : keys) {
+                if (record.get(key) != null) {
+                    record.remove(key);
+                }
+            }
+            return true;
+        });
+    }
+
+    synchronized void deletePrefix(String prefix) throws FrameworkPropertyFileException {
+        updateProperties("Unable to delete key prefix: " + prefix, record -> {
+            for (String key : record.keysWithPrefix(prefix)) {
+                record.remove(key);
+            }
+            return true;
+        });
+    }
+
+    synchronized void performActions(IDssAction... actions) throws DynamicStatusStoreException {
+        try {
+            update(record -> {
+                for (IDssAction action : actions) {
+                    performAction(record, action);
+                }
+                return true;
+            });
+        } catch (IOException e) {
+            logger.error("Failed to update file with DSS actions", e);
+            throw new DynamicStatusStoreException("Failed to update file with DSS actions", e);
+        }
+    }
+
+    synchronized UUID watch(IFrameworkPropertyFileWatcher watcher, String key, boolean prefix) {
+        UUID watchID = UUID.randomUUID();
+        this.watches.put(watchID, new Watch(watcher, key, prefix));
+        return watchID;
+    }
+
+    synchronized void unwatch(UUID watchId) {
+        this.watches.remove(watchId);
+    }
+
+    /**
+     * Reload the properties from the property file and the journal
+     */
+    synchronized void reload() throws FrameworkPropertyFileException {
+        List<Change> changes = new ArrayList<>();
+        try {
+            withFileLock(() -> {
+                load(changes);
+                return null;
+            });
+        } catch (IOException e) {
+            throw new FrameworkPropertyFileException("Unable to load the journalled property file: " + propertyFile, e);
+        } finally {
+            notifyWatches(changes);
+        }
+    }
+
+    /**
+     * Stop watching for changes and write the journal into the property file, so the
+     * property file is up to date for anything that reads it directly
+     */
+    synchronized void shutdown() throws FrameworkPropertyFileException {
+        stopWatchService();
+        this.watches.clear();
+
+        try {
+            withFileLock(() -> {
+                catchUp(new ArrayList<>());
+                if (readOffset > readHeaderLength()) {
+                    compact();
+                }
+                return null;
+            });
+        } catch (IOException e) {
+            throw new FrameworkPropertyFileException("Unable to compact the journal of " + propertyFile, e);
+        }
+    }
+
+    synchronized void destroy() {
+        stopWatchService();
+        this.watches.clear();
+        this.properties.clear();
+    }
+
+    private void performAction(JournalRecord record, IDssAction action) throws DynamicStatusStoreException {
+        if (action instanceof DssAdd) {
+            DssAdd dssAdd = (DssAdd) action;
+            if (record.get(dssAdd.getKey()) != null) {
+                throw new DynamicStatusStoreMatchException("Attempt to add new property '" + dssAdd.getKey() + "' but it already exists");
+            }
+            record.put(dssAdd.getKey(), dssAdd.getValue());
+        } else if (action instanceof DssDelete) {
+            DssDelete dssDelete = (DssDelete) action;
+            String currentValue = record.get(dssDelete.getKey());
+            if (dssDelete.getOldValue() != null && !dssDelete.getOldValue().equals(currentValue)) {
+                throw new DynamicStatusStoreMatchException("Attempt to delete property '" + dssDelete.getKey() + "', but current value '" + currentValue + "' does not match required value '" + dssDelete.getOldValue() + "'");
+            }
+            if (currentValue != null) {
+                record.remove(dssDelete.getKey());
+            }
+        } else if (action instanceof DssDeletePrefix) {
+            for (String key : record.keysWithPrefix(((DssDeletePrefix) action).getPrefix())) {
+                record.remove(key);
+            }
+        } else if (action instanceof DssUpdate) {
+            DssUpdate dssUpdate = (DssUpdate) action;
+            record.put(dssUpdate.getKey(), dssUpdate.getValue());
+        } else if (action instanceof DssSwap) {
+            DssSwap dssSwap = (DssSwap) action;
+            String currentValue = record.get(dssSwap.getKey());
+            if (!Objects.equals(dssSwap.getOldValue(), currentValue)) {
+                throw new DynamicStatusStoreMatchException("Attempt to swap property '" + dssSwap.getKey() + "', but current value '" + currentValue + "' does not match required value '" + dssSwap.getOldValue() + "'");
+            }
+            record.put(dssSwap.getKey(), dssSwap.getNewValue());
+        } else {
+            throw new DynamicStatusStoreException("Unrecognised DSS Action - " + action.getClass().getName());
+        }
+    }
+
+    private boolean updateProperties(String failureMessage, Update update) throws FrameworkPropertyFileException {
+        try {
+            return update(update);
+        } catch (IOException | DynamicStatusStoreException e) {
+            logger.error(failureMessage, e);
+            throw new FrameworkPropertyFileException(failureMessage, e);
+        }
+    }
+
+    /**
+     * Make a change while holding the lock, after reading any changes made by other processes
+     *
+     * @return false if the update decided not to make the change
+     */
+    private boolean update(Update update) throws IOException, DynamicStatusStoreException {
+        List<Change> changes = new ArrayList<>();
+        try {
+            return withFileLock(() -> {
+                catchUp(changes);
+
+                JournalRecord record = new JournalRecord();
+                if (!update.apply(record)) {
+                    return false;
+                }
+                if (record.isEmpty()) {
+                    return true;
+                }
+
+                append(record);
+                apply(record, changes);
+
+                if (readOffset > Math.max(COMPACTION_MINIMUM_BYTES, propertyFileSize)) {
+                    compact();
+                }
+                return true;
+            });
+        } finally {
+            notifyWatches(changes);
+        }
+    }
+
+    private void refreshIfNotWatching() {
+        if (watchService == null) {
+            notifyWatches(readChanges());
+        }
+    }
+
+    /**
+     * Read any changes made by other processes
+     *
+     * @return the changes read
+     */
+    private synchronized List<Change> readChanges() {
+        List<Change> changes = new ArrayList<>();
+        try {
+            withFileLock(() -> {
+                catchUp(changes);
+                return null;
+            });
+        } catch (IOException e) {
+            logger.error("Error encounted loading file changes", e);
+        }
+        return changes;
+    }
+
+    /**
+     * Read the records added to the journal since it was last read, or load everything
+     * again if the journal has been started again. Must be called holding the lock.
+     */
+    private void catchUp(List<Change> changes) throws IOException {
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.READ)) {
+            JsonObject header = readHeader(channel);
+            if (header == null || !Objects.equals(getString(header, "generation"), generation) || channel.size() < readOffset) {
+                load(changes);
+                return;
+            }
+            readRecords(channel, changes);
+        } catch (NoSuchFileException e) {
+            load(changes);
+        }
+    }
+
+    /**
+     * Load the property file and apply the journal to it. Must be called holding the lock.
+     */
+    private void load(List<Change> changes) throws IOException {
+        Map<String, String> oldProperties = new HashMap<>(properties);
+        properties.clear();
+
+        if (Files.exists(propertyFile)) {
+            Properties fileProperties = new Properties();
+            try (InputStream in = Files.newInputStream(propertyFile)) {
+                fileProperties.load(in);
+            }
+            for (String key : fileProperties.stringPropertyNames()) {
+                properties.put(key, fileProperties.getProperty(key));
+            }
+            propertyFileSize = Files.size(propertyFile);
+        } else {
+            propertyFileSize = 0;
+        }
+
+        boolean journalRead = false;
+        if (Files.exists(journalFile)) {
+            try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.READ)) {
+                JsonObject header = readHeader(channel);
+                if (header == null) {
+                    logger.warn("The journal of " + propertyFile + " has no header, so it is being discarded");
+                } else if (!Objects.equals(getString(header, "propertyFileModified"), getPropertyFileModified())) {
+                    // *** The property file has been changed by something not using the journal,
+                    // *** so the journal no longer applies to it
+                    logger.warn("The property file " + propertyFile + " has changed since its journal was started, so the journal is being discarded");
+                } else {
+                    generation = getString(header, "generation");
+                    readOffset = readHeaderLength(channel);
+                    readRecords(channel, new ArrayList<>());
+                    journalRead = true;
+                }
+            }
+        }
+
+        if (!journalRead) {
+            startJournal();
+        }
+
+        // *** Work out what has changed for the watches
+        for (Map.Entry<String, String> entry : properties.entrySet()) {
+            String oldValue = oldProperties.remove(entry.getKey());
+            if (!entry.getValue().equals(oldValue)) {
+                changes.add(new Change(entry.getKey(), oldValue, entry.getValue()));
+            }
+        }
+        for (Map.Entry<String, String> entry : oldProperties.entrySet()) {
+            changes.add(new Change(entry.getKey(), entry.getValue(), null));
+        }
+    }
+
+    /**
+     * Read and apply the complete records added since the last read. A record still being
+     * written has no newline yet, so it is left for the next read.
+     */
+    private void readRecords(FileChannel channel, List<Change> changes) throws IOException {
+        long size = channel.size();
+        if (size <= readOffset) {
+            return;
+        }
+        if (size - readOffset > Integer.MAX_VALUE) {
+            throw new IOException("The journal of " + propertyFile + " is too large to read");
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) (size - readOffset));
+        long position = readOffset;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            position += read;
+        }
+
+        byte[] bytes = buffer.array();
+        int lineStart = 0;
+        for (int i = 0; i < buffer.position(); i++) {
+            if (bytes[i] == '\n') {
+                String line = new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8);
+                if (!line.isBlank()) {
+                    apply(parseRecord(line), changes);
+                }
+                lineStart = i + 1;
+            }
+        }
+        readOffset += lineStart;
+    }
+
+    private JournalRecord parseRecord(String line) throws IOException {
+        JournalRecord record = new JournalRecord();
+        try {
+            JsonObject json = JsonParser.parseString(line).getAsJsonObject();
+            JsonElement set = json.get("set");
+            if (set != null) {
+                for (Map.Entry<String, JsonElement> entry : set.getAsJsonObject().entrySet()) {
+                    record.set.put(entry.getKey(), entry.getValue().getAsString());
+                }
+            }
+            JsonElement delete = json.get("delete");
+            if (delete != null) {
+                for (JsonElement key : delete.getAsJsonArray()) {
+                    record.delete.add(key.getAsString());
+                }
+            }
+        } catch (RuntimeException e) {
+            throw new IOException("Unable to read a record from the journal of " + propertyFile, e);
+        }
+        return record;
+    }
+
+    private void apply(JournalRecord record, List<Change> changes) {
+        for (String key : record.delete) {
+            String oldValue = properties.remove(key);
+            if (oldValue != null) {
+                changes.add(new Change(key, oldValue, null));
+            }
+        }
+        for (Map.Entry<String, String> entry : record.set.entrySet()) {
+            String oldValue = properties.put(entry.getKey(), entry.getValue());
+            if (!entry.getValue().equals(oldValue)) {
+                changes.add(new Change(entry.getKey(), oldValue, entry.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Append a record with a single write, so readers never see part of one
+     */
+    private void append(JournalRecord record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap((record.toJson() + "\n").getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            readOffset = channel.size();
+        }
+    }
+
+    /**
+     * Write every property to the property file and start a new journal. Must be called
+     * holding the lock.
+     */
+    private void compact() throws IOException {
+        Properties fileProperties = new Properties();
+        fileProperties.putAll(properties);
+
+        Path tempFile = propertyFile.resolveSibling(propertyFile.getFileName() + TEMP_SUFFIX);
+        try (OutputStream out = Files.newOutputStream(tempFile)) {
+            fileProperties.store(out, null);
+        }
+        moveReplacing(tempFile, propertyFile);
+        propertyFileSize = Files.size(propertyFile);
+
+        // *** If we stop here the old journal is applied again to the new property file,
+        // *** which does no harm as the property file already holds its changes
+        startJournal();
+    }
+
+    /**
+     * Replace the journal with an empty one for the current property file
+     */
+    private void startJournal() throws IOException {
+        generation = UUID.randomUUID().toString();
+
+        JsonObject header = new JsonObject();
+        header.addProperty("generation", generation);
+        header.addProperty("propertyFileModified", getPropertyFileModified());
+        byte[] headerBytes = (header.toString() + "\n").getBytes(StandardCharsets.UTF_8);
+
+        Path tempFile = journalFile.resolveSibling(journalFile.getFileName() + TEMP_SUFFIX);
+        Files.write(tempFile, headerBytes);
+        moveReplacing(tempFile, journalFile);
+        readOffset = headerBytes.length;
+    }
+
+    private void moveReplacing(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private String getPropertyFileModified() throws IOException {
+        if (!Files.exists(propertyFile)) {
+            return null;
+        }
+        return Long.toString(Files.getLastModifiedTime(propertyFile).toMillis());
+    }
+
+    private JsonObject readHeader(FileChannel channel) throws IOException {
+        String header = readHeaderLine(channel);
+        if (header == null) {
+            return null;
+        }
+        try {
+            return JsonParser.parseString(header).getAsJsonObject();
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private long readHeaderLength(FileChannel channel) throws IOException {
+        String header = readHeaderLine(channel);
+        return header == null ? 0 : header.getBytes(StandardCharsets.UTF_8).length + 1;
+    }
+
+    private long readHeaderLength() throws IOException {
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.READ)) {
+            return readHeaderLength(channel);
+        }
+    }
+
+    private String readHeaderLine(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_HEADER_BYTES);
+        long position = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            position += read;
+        }
+
+        byte[] bytes = buffer.array();
+        for (int i = 0; i < buffer.position(); i++) {
+            if (bytes[i] == '\n') {
+                return new String(bytes, 0, i, StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private String getString(JsonObject json, String name) {
+        JsonElement element = json.get(name);
+        if (element == null || element.isJsonNull()) {
+            return null;
+        }
+        return element.getAsString();
+    }
+
+    private Map<String, String> prefixMap(String prefix) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : properties.tailMap(prefix, true).entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            values.put(entry.getKey(), entry.getValue());
+        }
+        return values;
+    }
+
+    /**
+     * Run the action holding the lock file, after any other thread of this process using
+     * the same property file has finished with it
+     */
+    private <T, E extends Exception> T withFileLock(LockedAction<T, E> action) throws IOException, E {
+        synchronized (fileMonitor) {
+            try (FileChannel lockChannel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock lock = lockChannel.lock();
+                try {
+                    return action.run();
+                } finally {
+                    lock.release();
+                }
+            }
+        }
+    }
+
+    private void notifyWatches(List<Change> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        List<Watch> currentWatches;
+        synchronized (this) {
+            currentWatches = new ArrayList<>(watches.values());
+        }
+        for (Watch watch : currentWatches) {
+            for (Change change : changes) {
+                if (watch.matchKey(change.key)) {
+                    Event event;
+                    if (change.oldValue == null) {
+                        event = Event.NEW;
+                    } else if (change.newValue == null) {
+                        event = Event.DELETE;
+                    } else {
+                        event = Event.MODIFIED;
+                    }
+                    watch.watcher.propertyModified(change.key, event, change.oldValue, change.newValue);
+                }
+            }
+        }
+    }
+
+    /**
+     * Watch the directory for changes to the journal, so changes made by other processes
+     * are picked up without checking the file on every read
+     */
+    private void startWatchService() {
+        try {
+            watchService = journalFile.getFileSystem().newWatchService();
+            journalFile.toAbsolutePath().getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.warn("Unable to watch " + journalFile + " for changes, it will be checked on every read", e);
+            stopWatchService();
+            return;
+        }
+
+        WatchService service = watchService;
+        Thread watchThread = new Thread(() -> watchJournal(service), "fpf-journal-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    private void watchJournal(WatchService service) {
+        String journalName = journalFile.getFileName().toString();
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                            || journalName.equals(String.valueOf(event.context()))) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+
+                if (changed) {
+                    // *** The watches are told outside of our lock, as they may call back
+                    // *** into the property file from this thread
+                    notifyWatches(readChanges());
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            // *** Shut down
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void stopWatchService() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.warn("Unable to stop watching " + journalFile, e);
+            }
+            watchService = null;
+        }
+    }
+
+    private static class Watch {
+        private final IFrameworkPropertyFileWatcher watcher;
+        private final String                        key;
+        private final boolean                       prefix;
+
+        private Watch(IFrameworkPropertyFileWatcher watcher, String key, boolean prefix) {
+            this.watcher = watcher;
+            this.key = key;
+            this.prefix = prefix;
+        }
+
+        private boolean matchKey(String newKey) {
+            if (prefix) {
+                return newKey.startsWith(key);
+            }
+            return newKey.equals(key);
+        }
+    }
+}
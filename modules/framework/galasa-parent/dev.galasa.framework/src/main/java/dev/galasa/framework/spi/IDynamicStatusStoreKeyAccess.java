@@ -5,9 +5,12 @@
  */
 package dev.galasa.framework.spi;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Null;
@@ -80,6 +83,29 @@ public interface IDynamicStatusStoreKeyAccess {
     boolean putSwap(@NotNull String key, String oldValue, @NotNull String newValue, @NotNull Map<String, String> others)
             throws DynamicStatusStoreException;
 
+    /**
+     * <p>
+     * Store a key value pair attached to a new lease. The store deletes the key if the
+     * lease is not kept alive within the time to live.
+     * </p>
+     * 
+     * <p>
+     * Not every store supports leases, those that do not return null and the caller
+     * should fall back to maintaining the key itself.
+     * </p>
+     * 
+     * @param key        - the key to use
+     * @param value      - the value to use
+     * @param ttlSeconds - how long the lease lasts without being kept alive
+     * @return the lease, or null if the store does not support leases
+     * @throws DynamicStatusStoreException
+     */
+    @Null
+    default IDynamicStatusStoreLease putWithLease(@NotNull String key, @NotNull String value, long ttlSeconds)
+            throws DynamicStatusStoreException {
+        return null;
+    }
+
     /**
      * <p>
      * Retrieves a string property from the Dynamic Status Store
@@ -185,4 +211,160 @@ public interface IDynamicStatusStoreKeyAccess {
      */
     void unwatch(UUID watchId) throws DynamicStatusStoreException;
 
+    /**
+     * Retrieve the values of several keys at once
+     * 
+     * @param keys - the keys to retrieve
+     * @return A map of the keys that exist to their values
+     * @throws DynamicStatusStoreException
+     */
+    @NotNull
+    default Map<String, String> get(@NotNull Set<String> keys) throws DynamicStatusStoreException {
+        HashMap<String, String> values = new HashMap<>();
+        for (String key : keys) {
+            String value = get(key);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
+    // ***
+    // *** The asynchronous methods below let a caller start several independent DSS
+    // *** requests and wait for them together. Stores which cannot work asynchronously
+    // *** do the work before returning a completed stage, so a failure is reported
+    // *** through the stage in every case. DynamicStatusStoreFutures.waitFor() waits
+    // *** for a stage and reports any failure as a DynamicStatusStoreException.
+    // ***
+
+    /**
+     * Asynchronous {@link #put(String, String)}
+     */
+    default CompletionStage<Void> putAsync(@NotNull String key, @NotNull String value) {
+        try {
+            put(key, value);
+            return CompletableFuture.completedFuture(null);
+        } catch (DynamicStatusStoreException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Asynchronous {@link #put(Map)}
+     */
+    default CompletionStage<Void> putAsync(@NotNull Map<String, String> keyValues) {
+        try {
+            put(keyValues);
+            return CompletableFuture.completedFuture(null);
+        } catch (DynamicStatusStoreException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Asynchronous {@link #putSwap(String, String, String)}
+     */
+    default CompletionStage<Boolean> putSwapAsync(@NotNull String key, String oldValue, @NotNull String newValue) {
+        try {
+            return CompletableFuture.completedFuture(putSwap(key, oldValue, newValue));
+        } catch (DynamicStatusStoreException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Asynchronous {@link #putSwap(String, String, String, Map)}
+     */
+    default CompletionStage<Boolean> putSwapAsync(@NotNull String key, String oldValue, @NotNull String newValue,
+            @NotNull Map<String, String> others) {
+        try {
+            return CompletableFuture.completedFuture(putSwap(key, oldValue, newValue, others));
+        } catch (DynamicStatusStoreException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Asynchronous {@link #get(String)}
+     */
+    default CompletionStage<String> getAsync(@NotNull String key) {
+        try {
+            return CompletableFuture.completedFuture(get(key));
+        } catch (DynamicStatusStoreException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Asynchronous {@link #get(Set)}, a store may fetch all the keys in a single request
+     */
+    default CompletionStage<Map<String, String>> getAsync(@NotNull Set<String> keys) {
+        try {
+            return CompletableFuture.completedFuture(get(keys));
+        } catch (DynamicStatusStoreException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Asynchronous {@link #getPrefix(String)}
+     */
+    default CompletionStage<Map<String, String>> getPrefixAsync(@NotNull String keyPrefix) {
+        try {
+            return CompletableFuture.completedFuture(getPrefix(keyPrefix));
+        } catch (DynamicStatusStoreException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Asynchronous {@link #delete(String)}
+     */
+    default CompletionStage<Void> deleteAsync(@NotNull String key) {
+        try {
+            delete(key);
+            return CompletableFuture.completedFuture(null);
+        } catch (DynamicStatusStoreException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Asynchronous {@link #delete(Set)}
+     */
+    default CompletionStage<Void> deleteAsync(@NotNull Set<String> keys) {
+        try {
+            delete(keys);
+            return CompletableFuture.completedFuture(null);
+        } catch (DynamicStatusStoreException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Asynchronous {@link #deletePrefix(String)}
+     */
+    default CompletionStage<Void> deletePrefixAsync(@NotNull String keyPrefix) {
+        try {
+            deletePrefix(keyPrefix);
+            return CompletableFuture.completedFuture(null);
+        } catch (DynamicStatusStoreException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Asynchronous {@link #performActions(IDssAction...)}, the stage fails with a
+     * {@link DynamicStatusStoreMatchException} if the preconditions fail
+     */
+    default CompletionStage<Void> performActionsAsync(IDssAction... actions) {
+        try {
+            performActions(actions);
+            return CompletableFuture.completedFuture(null);
+        } catch (DynamicStatusStoreException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
 }
@@ -0,0 +1,37 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.spi;
+
+/**
+ * <p>
+ * A lease held in the Dynamic Status Store, obtained from
+ * {@link IDynamicStatusStoreKeyAccess#putWithLease(String, String, long)}.
+ * </p>
+ * 
+ * <p>
+ * The keys attached to the lease are deleted by the store when the lease is not
+ * kept alive within its time to live, so anything watching those keys sees them
+ * deleted without having to poll for them.
+ * </p>
+ */
+public interface IDynamicStatusStoreLease {
+
+    /**
+     * Renew the lease for another time to live
+     * 
+     * @return false if the lease has already expired, and so its keys have been deleted
+     * @throws DynamicStatusStoreException
+     */
+    boolean keepAlive() throws DynamicStatusStoreException;
+
+    /**
+     * Give up the lease, deleting the keys attached to it
+     * 
+     * @throws DynamicStatusStoreException
+     */
+    void revoke() throws DynamicStatusStoreException;
+
+}
@@ -15,4 +15,14 @@ public interface IDynamicStatusStoreWatcher {
 
     void propertyModified(String key, Event event, String oldValue, String newValue);
 
+    /**
+     * Called if the DSS stops the watch itself, eg the store could not keep the watch
+     * going, after which no more changes are reported. Not called when the watch is
+     * removed with unwatch.
+     * 
+     * @param cause the reason the watch stopped, or null if the store ended it normally
+     */
+    default void watchLost(Throwable cause) {
+    }
+
 }
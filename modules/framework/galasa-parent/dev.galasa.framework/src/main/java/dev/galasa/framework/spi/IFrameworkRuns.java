@@ -5,12 +5,15 @@
  */
 package dev.galasa.framework.spi;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 
 import javax.validation.constraints.NotNull;
 
+import dev.galasa.framework.beans.SubmitRunRequest;
+
 public interface IFrameworkRuns {
     
     public enum SharedEnvironmentPhase {
@@ -28,6 +31,28 @@ public interface IFrameworkRuns {
     @NotNull
     List<IRun> getAllRuns() throws FrameworkException;
 
+    /**
+     * Build all the runs that match the filter from a single scan of the run
+     * properties in the DSS.
+     * 
+     * @param filter the statuses, requestors and groups to select, an empty filter selects all runs
+     * @return the matching runs
+     * @throws FrameworkException if there is a problem accessing the DSS
+     */
+    @NotNull
+    List<IRun> getRunSnapshot(@NotNull RunFilter filter) throws FrameworkException;
+
+    /**
+     * Get the in-memory run registry for this framework, starting it if it has
+     * not been started already. Once started, the run queries on this interface
+     * are answered from the registry rather than by scanning the DSS.
+     * 
+     * @return the started run registry
+     * @throws FrameworkException if the registry cannot be primed from the DSS
+     */
+    @NotNull
+    IRunRegistry getRunRegistry() throws FrameworkException;
+
     @NotNull
     List<IRun> getAllGroupedRuns(@NotNull String groupName) throws FrameworkException;
 
@@ -39,6 +64,27 @@ public interface IFrameworkRuns {
             String mavenRepository, String obr, String stream, boolean local, boolean trace, Properties overrides,
             SharedEnvironmentPhase sharedEnvironmentPhase, String sharedEnvironmentRunName, String language) throws FrameworkException;
 
+    /**
+     * Submit a batch of runs. Implementations may reserve the run numbers for the
+     * whole batch at once and write the runs together, rather than submitting them
+     * one at a time.
+     * 
+     * @param runRequests the runs to submit, defaults are filled in on each request
+     * @return the submitted runs, in the same order as the requests
+     * @throws FrameworkException if any of the runs could not be submitted
+     */
+    @NotNull
+    default List<IRun> submitRuns(@NotNull List<SubmitRunRequest> runRequests) throws FrameworkException {
+        List<IRun> runs = new ArrayList<>(runRequests.size());
+        for (SubmitRunRequest runRequest : runRequests) {
+            runs.add(submitRun(runRequest.getRunType(), runRequest.getRequestor(), runRequest.getBundleName(),
+                runRequest.getTestName(), runRequest.getGroupName(), runRequest.getMavenRepository(), runRequest.getObr(),
+                runRequest.getStream(), runRequest.isLocalRun(), runRequest.isTraceEnabled(), runRequest.getOverrides(),
+                runRequest.getSharedEnvironmentPhase(), runRequest.getSharedEnvironmentRunName(), runRequest.getLanguage()));
+        }
+        return runs;
+    }
+
     boolean delete(String runname) throws DynamicStatusStoreException;
 
     IRun getRun(String runname) throws DynamicStatusStoreException;
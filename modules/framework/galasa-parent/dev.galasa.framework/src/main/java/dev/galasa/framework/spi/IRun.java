@@ -51,5 +51,11 @@ public interface IRun {
     
     boolean isSharedEnvironment();
 
+    /**
+     * @return true if the engine of the run holds a heartbeat lease, the DSS deleting
+     *         the lease key should the engine die
+     */
+    boolean isHeartbeatLeased();
+
     public String getGherkin();
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.spi;
+
+import java.util.List;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * <p>
+ * An in-memory view of all the runs in the DSS.
+ * </p>
+ * 
+ * <p>
+ * The registry is primed with a single scan of the run properties and is then
+ * kept up to date by a watch on the run prefix, so queries do not go back to
+ * the DSS. The runs are indexed by status, requestor, group and controller.
+ * </p>
+ * 
+ * <p>
+ * An {@link IRunRegistry} can be obtained from {@link IFrameworkRuns#getRunRegistry()}.
+ * </p>
+ */
+public interface IRunRegistry {
+
+    /**
+     * @param runName the name of the run
+     * @return the run, or null if the run is not in the DSS
+     */
+    IRun getRun(@NotNull String runName);
+
+    /**
+     * @param filter the statuses, requestors, groups and controllers to select, an empty filter selects all runs
+     * @return the matching runs
+     */
+    @NotNull
+    List<IRun> getRuns(@NotNull RunFilter filter);
+
+    void addListener(@NotNull IRunRegistryListener listener);
+
+    void removeListener(@NotNull IRunRegistryListener listener);
+
+    /**
+     * Reload all the runs from the DSS, in case a watch event has been missed
+     * 
+     * @throws DynamicStatusStoreException if there is a problem accessing the DSS
+     */
+    void refresh() throws DynamicStatusStoreException;
+
+    void shutdown();
+
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.spi;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Notified by an {@link IRunRegistry} when a run is added, changed or deleted in the DSS.
+ * 
+ * Notifications are delivered on the registry's own notification thread, and
+ * several property changes to the same run may be coalesced into a single call.
+ */
+public interface IRunRegistryListener {
+
+    /**
+     * @param runName        the name of the run that changed
+     * @param previousStatus the status of the run before the change, null if the run is new
+     * @param run            the run as it is now, null if the run has been deleted
+     */
+    void runChanged(@NotNull String runName, String previousStatus, IRun run);
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.spi;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Selects which runs are returned by {@link IFrameworkRuns#getRunSnapshot(RunFilter)}
+ * and {@link IRunRegistry#getRuns(RunFilter)}.
+ *
+ * The filter is applied to the raw run properties while the DSS scan is being
+ * processed, so runs that do not match are never built into {@link IRun} objects.
+ * An empty filter matches every run.
+ */
+public class RunFilter {
+
+    private final Set<String> statuses    = new HashSet<>();
+    private final Set<String> requestors  = new HashSet<>();
+    private final Set<String> groups      = new HashSet<>();
+    private final Set<String> controllers = new HashSet<>();
+
+    public RunFilter withStatuses(@NotNull String... statuses) {
+        for (String status : statuses) {
+            this.statuses.add(status);
+        }
+        return this;
+    }
+
+    public RunFilter withRequestors(@NotNull String... requestors) {
+        // *** Requestors are always stored in lowercase in the DSS
+        for (String requestor : requestors) {
+            this.requestors.add(requestor.toLowerCase());
+        }
+        return this;
+    }
+
+    public RunFilter withGroups(@NotNull String... groups) {
+        for (String group : groups) {
+            this.groups.add(group);
+        }
+        return this;
+    }
+
+    public RunFilter withControllers(@NotNull String... controllers) {
+        for (String controller : controllers) {
+            this.controllers.add(controller);
+        }
+        return this;
+    }
+
+    public boolean isMatched(String status, String requestor, String group, String controller) {
+        if (!statuses.isEmpty() && !statuses.contains(status)) {
+            return false;
+        }
+
+        if (!requestors.isEmpty() && (requestor == null || !requestors.contains(requestor.toLowerCase()))) {
+            return false;
+        }
+
+        if (!groups.isEmpty() && !groups.contains(group)) {
+            return false;
+        }
+
+        if (!controllers.isEmpty() && !controllers.contains(controller)) {
+            return false;
+        }
+
+        return true;
+    }
+
+    public Set<String> getStatuses() {
+        return statuses;
+    }
+
+    public Set<String> getRequestors() {
+        return requestors;
+    }
+
+    public Set<String> getGroups() {
+        return groups;
+    }
+
+    public Set<String> getControllers() {
+        return controllers;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.spi.ras;
+
+import java.util.Comparator;
+import java.util.Set;
+import java.util.function.Function;
+
+import javax.validation.constraints.NotNull;
+
+import dev.galasa.framework.spi.teststructure.TestStructure;
+
+/**
+ * Orders test structures by one of their fields, so runs can be sorted the same way
+ * by the RAS stores and by the code that merges their results.
+ *
+ * Runs without a value for the field come first in ascending order and last in
+ * descending order.
+ */
+public class RasTestStructureComparator implements Comparator<TestStructure> {
+
+    private static final Set<String> SUPPORTED_FIELDS = Set.of(
+        "queued", "startTime", "endTime", "testName", "testShortName", "result", "runName", "requestor", "bundle"
+    );
+
+    private final Comparator<TestStructure> comparator;
+
+    public RasTestStructureComparator(@NotNull RasSortField sortField) {
+        this(sortField.getFieldName(), !"desc".equalsIgnoreCase(sortField.getSortDirection()));
+    }
+
+    public RasTestStructureComparator(@NotNull String fieldName, boolean ascending) {
+        Comparator<TestStructure> fieldComparator;
+        switch (fieldName) {
+            case "queued":
+                fieldComparator = compareField(TestStructure::getQueued);
+                break;
+            case "startTime":
+                fieldComparator = compareField(TestStructure::getStartTime);
+                break;
+            case "endTime":
+                fieldComparator = compareField(TestStructure::getEndTime);
+                break;
+            case "testName":
+                fieldComparator = compareField(TestStructure::getTestName);
+                break;
+            case "testShortName":
+                fieldComparator = compareField(TestStructure::getTestShortName);
+                break;
+            case "result":
+                fieldComparator = compareField(TestStructure::getResult);
+                break;
+            case "runName":
+                fieldComparator = compareField(TestStructure::getRunName);
+                break;
+            case "requestor":
+                fieldComparator = compareField(TestStructure::getRequestor);
+                break;
+            case "bundle":
+                fieldComparator = compareField(TestStructure::getBundle);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported sort field " + fieldName);
+        }
+
+        if (!ascending) {
+            fieldComparator = fieldComparator.reversed();
+        }
+        this.comparator = fieldComparator;
+    }
+
+    public static boolean isSupported(String fieldName) {
+        return fieldName != null && SUPPORTED_FIELDS.contains(fieldName);
+    }
+
+    @Override
+    public int compare(TestStructure a, TestStructure b) {
+        return comparator.compare(a, b);
+    }
+
+    private static <T extends Comparable<T>> Comparator<TestStructure> compareField(Function<TestStructure, T> field) {
+        return Comparator.comparing(field, Comparator.nullsFirst(Comparator.naturalOrder()));
+    }
+}
@@ -42,6 +42,8 @@ public class TestStructure {
 
     private List<String>     artifactRecordIds;
 
+    private List<ManagerPhase> managerPhases;
+
     public TestStructure() {
     }
 
@@ -72,6 +74,10 @@ public class TestStructure {
                 this.artifactRecordIds = new ArrayList<String>();
                 this.artifactRecordIds.addAll(source.artifactRecordIds);
             }
+            if (source.managerPhases != null) {
+                this.managerPhases = new ArrayList<ManagerPhase>();
+                this.managerPhases.addAll(source.managerPhases);
+            }
         }
     }
 
@@ -240,6 +246,14 @@ public class TestStructure {
         this.artifactRecordIds = artifactRecordIds;
     }
 
+    public List<ManagerPhase> getManagerPhases() {
+        return managerPhases;
+    }
+
+    public void setManagerPhases(List<ManagerPhase> managerPhases) {
+        this.managerPhases = managerPhases;
+    }
+
     public void normalise() {
         if (this.status == null) {
             this.status = "unknown";
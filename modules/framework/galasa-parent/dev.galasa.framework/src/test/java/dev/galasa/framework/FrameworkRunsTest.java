@@ -7,7 +7,9 @@ package dev.galasa.framework;
 
 import static org.assertj.core.api.Assertions.*;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Properties;
 import java.util.Map.Entry;
 
@@ -17,11 +19,13 @@ import org.junit.Test;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 
+import dev.galasa.framework.beans.SubmitRunRequest;
 import dev.galasa.framework.mocks.MockCPSStore;
 import dev.galasa.framework.mocks.MockDSSStore;
 import dev.galasa.framework.mocks.MockFramework;
 import dev.galasa.framework.spi.FrameworkException;
 import dev.galasa.framework.spi.IRun;
+import dev.galasa.framework.spi.RunFilter;
 import dev.galasa.framework.spi.IFrameworkRuns.SharedEnvironmentPhase;
 import dev.galasa.framework.spi.utils.GalasaGson;
 import dev.galasa.framework.spi.utils.GalasaGsonBuilder;
@@ -760,4 +764,182 @@ public class FrameworkRunsTest {
         assertThat(thrown).isNotNull();
         assertThat(thrown.getMessage()).contains("Unable to submit shared environment run", sharedEnvironmentRunName, "is there a duplicate runname?");
     }
+
+    private void addRun(MockDSSStore mockDss, String runName, String status, String requestor, String group) throws Exception {
+        String prefix = "run." + runName + ".";
+        mockDss.put(prefix + "status", status);
+        mockDss.put(prefix + "requestor", requestor);
+        mockDss.put(prefix + "group", group);
+        mockDss.put(prefix + "test", "mybundle/mytest");
+        mockDss.put(prefix + "queued", "2024-01-01T10:00:00Z");
+    }
+
+    @Test
+    public void testGetRunSnapshotWithEmptyFilterReturnsAllRunsFromOneScan() throws Exception {
+        // Given...
+        MockDSSStore mockDss = new MockDSSStore(new HashMap<>());
+        addRun(mockDss, "U1", "queued", "me", "group1");
+        addRun(mockDss, "U2", "running", "me", "group1");
+        addRun(mockDss, "U10", "finished", "you", "group2");
+        mockDss.put("request.prefix.U.lastused", "10");
+
+        MockCPSStore mockCps = new MockCPSStore(new HashMap<>());
+        MockFramework mockFramework = new MockFramework(mockCps, mockDss);
+
+        FrameworkRuns frameworkRuns = new FrameworkRuns(mockFramework);
+
+        // When...
+        List<IRun> runs = frameworkRuns.getRunSnapshot(new RunFilter());
+
+        // Then...
+        assertThat(runs).extracting("name").containsExactlyInAnyOrder("U1", "U2", "U10");
+        assertThat(runs).extracting("status").containsExactlyInAnyOrder("queued", "running", "finished");
+        assertThat(runs).extracting("testBundleName").containsOnly("mybundle");
+        assertThat(mockDss.getPrefixCallCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testGetRunSnapshotWithFiltersReturnsOnlyMatchingRuns() throws Exception {
+        // Given...
+        MockDSSStore mockDss = new MockDSSStore(new HashMap<>());
+        addRun(mockDss, "U1", "queued", "me", "group1");
+        addRun(mockDss, "U2", "queued", "you", "group1");
+        addRun(mockDss, "U3", "queued", "me", "group2");
+        addRun(mockDss, "U4", "running", "me", "group1");
+
+        MockCPSStore mockCps = new MockCPSStore(new HashMap<>());
+        MockFramework mockFramework = new MockFramework(mockCps, mockDss);
+
+        FrameworkRuns frameworkRuns = new FrameworkRuns(mockFramework);
+
+        // When...
+        List<IRun> runs = frameworkRuns.getRunSnapshot(new RunFilter()
+            .withStatuses("queued")
+            .withRequestors("ME")
+            .withGroups("group1"));
+
+        // Then...
+        assertThat(runs).extracting("name").containsExactly("U1");
+        assertThat(mockDss.getPrefixCallCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testGetQueuedAndGroupedRunsUseTheSnapshot() throws Exception {
+        // Given...
+        MockDSSStore mockDss = new MockDSSStore(new HashMap<>());
+        addRun(mockDss, "U1", "queued", "me", "group1");
+        addRun(mockDss, "U2", "running", "me", "group1");
+        addRun(mockDss, "U3", "queued", "me", "group2");
+
+        MockCPSStore mockCps = new MockCPSStore(new HashMap<>());
+        MockFramework mockFramework = new MockFramework(mockCps, mockDss);
+
+        FrameworkRuns frameworkRuns = new FrameworkRuns(mockFramework);
+
+        // When...
+        List<IRun> queuedRuns = frameworkRuns.getQueuedRuns();
+        List<IRun> groupedRuns = frameworkRuns.getAllGroupedRuns("group1");
+
+        // Then...
+        assertThat(queuedRuns).extracting("name").containsExactlyInAnyOrder("U1", "U3");
+        assertThat(groupedRuns).extracting("name").containsExactlyInAnyOrder("U1", "U2");
+        assertThat(mockDss.getPrefixCallCount()).isEqualTo(2);
+    }
+
+    private List<SubmitRunRequest> createRunRequests(int count) throws Exception {
+        List<SubmitRunRequest> runRequests = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Properties overrides = new Properties();
+            overrides.setProperty("override1", "value" + i);
+            runRequests.add(new SubmitRunRequest("unknown", "me", "mybundle", "mytest" + i, "my.group",
+                "https://my.maven.repo", "mvn:my.group/my.group.obr/0.38.0/obr", "a-test-stream", false, true,
+                overrides, null, null, "java"));
+        }
+        return runRequests;
+    }
+
+    @Test
+    public void testSubmitRunsReservesABlockOfRunNumbersAndWritesThemTogether() throws Exception {
+        // Given...
+        MockDSSStore mockDss = new MockDSSStore(new HashMap<>());
+        MockCPSStore mockCps = new MockCPSStore(new HashMap<>());
+        MockFramework mockFramework = new MockFramework(mockCps, mockDss);
+
+        FrameworkRuns frameworkRuns = new FrameworkRuns(mockFramework);
+
+        // When...
+        List<IRun> runs = frameworkRuns.submitRuns(createRunRequests(3));
+
+        // Then...
+        assertThat(runs).extracting("name").containsExactly("U1", "U2", "U3");
+        assertThat(runs).extracting("test").containsExactly("mybundle/mytest0", "mybundle/mytest1", "mybundle/mytest2");
+        assertThat(runs).extracting("status").containsOnly("queued");
+
+        assertThat(mockDss.get("request.prefix.U.lastused")).isEqualTo("3");
+        assertThat(mockDss.getPerformActionsCallCount()).isEqualTo(1);
+        assertThat(mockDss.get("run.U2.test")).isEqualTo("mybundle/mytest1");
+        assertThat(mockDss.get("run.U2.testclass")).isEqualTo("mytest1");
+        assertThat(mockDss.get("run.U2.status")).isEqualTo("queued");
+        assertThat(mockDss.get("run.U2.request.type")).isEqualTo("UNKNOWN");
+    }
+
+    @Test
+    public void testSubmitRunsWrapsRoundWhenTheMaximumRunNumberIsReached() throws Exception {
+        // Given...
+        MockDSSStore mockDss = new MockDSSStore(new HashMap<>());
+        mockDss.put("request.prefix.U.lastused", "9");
+
+        MockCPSStore mockCps = new MockCPSStore(new HashMap<>());
+        mockCps.setProperty("request.prefix.U.maximum", "10");
+
+        MockFramework mockFramework = new MockFramework(mockCps, mockDss);
+
+        FrameworkRuns frameworkRuns = new FrameworkRuns(mockFramework);
+
+        // When...
+        List<IRun> runs = frameworkRuns.submitRuns(createRunRequests(3));
+
+        // Then...
+        assertThat(runs).extracting("name").containsExactly("U10", "U1", "U2");
+        assertThat(mockDss.get("request.prefix.U.lastused")).isEqualTo("2");
+    }
+
+    @Test
+    public void testSubmitRunsWithMoreRunsThanAvailableNumbersFails() throws Exception {
+        // Given...
+        MockDSSStore mockDss = new MockDSSStore(new HashMap<>());
+        MockCPSStore mockCps = new MockCPSStore(new HashMap<>());
+        mockCps.setProperty("request.prefix.U.maximum", "2");
+
+        MockFramework mockFramework = new MockFramework(mockCps, mockDss);
+
+        FrameworkRuns frameworkRuns = new FrameworkRuns(mockFramework);
+        List<SubmitRunRequest> runRequests = createRunRequests(5);
+
+        // When...
+        Throwable thrown = catchThrowable(() -> frameworkRuns.submitRuns(runRequests));
+
+        // Then...
+        assertThat(thrown).isInstanceOf(FrameworkException.class).hasMessageContaining("looped twice");
+    }
+
+    @Test
+    public void testSubmitRunsSplitsLargeBatchesAcrossTransactions() throws Exception {
+        // Given...
+        MockDSSStore mockDss = new MockDSSStore(new HashMap<>());
+        MockCPSStore mockCps = new MockCPSStore(new HashMap<>());
+        MockFramework mockFramework = new MockFramework(mockCps, mockDss);
+
+        FrameworkRuns frameworkRuns = new FrameworkRuns(mockFramework);
+
+        // When...
+        List<IRun> runs = frameworkRuns.submitRuns(createRunRequests(50));
+
+        // Then...
+        assertThat(runs).hasSize(50);
+        assertThat(runs.get(49).getName()).isEqualTo("U50");
+        assertThat(mockDss.get("request.prefix.U.lastused")).isEqualTo("50");
+        assertThat(mockDss.getPerformActionsCallCount()).isGreaterThan(1);
+        assertThat(mockDss.get("run.U50.testclass")).isEqualTo("mytest49");
+    }
 }
@@ -0,0 +1,240 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.awaitility.Awaitility.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import dev.galasa.framework.mocks.MockDSSStore;
+import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.IDynamicStatusStoreWatcher;
+import dev.galasa.framework.spi.IDynamicStatusStoreWatcher.Event;
+import dev.galasa.framework.spi.IRun;
+import dev.galasa.framework.spi.IRunRegistryListener;
+import dev.galasa.framework.spi.RunFilter;
+
+public class RunRegistryTest {
+
+    class MockWatchableDSSStore extends MockDSSStore {
+
+        private IDynamicStatusStoreWatcher watcher;
+        private String watchedPrefix;
+        private int watchCount;
+        private boolean watchFails;
+
+        public MockWatchableDSSStore(Map<String, String> valueMap) {
+            super(valueMap);
+        }
+
+        @Override
+        public synchronized UUID watchPrefix(IDynamicStatusStoreWatcher watcher, String keyPrefix) throws DynamicStatusStoreException {
+            if (watchFails) {
+                throw new DynamicStatusStoreException("Watch failed");
+            }
+            this.watchCount++;
+            this.watcher = watcher;
+            this.watchedPrefix = keyPrefix;
+            return UUID.randomUUID();
+        }
+
+        @Override
+        public void unwatch(UUID watchId) throws DynamicStatusStoreException {
+            this.watcher = null;
+        }
+
+        public void fire(String key, Event event, String newValue) {
+            watcher.propertyModified(key, event, null, newValue);
+        }
+
+        public void lose() {
+            IDynamicStatusStoreWatcher lostWatcher = this.watcher;
+            this.watcher = null;
+            lostWatcher.watchLost(new DynamicStatusStoreException("Watch compacted"));
+        }
+
+        public synchronized int getWatchCount() {
+            return watchCount;
+        }
+
+        public synchronized void setWatchFails(boolean watchFails) {
+            this.watchFails = watchFails;
+        }
+    }
+
+    class RecordingListener implements IRunRegistryListener {
+        private final List<String> changes = new ArrayList<>();
+
+        @Override
+        public synchronized void runChanged(String runName, String previousStatus, IRun run) {
+            String status = (run == null) ? "deleted" : run.getStatus();
+            changes.add(runName + ":" + previousStatus + "->" + status);
+        }
+
+        public synchronized List<String> getChanges() {
+            return new ArrayList<>(changes);
+        }
+    }
+
+    private Map<String, String> createRunProperties(String runName, String status, String requestor, String group) {
+        Map<String, String> properties = new HashMap<>();
+        String prefix = "run." + runName + ".";
+        properties.put(prefix + "status", status);
+        properties.put(prefix + "requestor", requestor);
+        properties.put(prefix + "group", group);
+        properties.put(prefix + "test", "mybundle/mytest");
+        return properties;
+    }
+
+    @Test
+    public void testRegistryIsPrimedFromOneScan() throws Exception {
+        // Given...
+        Map<String, String> dssProperties = new HashMap<>();
+        dssProperties.putAll(createRunProperties("U1", "queued", "me", "group1"));
+        dssProperties.putAll(createRunProperties("U2", "running", "you", "group1"));
+        MockWatchableDSSStore mockDss = new MockWatchableDSSStore(dssProperties);
+
+        RunRegistry registry = new RunRegistry(mockDss);
+
+        // When...
+        registry.start();
+
+        // Then...
+        assertThat(mockDss.watchedPrefix).isEqualTo("run.");
+        assertThat(mockDss.getPrefixCallCount()).isEqualTo(1);
+        assertThat(registry.getRuns(new RunFilter())).extracting("name").containsExactlyInAnyOrder("U1", "U2");
+        assertThat(registry.getRuns(new RunFilter().withStatuses("queued"))).extracting("name").containsExactly("U1");
+        assertThat(registry.getRuns(new RunFilter().withRequestors("you"))).extracting("name").containsExactly("U2");
+        assertThat(registry.getRun("U1").getTestBundleName()).isEqualTo("mybundle");
+        assertThat(registry.getRun("U3")).isNull();
+    }
+
+    @Test
+    public void testWatchEventsKeepIndexesCurrentWithoutReadingTheDss() throws Exception {
+        // Given...
+        MockWatchableDSSStore mockDss = new MockWatchableDSSStore(new HashMap<>(createRunProperties("U1", "queued", "me", "group1")));
+        RunRegistry registry = new RunRegistry(mockDss);
+        registry.start();
+
+        // When...
+        mockDss.fire("run.U1.status", Event.MODIFIED, "allocated");
+        mockDss.fire("run.U1.controller", Event.NEW, "controller1");
+        mockDss.fire("run.U2.status", Event.NEW, "queued");
+        mockDss.fire("run.U2.group", Event.NEW, "group2");
+
+        // Then...
+        assertThat(mockDss.getPrefixCallCount()).isEqualTo(1);
+        assertThat(registry.getRuns(new RunFilter().withStatuses("queued"))).extracting("name").containsExactly("U2");
+        assertThat(registry.getRuns(new RunFilter().withStatuses("allocated"))).extracting("name").containsExactly("U1");
+        assertThat(registry.getRuns(new RunFilter().withControllers("controller1"))).extracting("name").containsExactly("U1");
+        assertThat(registry.getRuns(new RunFilter().withStatuses("queued").withGroups("group1"))).isEmpty();
+        assertThat(registry.getRun("U1").getStatus()).isEqualTo("allocated");
+    }
+
+    @Test
+    public void testDeletingAllRunPropertiesRemovesTheRun() throws Exception {
+        // Given...
+        MockWatchableDSSStore mockDss = new MockWatchableDSSStore(new HashMap<>(createRunProperties("U1", "finished", "me", "group1")));
+        RunRegistry registry = new RunRegistry(mockDss);
+        registry.start();
+
+        // When...
+        for (String key : createRunProperties("U1", "finished", "me", "group1").keySet()) {
+            mockDss.fire(key, Event.DELETE, null);
+        }
+
+        // Then...
+        assertThat(registry.getRun("U1")).isNull();
+        assertThat(registry.getRuns(new RunFilter().withStatuses("finished"))).isEmpty();
+    }
+
+    @Test
+    public void testListenersAreToldAboutNewlyQueuedRuns() throws Exception {
+        // Given...
+        MockWatchableDSSStore mockDss = new MockWatchableDSSStore(new HashMap<>(createRunProperties("U1", "running", "me", "group1")));
+        RunRegistry registry = new RunRegistry(mockDss);
+        registry.start();
+
+        RecordingListener listener = new RecordingListener();
+        registry.addListener(listener);
+
+        // When...
+        mockDss.fire("run.U1.status", Event.MODIFIED, "finished");
+        mockDss.fire("run.U2.status", Event.NEW, "queued");
+
+        // Then...
+        await().atMost(5, TimeUnit.SECONDS).until(() -> listener.getChanges().size() == 2);
+        assertThat(listener.getChanges()).containsExactlyInAnyOrder("U1:running->finished", "U2:null->queued");
+
+        registry.shutdown();
+        assertThat(mockDss.watcher).isNull();
+    }
+
+    @Test
+    public void testLostWatchIsSetAgainAndTheRunsScannedAgain() throws Exception {
+        // Given...
+        Map<String, String> dssProperties = new HashMap<>(createRunProperties("U1", "running", "me", "group1"));
+        MockWatchableDSSStore mockDss = new MockWatchableDSSStore(dssProperties);
+        RunRegistry registry = new RunRegistry(mockDss);
+        registry.start();
+
+        // When...
+        dssProperties.put("run.U1.status", "finished");
+        mockDss.lose();
+
+        // Then...
+        await().atMost(5, TimeUnit.SECONDS).until(registry::isPrimed);
+        assertThat(mockDss.getWatchCount()).isEqualTo(2);
+        assertThat(mockDss.getPrefixCallCount()).isEqualTo(2);
+        assertThat(registry.getRun("U1").getStatus()).isEqualTo("finished");
+    }
+
+    @Test
+    public void testRegistryIsNotPrimedUntilTheWatchCanBeSetAgain() throws Exception {
+        // Given...
+        MockWatchableDSSStore mockDss = new MockWatchableDSSStore(new HashMap<>(createRunProperties("U1", "running", "me", "group1")));
+        RunRegistry registry = new RunRegistry(mockDss);
+        registry.start();
+        mockDss.setWatchFails(true);
+
+        // When...
+        mockDss.lose();
+        Thread.sleep(200);
+        boolean isPrimedWithoutWatch = registry.isPrimed();
+        mockDss.setWatchFails(false);
+        registry.refresh();
+
+        // Then...
+        assertThat(isPrimedWithoutWatch).isFalse();
+        assertThat(registry.isPrimed()).isTrue();
+        assertThat(mockDss.getWatchCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testShutdownTellsTheShutdownListener() throws Exception {
+        // Given...
+        MockWatchableDSSStore mockDss = new MockWatchableDSSStore(new HashMap<>(createRunProperties("U1", "running", "me", "group1")));
+        List<RunRegistry> shutdownRegistries = new ArrayList<>();
+        RunRegistry registry = new RunRegistry(mockDss, shutdownRegistries::add);
+        registry.start();
+
+        // When...
+        registry.shutdown();
+
+        // Then...
+        assertThat(shutdownRegistries).containsExactly(registry);
+        assertThat(registry.isPrimed()).isFalse();
+        assertThat(mockDss.watcher).isNull();
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.constraints.NotNull;
+
+import org.junit.After;
+import org.junit.Test;
+
+import dev.galasa.framework.spi.AbstractManager;
+import dev.galasa.framework.spi.FrameworkException;
+import dev.galasa.framework.spi.IManager;
+
+public class TestManagerProvisioningGraph {
+
+    private ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    private static class GraphManager extends AbstractManager {
+
+        private final String         name;
+        private final List<IManager> dependsOn = new ArrayList<>();
+
+        GraphManager(String name, IManager... dependsOn) {
+            this.name = name;
+            Collections.addAll(this.dependsOn, dependsOn);
+        }
+
+        @Override
+        public boolean areYouProvisionalDependentOn(@NotNull IManager otherManager) {
+            return dependsOn.contains(otherManager);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    @Test
+    public void testIndependentManagersAreProvisionedTogether() throws Exception {
+        // Given...
+        GraphManager zos = new GraphManager("zos");
+        GraphManager docker = new GraphManager("docker");
+        ManagerProvisioningGraph graph = new ManagerProvisioningGraph(List.of(zos, docker));
+
+        // *** Each manager waits for the other to start, which only works if they run together
+        CountDownLatch bothStarted = new CountDownLatch(2);
+
+        // When...
+        graph.run(executor, false, manager -> {
+            bothStarted.countDown();
+            try {
+                if (!bothStarted.await(10, TimeUnit.SECONDS)) {
+                    throw new FrameworkException("Managers were not provisioned together");
+                }
+            } catch (InterruptedException e) {
+                throw new FrameworkException("Interrupted", e);
+            }
+        });
+
+        // Then...
+        assertThat(bothStarted.getCount()).isZero();
+    }
+
+    @Test
+    public void testDependentManagersWaitForTheirDependencies() throws Exception {
+        // Given...
+        GraphManager zos = new GraphManager("zos");
+        GraphManager cics = new GraphManager("cics", zos);
+        GraphManager docker = new GraphManager("docker");
+        GraphManager kubernetes = new GraphManager("kubernetes", docker, cics);
+        ManagerProvisioningGraph graph = new ManagerProvisioningGraph(List.of(zos, docker, cics, kubernetes));
+
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        ManagerProvisioningGraph.ManagerTask task = manager -> {
+            events.add("start " + manager);
+            events.add("end " + manager);
+        };
+
+        // When...
+        graph.run(executor, false, task);
+        List<String> forward = new ArrayList<>(events);
+        events.clear();
+        graph.run(executor, true, task);
+        List<String> reverse = new ArrayList<>(events);
+
+        // Then...
+        assertThat(forward.indexOf("start cics")).isGreaterThan(forward.indexOf("end zos"));
+        assertThat(forward.indexOf("start kubernetes")).isGreaterThan(forward.indexOf("end cics")).isGreaterThan(forward.indexOf("end docker"));
+        assertThat(reverse.indexOf("start zos")).isGreaterThan(reverse.indexOf("end cics"));
+        assertThat(reverse.indexOf("start cics")).isGreaterThan(reverse.indexOf("end kubernetes"));
+        assertThat(reverse.indexOf("start docker")).isGreaterThan(reverse.indexOf("end kubernetes"));
+        assertThat(reverse).hasSize(8);
+    }
+
+    @Test
+    public void testFailureStopsDependentManagersBeingProvisioned() throws Exception {
+        // Given...
+        GraphManager zos = new GraphManager("zos");
+        GraphManager cics = new GraphManager("cics", zos);
+        ManagerProvisioningGraph graph = new ManagerProvisioningGraph(List.of(zos, cics));
+
+        List<String> provisioned = Collections.synchronizedList(new ArrayList<>());
+
+        // When...
+        Throwable thrown = catchThrowable(() -> graph.run(executor, false, manager -> {
+            if (manager == zos) {
+                throw new FrameworkException("zos failed");
+            }
+            provisioned.add(manager.toString());
+        }));
+
+        // Then...
+        assertThat(thrown).isInstanceOf(FrameworkException.class).hasMessage("zos failed");
+        assertThat(provisioned).isEmpty();
+    }
+
+    @Test
+    public void testCircularDependencyIsRejected() throws Exception {
+        // Given...
+        GraphManager first = new GraphManager("first");
+        GraphManager second = new GraphManager("second", first);
+        first.dependsOn.add(second);
+        ManagerProvisioningGraph graph = new ManagerProvisioningGraph(List.of(first, second));
+
+        // When...
+        Throwable thrown = catchThrowable(() -> graph.run(executor, false, manager -> {}));
+
+        // Then...
+        assertThat(thrown).isInstanceOf(FrameworkException.class).hasMessageContaining("circular dependency");
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import dev.galasa.framework.mocks.MockCPSStore;
+import dev.galasa.framework.mocks.MockDSSStore;
+import dev.galasa.framework.mocks.MockFileSystem;
+import dev.galasa.framework.mocks.MockFramework;
+import dev.galasa.framework.mocks.MockIResultArchiveStore;
+import dev.galasa.framework.spi.IResultArchiveStore;
+
+public class TestTestRunHeartbeat {
+
+    private MockFramework createFramework(Map<String, String> cpsProperties, MockDSSStore dss) {
+        return new MockFramework(new MockCPSStore(cpsProperties), dss) {
+            @Override
+            public String getTestRunName() {
+                return "U1";
+            }
+
+            @Override
+            public IResultArchiveStore getResultArchiveStore() {
+                return new MockIResultArchiveStore("U1", new MockFileSystem());
+            }
+        };
+    }
+
+    @Test
+    public void testHeartbeatLeaseIsCreatedAndRevokedWhenTheHeartbeatStops() throws Exception {
+        // Given...
+        Map<String, String> cpsProperties = new HashMap<>();
+        cpsProperties.put("heartbeat.lease.ttl", "30");
+
+        Map<String, String> dssProperties = new HashMap<>();
+        MockDSSStore dss = new MockDSSStore(dssProperties);
+        dss.setLeaseSupported(true);
+
+        TestRunHeartbeat heartbeat = new TestRunHeartbeat(createFramework(cpsProperties, dss));
+        assertThat(dssProperties).containsKeys("run.U1.heartbeat", "run.U1.heartbeat.lease");
+
+        // When...
+        heartbeat.shutdown();
+        heartbeat.run();
+
+        // Then...
+        assertThat(dssProperties).containsKey("run.U1.heartbeat").doesNotContainKey("run.U1.heartbeat.lease");
+    }
+
+    @Test
+    public void testHeartbeatIsOnlyWrittenWhenItStopsWhileTheLeaseIsHeld() throws Exception {
+        // Given...
+        Map<String, String> cpsProperties = new HashMap<>();
+        cpsProperties.put("heartbeat.lease.ttl", "30");
+
+        Map<String, String> dssProperties = new HashMap<>();
+        MockDSSStore dss = new MockDSSStore(dssProperties);
+        dss.setLeaseSupported(true);
+
+        TestRunHeartbeat heartbeat = new TestRunHeartbeat(createFramework(cpsProperties, dss));
+        String firstHeartbeat = dssProperties.get("run.U1.heartbeat");
+
+        // When...
+        heartbeat.start();
+        Thread.sleep(700);
+        String runningHeartbeat = dssProperties.get("run.U1.heartbeat");
+        heartbeat.shutdown();
+        heartbeat.join(5000);
+
+        // Then...
+        assertThat(runningHeartbeat).isEqualTo(firstHeartbeat);
+        assertThat(dssProperties.get("run.U1.heartbeat")).isNotEqualTo(firstHeartbeat);
+        assertThat(dssProperties).doesNotContainKey("run.U1.heartbeat.lease");
+    }
+
+    @Test
+    public void testNoHeartbeatLeaseIsCreatedByDefault() throws Exception {
+        // Given...
+        Map<String, String> dssProperties = new HashMap<>();
+        MockDSSStore dss = new MockDSSStore(dssProperties);
+        dss.setLeaseSupported(true);
+
+        // When...
+        new TestRunHeartbeat(createFramework(new HashMap<>(), dss));
+
+        // Then...
+        assertThat(dssProperties).containsKey("run.U1.heartbeat").doesNotContainKey("run.U1.heartbeat.lease");
+    }
+
+    @Test
+    public void testHeartbeatCarriesOnWithoutALeaseIfTheDssDoesNotSupportThem() throws Exception {
+        // Given...
+        Map<String, String> cpsProperties = new HashMap<>();
+        cpsProperties.put("heartbeat.lease.ttl", "30");
+
+        Map<String, String> dssProperties = new HashMap<>();
+        MockDSSStore dss = new MockDSSStore(dssProperties);
+
+        TestRunHeartbeat heartbeat = new TestRunHeartbeat(createFramework(cpsProperties, dss));
+
+        // When...
+        heartbeat.shutdown();
+        heartbeat.run();
+
+        // Then...
+        assertThat(dssProperties).containsKey("run.U1.heartbeat").doesNotContainKey("run.U1.heartbeat.lease");
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.validation.constraints.NotNull;
+
+import org.junit.Test;
+
+import dev.galasa.framework.mocks.MockCPSStore;
+import dev.galasa.framework.mocks.MockFileSystem;
+import dev.galasa.framework.mocks.MockFramework;
+import dev.galasa.framework.mocks.MockIResultArchiveStore;
+import dev.galasa.framework.spi.IResultArchiveStore;
+import dev.galasa.framework.spi.ResultArchiveStoreException;
+
+public class TestTestRunLogCapture {
+
+    private AtomicBoolean initialised = new AtomicBoolean(true);
+
+    private MockFramework createFramework(Map<String, String> cpsProperties, IResultArchiveStore ras) {
+        return new MockFramework(new MockCPSStore(cpsProperties), null) {
+            @Override
+            public boolean isInitialised() {
+                return initialised.get();
+            }
+
+            @Override
+            public IResultArchiveStore getResultArchiveStore() {
+                return ras;
+            }
+        };
+    }
+
+    private String expectedLog(int count) {
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            log.append("line " + i + "\n");
+        }
+        return log.toString();
+    }
+
+    /**
+     * A RAS which holds the first write until it is released
+     */
+    private static class BlockingResultArchiveStore extends MockIResultArchiveStore {
+
+        private final CountDownLatch writing = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        public BlockingResultArchiveStore() {
+            super("U1", new MockFileSystem());
+        }
+
+        @Override
+        public void writeLog(@NotNull List<String> messages) throws ResultArchiveStoreException {
+            writing.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.writeLog(messages);
+        }
+    }
+
+    @Test
+    public void testRingBufferKeepsOrderAndRefusesLinesWhenFull() {
+        // Given...
+        LogLineRingBuffer buffer = new LogLineRingBuffer(3);
+
+        // When...
+        boolean[] offered = new boolean[5];
+        for (int i = 0; i < 5; i++) {
+            offered[i] = buffer.offer("line " + i);
+        }
+
+        // Then...
+        assertThat(buffer.capacity()).isEqualTo(4);
+        assertThat(offered).containsExactly(true, true, true, true, false);
+
+        List<String> lines = new ArrayList<>();
+        assertThat(buffer.drainTo(lines, 2)).isEqualTo(2);
+        assertThat(buffer.offer("line 4")).isTrue();
+        buffer.drainTo(lines, 10);
+        assertThat(lines).containsExactly("line 0", "line 1", "line 2", "line 3", "line 4");
+        assertThat(buffer.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void testRingBufferTakesLinesFromConcurrentProducers() throws Exception {
+        // Given...
+        LogLineRingBuffer buffer = new LogLineRingBuffer(64);
+        int producers = 4;
+        int linesPerProducer = 20000;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            String name = "p" + p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < linesPerProducer; i++) {
+                    while (!buffer.offer(name + " " + i)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        // When...
+        List<String> lines = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + 30000;
+        while (lines.size() < producers * linesPerProducer && System.currentTimeMillis() < deadline) {
+            buffer.drainTo(lines, 100);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Then...
+        assertThat(lines).hasSize(producers * linesPerProducer);
+        Map<String, Integer> lastSeen = new HashMap<>();
+        for (String line : lines) {
+            String[] parts = line.split(" ");
+            int sequence = Integer.parseInt(parts[1]);
+            assertThat(sequence).isEqualTo(lastSeen.getOrDefault(parts[0], -1) + 1);
+            lastSeen.put(parts[0], sequence);
+        }
+    }
+
+    @Test
+    public void testLinesCapturedBeforeTheFrameworkIsInitialisedAreWrittenInOrder() throws Exception {
+        // Given...
+        initialised.set(false);
+        MockIResultArchiveStore ras = new MockIResultArchiveStore("U1", new MockFileSystem());
+        TestRunLogCapture capture = new TestRunLogCapture(createFramework(new HashMap<>(), ras), 64, false);
+
+        // When...
+        for (int i = 0; i < 10; i++) {
+            capture.capture("line " + i + "\n");
+        }
+        initialised.set(true);
+        for (int i = 10; i < 20; i++) {
+            capture.capture("line " + i + "\n");
+        }
+        boolean flushed = capture.flush(10000);
+        capture.shutdown();
+
+        // Then...
+        assertThat(flushed).isTrue();
+        assertThat(ras.getRunLog()).isEqualTo(expectedLog(20));
+        assertThat(capture.getQueueDepth()).isZero();
+        assertThat(capture.getDroppedLines()).isZero();
+        assertThat(capture.getOverflowPolicy()).isEqualTo(TestRunLogCapture.OverflowPolicy.BLOCK);
+    }
+
+    @Test
+    public void testInvalidPolicyFallsBackToBlock() throws Exception {
+        // Given...
+        Map<String, String> cpsProperties = new HashMap<>();
+        cpsProperties.put("run.log.capture.overflow", "overwrite");
+        MockIResultArchiveStore ras = new MockIResultArchiveStore("U1", new MockFileSystem());
+        TestRunLogCapture capture = new TestRunLogCapture(createFramework(cpsProperties, ras), 64, false);
+
+        // When...
+        capture.capture("line 0\n");
+        boolean flushed = capture.flush(10000);
+        capture.shutdown();
+
+        // Then...
+        assertThat(flushed).isTrue();
+        assertThat(capture.getOverflowPolicy()).isEqualTo(TestRunLogCapture.OverflowPolicy.BLOCK);
+        assertThat(ras.getRunLog()).isEqualTo(expectedLog(1));
+    }
+
+    @Test
+    public void testDropPolicyCountsTheLinesThatDidNotFit() throws Exception {
+        // Given...
+        Map<String, String> cpsProperties = new HashMap<>();
+        cpsProperties.put("run.log.capture.overflow", "drop");
+        BlockingResultArchiveStore ras = new BlockingResultArchiveStore();
+        TestRunLogCapture capture = new TestRunLogCapture(createFramework(cpsProperties, ras), 4, false);
+
+        capture.capture("first\n");
+        assertThat(ras.writing.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // When...
+        for (int i = 0; i < 10; i++) {
+            capture.capture("line " + i + "\n");
+        }
+        ras.release.countDown();
+        capture.flush(10000);
+        capture.shutdown();
+
+        // Then...
+        assertThat(capture.getDroppedLines()).isEqualTo(6);
+        assertThat(ras.getRunLog()).startsWith("first\n" + expectedLog(4))
+            .endsWith("6 log lines were dropped from the run log as the log capture buffer was full\n");
+    }
+
+    @Test
+    public void testSpillPolicyWritesEveryLineInOrder() throws Exception {
+        // Given...
+        Map<String, String> cpsProperties = new HashMap<>();
+        cpsProperties.put("run.log.capture.overflow", "spill");
+        BlockingResultArchiveStore ras = new BlockingResultArchiveStore();
+        TestRunLogCapture capture = new TestRunLogCapture(createFramework(cpsProperties, ras), 4, false);
+
+        capture.capture("first\n");
+        assertThat(ras.writing.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // When...
+        for (int i = 0; i < 50; i++) {
+            capture.capture("line " + i + "\n");
+        }
+        assertThat(capture.getQueueDepth()).isEqualTo(51);
+        ras.release.countDown();
+        boolean flushed = capture.flush(10000);
+        capture.shutdown();
+
+        // Then...
+        assertThat(flushed).isTrue();
+        assertThat(capture.getSpilledLines()).isEqualTo(46);
+        assertThat(capture.getDroppedLines()).isZero();
+        assertThat(ras.getRunLog()).isEqualTo("first\n" + expectedLog(50));
+    }
+
+    @Test
+    public void testBlockPolicyWaitsForRoom() throws Exception {
+        // Given...
+        BlockingResultArchiveStore ras = new BlockingResultArchiveStore();
+        TestRunLogCapture capture = new TestRunLogCapture(createFramework(new HashMap<>(), ras), 4, false);
+
+        capture.capture("first\n");
+        assertThat(ras.writing.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // When...
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < 50; i++) {
+                capture.capture("line " + i + "\n");
+            }
+        });
+        producer.start();
+        producer.join(200);
+        assertThat(producer.isAlive()).as("The producer should be waiting for room in the buffer").isTrue();
+
+        ras.release.countDown();
+        producer.join(10000);
+        capture.flush(10000);
+        capture.shutdown();
+
+        // Then...
+        assertThat(capture.getDroppedLines()).isZero();
+        assertThat(ras.getRunLog()).isEqualTo("first\n" + expectedLog(50));
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import javax.validation.constraints.NotNull;
+
+import org.junit.Test;
+
+import dev.galasa.framework.mocks.MockDSSStore;
+import dev.galasa.framework.mocks.MockIFrameworkRuns;
+import dev.galasa.framework.mocks.MockRun;
+import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.FrameworkException;
+import dev.galasa.framework.spi.IRun;
+
+public class TestWarmEngineRunClaimer {
+
+    private static class QueuedRun extends MockRun {
+
+        private final Instant queued;
+        private final boolean trace;
+        private final boolean sharedEnvironment;
+
+        QueuedRun(String runName, String stream, Instant queued, boolean trace, boolean sharedEnvironment, boolean local) {
+            super("my.bundle", "my.bundle.MyTest", runName, stream, "mvn:my/obr/0.1/obr", "http://my.repo", "me", local);
+            this.queued = queued;
+            this.trace = trace;
+            this.sharedEnvironment = sharedEnvironment;
+        }
+
+        QueuedRun(String runName, String stream, Instant queued) {
+            this(runName, stream, queued, false, false, false);
+        }
+
+        @Override
+        public Instant getQueued() {
+            return queued;
+        }
+
+        @Override
+        public boolean isTrace() {
+            return trace;
+        }
+
+        @Override
+        public boolean isSharedEnvironment() {
+            return sharedEnvironment;
+        }
+    }
+
+    private static class QueuedFrameworkRuns extends MockIFrameworkRuns {
+
+        private final List<IRun> queuedRuns;
+
+        QueuedFrameworkRuns(List<IRun> queuedRuns) {
+            super(queuedRuns);
+            this.queuedRuns = queuedRuns;
+        }
+
+        @Override
+        public @NotNull List<IRun> getQueuedRuns() throws FrameworkException {
+            return queuedRuns;
+        }
+    }
+
+    /**
+     * A DSS which only swaps a value that has not been changed by someone else
+     */
+    private static class SwappingDSSStore extends MockDSSStore {
+
+        SwappingDSSStore(Map<String, String> valueMap) {
+            super(valueMap);
+        }
+
+        @Override
+        public boolean putSwap(@NotNull String key, String oldValue, @NotNull String newValue,
+                @NotNull Map<String, String> others) throws DynamicStatusStoreException {
+            if (!Objects.equals(get(key), oldValue)) {
+                return false;
+            }
+            return super.putSwap(key, oldValue, newValue, others);
+        }
+    }
+
+    private Instant now = Instant.now();
+
+    @Test
+    public void testOldestCompatibleQueuedRunIsClaimed() throws Exception {
+        // Given...
+        QueuedRun finished = new QueuedRun("U1", "prod", now.minusSeconds(600));
+
+        List<IRun> queued = new ArrayList<>();
+        queued.add(new QueuedRun("U4", "prod", now.minusSeconds(10)));
+        queued.add(new QueuedRun("U2", "dev", now.minusSeconds(300)));
+        queued.add(new QueuedRun("U3", "prod", now.minusSeconds(200)));
+
+        Map<String, String> dssProps = new HashMap<>();
+        dssProps.put("run.U1.controller", "k8s-controller");
+        dssProps.put("run.U2.status", "queued");
+        dssProps.put("run.U3.status", "queued");
+        dssProps.put("run.U4.status", "queued");
+        WarmEngineRunClaimer claimer = new WarmEngineRunClaimer(new QueuedFrameworkRuns(queued), new SwappingDSSStore(dssProps));
+
+        // When...
+        String claimed = claimer.claimNextRun(finished);
+
+        // Then...
+        assertThat(claimed).isEqualTo("U3");
+        assertThat(dssProps).containsEntry("run.U3.status", "allocated")
+            .containsEntry("run.U3.controller", "k8s-controller")
+            .containsEntry("run.U3.engine.previous.run", "U1")
+            .containsEntry("run.U3.engine.first.run", "U1")
+            .containsKey("run.U3.allocated")
+            .containsEntry("run.U4.status", "queued")
+            .containsEntry("run.U2.status", "queued");
+    }
+
+    @Test
+    public void testFirstRunOfTheEngineIsPassedOnToEachClaimedRun() throws Exception {
+        // Given...
+        QueuedRun finished = new QueuedRun("U2", "prod", now.minusSeconds(600));
+
+        List<IRun> queued = new ArrayList<>();
+        queued.add(new QueuedRun("U3", "prod", now.minusSeconds(200)));
+
+        Map<String, String> dssProps = new HashMap<>();
+        dssProps.put("run.U2.engine.previous.run", "U1");
+        dssProps.put("run.U2.engine.first.run", "U1");
+        dssProps.put("run.U3.status", "queued");
+        WarmEngineRunClaimer claimer = new WarmEngineRunClaimer(new QueuedFrameworkRuns(queued), new SwappingDSSStore(dssProps));
+
+        // When...
+        String claimed = claimer.claimNextRun(finished);
+
+        // Then...
+        assertThat(claimed).isEqualTo("U3");
+        assertThat(dssProps).containsEntry("run.U3.engine.previous.run", "U2")
+            .containsEntry("run.U3.engine.first.run", "U1");
+    }
+
+    @Test
+    public void testRunsWhichNeedADifferentEngineAreNotClaimed() throws Exception {
+        // Given...
+        QueuedRun finished = new QueuedRun("U1", "prod", now.minusSeconds(600));
+
+        List<IRun> queued = new ArrayList<>();
+        queued.add(new QueuedRun("U2", "prod", now, true, false, false));
+        queued.add(new QueuedRun("U3", "prod", now, false, true, false));
+        queued.add(new QueuedRun("U4", "prod", now, false, false, true));
+        queued.add(new MockRun("my.bundle", "my.bundle.MyTest", "U5", "prod", "mvn:my/obr/0.1/obr", "http://my.repo", "me", false, "file:///my.feature"));
+
+        Map<String, String> dssProps = new HashMap<>();
+        WarmEngineRunClaimer claimer = new WarmEngineRunClaimer(new QueuedFrameworkRuns(queued), new SwappingDSSStore(dssProps));
+
+        // When...
+        String claimed = claimer.claimNextRun(finished);
+
+        // Then...
+        assertThat(claimed).isNull();
+        assertThat(dssProps).isEmpty();
+    }
+
+    @Test
+    public void testRunAllocatedElsewhereIsSkipped() throws Exception {
+        // Given...
+        QueuedRun finished = new QueuedRun("U1", "prod", now.minusSeconds(600));
+
+        List<IRun> queued = new ArrayList<>();
+        queued.add(new QueuedRun("U2", "prod", now.minusSeconds(300)));
+        queued.add(new QueuedRun("U3", "prod", now.minusSeconds(200)));
+
+        Map<String, String> dssProps = new HashMap<>();
+        dssProps.put("run.U2.status", "allocated");
+        dssProps.put("run.U3.status", "queued");
+        WarmEngineRunClaimer claimer = new WarmEngineRunClaimer(new QueuedFrameworkRuns(queued), new SwappingDSSStore(dssProps));
+
+        // When...
+        String claimed = claimer.claimNextRun(finished);
+
+        // Then...
+        assertThat(claimed).isEqualTo("U3");
+        assertThat(dssProps).doesNotContainKey("run.U2.engine.previous.run")
+            .doesNotContainKey("run.U3.controller");
+    }
+
+    @Test
+    public void testLocalEngineDoesNotClaimRuns() throws Exception {
+        // Given...
+        QueuedRun finished = new QueuedRun("L1", "prod", now, false, false, true);
+        List<IRun> queued = new ArrayList<>();
+        queued.add(new QueuedRun("U2", "prod", now));
+
+        Map<String, String> dssProps = new HashMap<>();
+        dssProps.put("run.U2.status", "queued");
+        WarmEngineRunClaimer claimer = new WarmEngineRunClaimer(new QueuedFrameworkRuns(queued), new SwappingDSSStore(dssProps));
+
+        // When...
+        String claimed = claimer.claimNextRun(finished);
+
+        // Then...
+        assertThat(claimed).isNull();
+        assertThat(dssProps).containsEntry("run.U2.status", "queued");
+    }
+}
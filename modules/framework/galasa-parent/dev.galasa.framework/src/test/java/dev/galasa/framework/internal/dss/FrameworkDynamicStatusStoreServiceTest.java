@@ -12,7 +12,11 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
 
 import org.junit.After;
 import org.junit.Before;
@@ -20,6 +24,7 @@ import org.junit.Test;
 
 import dev.galasa.framework.mocks.MockFramework;
 import dev.galasa.framework.spi.DynamicStatusStoreException;
+import dev.galasa.framework.spi.DynamicStatusStoreFutures;
 
 /**
  * <p>
@@ -214,4 +219,53 @@ public class FrameworkDynamicStatusStoreServiceTest {
         assertEquals("Key/value pairs not deleted successfully", new HashMap<String, String>(),
                 fDss.getPrefix("prefix"));
     }
+
+    /**
+     * <p>
+     * This test checks that several keys can be retrieved at once, only those that
+     * exist being returned.
+     * </p>
+     * 
+     * @throws DynamicStatusStoreException
+     */
+    @Test
+    public void testGetSetOfKeys() throws DynamicStatusStoreException {
+        fDss.put("key1", "value1");
+        fDss.put("key2", "value2");
+        HashMap<String, String> keyValuePairs = new HashMap<>();
+        keyValuePairs.put("key1", "value1");
+        keyValuePairs.put("key2", "value2");
+        assertEquals("Incorrect values retrieved", keyValuePairs,
+                fDss.get(new HashSet<>(Arrays.asList("key1", "key2", "key3"))));
+    }
+
+    /**
+     * <p>
+     * This test checks that the asynchronous requests work against a store which
+     * is only synchronous, with the namespace prefix added and removed as usual.
+     * </p>
+     * 
+     * @throws DynamicStatusStoreException
+     */
+    @Test
+    public void testAsyncRequests() throws DynamicStatusStoreException {
+        List<CompletionStage<Void>> puts = Arrays.asList(
+                fDss.putAsync("prefix.infix1.suffix", "testValue1"),
+                fDss.putAsync("prefix.infix2.suffix", "testValue2"));
+        DynamicStatusStoreFutures.waitForAll(puts);
+
+        HashMap<String, String> keyValuePairs = new HashMap<>();
+        keyValuePairs.put("prefix.infix1.suffix", "testValue1");
+        keyValuePairs.put("prefix.infix2.suffix", "testValue2");
+        assertEquals("Incorrect values retrieved", keyValuePairs,
+                DynamicStatusStoreFutures.waitFor(fDss.getPrefixAsync("prefix")));
+        assertEquals("Incorrect value retrieved", "testValue1",
+                DynamicStatusStoreFutures.waitFor(fDss.getAsync("prefix.infix1.suffix")));
+        assertFalse("Swap should fail when the old value is wrong",
+                DynamicStatusStoreFutures.waitFor(fDss.putSwapAsync("prefix.infix1.suffix", "wrong", "new")));
+
+        DynamicStatusStoreFutures.waitFor(fDss.deletePrefixAsync("prefix"));
+        assertEquals("Key/value pairs not deleted successfully", new HashMap<String, String>(),
+                fDss.getPrefix("prefix"));
+    }
 }
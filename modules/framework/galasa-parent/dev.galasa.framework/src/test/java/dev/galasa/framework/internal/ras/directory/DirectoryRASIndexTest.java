@@ -0,0 +1,232 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.internal.ras.directory;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import dev.galasa.framework.spi.IRunResult;
+import dev.galasa.framework.spi.ResultArchiveStoreException;
+import dev.galasa.framework.spi.ras.RasRunResultPage;
+import dev.galasa.framework.spi.ras.RasSearchCriteriaRequestor;
+import dev.galasa.framework.spi.ras.RasSortField;
+import dev.galasa.framework.spi.teststructure.TestStructure;
+import dev.galasa.framework.spi.utils.GalasaGson;
+
+public class DirectoryRASIndexTest {
+
+    private Path       rasDirectory;
+    private GalasaGson gson = new GalasaGson();
+
+    @Before
+    public void before() throws IOException {
+        this.rasDirectory = Files.createTempDirectory("galasa_junit_ras_index_");
+    }
+
+    @After
+    public void after() throws IOException {
+        if (this.rasDirectory != null && Files.exists(this.rasDirectory)) {
+            FileUtils.deleteDirectory(this.rasDirectory.toFile());
+        }
+    }
+
+    private TestStructure createTestStructure(String runName, String requestor, long queuedSeconds) {
+        TestStructure testStructure = new TestStructure();
+        testStructure.setRunName(runName);
+        testStructure.setRequestor(requestor);
+        testStructure.setTestName("dev.galasa.test.Test" + runName);
+        testStructure.setQueued(Instant.ofEpochSecond(queuedSeconds));
+        return testStructure;
+    }
+
+    private void createRunDirectory(String runName, String requestor, long queuedSeconds) throws IOException {
+        Path runDirectory = Files.createDirectories(rasDirectory.resolve(runName));
+        String json = gson.toJson(createTestStructure(runName, requestor, queuedSeconds));
+        Files.write(runDirectory.resolve("structure.json"), json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private DirectoryRASDirectoryService createDirectoryService(DirectoryRASIndex index) {
+        return new DirectoryRASDirectoryService(rasDirectory, gson, index);
+    }
+
+    private List<String> getRunNames(List<IRunResult> runs) throws ResultArchiveStoreException {
+        List<String> runNames = new ArrayList<>();
+        for (IRunResult run : runs) {
+            runNames.add(run.getTestStructure().getRunName());
+        }
+        return runNames;
+    }
+
+    @Test
+    public void testExistingRunDirectoriesAreIndexedOnFirstUse() throws Exception {
+        // Given...
+        createRunDirectory("U1", "bob", 10);
+        createRunDirectory("U2", "jim", 20);
+        DirectoryRASDirectoryService directoryService = createDirectoryService(new DirectoryRASIndex(rasDirectory));
+
+        // When...
+        List<IRunResult> runs = directoryService.getRuns(new RasSearchCriteriaRequestor("bob"));
+
+        // Then...
+        assertThat(getRunNames(runs)).containsExactly("U1");
+        assertThat(rasDirectory.resolve(DirectoryRASIndex.INDEX_FILE_NAME)).exists();
+        assertThat(directoryService.getRequestors()).containsExactlyInAnyOrder("bob", "jim");
+    }
+
+    @Test
+    public void testRecordsAppendedByAnotherIndexAreSeenOnTheNextSearch() throws Exception {
+        // Given...
+        createRunDirectory("U1", "bob", 10);
+        DirectoryRASIndex readerIndex = new DirectoryRASIndex(rasDirectory);
+        DirectoryRASDirectoryService directoryService = createDirectoryService(readerIndex);
+        assertThat(directoryService.getRuns()).hasSize(1);
+
+        // When...
+        createRunDirectory("U2", "bob", 20);
+        new DirectoryRASIndex(rasDirectory).recordRun("U2", createTestStructure("U2", "bob", 20));
+
+        // Then...
+        assertThat(getRunNames(directoryService.getRuns())).containsExactlyInAnyOrder("U1", "U2");
+    }
+
+    @Test
+    public void testCorruptIndexIsRebuilt() throws Exception {
+        // Given...
+        createRunDirectory("U1", "bob", 10);
+        createRunDirectory("U2", "bob", 20);
+        Path indexFile = rasDirectory.resolve(DirectoryRASIndex.INDEX_FILE_NAME);
+        Files.write(indexFile, "this is not json\n".getBytes(StandardCharsets.UTF_8));
+
+        // When...
+        List<IRunResult> runs = createDirectoryService(new DirectoryRASIndex(rasDirectory)).getRuns();
+
+        // Then...
+        assertThat(getRunNames(runs)).containsExactlyInAnyOrder("U1", "U2");
+        assertThat(Files.readString(indexFile)).doesNotContain("this is not json");
+    }
+
+    @Test
+    public void testPartlyWrittenRecordIsLeftForTheNextRead() throws Exception {
+        // Given...
+        createRunDirectory("U1", "bob", 10);
+        DirectoryRASIndex index = new DirectoryRASIndex(rasDirectory);
+        DirectoryRASDirectoryService directoryService = createDirectoryService(index);
+        assertThat(directoryService.getRuns()).hasSize(1);
+
+        // When...
+        Path indexFile = rasDirectory.resolve(DirectoryRASIndex.INDEX_FILE_NAME);
+        Files.write(indexFile, "{\"run\":\"U2\"".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        // Then...
+        assertThat(getRunNames(directoryService.getRuns())).containsExactly("U1");
+    }
+
+    @Test
+    public void testPagesFollowOnFromTheLastRunEvenWhenRunsAreAdded() throws Exception {
+        // Given...
+        for (int i = 1; i <= 5; i++) {
+            createRunDirectory("U" + i, "bob", i * 10);
+        }
+        DirectoryRASIndex index = new DirectoryRASIndex(rasDirectory);
+        DirectoryRASDirectoryService directoryService = createDirectoryService(index);
+        RasSortField sort = new RasSortField("queued", "desc");
+
+        // When...
+        RasRunResultPage firstPage = directoryService.getRunsPage(2, sort, null);
+
+        createRunDirectory("U6", "bob", 60);
+        index.recordRun("U6", createTestStructure("U6", "bob", 60));
+
+        RasRunResultPage secondPage = directoryService.getRunsPage(2, sort, firstPage.getNextCursor());
+        RasRunResultPage thirdPage = directoryService.getRunsPage(2, sort, secondPage.getNextCursor());
+
+        // Then...
+        assertThat(getRunNames(firstPage.getRuns())).containsExactly("U5", "U4");
+        assertThat(getRunNames(secondPage.getRuns())).containsExactly("U3", "U2");
+        assertThat(getRunNames(thirdPage.getRuns())).containsExactly("U1");
+        assertThat(thirdPage.getNextCursor()).isNull();
+    }
+
+    @Test
+    public void testInvalidPageCursorIsRejected() throws Exception {
+        // Given...
+        createRunDirectory("U1", "bob", 10);
+        DirectoryRASDirectoryService directoryService = createDirectoryService(new DirectoryRASIndex(rasDirectory));
+
+        // When...
+        Throwable thrown = catchThrowable(() -> directoryService.getRunsPage(2, null, "not-a-cursor"));
+
+        // Then...
+        assertThat(thrown).isInstanceOf(ResultArchiveStoreException.class).hasMessageContaining("Invalid page cursor");
+    }
+
+    @Test
+    public void testDeletedRunIsNotReturned() throws Exception {
+        // Given...
+        createRunDirectory("U1", "bob", 10);
+        createRunDirectory("U2", "bob", 20);
+        DirectoryRASDirectoryService directoryService = createDirectoryService(new DirectoryRASIndex(rasDirectory));
+        assertThat(directoryService.getRuns()).hasSize(2);
+
+        // When...
+        FileUtils.deleteDirectory(rasDirectory.resolve("U1").toFile());
+
+        // Then...
+        assertThat(getRunNames(directoryService.getRuns())).containsExactly("U2");
+    }
+
+    @Test
+    public void testDeletedRunIsPrunedFromTheIndex() throws Exception {
+        // Given...
+        createRunDirectory("U1", "bob", 10);
+        createRunDirectory("U2", "bob", 20);
+        DirectoryRASIndex index = new DirectoryRASIndex(rasDirectory);
+        DirectoryRASDirectoryService directoryService = createDirectoryService(index);
+        assertThat(directoryService.getRuns()).hasSize(2);
+
+        // When...
+        FileUtils.deleteDirectory(rasDirectory.resolve("U1").toFile());
+        directoryService.getRuns();
+
+        // Then...
+        assertThat(index.getRuns()).extracting(DirectoryRASIndex.IndexedRun::getRunDirectoryName).containsExactly("U2");
+        assertThat(new DirectoryRASIndex(rasDirectory).getRuns()).extracting(DirectoryRASIndex.IndexedRun::getRunDirectoryName)
+            .containsExactly("U2");
+    }
+
+    @Test
+    public void testIndexIsCompactedWhenRecordsAreRead() throws Exception {
+        // Given...
+        createRunDirectory("U1", "bob", 10);
+        DirectoryRASIndex readerIndex = new DirectoryRASIndex(rasDirectory);
+        assertThat(readerIndex.getRuns()).hasSize(1);
+
+        // When...
+        DirectoryRASIndex writerIndex = new DirectoryRASIndex(rasDirectory);
+        for (int i = 0; i < 1100; i++) {
+            writerIndex.recordRun("U1", createTestStructure("U1", "bob", 10));
+        }
+        List<DirectoryRASIndex.IndexedRun> runs = readerIndex.getRuns();
+
+        // Then...
+        assertThat(runs).extracting(DirectoryRASIndex.IndexedRun::getRunDirectoryName).containsExactly("U1");
+        Path indexFile = rasDirectory.resolve(DirectoryRASIndex.INDEX_FILE_NAME);
+        assertThat(Files.readAllLines(indexFile, StandardCharsets.UTF_8)).hasSize(1);
+    }
+}
@@ -27,7 +27,9 @@ import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
+import dev.galasa.framework.spi.ConfigurationPropertyStoreException;
 import dev.galasa.framework.spi.IConfidentialTextService;
+import dev.galasa.framework.spi.IConfigurationPropertyStoreService;
 import dev.galasa.framework.spi.IFramework;
 import dev.galasa.framework.spi.IFrameworkInitialisation;
 import dev.galasa.framework.spi.ResultArchiveStoreException;
@@ -154,6 +156,7 @@ public class DirectoryRASSTest {
         drass.writeLog(message1);
         drass.writeLog(message2);
         drass.writeLog(messages);
+        drass.flush();
 
         final List<String> readMessages = Files.readAllLines(this.rasDirectory.resolve(runname).resolve("run.log"));
 
@@ -163,4 +166,45 @@ public class DirectoryRASSTest {
         Assert.assertEquals("message 1 wrong", messages.get(1), readMessages.get(3));
     }
 
+    @Test
+    public void testRunLogIsBufferedUntilFlushed() throws ResultArchiveStoreException, IOException, ConfigurationPropertyStoreException {
+        // *** Hold the log for an hour, so only the explicit flush can write it
+        IConfigurationPropertyStoreService cps = mock(IConfigurationPropertyStoreService.class);
+        when(cps.getProperty("resultarchive.directory.log", "flush.interval")).thenReturn("3600000");
+        when(this.framework.getConfigurationPropertyService("framework")).thenReturn(cps);
+
+        DirectoryResultArchiveStoreService drass = new DirectoryResultArchiveStoreService(framework,
+                this.rasDirectory.toUri());
+        final Path runLog = this.rasDirectory.resolve(runname).resolve("run.log");
+
+        drass.writeLog("buffered message");
+        Assert.assertEquals("run log should not have been written yet", 0, Files.size(runLog));
+
+        drass.flush();
+        Assert.assertEquals("run log should have been written by the flush", "buffered message\n",
+                new String(Files.readAllBytes(runLog), "utf-8"));
+    }
+
+    @Test
+    public void testRunLogIsWrittenOnShutdownAndAfterwards() throws ResultArchiveStoreException, IOException {
+        DirectoryResultArchiveStoreService drass = new DirectoryResultArchiveStoreService(framework,
+                this.rasDirectory.toUri());
+
+        final StringBuilder largeMessage = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            largeMessage.append("0123456789");
+        }
+
+        drass.writeLog("before shutdown");
+        drass.writeLog(largeMessage.toString());
+        drass.shutdown();
+        drass.writeLog("after shutdown");
+
+        final List<String> readMessages = Files.readAllLines(this.rasDirectory.resolve(runname).resolve("run.log"));
+        Assert.assertEquals("wrong number of lines in the run log", 3, readMessages.size());
+        Assert.assertEquals("message 1 wrong", "before shutdown", readMessages.get(0));
+        Assert.assertEquals("message 2 wrong", largeMessage.toString(), readMessages.get(1));
+        Assert.assertEquals("message 3 wrong", "after shutdown", readMessages.get(2));
+    }
+
 }
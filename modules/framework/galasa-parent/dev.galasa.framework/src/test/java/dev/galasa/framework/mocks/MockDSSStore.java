@@ -17,12 +17,15 @@ import javax.validation.constraints.Null;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import dev.galasa.framework.spi.DssAdd;
+import dev.galasa.framework.spi.DssUpdate;
 import dev.galasa.framework.spi.DynamicStatusStoreException;
 import dev.galasa.framework.spi.DynamicStatusStoreMatchException;
 import dev.galasa.framework.spi.IDssAction;
 import dev.galasa.framework.spi.IDynamicResource;
 import dev.galasa.framework.spi.IDynamicRun;
 import dev.galasa.framework.spi.IDynamicStatusStore;
+import dev.galasa.framework.spi.IDynamicStatusStoreLease;
 import dev.galasa.framework.spi.IDynamicStatusStoreService;
 import dev.galasa.framework.spi.IDynamicStatusStoreWatcher;
 
@@ -31,6 +34,9 @@ public class MockDSSStore implements IDynamicStatusStore, IDynamicStatusStoreSer
     private Map<String,String> valueMap ;
     private Log logger = LogFactory.getLog(MockDSSStore.class.getName());
     private boolean isSwapSetToFail = false;
+    private int getPrefixCallCount = 0;
+    private int performActionsCallCount = 0;
+    private boolean isLeaseSupported = false;
 
     public MockDSSStore(Map<String,String> valueMap) {
         this.valueMap = valueMap;
@@ -68,6 +74,31 @@ public class MockDSSStore implements IDynamicStatusStore, IDynamicStatusStoreSer
         return isSuccessful;
     }
 
+    @Override
+    public IDynamicStatusStoreLease putWithLease(@NotNull String key, @NotNull String value, long ttlSeconds)
+            throws DynamicStatusStoreException {
+        if (!isLeaseSupported) {
+            return null;
+        }
+
+        valueMap.put(key, value);
+        return new IDynamicStatusStoreLease() {
+            @Override
+            public boolean keepAlive() throws DynamicStatusStoreException {
+                return valueMap.containsKey(key);
+            }
+
+            @Override
+            public void revoke() throws DynamicStatusStoreException {
+                valueMap.remove(key);
+            }
+        };
+    }
+
+    public void setLeaseSupported(boolean isLeaseSupported) {
+        this.isLeaseSupported = isLeaseSupported;
+    }
+
     @Override
     public @Null String get(@NotNull String key) throws DynamicStatusStoreException {
         String value = valueMap.get(key);
@@ -77,9 +108,10 @@ public class MockDSSStore implements IDynamicStatusStore, IDynamicStatusStoreSer
 
     @Override
     public @NotNull Map<String, String> getPrefix(@NotNull String keyPrefix) throws DynamicStatusStoreException {
+        getPrefixCallCount++;
         Map<String, String> results = new HashMap<String,String>();
         for (String key : valueMap.keySet()){
-            if (key.startsWith(keyPrefix+".")){
+            if (key.startsWith(keyPrefix)){
                 results.put(key,valueMap.get(key));
             }
         }
@@ -87,6 +119,10 @@ public class MockDSSStore implements IDynamicStatusStore, IDynamicStatusStoreSer
         return results;
     }
 
+    public int getPrefixCallCount() {
+        return getPrefixCallCount;
+    }
+
     public void setSwapSetToFail(boolean isSwapSetToFail) {
         this.isSwapSetToFail = isSwapSetToFail;
     }
@@ -109,7 +145,26 @@ public class MockDSSStore implements IDynamicStatusStore, IDynamicStatusStoreSer
     @Override
     public void performActions(IDssAction... actions)
             throws DynamicStatusStoreException, DynamicStatusStoreMatchException {
-        throw new UnsupportedOperationException("Unimplemented method 'performActions'");
+        performActionsCallCount++;
+        for (IDssAction action : actions) {
+            if (action instanceof DssAdd && valueMap.containsKey(((DssAdd) action).getKey())) {
+                throw new DynamicStatusStoreMatchException("Property " + ((DssAdd) action).getKey() + " already exists");
+            }
+        }
+
+        for (IDssAction action : actions) {
+            if (action instanceof DssAdd) {
+                valueMap.put(((DssAdd) action).getKey(), ((DssAdd) action).getValue());
+            } else if (action instanceof DssUpdate) {
+                valueMap.put(((DssUpdate) action).getKey(), ((DssUpdate) action).getValue());
+            } else {
+                throw new UnsupportedOperationException("Unimplemented action " + action.getClass().getName());
+            }
+        }
+    }
+
+    public int getPerformActionsCallCount() {
+        return performActionsCallCount;
     }
 
     @Override
@@ -15,6 +15,8 @@ import dev.galasa.framework.spi.DynamicStatusStoreException;
 import dev.galasa.framework.spi.FrameworkException;
 import dev.galasa.framework.spi.IFrameworkRuns;
 import dev.galasa.framework.spi.IRun;
+import dev.galasa.framework.spi.IRunRegistry;
+import dev.galasa.framework.spi.RunFilter;
 
 public class MockIFrameworkRuns implements IFrameworkRuns{
     protected String groupName;
@@ -45,6 +47,16 @@ public class MockIFrameworkRuns implements IFrameworkRuns{
         throw new UnsupportedOperationException("Unimplemented method 'getAllRuns'");
     }
 
+    @Override
+    public @NotNull List<IRun> getRunSnapshot(@NotNull RunFilter filter) throws FrameworkException {
+        throw new UnsupportedOperationException("Unimplemented method 'getRunSnapshot'");
+    }
+
+    @Override
+    public @NotNull IRunRegistry getRunRegistry() throws FrameworkException {
+        throw new UnsupportedOperationException("Unimplemented method 'getRunRegistry'");
+    }
+
     @Override
     public @NotNull List<IRun> getAllGroupedRuns(@NotNull String groupName) throws FrameworkException {
         if(groupName.equals("invalid")){
@@ -48,6 +48,10 @@ public class MockIResultArchiveStore implements IResultArchiveStore {
         return this.testStructureHistory;
     }
 
+    public String getRunLog() {
+        return this.runLog.toString();
+    }
+
     @Override
     public void flush() {
         Path logFilePath = mockFS.getPath("/my/stored/artifacts/root/run.log");
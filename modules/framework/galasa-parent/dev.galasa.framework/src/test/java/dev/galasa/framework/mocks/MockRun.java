@@ -161,5 +161,10 @@ public class MockRun implements IRun {
     public boolean isSharedEnvironment() {
         throw new UnsupportedOperationException("Unimplemented method 'isSharedEnvironment'");
     }
+
+    @Override
+    public boolean isHeartbeatLeased() {
+        throw new UnsupportedOperationException("Unimplemented method 'isHeartbeatLeased'");
+    }
     
 }
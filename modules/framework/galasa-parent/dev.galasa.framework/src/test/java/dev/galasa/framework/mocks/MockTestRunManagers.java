@@ -5,6 +5,7 @@
  */
 package dev.galasa.framework.mocks;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.validation.constraints.NotNull;
@@ -14,6 +15,7 @@ import dev.galasa.framework.spi.FrameworkException;
 import dev.galasa.framework.spi.IManager;
 import dev.galasa.framework.spi.Result;
 import dev.galasa.framework.spi.language.GalasaMethod;
+import dev.galasa.framework.spi.teststructure.ManagerPhase;
 
 public class MockTestRunManagers implements ITestRunManagers {
 
@@ -78,6 +80,11 @@ public class MockTestRunManagers implements ITestRunManagers {
         calledCountProvisionStop +=1;
     }
 
+    @Override
+    public List<ManagerPhase> getManagerPhases() {
+        return new ArrayList<>();
+    }
+
     @Override
     public void startOfTestClass() throws FrameworkException {
         calledCountStartOfTestClass +=1;
@@ -0,0 +1,79 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.framework.spi;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import org.junit.Test;
+
+public class DynamicStatusStoreFuturesTest {
+
+    @Test
+    public void testWaitForReturnsTheResult() throws Exception {
+        // Given...
+        CompletionStage<String> stage = CompletableFuture.supplyAsync(() -> "value");
+
+        // When...
+        String result = DynamicStatusStoreFutures.waitFor(stage);
+
+        // Then...
+        assertThat(result).isEqualTo("value");
+    }
+
+    @Test
+    public void testWaitForReportsTheDssExceptionItself() throws Exception {
+        // Given...
+        DynamicStatusStoreMatchException failure = new DynamicStatusStoreMatchException("matches failed");
+        CompletionStage<Void> stage = CompletableFuture.failedFuture(failure);
+
+        // When...
+        Throwable thrown = catchThrowable(() -> DynamicStatusStoreFutures.waitFor(stage));
+
+        // Then...
+        assertThat(thrown).isSameAs(failure);
+    }
+
+    @Test
+    public void testWaitForWrapsOtherFailures() throws Exception {
+        // Given...
+        CompletionStage<Void> stage = CompletableFuture.failedFuture(new IOException("connection lost"));
+
+        // When...
+        Throwable thrown = catchThrowable(() -> DynamicStatusStoreFutures.waitFor(stage));
+
+        // Then...
+        assertThat(thrown).isInstanceOf(DynamicStatusStoreException.class).hasRootCauseMessage("connection lost");
+    }
+
+    @Test
+    public void testWaitForAllWaitsForEveryRequestBeforeReportingAFailure() throws Exception {
+        // Given...
+        CompletableFuture<String> failed = CompletableFuture.failedFuture(new DynamicStatusStoreException("failed"));
+        CompletableFuture<String> slow = new CompletableFuture<>();
+        CompletableFuture.runAsync(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            slow.complete("slow");
+        });
+        List<CompletableFuture<String>> stages = Arrays.asList(failed, slow);
+
+        // When...
+        Throwable thrown = catchThrowable(() -> DynamicStatusStoreFutures.waitForAll(stages));
+
+        // Then...
+        assertThat(thrown).isInstanceOf(DynamicStatusStoreException.class).hasMessage("failed");
+        assertThat(slow).isCompletedWithValue("slow");
+    }
+}
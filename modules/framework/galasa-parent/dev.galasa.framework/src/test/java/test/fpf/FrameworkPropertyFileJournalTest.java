@@ -0,0 +1,262 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package test.fpf;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.awaitility.Duration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import dev.galasa.framework.spi.DssAdd;
+import dev.galasa.framework.spi.DssUpdate;
+import dev.galasa.framework.spi.DynamicStatusStoreMatchException;
+import dev.galasa.framework.spi.FrameworkPropertyFile;
+import dev.galasa.framework.spi.IFrameworkPropertyFileWatcher;
+import dev.galasa.framework.spi.IFrameworkPropertyFileWatcher.Event;
+
+/**
+ * <p>
+ * Tests the journalled mode of the FrameworkPropertyFile class.
+ * </p>
+ */
+public class FrameworkPropertyFileJournalTest {
+
+    private File testProp;
+    private File journal;
+    private File lock;
+
+    @Before
+    public void createPropertiesFile() throws IOException {
+        testProp = File.createTempFile("galasafpf_", ".properties");
+        journal = new File(testProp.getPath() + ".journal");
+        lock = new File(testProp.getPath() + ".lock");
+
+        Properties testProps = new Properties();
+        testProps.setProperty("run.U1.status", "queued");
+        testProps.setProperty("run.U1.test", "bundle/test");
+        testProps.setProperty("run.U2.status", "running");
+        testProps.setProperty("other", "value");
+
+        try (FileOutputStream out = new FileOutputStream(testProp)) {
+            testProps.store(out, null);
+        }
+    }
+
+    @After
+    public void deletePropertiesFile() {
+        testProp.delete();
+        journal.delete();
+        lock.delete();
+    }
+
+    private Properties readPropertiesFile() throws IOException {
+        Properties properties = new Properties();
+        try (FileInputStream in = new FileInputStream(testProp)) {
+            properties.load(in);
+        }
+        return properties;
+    }
+
+    @Test
+    public void testExistingPropertiesCanBeRead() throws Exception {
+        FrameworkPropertyFile fpf = new FrameworkPropertyFile(testProp.toURI(), true);
+
+        assertEquals("queued", fpf.get("run.U1.status"));
+        assertNull(fpf.get("run.U3.status"));
+
+        Map<String, String> expected = new HashMap<>();
+        expected.put("run.U1.status", "queued");
+        expected.put("run.U1.test", "bundle/test");
+        assertEquals(expected, fpf.getPrefix("run.U1."));
+        assertEquals(List.of("run"), fpf.getNamespaces());
+
+        fpf.destroy();
+    }
+
+    @Test
+    public void testChangesAreJournalledNotWrittenToThePropertyFile() throws Exception {
+        FrameworkPropertyFile fpf = new FrameworkPropertyFile(testProp.toURI(), true);
+
+        fpf.set("run.U1.status", "running");
+        fpf.deletePrefix("run.U2.");
+        fpf.delete("other");
+
+        assertEquals("running", fpf.get("run.U1.status"));
+        assertTrue(fpf.getPrefix("run.U2.").isEmpty());
+        assertNull(fpf.get("other"));
+
+        // *** The property file is untouched, the changes are in the journal
+        assertEquals("queued", readPropertiesFile().getProperty("run.U1.status"));
+        List<String> journalLines = Files.readAllLines(journal.toPath(), StandardCharsets.UTF_8);
+        assertEquals("Expected a header and one line per change", 4, journalLines.size());
+
+        // *** A new instance gets the changes from the journal
+        FrameworkPropertyFile fpf2 = new FrameworkPropertyFile(testProp.toURI(), true);
+        assertEquals("running", fpf2.get("run.U1.status"));
+        assertNull(fpf2.get("run.U2.status"));
+        assertNull(fpf2.get("other"));
+
+        fpf.destroy();
+        fpf2.destroy();
+    }
+
+    @Test
+    public void testShutdownCompactsTheJournalIntoThePropertyFile() throws Exception {
+        FrameworkPropertyFile fpf = new FrameworkPropertyFile(testProp.toURI(), true);
+        fpf.set("run.U3.status", "queued");
+        fpf.delete("run.U2.status");
+
+        fpf.shutdown();
+
+        Properties properties = readPropertiesFile();
+        assertEquals("queued", properties.getProperty("run.U3.status"));
+        assertNull(properties.getProperty("run.U2.status"));
+        assertEquals(1, Files.readAllLines(journal.toPath(), StandardCharsets.UTF_8).size());
+
+        FrameworkPropertyFile fpf2 = new FrameworkPropertyFile(testProp.toURI(), true);
+        assertEquals("queued", fpf2.get("run.U3.status"));
+        fpf2.destroy();
+    }
+
+    @Test
+    public void testAtomicSetSeesChangesFromAnotherInstance() throws Exception {
+        FrameworkPropertyFile fpf1 = new FrameworkPropertyFile(testProp.toURI(), true);
+        FrameworkPropertyFile fpf2 = new FrameworkPropertyFile(testProp.toURI(), true);
+
+        fpf2.set("request.prefix.U.lastused", "5");
+
+        assertFalse("The swap should fail as another instance has set the value", fpf1.setAtomic("request.prefix.U.lastused", null, "1"));
+        assertTrue(fpf1.setAtomic("request.prefix.U.lastused", "5", "6", Map.of("run.U6.status", "queued")));
+
+        await().atMost(Duration.FIVE_SECONDS).until(() -> "6".equals(fpf2.get("request.prefix.U.lastused")));
+        assertEquals("queued", fpf2.get("run.U6.status"));
+
+        fpf1.destroy();
+        fpf2.destroy();
+    }
+
+    @Test
+    public void testInstancesOfTheSameFileCanChangeItAtTheSameTime() throws Exception {
+        FrameworkPropertyFile fpf1 = new FrameworkPropertyFile(testProp.toURI(), true);
+        FrameworkPropertyFile fpf2 = new FrameworkPropertyFile(testProp.toURI(), true);
+
+        List<Exception> failures = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (FrameworkPropertyFile fpf : List.of(fpf1, fpf2)) {
+            String name = fpf == fpf1 ? "a" : "b";
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 50; i++) {
+                        fpf.set("concurrent." + name + "." + i, Integer.toString(i));
+                    }
+                } catch (Exception e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue("The changes should not have failed: " + failures, failures.isEmpty());
+        await().atMost(Duration.FIVE_SECONDS).until(() -> fpf1.getPrefix("concurrent.").size() == 100);
+        assertEquals(100, fpf2.getPrefix("concurrent.").size());
+
+        fpf1.destroy();
+        fpf2.destroy();
+    }
+
+    @Test
+    public void testPrefixWatchIsToldOfChangesFromAnotherInstance() throws Exception {
+        FrameworkPropertyFile fpf1 = new FrameworkPropertyFile(testProp.toURI(), true);
+        FrameworkPropertyFile fpf2 = new FrameworkPropertyFile(testProp.toURI(), true);
+
+        Watcher watcher = new Watcher();
+        fpf1.watchPrefix(watcher, "run.U1.");
+
+        fpf2.set("run.U1.status", "finished");
+        fpf2.set("run.U2.status", "finished");
+        fpf2.delete("run.U1.test");
+
+        await().atMost(Duration.FIVE_SECONDS).until(() -> watcher.getEvents().size() == 2);
+        assertEquals(List.of("MODIFIED run.U1.status queued finished", "DELETE run.U1.test bundle/test null"), watcher.getEvents());
+
+        fpf1.destroy();
+        fpf2.destroy();
+    }
+
+    @Test
+    public void testFailedActionsChangeNothing() throws Exception {
+        FrameworkPropertyFile fpf = new FrameworkPropertyFile(testProp.toURI(), true);
+
+        try {
+            fpf.performActions(new DssUpdate("run.U3.status", "queued"), new DssAdd("run.U1.test", "bundle/test2"));
+            fail("Expected the add of an existing property to fail");
+        } catch (DynamicStatusStoreMatchException e) {
+            // *** Expected
+        }
+
+        assertNull(fpf.get("run.U3.status"));
+        assertEquals("bundle/test", fpf.get("run.U1.test"));
+
+        fpf.destroy();
+    }
+
+    @Test
+    public void testJournalIsDiscardedIfThePropertyFileIsChangedDirectly() throws Exception {
+        FrameworkPropertyFile fpf = new FrameworkPropertyFile(testProp.toURI(), true);
+        fpf.set("run.U1.status", "running");
+        fpf.destroy();
+
+        Properties properties = readPropertiesFile();
+        properties.setProperty("run.U1.status", "finished");
+        try (FileOutputStream out = new FileOutputStream(testProp)) {
+            properties.store(out, null);
+        }
+        testProp.setLastModified(testProp.lastModified() + 10000);
+
+        FrameworkPropertyFile fpf2 = new FrameworkPropertyFile(testProp.toURI(), true);
+        assertEquals("finished", fpf2.get("run.U1.status"));
+        fpf2.destroy();
+    }
+
+    private static class Watcher implements IFrameworkPropertyFileWatcher {
+
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public synchronized void propertyModified(String key, Event event, String oldValue, String newValue) {
+            events.add(event + " " + key + " " + oldValue + " " + newValue);
+        }
+
+        private synchronized List<String> getEvents() {
+            return new ArrayList<>(events);
+        }
+    }
+}
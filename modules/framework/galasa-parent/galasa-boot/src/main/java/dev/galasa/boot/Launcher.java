@@ -66,6 +66,7 @@ public class Launcher {
     private static final String     LOCALMAVEN_OPTION         = "localmaven";
     private static final String     REMOTEMAVEN_OPTION        = "remotemaven";
     private static final String     TRACE_OPTION              = "trace";
+    private static final String     MAXRUNS_OPTION            = "maxruns";
     private static final String     FILE_OPTION               = "f";
     private static final String     FILE_OPTION_LONG          = "file";
     private static final String     DRY_RUN_OPTION            = "dryrun";
@@ -103,6 +104,7 @@ public class Launcher {
 
     private Integer                 metrics;
     private Integer                 health;
+    private int                     maxRuns                   = 1;
 
     private List<String>            bundles                   = new ArrayList<>();
 
@@ -161,15 +163,14 @@ public class Launcher {
                     logger.debug("Test Bundle: " + testBundleName);
                     logger.debug("Test Class: " + testClassName);
                     overridesProperties.setProperty("framework.run.testbundleclass", this.testName);
+                    felixFramework.runTest(bootstrapProperties, overridesProperties);
                 } else if (runName != null) {
-                    logger.debug("Test Run: " + runName);
-                    overridesProperties.setProperty("framework.run.name", this.runName);
+                    runQueuedTests();
                 } else {
                     logger.debug("Gherkin Run: " + gherkinName.toString());
                     overridesProperties.setProperty("framework.run.gherkintest", this.gherkinName);
+                    felixFramework.runTest(bootstrapProperties, overridesProperties);
                 }
-
-                felixFramework.runTest(bootstrapProperties, overridesProperties);
             } else if (resourceManagement) {
                 logger.debug("Resource Management");
                 felixFramework.runResourceManagement(bootstrapProperties, overridesProperties, bundles, metrics, health);
@@ -259,6 +260,7 @@ public class Launcher {
         options.addOption(null, LOCALMAVEN_OPTION, true, "The local maven repository, defaults to ~/.m2/repository");
         options.addOption(null, REMOTEMAVEN_OPTION, true, "The remote maven repositories, defaults to central");
         options.addOption(null, TRACE_OPTION, false, "Enable TRACE logging");
+        options.addOption(null, MAXRUNS_OPTION, true, "The most runs this engine will run before it exits, defaults to 1");
         options.addOption(FILE_OPTION, FILE_OPTION_LONG, true, "File for data input/output");
         options.addOption(null, DRY_RUN_OPTION, false, "Perform a dry-run of the specified actions. Can be combined with \"" + FILE_OPTION_LONG + "\"");
         options.addOption(null, SETUPECO_OPTION, false, "Setup the Galasa Ecosystem");
@@ -295,6 +297,7 @@ public class Launcher {
         checkForBundles(commandLine);
         checkForMetricsPort(commandLine);
         checkForHealthPort(commandLine);
+        checkForMaxRuns(commandLine);
         checkForLocalMaven(commandLine);
         checkForRemoteMaven(commandLine);
 
@@ -441,6 +444,56 @@ public class Launcher {
         }
     }
 
+    /**
+     * Run the named run, then any runs the engine claims after it up to the --maxruns limit.
+     * The framework bundles are reinstalled between runs and each run is given its own copy
+     * of the overrides. A claimed run the engine fails to start is put back on the queue,
+     * otherwise it would be left allocated to this engine.
+     */
+    private void runQueuedTests() throws LauncherException {
+        String nextRunName = this.runName;
+        int runsStarted = 0;
+        while (nextRunName != null) {
+            boolean claimedRun = runsStarted > 0;
+            runsStarted++;
+
+            logger.debug("Test Run: " + nextRunName);
+            Properties runOverrides = new Properties();
+            runOverrides.putAll(overridesProperties);
+            runOverrides.setProperty("framework.run.name", nextRunName);
+            runOverrides.setProperty("framework.engine.runs.remaining", Integer.toString(maxRuns - runsStarted));
+
+            try {
+                if (claimedRun) {
+                    felixFramework.restartRunBundles();
+                }
+                nextRunName = felixFramework.runTest(bootstrapProperties, runOverrides);
+            } catch (LauncherException e) {
+                if (claimedRun) {
+                    requeueRun(nextRunName, runOverrides);
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void requeueRun(String claimedRunName, Properties runOverrides) {
+        try {
+            Properties requeueOverrides = new Properties();
+            requeueOverrides.putAll(runOverrides);
+            felixFramework.requeueRun(bootstrapProperties, requeueOverrides);
+        } catch (LauncherException e) {
+            logger.error("Unable to requeue run " + claimedRunName + ", it will stay allocated to this engine", e);
+        }
+    }
+
+    private void checkForMaxRuns(CommandLine commandLine) {
+        if (commandLine.hasOption(MAXRUNS_OPTION)) {
+            String runs = commandLine.getOptionValue(MAXRUNS_OPTION);
+            maxRuns = Integer.parseInt(runs);
+        }
+    }
+
     private void checkForBundles(CommandLine commandLine) {
         if (commandLine.hasOption(BUNDLE_OPTION)) {
             for (String option : commandLine.getOptionValues(BUNDLE_OPTION)) {
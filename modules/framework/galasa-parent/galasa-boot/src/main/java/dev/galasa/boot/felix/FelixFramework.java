@@ -12,6 +12,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -19,6 +20,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.text.*;
 
 import org.apache.commons.io.FileUtils;
@@ -37,6 +40,7 @@ import org.osgi.framework.Constants;
 import org.osgi.framework.InvalidSyntaxException;
 import org.osgi.framework.ServiceReference;
 import org.osgi.framework.launch.Framework;
+import org.osgi.framework.wiring.FrameworkWiring;
 
 import dev.galasa.boot.BootLogger;
 import dev.galasa.boot.LauncherException;
@@ -48,6 +52,9 @@ public class FelixFramework {
 
     private static final String EXTRA_FRAMEWORK_BUNDLES_PROP  = "framework.extra.bundles";
     private static final String EXTRA_API_SERVER_BUNDLES_PROP = "api.extra.bundles";
+    private static final String RESOLUTION_CACHE_PROP         = "framework.boot.resolution.cache";
+
+    private static final long   REFRESH_TIMEOUT_SECONDS       = 60;
 
     protected Framework framework;
 
@@ -63,6 +70,12 @@ public class FelixFramework {
         
     private File felixCache;
 
+    private long runBundlesFromId = -1;
+
+    private String extraFrameworkBundles;
+
+    private ObrResolutionCache resolutionCache;
+
     /**
      * Initialise and start the Felix framework. Install required bundles and the
      * OBRs. Install the Galasa framework bundle
@@ -123,6 +136,10 @@ public class FelixFramework {
             // Load the OSGi Bundle Repositories
             loadBundleRepositories(bundleRepositories);
 
+            if (Boolean.parseBoolean(boostrapProperties.getProperty(RESOLUTION_CACHE_PROP, "true"))) {
+                resolutionCache = createResolutionCache(galasaDirectory, localMavenRepo, remoteMavenRepos);
+            }
+
             // Install and start the Felix OSGi console if required
             loadConsole = Boolean.parseBoolean(boostrapProperties.getProperty("dev.galasa.core.load.console", "false"));
             if (loadConsole) {
@@ -131,14 +148,19 @@ public class FelixFramework {
                 loadBundle("org.apache.felix.gogo.shell");
             }
 
+            // *** Everything installed from here on is restarted between runs in a warm engine
+            for (Bundle bundle : framework.getBundleContext().getBundles()) {
+                runBundlesFromId = Math.max(runBundlesFromId, bundle.getBundleId() + 1);
+            }
+
             // Load the galasa-framework bundle
             logger.debug("installing Framework bundle");
             loadBundle("dev.galasa.framework");
 
             // Load extra bundles from the bootstrap
-            String extraBundles = boostrapProperties.getProperty(EXTRA_FRAMEWORK_BUNDLES_PROP);
-            if (extraBundles != null) {
-                loadBundlesList(extraBundles);
+            extraFrameworkBundles = boostrapProperties.getProperty(EXTRA_FRAMEWORK_BUNDLES_PROP);
+            if (extraFrameworkBundles != null) {
+                loadBundlesList(extraFrameworkBundles);
             }
         } catch (IOException | BundleException e) {
             throw new LauncherException("Unable to initialise the Felix framework", e);
@@ -205,9 +227,10 @@ public class FelixFramework {
      * 
      * @param boostrapProperties  the bootstrap properties
      * @param overridesProperties the override properties
+     * @return the name of the run the engine has claimed to run next, or null
      * @throws LauncherException
      */
-    public void runTest(Properties boostrapProperties, Properties overridesProperties) throws LauncherException {
+    public String runTest(Properties boostrapProperties, Properties overridesProperties) throws LauncherException {
 
         // Get the framework bundle
         Bundle frameWorkBundle = getBundle("dev.galasa.framework");
@@ -249,6 +272,108 @@ public class FelixFramework {
         } catch (InvocationTargetException | IllegalAccessException | IllegalArgumentException e) {
             throw new LauncherException(e.getCause());
         }
+
+        // *** Older test runners can not claim another run
+        try {
+            Method nextRunMethod = service.getClass().getMethod("getNextRunName");
+            return (String) nextRunMethod.invoke(service);
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (InvocationTargetException | IllegalAccessException | IllegalArgumentException | SecurityException e) {
+            throw new LauncherException("Unable to get the next run from the Framework test runner", e);
+        }
+    }
+
+    /**
+     * Reinstall the Galasa framework and every bundle loaded after it, so the next run in
+     * this engine starts with a new framework, new Manager instances and new class loaders.
+     * Stopping and starting the bundles is not enough, static state in the Managers and
+     * test classes would be carried into the next run. The OSGi infrastructure, maven and
+     * OBR bundles are left running.
+     * 
+     * @throws LauncherException if a bundle could not be reinstalled
+     */
+    public void restartRunBundles() throws LauncherException {
+        List<Bundle> runBundles = new ArrayList<>();
+        for (Bundle bundle : framework.getBundleContext().getBundles()) {
+            if (runBundlesFromId >= 0 && bundle.getBundleId() >= runBundlesFromId) {
+                runBundles.add(bundle);
+            }
+        }
+        runBundles.sort((a, b) -> Long.compare(a.getBundleId(), b.getBundleId()));
+
+        logger.debug("Reinstalling " + runBundles.size() + " bundles for the next run");
+        try {
+            for (int i = runBundles.size() - 1; i >= 0; i--) {
+                runBundles.get(i).uninstall();
+            }
+        } catch (BundleException e) {
+            throw new LauncherException("Unable to uninstall the bundles of the previous run", e);
+        }
+
+        refreshBundles(runBundles);
+
+        loadBundle("dev.galasa.framework");
+        if (extraFrameworkBundles != null) {
+            loadBundlesList(extraFrameworkBundles);
+        }
+    }
+
+    /**
+     * Refresh the wiring of uninstalled bundles, so their class loaders are released
+     * before the bundles are installed again
+     * 
+     * @param bundles the bundles uninstalled
+     * @throws LauncherException if the refresh does not complete
+     */
+    private void refreshBundles(List<Bundle> bundles) throws LauncherException {
+        CountDownLatch refreshed = new CountDownLatch(1);
+        framework.adapt(FrameworkWiring.class).refreshBundles(bundles, event -> refreshed.countDown());
+        try {
+            if (!refreshed.await(REFRESH_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new LauncherException("Timed out refreshing the bundles of the previous run");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LauncherException("Interrupted refreshing the bundles of the previous run", e);
+        }
+    }
+
+    /**
+     * Put a run this engine claimed back on the queue, for when the engine was unable to
+     * start it. A run the framework has already started is left alone.
+     * 
+     * @param boostrapProperties  the bootstrap properties
+     * @param overridesProperties the override properties naming the claimed run
+     * @throws LauncherException if the run could not be requeued
+     */
+    public void requeueRun(Properties boostrapProperties, Properties overridesProperties) throws LauncherException {
+        Bundle frameWorkBundle;
+        try {
+            frameWorkBundle = getBundle("dev.galasa.framework");
+        } catch (LauncherException e) {
+            loadBundle("dev.galasa.framework");
+            frameWorkBundle = getBundle("dev.galasa.framework");
+        }
+
+        String classString = "dev.galasa.framework.TestRunner";
+        ServiceReference<?> serviceReference = frameWorkBundle.getBundleContext().getServiceReference(classString);
+        if (serviceReference == null) {
+            throw new LauncherException("Unable to get reference to TestRunner service");
+        }
+        Object service = frameWorkBundle.getBundleContext().getService(serviceReference);
+        if (service == null) {
+            throw new LauncherException("Unable to get TestRunner service");
+        }
+
+        try {
+            Method requeueMethod = service.getClass().getMethod("requeueRun", Properties.class, Properties.class);
+            requeueMethod.invoke(service, boostrapProperties, overridesProperties);
+        } catch (InvocationTargetException e) {
+            throw new LauncherException(e.getCause());
+        } catch (NoSuchMethodException | IllegalAccessException | IllegalArgumentException | SecurityException e) {
+            throw new LauncherException("Unable to requeue the run with the Framework test runner", e);
+        }
     }
 
     /**
@@ -816,6 +941,25 @@ public class FelixFramework {
         }
     }
 
+    /**
+     * Create the cache of OBR resolutions, keyed on the loaded OBRs and the maven
+     * repositories their bundles come from. The last modified time of each OBR is
+     * part of the key, so a rebuilt OBR is resolved again
+     */
+    private ObrResolutionCache createResolutionCache(File galasaDirectory, URL localMavenRepo, List<URL> remoteMavenRepos) {
+        List<String> resolutionInputs = new ArrayList<>();
+        for (Repository repository : repositoryAdmin.listRepositories()) {
+            resolutionInputs.add("obr=" + repository.getURI() + "@" + repository.getLastModified());
+        }
+        resolutionInputs.add("localmaven=" + localMavenRepo);
+        if (remoteMavenRepos != null) {
+            for (URL remoteMavenRepo : remoteMavenRepos) {
+                resolutionInputs.add("remotemaven=" + remoteMavenRepo);
+            }
+        }
+        return new ObrResolutionCache(new File(galasaDirectory, "obr-cache"), resolutionInputs);
+    }
+
     /**
      * Load a bundle from the OSGi Bundle Repository
      * 
@@ -825,6 +969,10 @@ public class FelixFramework {
     private void loadBundle(String bundleSymbolicName) throws LauncherException {
 
         logger.trace("Installing bundle " + bundleSymbolicName);
+        if (resolutionCache != null && installCachedResolution(bundleSymbolicName)) {
+            return;
+        }
+
         Resolver resolver = repositoryAdmin.resolver();
         String filterString = "(symbolicname=" + bundleSymbolicName + ")";
         Resource[] resources = null;
@@ -914,6 +1062,11 @@ public class FelixFramework {
                 throw new LauncherException(msg);
             }
 
+            // *** reference: URIs are local bundles being developed, so are not cached
+            if (resolutionCache != null && !resourceHasReferenceUrl) {
+                cacheResolution(bundleSymbolicName, resolver, resource);
+            }
+
             printBundles();
         } else {
             logger.error("Unable to resolve " + resource.toString());
@@ -925,6 +1078,87 @@ public class FelixFramework {
         }
     }
 
+    /**
+     * Record the bundles the resolver installed so the next launch can install them directly
+     */
+    private void cacheResolution(String bundleSymbolicName, Resolver resolver, Resource resource) {
+        List<ObrResolutionCache.CachedBundle> resolved = new ArrayList<>();
+        for (Resource requiredResource : resolver.getRequiredResources()) {
+            resolved.add(toCachedBundle(requiredResource));
+        }
+        for (Resource optionalResource : resolver.getOptionalResources()) {
+            resolved.add(toCachedBundle(optionalResource));
+        }
+        resolved.add(toCachedBundle(resource));
+
+        try {
+            resolutionCache.put(bundleSymbolicName, resolved);
+        } catch (IOException e) {
+            logger.error("Unable to cache the resolution of bundle " + bundleSymbolicName, e);
+        }
+    }
+
+    private ObrResolutionCache.CachedBundle toCachedBundle(Resource resource) {
+        return new ObrResolutionCache.CachedBundle(resource.getSymbolicName(), resource.getVersion().toString(), resource.getURI());
+    }
+
+    /**
+     * Install and start the bundles a previous launch resolved for the bundle
+     * 
+     * @return true if the bundle is now active, false if it needs to be resolved
+     */
+    private boolean installCachedResolution(String bundleSymbolicName) {
+        List<ObrResolutionCache.CachedBundle> cached = resolutionCache.get(bundleSymbolicName);
+        if (cached == null) {
+            return false;
+        }
+
+        ArrayList<Bundle> installedBundles = new ArrayList<>();
+        try {
+            for (ObrResolutionCache.CachedBundle cachedBundle : cached) {
+                if (isBundleInstalled(cachedBundle.getSymbolicName(), cachedBundle.getVersion())) {
+                    continue;
+                }
+                try (InputStream is = Files.newInputStream(cachedBundle.getJar().toPath())) {
+                    installedBundles.add(this.framework.getBundleContext().installBundle(cachedBundle.getLocation(), is));
+                }
+            }
+            for (Bundle bundle : installedBundles) {
+                if (bundle.getHeaders().get(Constants.FRAGMENT_HOST) == null) {
+                    bundle.start();
+                }
+            }
+        } catch (IOException | BundleException e) {
+            logger.error("Unable to install the cached resolution of bundle " + bundleSymbolicName, e);
+        }
+
+        if (isBundleActive(bundleSymbolicName)) {
+            logger.trace("Installed bundle " + bundleSymbolicName + " from the resolution cache");
+            printBundles();
+            return true;
+        }
+
+        // *** Put things back as they were and resolve from the OBRs instead
+        for (Bundle bundle : installedBundles) {
+            try {
+                bundle.uninstall();
+            } catch (BundleException e) {
+                logger.error("Unable to uninstall bundle " + bundle.getSymbolicName(), e);
+            }
+        }
+        resolutionCache.remove(bundleSymbolicName);
+        return false;
+    }
+
+    private boolean isBundleInstalled(String bundleSymbolicName, String version) {
+        for (Bundle bundle : framework.getBundleContext().getBundles()) {
+            if (bundleSymbolicName.equals(bundle.getSymbolicName()) && bundle.getVersion().toString().equals(version)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Return the installed Bundle object for the bundle symbolic name
      * 
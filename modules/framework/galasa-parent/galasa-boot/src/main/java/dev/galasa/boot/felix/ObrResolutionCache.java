@@ -0,0 +1,250 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.boot.felix;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.commons.io.IOUtils;
+
+import dev.galasa.boot.BootLogger;
+
+/**
+ * A local cache of the bundles the OBR resolver chose to install for a requested bundle.
+ *
+ * Entries are keyed on a hash of everything the resolution depended on - the OBRs
+ * loaded, the maven repositories and the requested bundle - so a changed OBR list or a
+ * rebuilt OBR gives a new key and a full resolution. Each resolved jar is copied into
+ * the cache and recorded with its SHA-256, so a cached resolution can be installed
+ * without the resolver or the maven repositories. An entry whose jars are missing or
+ * fail their checksum is removed and treated as not cached.
+ */
+class ObrResolutionCache {
+
+    private static final String BUNDLES          = "bundles";
+    private static final String REQUESTED_BUNDLE = "requested.bundle";
+
+    private final BootLogger    logger           = new BootLogger();
+
+    private final File          cacheDirectory;
+    private final File          jarDirectory;
+    private final String        inputsHash;
+
+    /**
+     * A bundle the resolver installed for a requested bundle
+     */
+    static class CachedBundle {
+        private final String symbolicName;
+        private final String version;
+        private final String location;
+        private String       sha256;
+        private File         jar;
+
+        CachedBundle(String symbolicName, String version, String location) {
+            this.symbolicName = symbolicName;
+            this.version = version;
+            this.location = location;
+        }
+
+        String getSymbolicName() {
+            return symbolicName;
+        }
+
+        String getVersion() {
+            return version;
+        }
+
+        String getLocation() {
+            return location;
+        }
+
+        File getJar() {
+            return jar;
+        }
+    }
+
+    /**
+     * @param cacheDirectory   where the cache is kept
+     * @param resolutionInputs everything other than the requested bundle that the
+     *                         resolution depends on, in a stable order
+     */
+    ObrResolutionCache(File cacheDirectory, List<String> resolutionInputs) {
+        this.cacheDirectory = cacheDirectory;
+        this.jarDirectory = new File(cacheDirectory, "jars");
+        this.inputsHash = sha256(String.join("\n", resolutionInputs));
+    }
+
+    /**
+     * @param bundleSymbolicName the requested bundle
+     * @return the bundles to install, in install order, or null if the resolution is
+     *         not cached
+     */
+    List<CachedBundle> get(String bundleSymbolicName) {
+        File indexFile = getIndexFile(bundleSymbolicName);
+        if (!indexFile.isFile()) {
+            return null;
+        }
+
+        try {
+            Properties index = new Properties();
+            try (InputStream is = Files.newInputStream(indexFile.toPath())) {
+                index.load(is);
+            }
+
+            if (!bundleSymbolicName.equals(index.getProperty(REQUESTED_BUNDLE))) {
+                return null;
+            }
+
+            int count = Integer.parseInt(index.getProperty(BUNDLES));
+            List<CachedBundle> bundles = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String prefix = "bundle." + i + ".";
+                CachedBundle bundle = new CachedBundle(index.getProperty(prefix + "symbolic.name"),
+                        index.getProperty(prefix + "version"), index.getProperty(prefix + "location"));
+                bundle.sha256 = index.getProperty(prefix + "sha256");
+                bundle.jar = new File(jarDirectory, bundle.sha256 + ".jar");
+
+                String actualSha256;
+                try (InputStream is = Files.newInputStream(bundle.jar.toPath())) {
+                    actualSha256 = sha256(is);
+                }
+                if (!bundle.sha256.equals(actualSha256)) {
+                    throw new IOException("Checksum of cached jar " + bundle.jar + " does not match");
+                }
+                bundles.add(bundle);
+            }
+            return bundles;
+        } catch (IOException | RuntimeException e) {
+            logger.info("Ignoring the cached resolution of " + bundleSymbolicName + ": " + e.getMessage());
+            remove(bundleSymbolicName);
+            return null;
+        }
+    }
+
+    /**
+     * Copy the resolved jars into the cache and record the resolution
+     *
+     * @param bundleSymbolicName the requested bundle
+     * @param bundles            the bundles the resolver installed, in install order
+     * @throws IOException if a jar could not be read or the cache written
+     */
+    void put(String bundleSymbolicName, List<CachedBundle> bundles) throws IOException {
+        Files.createDirectories(jarDirectory.toPath());
+
+        Properties index = new Properties();
+        index.setProperty(REQUESTED_BUNDLE, bundleSymbolicName);
+        index.setProperty(BUNDLES, Integer.toString(bundles.size()));
+
+        for (int i = 0; i < bundles.size(); i++) {
+            CachedBundle bundle = bundles.get(i);
+            bundle.sha256 = copyJar(bundle.location);
+            bundle.jar = new File(jarDirectory, bundle.sha256 + ".jar");
+
+            String prefix = "bundle." + i + ".";
+            index.setProperty(prefix + "symbolic.name", bundle.symbolicName);
+            index.setProperty(prefix + "version", bundle.version);
+            index.setProperty(prefix + "location", bundle.location);
+            index.setProperty(prefix + "sha256", bundle.sha256);
+        }
+
+        // *** Write then rename, so another launcher never reads half an index
+        File indexFile = getIndexFile(bundleSymbolicName);
+        File tempFile = File.createTempFile("index", ".tmp", cacheDirectory);
+        try {
+            try (OutputStream os = Files.newOutputStream(tempFile.toPath())) {
+                index.store(os, "Resolution of " + bundleSymbolicName);
+            }
+            Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    /**
+     * Forget the cached resolution of a bundle, the jars are left for other entries
+     *
+     * @param bundleSymbolicName the requested bundle
+     */
+    void remove(String bundleSymbolicName) {
+        try {
+            Files.deleteIfExists(getIndexFile(bundleSymbolicName).toPath());
+        } catch (IOException e) {
+            logger.error("Unable to remove the cached resolution of " + bundleSymbolicName, e);
+        }
+    }
+
+    File getIndexFile(String bundleSymbolicName) {
+        return new File(cacheDirectory, sha256(inputsHash + "\n" + bundleSymbolicName) + ".properties");
+    }
+
+    /**
+     * @return the SHA-256 of the jar, which is also its name in the cache
+     */
+    private String copyJar(String location) throws IOException {
+        File tempFile = File.createTempFile("jar", ".tmp", jarDirectory);
+        try {
+            String jarSha256;
+            try (InputStream is = new URL(location).openStream()) {
+                MessageDigest digest = newDigest();
+                try (DigestInputStream dis = new DigestInputStream(is, digest);
+                        OutputStream os = Files.newOutputStream(tempFile.toPath())) {
+                    IOUtils.copy(dis, os);
+                }
+                jarSha256 = toHex(digest.digest());
+            }
+
+            File jar = new File(jarDirectory, jarSha256 + ".jar");
+            if (!jar.exists()) {
+                Files.move(tempFile.toPath(), jar.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return jarSha256;
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    private static String sha256(String value) {
+        return toHex(newDigest().digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String sha256(InputStream is) throws IOException {
+        MessageDigest digest = newDigest();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = is.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
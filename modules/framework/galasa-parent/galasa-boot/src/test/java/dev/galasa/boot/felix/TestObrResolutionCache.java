@@ -0,0 +1,90 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.boot.felix;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestObrResolutionCache {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File createJar(String name, String content) throws Exception {
+        File jar = temporaryFolder.newFile(name);
+        Files.write(jar.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return jar;
+    }
+
+    private ObrResolutionCache.CachedBundle resolved(String symbolicName, File jar) {
+        return new ObrResolutionCache.CachedBundle(symbolicName, "0.1.0", jar.toURI().toString());
+    }
+
+    @Test
+    public void testCachedResolutionIsReturnedInInstallOrder() throws Exception {
+        // Given...
+        File cacheDirectory = temporaryFolder.newFolder("obr-cache");
+        File managerJar = createJar("manager.jar", "manager");
+        File frameworkJar = createJar("framework.jar", "framework");
+
+        ObrResolutionCache cache = new ObrResolutionCache(cacheDirectory, List.of("obr=mvn:dev.galasa/obr/0.1.0/obr@1"));
+        cache.put("dev.galasa.framework", List.of(resolved("dev.galasa.manager", managerJar), resolved("dev.galasa.framework", frameworkJar)));
+
+        // When...
+        List<ObrResolutionCache.CachedBundle> cached = new ObrResolutionCache(cacheDirectory, List.of("obr=mvn:dev.galasa/obr/0.1.0/obr@1"))
+            .get("dev.galasa.framework");
+
+        // Then...
+        assertThat(cached).extracting(ObrResolutionCache.CachedBundle::getSymbolicName)
+            .containsExactly("dev.galasa.manager", "dev.galasa.framework");
+        assertThat(cached.get(0).getLocation()).isEqualTo(managerJar.toURI().toString());
+        assertThat(cached.get(0).getVersion()).isEqualTo("0.1.0");
+        assertThat(new String(Files.readAllBytes(cached.get(1).getJar().toPath()), StandardCharsets.UTF_8)).isEqualTo("framework");
+    }
+
+    @Test
+    public void testChangedObrListIsNotCached() throws Exception {
+        // Given...
+        File cacheDirectory = temporaryFolder.newFolder("obr-cache");
+        File frameworkJar = createJar("framework.jar", "framework");
+
+        new ObrResolutionCache(cacheDirectory, List.of("obr=mvn:dev.galasa/obr/0.1.0/obr@1"))
+            .put("dev.galasa.framework", List.of(resolved("dev.galasa.framework", frameworkJar)));
+
+        // When...
+        ObrResolutionCache rebuiltObr = new ObrResolutionCache(cacheDirectory, List.of("obr=mvn:dev.galasa/obr/0.1.0/obr@2"));
+
+        // Then...
+        assertThat(rebuiltObr.get("dev.galasa.framework")).isNull();
+        assertThat(rebuiltObr.get("dev.galasa.other")).isNull();
+    }
+
+    @Test
+    public void testCorruptedJarInvalidatesTheEntry() throws Exception {
+        // Given...
+        File cacheDirectory = temporaryFolder.newFolder("obr-cache");
+        File frameworkJar = createJar("framework.jar", "framework");
+
+        ObrResolutionCache cache = new ObrResolutionCache(cacheDirectory, List.of("obr=mvn:dev.galasa/obr/0.1.0/obr@1"));
+        cache.put("dev.galasa.framework", List.of(resolved("dev.galasa.framework", frameworkJar)));
+        File cachedJar = cache.get("dev.galasa.framework").get(0).getJar();
+
+        // When...
+        Files.write(cachedJar.toPath(), "tampered".getBytes(StandardCharsets.UTF_8));
+
+        // Then...
+        assertThat(cache.get("dev.galasa.framework")).isNull();
+        assertThat(cache.getIndexFile("dev.galasa.framework")).doesNotExist();
+    }
+}
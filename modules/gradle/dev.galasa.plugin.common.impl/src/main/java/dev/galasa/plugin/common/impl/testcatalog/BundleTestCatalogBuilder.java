@@ -0,0 +1,297 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.plugin.common.impl.testcatalog;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import dev.galasa.plugin.common.WrappedLog;
+
+/**
+ * Builds the test catalog of a bundle for the Gradle and Maven plugins.
+ *
+ * The test classes and shared environments are found by reading the class
+ * files on the classpath rather than loading them, see {@link ClassScanner}.
+ * Classes are only loaded when there are test catalog builders on the
+ * classpath, as they are passed the test classes themselves.
+ *
+ * As before, a class is included if it is annotated with &#64;Test or
+ * &#64;SharedEnvironment, either directly, through an annotation which is
+ * itself annotated with them, or by extending or implementing such a class.
+ */
+public class BundleTestCatalogBuilder {
+
+    private static final String TEST_ANNOTATION            = "dev.galasa.Test";
+    private static final String SHARED_ENVIRONMENT         = "dev.galasa.SharedEnvironment";
+    private static final String TEST_CATALOG_BUILDER       = "dev.galasa.framework.spi.TestCatalogBuilder";
+    private static final String TEST_CATALOG_BUILDER_IFACE = "dev.galasa.framework.spi.ITestCatalogBuilder";
+
+    private final WrappedLog   log;
+    private final List<File>   classpath;
+    private final ClassScanner scanner;
+
+    /**
+     * @param log
+     * @param classpath the bundle's classes followed by its compile classpath
+     * @param scanCache where to keep the results of reading the class files
+     *                  between builds, or null to read them all every time
+     */
+    public BundleTestCatalogBuilder(WrappedLog log, List<File> classpath, File scanCache) {
+        this.log = log;
+        this.classpath = classpath;
+        this.scanner = new ClassScanner(log, scanCache);
+    }
+
+    /**
+     * Add the classes, packages, bundles and sharedEnvironments sections to a
+     * test catalog
+     *
+     * @param jsonRoot   the test catalog to add to
+     * @param bundleName
+     * @return false if the catalog could not be built because the Galasa
+     *         annotations are not on the classpath
+     * @throws IOException                 if the classpath could not be read
+     * @throws ReflectiveOperationException if a test catalog builder fails
+     */
+    public boolean appendTestCatalog(JsonObject jsonRoot, String bundleName) throws IOException, ReflectiveOperationException {
+
+        Map<String, ScannedClass> classes = scanner.scan(classpath);
+        log.info("Scanned " + (scanner.getParsedClasses() + scanner.getCachedClasses()) + " classes for the Test Catalog, "
+                + scanner.getCachedClasses() + " unchanged since the last build");
+
+        if (!classes.containsKey(TEST_ANNOTATION) || !classes.containsKey(SHARED_ENVIRONMENT)) {
+            log.warn("Ignoring bundle for test catalog processing because the annotations are missing on the classpath");
+            log.warn(TEST_ANNOTATION + "=" + classes.containsKey(TEST_ANNOTATION));
+            log.warn(SHARED_ENVIRONMENT + "=" + classes.containsKey(SHARED_ENVIRONMENT));
+            return false;
+        }
+
+        ClassIndex index = new ClassIndex(classes);
+        Set<String> testClassNames = index.getTypesAnnotatedWith(TEST_ANNOTATION);
+        Set<String> senvClassNames = index.getTypesAnnotatedWith(SHARED_ENVIRONMENT);
+        Set<String> builderClassNames = index.getTypesAnnotatedWith(TEST_CATALOG_BUILDER);
+
+        JsonObject jsonClasses = new JsonObject();
+        jsonRoot.add("classes", jsonClasses);
+        JsonObject jsonPackages = new JsonObject();
+        jsonRoot.add("packages", jsonPackages);
+        JsonObject jsonBundles = new JsonObject();
+        jsonRoot.add("bundles", jsonBundles);
+        JsonObject jsonSharedEnv = new JsonObject();
+        jsonRoot.add("sharedEnvironments", jsonSharedEnv);
+
+        JsonObject jsonBundle = new JsonObject();
+        jsonBundles.add(bundleName, jsonBundle);
+        JsonObject jsonBundlePackages = new JsonObject();
+        jsonBundle.add("packages", jsonBundlePackages);
+
+        // *** Only load classes if there are test catalog builders to give them to
+        URLClassLoader loader = null;
+        if (!builderClassNames.isEmpty()) {
+            loader = createClassLoader();
+        }
+
+        try {
+            Map<Object, Method> catalogTestBuilders = new LinkedHashMap<>();
+            Map<Object, Method> catalogSenvBuilders = new LinkedHashMap<>();
+            if (loader != null) {
+                findTestCatalogBuilders(loader, builderClassNames, catalogTestBuilders, catalogSenvBuilders);
+            }
+
+            log.info("Building the Test Catalog for this bundle:-");
+            for (String testClassName : testClassNames) {
+                ScannedClass testClass = classes.get(testClassName);
+                String fullName = bundleName + "/" + testClassName;
+                String packageName = testClass.getPackageName();
+
+                log.info("     " + testClassName);
+
+                // *** Create the main test class descriptor
+                JsonObject jsonTestClass = createClassDescriptor(testClass, bundleName);
+                jsonClasses.add(fullName, jsonTestClass);
+
+                // *** Add to the package list and the bundle package list
+                addToPackage(jsonPackages, packageName, fullName);
+                addToPackage(jsonBundlePackages, packageName, fullName);
+
+                // *** Call each Catalog Builder in turn to append data to the root and the class
+                if (!catalogTestBuilders.isEmpty()) {
+                    Class<?> sourceTestClass = loadClass(loader, testClassName);
+                    if (sourceTestClass != null) {
+                        for (Entry<Object, Method> builder : catalogTestBuilders.entrySet()) {
+                            builder.getValue().invoke(builder.getKey(), jsonRoot, jsonTestClass, sourceTestClass);
+                        }
+                    }
+                }
+            }
+
+            // *** Build list of shared environments
+            for (String senvClassName : senvClassNames) {
+                ScannedClass senvClass = classes.get(senvClassName);
+                String fullName = bundleName + "/" + senvClassName;
+
+                log.info("     " + senvClassName);
+
+                JsonObject jsonSenvClass = createClassDescriptor(senvClass, bundleName);
+                jsonSharedEnv.add(fullName, jsonSenvClass);
+
+                // *** Call each Catalog Builder in turn to append data to the class
+                if (!catalogSenvBuilders.isEmpty()) {
+                    Class<?> sourceSenvClass = loadClass(loader, senvClassName);
+                    if (sourceSenvClass != null) {
+                        for (Entry<Object, Method> builder : catalogSenvBuilders.entrySet()) {
+                            builder.getValue().invoke(builder.getKey(), jsonSenvClass, sourceSenvClass);
+                        }
+                    }
+                }
+            }
+        } finally {
+            if (loader != null) {
+                loader.close();
+            }
+        }
+
+        int testCount = testClassNames.size();
+        if (testCount == 0) {
+            log.info("Test catalog built with no test classes defined");
+        } else if (testCount == 1) {
+            log.info("Test catalog built with 1 test class");
+        } else {
+            log.info("Test catalog built with " + testCount + " test classes");
+        }
+        int senvCount = senvClassNames.size();
+        if (senvCount == 0) {
+            log.info("Test catalog built with no shared environments defined");
+        } else if (senvCount == 1) {
+            log.info("Test catalog built with 1 shared environment");
+        } else {
+            log.info("Test catalog built with " + senvCount + " shared environments");
+        }
+
+        return true;
+    }
+
+    private JsonObject createClassDescriptor(ScannedClass scannedClass, String bundleName) {
+        JsonObject jsonClass = new JsonObject();
+        jsonClass.addProperty("name", scannedClass.getName());
+        jsonClass.addProperty("bundle", bundleName);
+        jsonClass.addProperty("shortName", scannedClass.getSimpleName());
+        jsonClass.addProperty("package", scannedClass.getPackageName());
+        return jsonClass;
+    }
+
+    private void addToPackage(JsonObject jsonPackages, String packageName, String fullName) {
+        JsonArray jsonPackage = jsonPackages.getAsJsonArray(packageName);
+        if (jsonPackage == null) {
+            jsonPackage = new JsonArray();
+            jsonPackages.add(packageName, jsonPackage);
+        }
+        jsonPackage.add(fullName);
+    }
+
+    private URLClassLoader createClassLoader() throws IOException {
+        List<URL> classpathURLs = new ArrayList<>();
+        for (File element : classpath) {
+            classpathURLs.add(element.toURI().toURL());
+        }
+        return new URLClassLoader(classpathURLs.toArray(new URL[classpathURLs.size()]), getClass().getClassLoader());
+    }
+
+    private void findTestCatalogBuilders(ClassLoader loader, Set<String> builderClassNames,
+            Map<Object, Method> catalogTestBuilders, Map<Object, Method> catalogSenvBuilders) {
+
+        Class<?> builderInterface = loadClass(loader, TEST_CATALOG_BUILDER_IFACE);
+        if (builderInterface == null) {
+            return;
+        }
+
+        for (String builderClassName : builderClassNames) {
+            Class<?> klass = loadClass(loader, builderClassName);
+            // *** Have to do reflection here, because of the different classpaths
+            if (klass == null || !builderInterface.isAssignableFrom(klass)) {
+                continue;
+            }
+
+            try {
+                Object instance = klass.getDeclaredConstructor().newInstance();
+                catalogTestBuilders.put(instance,
+                        klass.getMethod("appendTestCatalog", JsonObject.class, JsonObject.class, Class.class));
+                catalogSenvBuilders.put(instance,
+                        klass.getMethod("appendTestCatalogForSharedEnvironment", JsonObject.class, Class.class));
+            } catch (Exception e) {
+                log.warn("Ignoring test catalog builder class " + klass.getName() + " - " + e);
+            }
+        }
+    }
+
+    private Class<?> loadClass(ClassLoader loader, String className) {
+        try {
+            return Class.forName(className, false, loader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            log.warn("Unable to load class " + className + " for the test catalog builders - " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Annotated and sub types of the scanned classes, found the same way as
+     * Reflections.getTypesAnnotatedWith(annotation) did
+     */
+    private static class ClassIndex {
+
+        private final Map<String, List<String>> annotated = new HashMap<>();
+        private final Map<String, List<String>> subTypes  = new HashMap<>();
+
+        private ClassIndex(Map<String, ScannedClass> classes) {
+            for (ScannedClass scannedClass : classes.values()) {
+                for (String annotation : scannedClass.getAnnotations()) {
+                    annotated.computeIfAbsent(annotation, k -> new ArrayList<>()).add(scannedClass.getName());
+                }
+                if (scannedClass.getSuperClass() != null) {
+                    subTypes.computeIfAbsent(scannedClass.getSuperClass(), k -> new ArrayList<>()).add(scannedClass.getName());
+                }
+                for (String iface : scannedClass.getInterfaces()) {
+                    subTypes.computeIfAbsent(iface, k -> new ArrayList<>()).add(scannedClass.getName());
+                }
+            }
+        }
+
+        /**
+         * @return the types annotated with the annotation, directly or through
+         *         another annotation, and all their sub types, in name order
+         */
+        private Set<String> getTypesAnnotatedWith(String annotation) {
+            Set<String> found = new TreeSet<>();
+
+            Deque<String> pending = new ArrayDeque<>(annotated.getOrDefault(annotation, new ArrayList<>()));
+            while (!pending.isEmpty()) {
+                String name = pending.pop();
+                if (found.add(name)) {
+                    pending.addAll(annotated.getOrDefault(name, new ArrayList<>()));
+                    pending.addAll(subTypes.getOrDefault(name, new ArrayList<>()));
+                }
+            }
+
+            return found;
+        }
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.plugin.common.impl.testcatalog;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.bcel.Const;
+import org.apache.bcel.classfile.AnnotationEntry;
+import org.apache.bcel.classfile.Attribute;
+import org.apache.bcel.classfile.ClassFormatException;
+import org.apache.bcel.classfile.ClassParser;
+import org.apache.bcel.classfile.ConstantPool;
+import org.apache.bcel.classfile.ConstantUtf8;
+import org.apache.bcel.classfile.InnerClass;
+import org.apache.bcel.classfile.InnerClasses;
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import dev.galasa.plugin.common.WrappedLog;
+
+/**
+ * Reads the class files on a classpath without loading them, so that none of
+ * their static initialisers run and no class loader has to resolve their
+ * dependencies.
+ *
+ * Each class file is parsed at most once for a given content. The results are
+ * kept in a cache file keyed by the SHA-256 of the class file, or of the whole
+ * jar for classes in a jar, so a rebuild only parses what has changed. Jars and
+ * class files are scanned in parallel.
+ *
+ * A class file which cannot be read or parsed is left out, as it could not be
+ * loaded either, rather than failing the whole scan.
+ */
+class ClassScanner {
+
+    private static final int    CACHE_VERSION = 1;
+    private static final String CLASS_SUFFIX  = ".class";
+
+    private final Gson          gson          = new Gson();
+    private final WrappedLog    log;
+    private final File          cacheFile;
+
+    private final AtomicInteger parsedClasses = new AtomicInteger();
+    private final AtomicInteger cachedClasses = new AtomicInteger();
+
+    /**
+     * @param log
+     * @param cacheFile where to keep the results between builds, or null to not
+     *                  cache them
+     */
+    ClassScanner(WrappedLog log, File cacheFile) {
+        this.log = log;
+        this.cacheFile = cacheFile;
+    }
+
+    /**
+     * Scan the directories and jars on a classpath. Anything else on the
+     * classpath is ignored.
+     *
+     * @param classpath
+     * @return every class found, the first one on the classpath winning where a
+     *         class is found more than once
+     * @throws IOException
+     */
+    Map<String, ScannedClass> scan(List<File> classpath) throws IOException {
+
+        ScanCache previous = readCache();
+        ScanCache current = new ScanCache();
+
+        List<Callable<List<ScannedClass>>> scans = new ArrayList<>();
+        for (File element : classpath) {
+            if (element.isDirectory()) {
+                for (Path classFile : listClassFiles(element.toPath())) {
+                    scans.add(() -> scanClassFile(classFile, previous, current));
+                }
+            } else if (element.isFile() && element.getName().endsWith(".jar")) {
+                scans.add(() -> scanJar(element, previous, current));
+            }
+        }
+
+        Map<String, ScannedClass> classes = new HashMap<>();
+
+        int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), scans.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<ScannedClass>>> results = executor.invokeAll(scans);
+            for (Future<List<ScannedClass>> result : results) {
+                for (ScannedClass scannedClass : result.get()) {
+                    classes.putIfAbsent(scannedClass.getName(), scannedClass);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while scanning the classpath", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Unable to scan the classpath", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        writeCache(current);
+
+        return classes;
+    }
+
+    int getParsedClasses() {
+        return parsedClasses.get();
+    }
+
+    int getCachedClasses() {
+        return cachedClasses.get();
+    }
+
+    private List<Path> listClassFiles(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(path -> isClassFile(directory.relativize(path).toString().replace(File.separatorChar, '/')))
+                    .filter(Files::isRegularFile)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private List<ScannedClass> scanClassFile(Path classFile, ScanCache previous, ScanCache current) {
+        List<ScannedClass> scanned = new ArrayList<>();
+
+        byte[] content;
+        try {
+            content = Files.readAllBytes(classFile);
+        } catch (IOException e) {
+            warnUnreadable(classFile.toString(), e);
+            return scanned;
+        }
+        String hash = DigestUtils.sha256Hex(content);
+
+        ScannedClass scannedClass = previous.classes.get(hash);
+        if (scannedClass != null) {
+            cachedClasses.incrementAndGet();
+        } else {
+            scannedClass = parse(new ByteArrayInputStream(content), classFile.toString());
+            parsedClasses.incrementAndGet();
+        }
+
+        if (scannedClass != null) {
+            current.classes.put(hash, scannedClass);
+            scanned.add(scannedClass);
+        }
+        return scanned;
+    }
+
+    private List<ScannedClass> scanJar(File jar, ScanCache previous, ScanCache current) throws IOException {
+        String hash;
+        try (InputStream is = Files.newInputStream(jar.toPath())) {
+            hash = DigestUtils.sha256Hex(is);
+        }
+
+        List<ScannedClass> scanned = previous.jars.get(hash);
+        if (scanned != null) {
+            cachedClasses.addAndGet(scanned.size());
+        } else {
+            scanned = new ArrayList<>();
+            try (JarFile jarFile = new JarFile(jar)) {
+                Enumeration<JarEntry> entries = jarFile.entries();
+                while (entries.hasMoreElements()) {
+                    JarEntry entry = entries.nextElement();
+                    if (entry.isDirectory() || !isClassFile(entry.getName())) {
+                        continue;
+                    }
+
+                    try (InputStream is = jarFile.getInputStream(entry)) {
+                        ScannedClass scannedClass = parse(is, entry.getName());
+                        if (scannedClass != null) {
+                            scanned.add(scannedClass);
+                        }
+                    } catch (IOException e) {
+                        warnUnreadable(jar.getName() + "!" + entry.getName(), e);
+                    }
+                    parsedClasses.incrementAndGet();
+                }
+            }
+        }
+
+        current.jars.put(hash, scanned);
+        return scanned;
+    }
+
+    private boolean isClassFile(String path) {
+        return path.endsWith(CLASS_SUFFIX)
+                && !path.startsWith("META-INF/")
+                && !path.endsWith("module-info.class");
+    }
+
+    private void warnUnreadable(String fileName, IOException e) {
+        log.warn("Ignoring " + fileName + " for the test catalog as it could not be read: " + e);
+    }
+
+    /**
+     * @return the class, or null if the class file could not be read or parsed
+     */
+    private ScannedClass parse(InputStream classFile, String fileName) {
+        JavaClass javaClass;
+        try {
+            javaClass = new ClassParser(classFile, fileName).parse();
+        } catch (ClassFormatException e) {
+            return null;
+        } catch (IOException e) {
+            warnUnreadable(fileName, e);
+            return null;
+        }
+
+        String name = javaClass.getClassName();
+
+        String superClass = javaClass.getSuperclassName();
+        if ("java.lang.Object".equals(superClass)) {
+            superClass = null;
+        }
+
+        AnnotationEntry[] annotationEntries = javaClass.getAnnotationEntries();
+        String[] annotations = new String[annotationEntries.length];
+        for (int i = 0; i < annotationEntries.length; i++) {
+            // Held as a type descriptor, eg Ldev/galasa/Test;
+            String descriptor = annotationEntries[i].getAnnotationType();
+            annotations[i] = descriptor.substring(1, descriptor.length() - 1).replace('/', '.');
+        }
+
+        return new ScannedClass(name, getSimpleName(javaClass), superClass, javaClass.getInterfaceNames(), annotations);
+    }
+
+    /**
+     * The same as Class.getSimpleName(), which for nested classes comes from the
+     * InnerClasses attribute rather than the class name
+     */
+    private String getSimpleName(JavaClass javaClass) {
+        String internalName = javaClass.getClassName().replace('.', '/');
+        ConstantPool constantPool = javaClass.getConstantPool();
+
+        for (Attribute attribute : javaClass.getAttributes()) {
+            if (!(attribute instanceof InnerClasses)) {
+                continue;
+            }
+
+            for (InnerClass innerClass : ((InnerClasses) attribute).getInnerClasses()) {
+                String innerClassName = constantPool.getConstantString(innerClass.getInnerClassIndex(), Const.CONSTANT_Class);
+                if (internalName.equals(innerClassName)) {
+                    if (innerClass.getInnerNameIndex() == 0) {
+                        return "";
+                    }
+                    return ((ConstantUtf8) constantPool.getConstant(innerClass.getInnerNameIndex())).getBytes();
+                }
+            }
+        }
+
+        String name = javaClass.getClassName();
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    private ScanCache readCache() {
+        if (cacheFile == null || !cacheFile.isFile()) {
+            return new ScanCache();
+        }
+
+        try (Reader reader = Files.newBufferedReader(cacheFile.toPath(), StandardCharsets.UTF_8)) {
+            ScanCache cache = gson.fromJson(reader, new TypeToken<ScanCache>() {}.getType());
+            if (cache != null && cache.version == CACHE_VERSION && cache.classes != null && cache.jars != null) {
+                return cache;
+            }
+        } catch (IOException | JsonParseException e) {
+            // A damaged cache is rebuilt from scratch
+        }
+        return new ScanCache();
+    }
+
+    /**
+     * Only what was found by this scan is kept, so classes and jars which are no
+     * longer on the classpath do not build up in the cache
+     */
+    private void writeCache(ScanCache cache) throws IOException {
+        if (cacheFile == null) {
+            return;
+        }
+
+        cacheFile.getAbsoluteFile().getParentFile().mkdirs();
+        try (Writer writer = Files.newBufferedWriter(cacheFile.toPath(), StandardCharsets.UTF_8)) {
+            gson.toJson(cache, writer);
+        }
+    }
+
+    private static class ScanCache {
+        private int                             version = CACHE_VERSION;
+        private Map<String, ScannedClass>       classes = new ConcurrentHashMap<>();
+        private Map<String, List<ScannedClass>> jars    = new ConcurrentHashMap<>();
+    }
+}
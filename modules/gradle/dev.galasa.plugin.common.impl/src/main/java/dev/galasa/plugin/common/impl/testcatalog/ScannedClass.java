@@ -0,0 +1,59 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.plugin.common.impl.testcatalog;
+
+/**
+ * What the test catalog needs to know about a class, read from its class file.
+ * Held in the scan cache as JSON, so empty arrays are left null to keep it small.
+ */
+class ScannedClass {
+
+    private String   name;
+    private String   simpleName;
+    private String   superClass;
+    private String[] interfaces;
+    private String[] annotations;
+
+    ScannedClass(String name, String simpleName, String superClass, String[] interfaces, String[] annotations) {
+        this.name = name;
+        this.simpleName = simpleName;
+        this.superClass = superClass;
+        this.interfaces = nulled(interfaces);
+        this.annotations = nulled(annotations);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getSimpleName() {
+        return simpleName;
+    }
+
+    String getPackageName() {
+        int lastDot = name.lastIndexOf('.');
+        if (lastDot < 0) {
+            return "default";
+        }
+        return name.substring(0, lastDot);
+    }
+
+    String getSuperClass() {
+        return superClass;
+    }
+
+    String[] getInterfaces() {
+        return (interfaces == null) ? new String[0] : interfaces;
+    }
+
+    String[] getAnnotations() {
+        return (annotations == null) ? new String[0] : annotations;
+    }
+
+    private static String[] nulled(String[] values) {
+        return (values == null || values.length == 0) ? null : values;
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.plugin.common.impl.testcatalog;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.gson.JsonObject;
+
+import dev.galasa.SharedEnvironment;
+import dev.galasa.framework.spi.ITestCatalogBuilder;
+import dev.galasa.framework.spi.TestCatalogBuilder;
+import dev.galasa.plugin.common.test.MockLog;
+
+public class BundleTestCatalogBuilderTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @dev.galasa.Test
+    public static class MyTest {
+    }
+
+    public static class MySubTest extends MyTest {
+    }
+
+    public static class NotATest {
+    }
+
+    @SharedEnvironment
+    public static class MyEnvironment {
+    }
+
+    @TestCatalogBuilder
+    public static class MyCatalogBuilder implements ITestCatalogBuilder {
+
+        @Override
+        public void appendTestCatalog(JsonObject jsonRoot, JsonObject jsonTestClass, Class<?> testClass) {
+            jsonTestClass.addProperty("builtBy", testClass.getSimpleName());
+        }
+
+        @Override
+        public void appendTestCatalogForSharedEnvironment(JsonObject jsonSharedEnvironmentClass, Class<?> sharedEnvironmentClass) {
+            jsonSharedEnvironmentClass.addProperty("builtBy", sharedEnvironmentClass.getSimpleName());
+        }
+    }
+
+    private String classFileName(Class<?> klass) {
+        return klass.getName().replace('.', '/') + ".class";
+    }
+
+    private byte[] readClassFile(Class<?> klass) throws IOException {
+        try (InputStream is = klass.getClassLoader().getResourceAsStream(classFileName(klass))) {
+            return is.readAllBytes();
+        }
+    }
+
+    private File createClassesDirectory(Class<?>... classes) throws IOException {
+        File directory = temporaryFolder.newFolder();
+        for (Class<?> klass : classes) {
+            File classFile = new File(directory, classFileName(klass));
+            classFile.getParentFile().mkdirs();
+            Files.write(classFile.toPath(), readClassFile(klass));
+        }
+        return directory;
+    }
+
+    private File createJar(Class<?>... classes) throws IOException {
+        File jar = temporaryFolder.newFile("classes.jar");
+        try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(jar))) {
+            for (Class<?> klass : classes) {
+                jos.putNextEntry(new JarEntry(classFileName(klass)));
+                jos.write(readClassFile(klass));
+                jos.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    private List<File> classpath(File... elements) {
+        List<File> classpath = new ArrayList<>();
+        for (File element : elements) {
+            classpath.add(element);
+        }
+        return classpath;
+    }
+
+    @Test
+    public void testFindsAnnotatedTestClassesAndTheirSubclasses() throws Exception {
+        // Given...
+        MockLog mockLog = new MockLog();
+        File classes = createClassesDirectory(dev.galasa.Test.class, SharedEnvironment.class,
+            MyTest.class, MySubTest.class, NotATest.class, MyEnvironment.class);
+        BundleTestCatalogBuilder builder = new BundleTestCatalogBuilder(mockLog, classpath(classes), null);
+        JsonObject jsonRoot = new JsonObject();
+
+        // When...
+        boolean isBuilt = builder.appendTestCatalog(jsonRoot, "my.bundle");
+
+        // Then...
+        assertThat(isBuilt).isTrue();
+
+        String packageName = getClass().getPackage().getName();
+        String myTestName = MyTest.class.getName();
+        String mySubTestName = MySubTest.class.getName();
+
+        JsonObject jsonClasses = jsonRoot.getAsJsonObject("classes");
+        assertThat(jsonClasses.keySet()).containsExactly("my.bundle/" + mySubTestName, "my.bundle/" + myTestName);
+
+        JsonObject jsonTestClass = jsonClasses.getAsJsonObject("my.bundle/" + myTestName);
+        assertThat(jsonTestClass.get("name").getAsString()).isEqualTo(myTestName);
+        assertThat(jsonTestClass.get("bundle").getAsString()).isEqualTo("my.bundle");
+        assertThat(jsonTestClass.get("shortName").getAsString()).isEqualTo("MyTest");
+        assertThat(jsonTestClass.get("package").getAsString()).isEqualTo(packageName);
+
+        assertThat(jsonRoot.getAsJsonObject("packages").getAsJsonArray(packageName)).hasSize(2);
+        assertThat(jsonRoot.getAsJsonObject("bundles").getAsJsonObject("my.bundle")
+            .getAsJsonObject("packages").getAsJsonArray(packageName)).hasSize(2);
+
+        assertThat(jsonRoot.getAsJsonObject("sharedEnvironments").keySet())
+            .containsExactly("my.bundle/" + MyEnvironment.class.getName());
+
+        mockLog.assertContainsRecord("INFO:Test catalog built with 2 test classes");
+        mockLog.assertContainsRecord("INFO:Test catalog built with 1 shared environment");
+    }
+
+    @Test
+    public void testFindsTestClassesInJars() throws Exception {
+        // Given...
+        MockLog mockLog = new MockLog();
+        File classes = createClassesDirectory(dev.galasa.Test.class, SharedEnvironment.class);
+        File jar = createJar(MyTest.class, NotATest.class);
+        BundleTestCatalogBuilder builder = new BundleTestCatalogBuilder(mockLog, classpath(classes, jar), null);
+        JsonObject jsonRoot = new JsonObject();
+
+        // When...
+        builder.appendTestCatalog(jsonRoot, "my.bundle");
+
+        // Then...
+        assertThat(jsonRoot.getAsJsonObject("classes").keySet()).containsExactly("my.bundle/" + MyTest.class.getName());
+    }
+
+    @Test
+    public void testUnchangedClassesAreReadFromTheScanCache() throws Exception {
+        // Given...
+        File classes = createClassesDirectory(dev.galasa.Test.class, SharedEnvironment.class);
+        File jar = createJar(MyTest.class, NotATest.class);
+        File scanCache = new File(temporaryFolder.getRoot(), "cache/scancache.json");
+
+        new BundleTestCatalogBuilder(new MockLog(), classpath(classes, jar), scanCache)
+            .appendTestCatalog(new JsonObject(), "my.bundle");
+
+        MockLog mockLog = new MockLog();
+        BundleTestCatalogBuilder builder = new BundleTestCatalogBuilder(mockLog, classpath(classes, jar), scanCache);
+        JsonObject jsonRoot = new JsonObject();
+
+        // When...
+        builder.appendTestCatalog(jsonRoot, "my.bundle");
+
+        // Then...
+        assertThat(scanCache).isFile();
+        mockLog.assertContainsRecord("INFO:Scanned 4 classes for the Test Catalog, 4 unchanged since the last build");
+        assertThat(jsonRoot.getAsJsonObject("classes").keySet()).containsExactly("my.bundle/" + MyTest.class.getName());
+        assertThat(jsonRoot.getAsJsonObject("classes").getAsJsonObject("my.bundle/" + MyTest.class.getName())
+            .get("shortName").getAsString()).isEqualTo("MyTest");
+    }
+
+    @Test
+    public void testDamagedScanCacheIsIgnored() throws Exception {
+        // Given...
+        MockLog mockLog = new MockLog();
+        File classes = createClassesDirectory(dev.galasa.Test.class, SharedEnvironment.class, MyTest.class);
+        File scanCache = temporaryFolder.newFile("scancache.json");
+        Files.write(scanCache.toPath(), "{ not json".getBytes());
+        BundleTestCatalogBuilder builder = new BundleTestCatalogBuilder(mockLog, classpath(classes), scanCache);
+        JsonObject jsonRoot = new JsonObject();
+
+        // When...
+        builder.appendTestCatalog(jsonRoot, "my.bundle");
+
+        // Then...
+        mockLog.assertContainsRecord("INFO:Scanned 3 classes for the Test Catalog, 0 unchanged since the last build");
+        assertThat(jsonRoot.getAsJsonObject("classes").keySet()).containsExactly("my.bundle/" + MyTest.class.getName());
+    }
+
+    @Test
+    public void testUnreadableClassFileIsSkipped() throws Exception {
+        // Given...
+        MockLog mockLog = new MockLog();
+        File classes = createClassesDirectory(dev.galasa.Test.class, SharedEnvironment.class, MyTest.class);
+        File truncated = new File(classes, "my/Truncated.class");
+        truncated.getParentFile().mkdirs();
+        Files.write(truncated.toPath(), new byte[] { (byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 0, 0 });
+        BundleTestCatalogBuilder builder = new BundleTestCatalogBuilder(mockLog, classpath(classes), null);
+        JsonObject jsonRoot = new JsonObject();
+
+        // When...
+        boolean isBuilt = builder.appendTestCatalog(jsonRoot, "my.bundle");
+
+        // Then...
+        assertThat(isBuilt).isTrue();
+        assertThat(jsonRoot.getAsJsonObject("classes").keySet()).containsExactly("my.bundle/" + MyTest.class.getName());
+        mockLog.assertContainsRecord("WARNING:Ignoring " + truncated.getPath() + " for the test catalog as it could not be read: java.io.EOFException");
+    }
+
+    @Test
+    public void testTestCatalogBuildersAreGivenTheLoadedClasses() throws Exception {
+        // Given...
+        MockLog mockLog = new MockLog();
+        File classes = createClassesDirectory(dev.galasa.Test.class, SharedEnvironment.class,
+            TestCatalogBuilder.class, ITestCatalogBuilder.class, MyTest.class, MyEnvironment.class, MyCatalogBuilder.class);
+        BundleTestCatalogBuilder builder = new BundleTestCatalogBuilder(mockLog, classpath(classes), null);
+        JsonObject jsonRoot = new JsonObject();
+
+        // When...
+        builder.appendTestCatalog(jsonRoot, "my.bundle");
+
+        // Then...
+        assertThat(jsonRoot.getAsJsonObject("classes").getAsJsonObject("my.bundle/" + MyTest.class.getName())
+            .get("builtBy").getAsString()).isEqualTo("MyTest");
+        assertThat(jsonRoot.getAsJsonObject("sharedEnvironments").getAsJsonObject("my.bundle/" + MyEnvironment.class.getName())
+            .get("builtBy").getAsString()).isEqualTo("MyEnvironment");
+    }
+
+    @Test
+    public void testCatalogIsNotBuiltWithoutTheGalasaAnnotations() throws Exception {
+        // Given...
+        MockLog mockLog = new MockLog();
+        File classes = createClassesDirectory(MyTest.class, NotATest.class);
+        BundleTestCatalogBuilder builder = new BundleTestCatalogBuilder(mockLog, classpath(classes), null);
+        JsonObject jsonRoot = new JsonObject();
+
+        // When...
+        boolean isBuilt = builder.appendTestCatalog(jsonRoot, "my.bundle");
+
+        // Then...
+        assertThat(isBuilt).isFalse();
+        assertThat(jsonRoot.has("classes")).isFalse();
+        mockLog.assertContainsRecord("WARNING:Ignoring bundle for test catalog processing because the annotations are missing on the classpath");
+    }
+}
@@ -5,6 +5,14 @@
  */
 package dev.galasa.ipnetwork;
 
+/**
+ * A command shell on a host.
+ * 
+ * The SSH implementation shares its sessions with the other command shells for
+ * the same host and credentials. Commands issued with issueCommand can be
+ * issued from several threads at once, each running on a channel of its own.
+ * Commands issued with issueCommandToShell run one at a time in the one shell.
+ */
 public interface ICommandShell {
 
     public String issueCommand(String command) throws IpNetworkManagerException;
@@ -0,0 +1,116 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.ipnetwork.spi;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+
+/**
+ * Collects the output of an SSH channel as JSch delivers it, so a command can
+ * wait for output to arrive rather than polling the channel for it.
+ *
+ * JSch closes the stdout stream at end of file and the stderr stream when the
+ * channel closes, so the output is complete once every stream from
+ * {@link #newStream()} has been closed.
+ */
+class ChannelOutput {
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    private int                         openStreams;
+    private long                        version;
+
+    /**
+     * @return a stream for the channel to write to
+     */
+    synchronized OutputStream newStream() {
+        openStreams++;
+        return new Stream();
+    }
+
+    /**
+     * @return the output since it was last discarded
+     */
+    synchronized String getOutput() {
+        return buffer.toString();
+    }
+
+    /**
+     * Forget the output so far, eg before issuing the next command to a shell
+     */
+    synchronized void discard() {
+        buffer.reset();
+    }
+
+    synchronized boolean isClosed() {
+        return openStreams == 0;
+    }
+
+    /**
+     * @return a number which changes whenever output arrives or a stream closes
+     */
+    synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Wait for output to arrive or a stream to close
+     *
+     * @param sinceVersion    the version last seen
+     * @param timeoutInMillis
+     * @return the version now, which is the one given if nothing happened
+     * @throws InterruptedException
+     */
+    synchronized long awaitChange(long sinceVersion, long timeoutInMillis) throws InterruptedException {
+        long expire = System.currentTimeMillis() + timeoutInMillis;
+        while (version == sinceVersion) {
+            long remaining = expire - System.currentTimeMillis();
+            if (remaining <= 0) {
+                break;
+            }
+            wait(remaining);
+        }
+        return version;
+    }
+
+    private synchronized void append(byte[] bytes, int offset, int length) {
+        buffer.write(bytes, offset, length);
+        version++;
+        notifyAll();
+    }
+
+    private synchronized void streamClosed() {
+        openStreams--;
+        version++;
+        notifyAll();
+    }
+
+    private class Stream extends OutputStream {
+
+        private boolean closed;
+
+        @Override
+        public void write(int b) {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            append(bytes, offset, length);
+        }
+
+        @Override
+        public void close() {
+            synchronized (ChannelOutput.this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                streamClosed();
+            }
+        }
+    }
+}
@@ -6,19 +6,13 @@
 package dev.galasa.ipnetwork.spi;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.Calendar;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -39,14 +33,20 @@ import dev.galasa.ipnetwork.SSHException;
 /**
  * SSH client for Galasa
  * 
- *  
- * 
+ * Commands are run on channels of sessions shared with the other clients for
+ * the same host and credentials, see {@link SSHSessionPool}, so any number of
+ * threads can issue commands at once. Commands to the shell are issued one at
+ * a time, as they share the one shell. A shell which has not been used for a
+ * while is closed, giving back its channel, and the next command to the shell
+ * opens a new one.
  */
 public class SSHClient implements ICommandShell {
 
     private final Log           logger        = LogFactory.getLog(SSHClient.class);
 
-    private KeepAliveThread     keepAliveThread;
+    private static final int    OPEN_CHANNEL_ATTEMPTS = SSHSessionPool.MAX_SESSIONS_PER_HOST + 1;
+
+    private final SSHSessionPool pool         = SSHSessionPool.getInstance();
 
     private final long          defaultTimeout;
 
@@ -54,12 +54,17 @@ public class SSHClient implements ICommandShell {
     private final int           port;
     private final String        userid;
     private final String        password;
+    private final String        poolKey;
 
     private JSch                sshClient;
-    private Session             session;
-    private Channel             channel       = null;
+    private boolean             attached;
 
-    private long                lastCommandTimestamp;
+    private final ReentrantLock shellLock     = new ReentrantLock();
+    private final SSHSessionPool.IdleChannel shellIdleCheck = this::closeShellIfIdle;
+    private LeasedChannel       shell;
+    private ChannelOutput       shellOutput;
+    private OutputStream        shellInput;
+    private long                shellLastUsed;
 
     private boolean             logShellResults;
     
@@ -77,17 +82,19 @@ public class SSHClient implements ICommandShell {
         this.defaultTimeout = defaultTimeoutInMillis;
 
         this.sshClient = new JSch();
-        this.session = null;
 
         try {
+            // *** Clients only share sessions if they have the same credentials
             if (credentials instanceof ICredentialsUsernamePassword) {
                 ICredentialsUsernamePassword creds = (ICredentialsUsernamePassword) credentials;
                 this.userid = creds.getUsername();
                 this.password = creds.getPassword();
+                this.poolKey = createPoolKey(DigestUtils.sha256Hex(String.valueOf(this.password)));
             } else if (credentials instanceof ICredentialsUsernameToken) {
                 ICredentialsUsernameToken creds = (ICredentialsUsernameToken) credentials;
                 this.userid = creds.getUsername();
                 this.password = null;
+                this.poolKey = createPoolKey(DigestUtils.sha256Hex(creds.getToken()));
                 this.sshClient.addIdentity(this.userid, creds.getToken(), null, null);
             } else {
                 throw new SSHException("Unsupported credentials type - " + credentials.getClass().getName());
@@ -100,6 +107,10 @@ public class SSHClient implements ICommandShell {
 
     }
 
+    private String createPoolKey(String credentialsHash) {
+        return this.userid + "@" + this.hostname + ":" + this.port + "#" + credentialsHash;
+    }
+
     /**
      * Issue a command using SSH. Equivalent to  {@link #issueCommand(String, boolean, long)}
      * 
@@ -153,42 +164,27 @@ public class SSHClient implements ICommandShell {
      * @throws SSHException
      */
     @Override
-    public synchronized String issueCommand(String command, boolean newShell, long timeoutInMillis) throws SSHException {
+    public String issueCommand(String command, boolean newShell, long timeoutInMillis) throws SSHException {
 
-        // Connect if we are not already connected
-        connect();
         try {
-            synchronized (sshClient) {
-                // SessionChannelClient session = null;
-                // if (session == null || session.)
-                try {
+            logger.trace("Issuing '" + command + "'");
 
-                    logger.trace("Issuing '" + command + "'");
-                    lastCommandTimestamp = System.currentTimeMillis();
+            // Issue the desired command and retrieve the response to a
+            // string
+            String response = retrieveOutput(command, timeoutInMillis);
 
-                    // Issue the desired command and retrieve the response to a
-                    // string
-                    String response = retrieveOutput(command, timeoutInMillis);
-
-                    if (logShellResults) {
-                        logger.trace("Received '" + response);
-                    }
-                    lastCommandTimestamp = System.currentTimeMillis();
-
-                    return response;
-                } catch (SSHException e) {
-                    throw e;
-                } catch (IOException e) {
-                    throw new SSHException("Error whilst issuing command to ssh '" + command + "'", e);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    throw new SSHException("Interrupted while trying to retrieve output", e);
-                } catch (ExecutionException e) {
-                    throw new SSHException("Execution error while trying to retrieve output", e);
-                }
+            if (logShellResults) {
+                logger.trace("Received '" + response);
             }
-        } finally {
-            // disconnect();
+
+            return response;
+        } catch (SSHException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new SSHException("Error whilst issuing command to ssh '" + command + "'", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SSHException("Interrupted while trying to retrieve output", e);
         }
     }
 
@@ -254,68 +250,107 @@ public class SSHClient implements ICommandShell {
      * @throws SSHException
      */
     @Override
-    public synchronized String issueCommandToShell(String command, boolean newShell, long timeoutInMillis) throws SSHException {
-
-        connect();
+    public String issueCommandToShell(String command, boolean newShell, long timeoutInMillis) throws SSHException {
 
+        shellLock.lock();
         try {
+            try {
 
-            if (channel == null || channel.isClosed() || newShell) {
-                if (channel != null && !channel.isClosed()) {
-                    logger.trace("Closing old shell session");
-                    channel.disconnect();
+                if (shell == null || shell.isClosed() || newShell) {
+                    openShell(timeoutInMillis);
                 }
-                logger.trace("Opening new shell session to ssh");
-                channel = session.openChannel("shell");
-                ((ChannelShell) channel).setPty(true);
-                ((ChannelShell) channel).setPtyType("ansi", 2048, 24, 0, 0);
-                channel.connect();
-                Thread.sleep(5000); // NOSONAR - Sleep is sufficent
+
+                // Set a special prompt so we can easily identify responses to our commands.
+                // Waiting for the prompt also waits for a new shell to start up
+                logger.trace("Setting special prompt '" + specialPrompt + "'");
+                retrieveOutputFromShell(changePromptCommand, timeoutInMillis);
+
+                // Issue the desired command and retrieve the response to a string
+                return retrieveOutputFromShell(command, timeoutInMillis);
+
+            } catch (SSHException e) {
+                throw e;
+            } catch (IOException e) {
+                throw new SSHException("Error whilst issuing command to ssh '" + command + "'", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SSHException("Interrupted while trying to retrieve output", e);
             }
+        } finally {
+            shellLastUsed = System.currentTimeMillis();
+            shellLock.unlock();
+        }
+    }
 
-            lastCommandTimestamp = System.currentTimeMillis();
-            // Set a special prompt so we can easily identify responses to our commands
-            logger.trace("Setting special prompt '" + specialPrompt + "'");
-            retrieveOutputFromShell(channel, changePromptCommand, timeoutInMillis);
-            Thread.sleep(500); // NOSONAR - Sleep is sufficent
-
-            // Issue the desired command and retrieve the response to a string
-            lastCommandTimestamp = System.currentTimeMillis();
-            String response = retrieveOutputFromShell(channel, command, timeoutInMillis);
-            lastCommandTimestamp = System.currentTimeMillis();
-            
-            return response;
+    private void openShell(long timeoutInMillis) throws SSHException, IOException {
+        closeShell();
+
+        logger.trace("Opening new shell session to ssh");
+        ChannelOutput output = new ChannelOutput();
+        shell = openChannel("shell", channel -> {
+            ((ChannelShell) channel).setPty(true);
+            ((ChannelShell) channel).setPtyType("ansi", 2048, 24, 0, 0);
+            channel.setOutputStream(output.newStream());
+        }, timeoutInMillis);
+        shellOutput = output;
+        shellInput = shell.getChannel().getOutputStream();
+        shellLastUsed = System.currentTimeMillis();
+        pool.watch(shellIdleCheck);
+    }
 
-        } catch (IOException e) {
-            throw new SSHException("Error whilst issuing command to ssh '" + command + "'", e);
-        } catch (JSchException e) {
-            throw new SSHException(e);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new SSHException("Interrupted while trying to retrieve output", e);
-        } catch (ExecutionException e) {
-            throw new SSHException("Execution error while trying to retrieve output", e);
-        } finally {
-            // disconnect();
+    private void closeShell() {
+        if (shell != null) {
+            logger.trace("Closing old shell session");
+            pool.unwatch(shellIdleCheck);
+            shell.close();
+            shell = null;
+            shellOutput = null;
+            shellInput = null;
         }
     }
 
-    @Override
-    public void connect() throws SSHException {
-        connect(5);
+    /**
+     * Called by the pool, so does not wait for a command which is using the shell
+     */
+    private void closeShellIfIdle(long idleSince) {
+        if (!shellLock.tryLock()) {
+            return;
+        }
+        try {
+            if (shell != null && shellLastUsed <= idleSince) {
+                logger.debug("SSH shell to '" + hostname + ":" + port + "' unused, freeing its channel");
+                closeShell();
+            }
+        } finally {
+            shellLock.unlock();
+        }
     }
 
     /**
-     * Connect to the target system
+     * Connect to the target system, which only opens a session if there is not
+     * already one to the host for these credentials
      * 
      * @throws SSHException
      */
-    private synchronized void connect(int retry) throws SSHException {
-        // Do nothing if already connected
-        if (session != null && session.isConnected()) {
-            return;
+    @Override
+    public void connect() throws SSHException {
+        attach();
+        pool.release(pool.acquire(poolKey, this::createSession, defaultTimeout));
+    }
+
+    private synchronized void attach() {
+        if (!attached) {
+            pool.attach(poolKey);
+            attached = true;
         }
+    }
 
+    private Session createSession() throws SSHException {
+        return createSession(5);
+    }
+
+    private Session createSession(int retry) throws SSHException {
+        Session session = null;
         try {
 
             try {
@@ -328,18 +363,9 @@ public class SSHClient implements ICommandShell {
 
                 session.connect();
 
-                // Slight delay to allow the connection to stabilise
-                try {
-                    Thread.sleep(200); // NOSONAR - Sleep is sufficent
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    throw new SSHException("Interrupted trying to authenticate using SSH", e);
-                }
-
                 logger.trace("SSH Client connected to '" + hostname + ":" + port);
 
-                this.keepAliveThread = new KeepAliveThread(session);
-                this.keepAliveThread.start();
+                return session;
 
             } catch (Exception e) {
                 if ("Auth fail".equals(e.getMessage())) {
@@ -350,10 +376,9 @@ public class SSHClient implements ICommandShell {
                     logger.trace("Exception caught during SSH connection, will retry.", e);
                     if (session != null && session.isConnected()) {
                         session.disconnect();
-                        session = null;
                     }
                     Thread.sleep(5000); // NOSONAR - Sleep is sufficent
-                    connect(retry - 1);
+                    return createSession(retry - 1);
                 } else {
                     throw e;
                 }
@@ -366,120 +391,123 @@ public class SSHClient implements ICommandShell {
         } catch (Exception e) {
             throw new SSHException("Unrecognised exception in connection", e);
         }
+    }
+
+    /**
+     * Open a channel on a pooled session, trying another session if one will not
+     * open any more channels
+     */
+    private LeasedChannel openChannel(String type, Consumer<Channel> setup, long timeoutInMillis) throws SSHException {
+        attach();
 
-        return;
+        SSHException failure = null;
+        for (int attempt = 0; attempt < OPEN_CHANNEL_ATTEMPTS; attempt++) {
+            SSHSessionPool.PooledSession pooled = pool.acquire(poolKey, this::createSession, timeoutInMillis);
+            Channel channel = null;
+            try {
+                channel = pooled.getSession().openChannel(type);
+                setup.accept(channel);
+                channel.connect((int) Math.min(timeoutInMillis, Integer.MAX_VALUE));
+                return new LeasedChannel(pooled, channel);
+            } catch (JSchException e) {
+                if (channel != null) {
+                    channel.disconnect();
+                }
+                pool.refused(pooled);
+                failure = new SSHException("Unable to open an ssh " + type + " channel to '" + hostname + ":" + port + "'", e);
+            }
+        }
+        throw failure;
     }
 
+    /**
+     * Close the shell and open a new one, on whichever pooled session has room
+     * for it
+     *
+     * @throws SSHException
+     */
     @Override
     public void restartShell() throws SSHException {
+        shellLock.lock();
+        try {
+            openShell(defaultTimeout);
+        } catch (IOException e) {
+            throw new SSHException("Unable to restart the ssh shell to '" + hostname + ":" + port + "'", e);
+        } finally {
+            shellLock.unlock();
+        }
     }
 
     /**
-     * Disconnect the client
+     * Disconnect the client. The sessions it used are disconnected once no
+     * client is using them.
      * 
-     * @throws IOException
+     * @throws SSHException
      */
     @Override
-    public synchronized void disconnect() throws SSHException {
-        if (session == null) {
-            return;
+    public void disconnect() throws SSHException {
+        shellLock.lock();
+        try {
+            closeShell();
+        } finally {
+            shellLock.unlock();
         }
-        synchronized (sshClient) {
 
-            if (!session.isConnected()) {
-                session = null;
+        synchronized (this) {
+            if (!attached) {
                 return;
             }
-
-            session.disconnect();
-            logger.trace("SSH Client disconnected");
-
-            session = null;
+            attached = false;
         }
-        return;
+        pool.detach(poolKey);
+        logger.trace("SSH Client disconnected");
     }
 
     /**
-     * Retrieve all output from the shell, returning only that which is found
-     * between the command issued and the next occurrence of the special prompt we
-     * defined in {@link #issueCommand(String)}
+     * Retrieve all output from an exec channel, which ends when the channel
+     * closes
      *
      * @param command
      * @param timeoutInMillis
      * @return
      * @throws IOException
      * @throws InterruptedException
-     * @throws ExecutionException
      * @throws SSHException
      */
     private String retrieveOutput(String command, long timeoutInMillis)
-            throws IOException, InterruptedException, ExecutionException, SSHException {
+            throws IOException, InterruptedException, SSHException {
 
-        StringBuilder sb = new StringBuilder();
-        ChannelExec channel = null;
-        try {
-            channel = (ChannelExec) session.openChannel("exec");
-            channel.setPty(true);
-            channel.setPtyType("ansi", 2048, 24, 0, 0);
-            channel.setInputStream(null);
-            channel.setErrStream(null);
-            channel.setCommand(command);
-            InputStream is = channel.getInputStream();
-            InputStream err = channel.getErrStream();
-            channel.connect();
-
-            long whenTimeout = Calendar.getInstance().getTimeInMillis() + timeoutInMillis;
-
-            byte[] tmp = new byte[1024];
-            while (true) {
-                if (whenTimeout <= Calendar.getInstance().getTimeInMillis()) {
-                    throw new SSHException("Read of command timed out, response so far:-\n" + sb.toString());
-                }
-                while (is.available() > 0) {
-                    int i = is.read(tmp);
+        long whenTimeout = System.currentTimeMillis() + timeoutInMillis;
 
-                    if (i < 0) {
-                        break;
-                    }
-                    String data = new String(tmp, 0, i);
-                    sb.append(data);
-                }
-                while (err.available() > 0) {
-                    int i = err.read(tmp);
+        ChannelOutput output = new ChannelOutput();
+        LeasedChannel channel = openChannel("exec", exec -> {
+            ((ChannelExec) exec).setPty(true);
+            ((ChannelExec) exec).setPtyType("ansi", 2048, 24, 0, 0);
+            exec.setInputStream(null);
+            exec.setOutputStream(output.newStream());
+            ((ChannelExec) exec).setErrStream(output.newStream());
+            ((ChannelExec) exec).setCommand(command);
+        }, timeoutInMillis);
 
-                    if (i < 0) {
-                        break;
-                    }
-                    String data = new String(tmp, 0, i);
-                    sb.append(data);
-                }
-                if (channel.isClosed()) {
-                    if (is.available() > 0)
-                        continue;
-                    if (err.available() > 0)
-                        continue;
-                    break;
-                }
-                try {
-                    Thread.sleep(100);
-                } catch (Exception ee) {
+        try {
+            // *** Woken as output arrives, until JSch closes the streams with the channel
+            long version = output.getVersion();
+            while (!output.isClosed()) {
+                long remaining = whenTimeout - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new SSHException("Read of command timed out, response so far:-\n" + output.getOutput());
                 }
+                version = output.awaitChange(version, remaining);
             }
-        } catch (SSHException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new SSHException("Error reading exec output", e);
         } finally {
-            if (channel != null) {
-                channel.disconnect();
-            }
+            channel.close();
         }
-        
+
         if (this.removeAnsiEscapeCodes) {
-            return new String(removeAnsiEscapeCodes(sb.toString().getBytes()));
+            return new String(removeAnsiEscapeCodes(output.getOutput().getBytes()));
         }
 
-        return sb.toString();
+        return output.getOutput();
 
     }
 
@@ -492,22 +520,18 @@ public class SSHClient implements ICommandShell {
      * between the command issued and the next occurrence of the special prompt we
      * defined in {@link #issueCommandToShell(String)}
      *
-     * @param channel
      * @param command
-     * @param timeoutInMillis
+     * @param timeoutInMillis - time to wait with no new output appearing
      * @return
      * @throws IOException
      * @throws InterruptedException
-     * @throws ExecutionException
      * @throws SSHException
      */
-    private String retrieveOutputFromShell(Channel channel, String command, long timeoutInMillis)
-            throws IOException, InterruptedException, ExecutionException, SSHException {
+    private String retrieveOutputFromShell(String command, long timeoutInMillis)
+            throws IOException, InterruptedException, SSHException {
 
-        // Get the input stream from the current session
-        final InputStream in = channel.getInputStream();
-        OutputStream os = channel.getOutputStream();
-        in.skip(in.available()); // NOSONAR - Dont care what is on the buffer to start with
+        // Dont care what is on the buffer to start with
+        shellOutput.discard();
 
         // Remove any unwanted trailing end-of-line characters
         command = command.trim();
@@ -521,108 +545,63 @@ public class SSHClient implements ICommandShell {
 
         // Submit the command
         logger.trace("Submitting command to host '" + hostname + "':\n'" + command + "'");
-        os.write((command + " \r\n").getBytes());
-        os.flush();
-        Thread.sleep(500);
-
-        // Create a string builder to build the response, and a buffer in to which to
-        // read
-        // from the input stream
-        StringBuilder responseBuilder = new StringBuilder();
-        final byte buffer[] = new byte[5000];
-
-        // Create an executor and a callable which will allow us to read continuously
-        // from
-        // the input stream with a timeoutInMillis
-        ExecutorService executor = Executors.newFixedThreadPool(2);
-        Callable<Integer> reader = new Callable<Integer>() {
-
-            /**
-             * Return the number of bytes ready to be read from the buffer
-             */
-            @Override
-            public Integer call() throws Exception {
-                return in.read(buffer);
-            }
-        };
+        shellInput.write((command + " \r\n").getBytes());
+        shellInput.flush();
 
-        // Retrieve the output
+        // Retrieve the output, checking it each time more arrives
         while (true) {
-
-            // Submit our callable and wait for it to tell us how many bytes to read
-            Future<Integer> future = executor.submit(reader);
-            int read = 0;
-            try {
-                read = future.get(timeoutInMillis, TimeUnit.MILLISECONDS);
-            } catch (TimeoutException e) {
-                executor.shutdown();
-                throw new SSHException("Timed out waiting for response from ssh. Response so far: " + responseBuilder);
-            }
-
-            // Append the new output to our response
-            responseBuilder.append(new String(buffer, 0, read));
+            long version = shellOutput.getVersion();
 
             // If the output matches <command>...<prompt> then we have found the complete
             // response
-            Matcher responseMatcher = responsePattern.matcher(responseBuilder.toString());
+            Matcher responseMatcher = responsePattern.matcher(shellOutput.getOutput());
             if (responseMatcher.find()) {
-                executor.shutdown();
                 String response = responseMatcher.group(1);
                 logger.trace("Retrieved response from host '" + hostname + "':\n'" + response + "'");
                 return response;
             }
-        }
-    }
 
-    private class KeepAliveThread extends Thread {
-
-        private final Session monitorSession;
-
-        // Some commands we run download the isolated build zip which takes ages...
-        // Timeout increased from 60secs to 120secs to allow the download to complete.
-        private long          idleTimeout = 120000;
-
-        public KeepAliveThread(Session session) {
-            this.monitorSession = session;
-            this.setDaemon(true);
-            this.setName("GalasaSSHClient timeout thread");
-
-            // if (configurationProperties != null) {
-            // String idleTimeoutString =
-            // configurationProperties.getProperty("core.ssh.idle.timeout", "60000");
-            // try {
-            // idleTimeout = Long.parseLong(idleTimeoutString);
-            // } catch(Exception e) {
-            // logger.error("Invalid ssh idle timeout '" + idleTimeoutString + "'",e);
-            // }
-            //
-            // }
+            if (shellOutput.isClosed()) {
+                throw new SSHException("The ssh shell closed before responding. Response so far: " + shellOutput.getOutput());
+            }
+
+            if (shellOutput.awaitChange(version, timeoutInMillis) == version) {
+                throw new SSHException("Timed out waiting for response from ssh. Response so far: " + shellOutput.getOutput());
+            }
         }
+    }
 
-        @Override
-        public void run() {
+    /**
+     * A channel and the pooled session it is on, the lease being given back when
+     * the channel is closed
+     */
+    private class LeasedChannel {
 
-            lastCommandTimestamp = System.currentTimeMillis();
+        private final SSHSessionPool.PooledSession session;
+        private final Channel                      channel;
+        private boolean                            released;
 
-            while (this.monitorSession.isConnected()) {
+        private LeasedChannel(SSHSessionPool.PooledSession session, Channel channel) {
+            this.session = session;
+            this.channel = channel;
+        }
 
-                synchronized (SSHClient.this) {
+        private Channel getChannel() {
+            return channel;
+        }
 
-                    long timeout = System.currentTimeMillis() - idleTimeout;
-                    if (timeout >= lastCommandTimestamp) {
-                        logger.debug("SSH Client unused after " + idleTimeout + " milliseconds, freeing session");
-                        this.monitorSession.disconnect();
-                    }
-                }
+        private boolean isClosed() {
+            return channel.isClosed() || !session.isConnected();
+        }
 
-                try {
-                    Thread.sleep(100);
-                } catch (Exception e) {
-                    return;
-                }
+        private synchronized void close() {
+            if (released) {
+                return;
             }
+            released = true;
+            channel.disconnect();
+            pool.release(session);
         }
-
     }
 
     @Override
@@ -0,0 +1,377 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.ipnetwork.spi;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.jcraft.jsch.Session;
+
+import dev.galasa.ipnetwork.SSHException;
+
+/**
+ * The SSH sessions to each host, shared by every {@link SSHClient} for the same
+ * host, port and credentials.
+ *
+ * Each session carries several channels at once, so commands issued from
+ * different threads, or through different clients, run side by side rather than
+ * queueing behind one another. Another session is opened when every session is
+ * carrying as many channels as it can, up to a limit per host. A session which
+ * refuses a channel is not given more than it has open, as sshd limits the
+ * channels of a session with MaxSessions.
+ *
+ * Sessions which have had no channels open for a while are disconnected, as
+ * are the idle sessions of a host once no client is connected to it. Channels
+ * which are kept open between uses, such as shells, are asked to close once
+ * they have been idle for a while, so their sessions can be freed too.
+ */
+class SSHSessionPool {
+
+    static final int                          MAX_CHANNELS_PER_SESSION = 8;
+    static final int                          MAX_SESSIONS_PER_HOST    = 4;
+    static final long                         IDLE_TIMEOUT             = 120000;
+
+    private static final long                 IDLE_CHECK_INTERVAL      = 1000;
+
+    private static final SSHSessionPool       INSTANCE                 = new SSHSessionPool(IDLE_TIMEOUT);
+
+    private final Log                         logger                   = LogFactory.getLog(SSHSessionPool.class);
+
+    private final long                        idleTimeout;
+
+    private final Map<String, HostSessions>   hosts                    = new HashMap<>();
+    private final Set<IdleChannel>            idleChannels             = new LinkedHashSet<>();
+
+    private Thread                            idleThread;
+
+    interface SessionFactory {
+        Session createSession() throws SSHException;
+    }
+
+    /**
+     * A channel which is kept open between uses
+     */
+    interface IdleChannel {
+        /**
+         * Close the channel, giving back its lease, if it has not been used since
+         * the time given. Called without the pool locked.
+         */
+        void closeIfIdle(long idleSince);
+    }
+
+    static SSHSessionPool getInstance() {
+        return INSTANCE;
+    }
+
+    SSHSessionPool(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Note a client is connected to a host, so its sessions are kept until they
+     * have been idle for a while
+     */
+    synchronized void attach(String key) {
+        getHost(key).clients++;
+    }
+
+    /**
+     * Note a client has disconnected, the idle sessions of the host being
+     * disconnected if it was the last one
+     */
+    void detach(String key) {
+        List<PooledSession> idle = new ArrayList<>();
+        synchronized (this) {
+            HostSessions host = hosts.get(key);
+            if (host == null || host.clients == 0) {
+                return;
+            }
+
+            host.clients--;
+            if (host.clients == 0) {
+                Iterator<PooledSession> sessions = host.sessions.iterator();
+                while (sessions.hasNext()) {
+                    PooledSession session = sessions.next();
+                    if (session.leases == 0) {
+                        sessions.remove();
+                        idle.add(session);
+                    }
+                }
+                removeIfUnused(key, host);
+            }
+        }
+
+        for (PooledSession session : idle) {
+            session.disconnect();
+        }
+    }
+
+    /**
+     * Lease a channel on a session to the host, opening a new session if every
+     * session is carrying all the channels it can
+     *
+     * @param key             identifies the host, port and credentials, eg
+     *                        user@host:22#hash-of-the-credentials
+     * @param factory         creates and connects a new session
+     * @param timeoutInMillis how long to wait for a channel if the host has as
+     *                        many sessions as it can
+     * @return the session, which must be given back to
+     *         {@link #release(PooledSession)} when the channel is closed
+     * @throws SSHException
+     */
+    PooledSession acquire(String key, SessionFactory factory, long timeoutInMillis) throws SSHException {
+        long expire = System.currentTimeMillis() + timeoutInMillis;
+
+        synchronized (this) {
+            while (true) {
+                HostSessions host = getHost(key);
+                host.sessions.removeIf(session -> !session.isConnected());
+
+                PooledSession leastUsed = null;
+                for (PooledSession session : host.sessions) {
+                    if (session.leases < session.channelLimit
+                            && (leastUsed == null || session.leases < leastUsed.leases)) {
+                        leastUsed = session;
+                    }
+                }
+
+                if (leastUsed != null) {
+                    leastUsed.lease();
+                    return leastUsed;
+                }
+
+                if (host.sessions.size() + host.connecting < MAX_SESSIONS_PER_HOST) {
+                    host.connecting++;
+                    break;
+                }
+
+                long remaining = expire - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new SSHException("Timed out waiting for a free SSH channel to " + describe(key));
+                }
+                try {
+                    wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SSHException("Interrupted waiting for a free SSH channel", e);
+                }
+            }
+        }
+
+        // *** Connect outside the lock, so other hosts and channels are not held up
+        Session session;
+        try {
+            session = factory.createSession();
+        } catch (SSHException | RuntimeException e) {
+            synchronized (this) {
+                getHost(key).connecting--;
+                notifyAll();
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            HostSessions host = getHost(key);
+            host.connecting--;
+            PooledSession pooled = new PooledSession(session);
+            pooled.lease();
+            host.sessions.add(pooled);
+            startIdleThread();
+            notifyAll();
+            return pooled;
+        }
+    }
+
+    /**
+     * Give back a channel leased by {@link #acquire(String, SessionFactory, long)}
+     */
+    synchronized void release(PooledSession session) {
+        session.release();
+        notifyAll();
+    }
+
+    /**
+     * Give back a channel which the session would not open. If the session is
+     * still connected it has reached the limit of channels sshd allows it.
+     */
+    synchronized void refused(PooledSession session) {
+        if (session.isConnected()) {
+            session.channelLimit = Math.max(1, session.leases - 1);
+            logger.debug("SSH session limited to " + session.channelLimit + " channels");
+        }
+        release(session);
+    }
+
+    /**
+     * Ask the channel to close once it has been idle for longer than the timeout,
+     * until it is given to {@link #unwatch(IdleChannel)}
+     */
+    synchronized void watch(IdleChannel channel) {
+        idleChannels.add(channel);
+    }
+
+    synchronized void unwatch(IdleChannel channel) {
+        idleChannels.remove(channel);
+    }
+
+    synchronized int getSessionCount(String key) {
+        HostSessions host = hosts.get(key);
+        return host == null ? 0 : host.sessions.size();
+    }
+
+    /**
+     * Close the watched channels and disconnect the sessions which have been idle
+     * for longer than the timeout
+     */
+    void disconnectIdleSessions() {
+        List<PooledSession> idle = new ArrayList<>();
+        long idleSince = System.currentTimeMillis() - idleTimeout;
+
+        // *** Channels close outside the lock, as closing one gives back its lease
+        List<IdleChannel> channels;
+        synchronized (this) {
+            channels = new ArrayList<>(idleChannels);
+        }
+        for (IdleChannel channel : channels) {
+            channel.closeIfIdle(idleSince);
+        }
+
+        synchronized (this) {
+            Iterator<Map.Entry<String, HostSessions>> entries = hosts.entrySet().iterator();
+            while (entries.hasNext()) {
+                HostSessions host = entries.next().getValue();
+                Iterator<PooledSession> sessions = host.sessions.iterator();
+                while (sessions.hasNext()) {
+                    PooledSession session = sessions.next();
+                    if (!session.isConnected()) {
+                        sessions.remove();
+                    } else if (session.leases == 0 && session.lastUsed <= idleSince) {
+                        sessions.remove();
+                        idle.add(session);
+                    }
+                }
+                if (host.sessions.isEmpty() && host.clients == 0 && host.connecting == 0) {
+                    entries.remove();
+                }
+            }
+        }
+
+        for (PooledSession session : idle) {
+            logger.debug("SSH session unused after " + idleTimeout + " milliseconds, freeing session");
+            session.disconnect();
+        }
+    }
+
+    /**
+     * @return the key without the hash of the credentials which ends it
+     */
+    private String describe(String key) {
+        int hash = key.indexOf('#');
+        return hash < 0 ? key : key.substring(0, hash);
+    }
+
+    private HostSessions getHost(String key) {
+        return hosts.computeIfAbsent(key, k -> new HostSessions());
+    }
+
+    private void removeIfUnused(String key, HostSessions host) {
+        if (host.sessions.isEmpty() && host.clients == 0 && host.connecting == 0) {
+            hosts.remove(key);
+        }
+    }
+
+    private void startIdleThread() {
+        if (idleThread != null) {
+            return;
+        }
+
+        idleThread = new Thread(this::checkIdleSessions, "GalasaSSHClient timeout thread");
+        idleThread.setDaemon(true);
+        idleThread.start();
+    }
+
+    /**
+     * Runs until there are no sessions left, being started again by the next
+     * session to be opened
+     */
+    private void checkIdleSessions() {
+        while (true) {
+            try {
+                Thread.sleep(IDLE_CHECK_INTERVAL);
+            } catch (InterruptedException e) {
+                synchronized (this) {
+                    idleThread = null;
+                }
+                return;
+            }
+
+            disconnectIdleSessions();
+
+            synchronized (this) {
+                boolean hasSessions = false;
+                for (HostSessions host : hosts.values()) {
+                    hasSessions = hasSessions || !host.sessions.isEmpty() || host.connecting > 0;
+                }
+                if (!hasSessions) {
+                    idleThread = null;
+                    return;
+                }
+            }
+        }
+    }
+
+    private static class HostSessions {
+        private final List<PooledSession> sessions = new ArrayList<>();
+        private int                       connecting;
+        private int                       clients;
+    }
+
+    /**
+     * A session in the pool, with the number of channels leased on it. The
+     * lease count is only changed with the pool locked.
+     */
+    static class PooledSession {
+
+        private final Session session;
+        private int           leases;
+        private int           channelLimit = MAX_CHANNELS_PER_SESSION;
+        private long          lastUsed     = System.currentTimeMillis();
+
+        private PooledSession(Session session) {
+            this.session = session;
+        }
+
+        Session getSession() {
+            return session;
+        }
+
+        boolean isConnected() {
+            return session.isConnected();
+        }
+
+        private void lease() {
+            leases++;
+            lastUsed = System.currentTimeMillis();
+        }
+
+        private void release() {
+            leases--;
+            lastUsed = System.currentTimeMillis();
+        }
+
+        private void disconnect() {
+            session.disconnect();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.ipnetwork.spi;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TestChannelOutput {
+
+    @Test
+    public void testIsClosedOnceEveryStreamIsClosed() throws Exception {
+        // Given...
+        ChannelOutput output = new ChannelOutput();
+        OutputStream out = output.newStream();
+        OutputStream err = output.newStream();
+
+        // When...
+        out.write("hello ".getBytes());
+        err.write("world".getBytes());
+        out.close();
+        boolean isClosedAfterOut = output.isClosed();
+        err.close();
+        err.close();
+
+        // Then...
+        assertThat(isClosedAfterOut).isFalse();
+        assertThat(output.isClosed()).isTrue();
+        assertThat(output.getOutput()).isEqualTo("hello world");
+    }
+
+    @Test
+    public void testWaitersAreWokenByOutput() throws Exception {
+        // Given...
+        ChannelOutput output = new ChannelOutput();
+        OutputStream out = output.newStream();
+        long version = output.getVersion();
+
+        // When...
+        CompletableFuture<Long> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return output.awaitChange(version, 10000);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(100);
+        out.write('x');
+
+        // Then...
+        assertThat(waiting.get(5, TimeUnit.SECONDS)).isNotEqualTo(version);
+    }
+
+    @Test
+    public void testWaitTimesOutWithoutOutput() throws Exception {
+        // Given...
+        ChannelOutput output = new ChannelOutput();
+        output.newStream().write("before".getBytes());
+        long version = output.getVersion();
+
+        // When...
+        long after = output.awaitChange(version, 50);
+        output.discard();
+
+        // Then...
+        assertThat(after).isEqualTo(version);
+        assertThat(output.getOutput()).isEmpty();
+    }
+}
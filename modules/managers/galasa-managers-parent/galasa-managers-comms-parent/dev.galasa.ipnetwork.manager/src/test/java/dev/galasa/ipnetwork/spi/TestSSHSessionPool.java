@@ -0,0 +1,236 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.ipnetwork.spi;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.jcraft.jsch.Session;
+
+import dev.galasa.ipnetwork.SSHAuthFailException;
+import dev.galasa.ipnetwork.SSHException;
+import dev.galasa.ipnetwork.spi.SSHSessionPool.PooledSession;
+
+public class TestSSHSessionPool {
+
+    private static final String KEY = "user@host:22#hash";
+
+    private final List<Session> created = new ArrayList<>();
+
+    private Session createSession() {
+        Session session = mock(Session.class);
+        when(session.isConnected()).thenReturn(true);
+        created.add(session);
+        return session;
+    }
+
+    @Test
+    public void testChannelsShareASessionUntilItIsFull() throws Exception {
+        // Given...
+        SSHSessionPool pool = new SSHSessionPool(60000);
+
+        // When...
+        List<PooledSession> leased = new ArrayList<>();
+        for (int i = 0; i < SSHSessionPool.MAX_CHANNELS_PER_SESSION + 1; i++) {
+            leased.add(pool.acquire(KEY, this::createSession, 1000));
+        }
+
+        // Then...
+        assertThat(created).hasSize(2);
+        assertThat(leased.subList(0, SSHSessionPool.MAX_CHANNELS_PER_SESSION))
+            .allMatch(session -> session == leased.get(0));
+        assertThat(leased.get(SSHSessionPool.MAX_CHANNELS_PER_SESSION)).isNotSameAs(leased.get(0));
+    }
+
+    @Test
+    public void testReleasedChannelsAreReused() throws Exception {
+        // Given...
+        SSHSessionPool pool = new SSHSessionPool(60000);
+        PooledSession first = pool.acquire(KEY, this::createSession, 1000);
+        pool.release(first);
+
+        // When...
+        PooledSession second = pool.acquire(KEY, this::createSession, 1000);
+
+        // Then...
+        assertThat(second).isSameAs(first);
+        assertThat(created).hasSize(1);
+        assertThat(pool.getSessionCount(KEY)).isEqualTo(1);
+    }
+
+    @Test
+    public void testDifferentKeysDoNotShareSessions() throws Exception {
+        // Given...
+        SSHSessionPool pool = new SSHSessionPool(60000);
+
+        // When...
+        PooledSession first = pool.acquire(KEY, this::createSession, 1000);
+        PooledSession second = pool.acquire("other@host:22#hash", this::createSession, 1000);
+
+        // Then...
+        assertThat(second).isNotSameAs(first);
+        assertThat(created).hasSize(2);
+    }
+
+    @Test
+    public void testRefusedChannelLimitsTheSession() throws Exception {
+        // Given...
+        SSHSessionPool pool = new SSHSessionPool(60000);
+        PooledSession first = pool.acquire(KEY, this::createSession, 1000);
+        PooledSession refused = pool.acquire(KEY, this::createSession, 1000);
+        assertThat(refused).isSameAs(first);
+
+        // When...
+        pool.refused(refused);
+        PooledSession next = pool.acquire(KEY, this::createSession, 1000);
+
+        // Then...
+        assertThat(next).isNotSameAs(first);
+        assertThat(created).hasSize(2);
+    }
+
+    @Test
+    public void testWaitsForAChannelWhenTheHostIsFull() throws Exception {
+        // Given...
+        SSHSessionPool pool = new SSHSessionPool(60000);
+        List<PooledSession> leased = new ArrayList<>();
+        for (int i = 0; i < SSHSessionPool.MAX_CHANNELS_PER_SESSION * SSHSessionPool.MAX_SESSIONS_PER_HOST; i++) {
+            leased.add(pool.acquire(KEY, this::createSession, 1000));
+        }
+
+        // When...
+        CompletableFuture<PooledSession> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.acquire(KEY, this::createSession, 10000);
+            } catch (SSHException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(200);
+        boolean isDoneBeforeRelease = waiting.isDone();
+        pool.release(leased.get(3));
+
+        // Then...
+        assertThat(isDoneBeforeRelease).isFalse();
+        assertThat(waiting.get(5, TimeUnit.SECONDS)).isSameAs(leased.get(3));
+        assertThat(created).hasSize(SSHSessionPool.MAX_SESSIONS_PER_HOST);
+        assertThatThrownBy(() -> pool.acquire(KEY, this::createSession, 100))
+            .isInstanceOf(SSHException.class)
+            .hasMessageContaining("user@host:22")
+            .hasMessageNotContaining("hash");
+    }
+
+    @Test
+    public void testSessionFailureIsReportedAndNotPooled() throws Exception {
+        // Given...
+        SSHSessionPool pool = new SSHSessionPool(60000);
+
+        // When...
+        Throwable thrown = catchThrowable(() -> pool.acquire(KEY, () -> {
+            throw new SSHAuthFailException("Auth fail");
+        }, 1000));
+
+        // Then...
+        assertThat(thrown).isInstanceOf(SSHAuthFailException.class);
+        assertThat(pool.getSessionCount(KEY)).isZero();
+        assertThat(pool.acquire(KEY, this::createSession, 1000)).isNotNull();
+    }
+
+    @Test
+    public void testDisconnectedSessionsAreReplaced() throws Exception {
+        // Given...
+        SSHSessionPool pool = new SSHSessionPool(60000);
+        PooledSession first = pool.acquire(KEY, this::createSession, 1000);
+        pool.release(first);
+        when(first.getSession().isConnected()).thenReturn(false);
+
+        // When...
+        PooledSession second = pool.acquire(KEY, this::createSession, 1000);
+
+        // Then...
+        assertThat(second).isNotSameAs(first);
+        assertThat(pool.getSessionCount(KEY)).isEqualTo(1);
+    }
+
+    @Test
+    public void testIdleSessionsAreDisconnected() throws Exception {
+        // Given...
+        SSHSessionPool pool = new SSHSessionPool(0);
+        PooledSession idle = pool.acquire(KEY, this::createSession, 1000);
+        PooledSession busy = pool.acquire("other@host:22#hash", this::createSession, 1000);
+        pool.release(idle);
+
+        // When...
+        Thread.sleep(10);
+        pool.disconnectIdleSessions();
+
+        // Then...
+        verify(idle.getSession()).disconnect();
+        verify(busy.getSession(), never()).disconnect();
+        assertThat(pool.getSessionCount(KEY)).isZero();
+    }
+
+    @Test
+    public void testWatchedChannelsAreAskedToCloseWhenIdle() throws Exception {
+        // Given...
+        SSHSessionPool pool = new SSHSessionPool(0);
+        PooledSession shell = pool.acquire(KEY, this::createSession, 1000);
+        List<Long> closeRequests = new ArrayList<>();
+        SSHSessionPool.IdleChannel channel = new SSHSessionPool.IdleChannel() {
+            @Override
+            public void closeIfIdle(long idleSince) {
+                closeRequests.add(idleSince);
+                pool.unwatch(this);
+                pool.release(shell);
+            }
+        };
+        pool.watch(channel);
+
+        // When...
+        Thread.sleep(10);
+        pool.disconnectIdleSessions();
+        Thread.sleep(10);
+        pool.disconnectIdleSessions();
+
+        // Then...
+        assertThat(closeRequests).hasSize(1);
+        verify(shell.getSession()).disconnect();
+        assertThat(pool.getSessionCount(KEY)).isZero();
+    }
+
+    @Test
+    public void testLastClientToDetachDisconnectsIdleSessions() throws Exception {
+        // Given...
+        SSHSessionPool pool = new SSHSessionPool(60000);
+        pool.attach(KEY);
+        pool.attach(KEY);
+        PooledSession idle = pool.acquire(KEY, this::createSession, 1000);
+        PooledSession busy = pool.acquire(KEY, this::createSession, 1000);
+        pool.release(idle);
+
+        // When...
+        pool.detach(KEY);
+        boolean isKeptForOtherClient = pool.getSessionCount(KEY) == 1;
+        pool.detach(KEY);
+
+        // Then...
+        assertThat(idle).isSameAs(busy);
+        assertThat(isKeptForOtherClient).isTrue();
+        verify(busy.getSession(), never()).disconnect();
+
+        pool.release(busy);
+        pool.attach(KEY);
+        pool.detach(KEY);
+        verify(busy.getSession()).disconnect();
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.artifact.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.Velocity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares processing a large skeleton uncompiled, as every skeleton used to be,
+ * with rendering it from the compiled skeleton cached for its bundle resource.
+ *
+ * Run with: gradle jmh
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SkeletonProcessorBenchmark {
+
+    private static final int          PARAMETERS = 20;
+
+    @Param({ "100", "1000" })
+    public int                        steps;
+
+    private PlusPlusSkeletonProcessor plusPlusProcessor;
+    private VelocitySkeletonProcessor velocityProcessor;
+
+    private String                    plusPlusSkeleton;
+    private byte[]                    velocitySkeleton;
+    private Map<String, Object>       parameters;
+
+    @Setup
+    public void setup() throws Exception {
+        plusPlusProcessor = new PlusPlusSkeletonProcessor(null);
+        velocityProcessor = new VelocitySkeletonProcessor(null);
+
+        parameters = new HashMap<>();
+        List<String> members = new ArrayList<>();
+        for (int i = 0; i < PARAMETERS; i++) {
+            parameters.put("PARM" + i, "VALUE" + i);
+            members.add("MEMBER" + i);
+        }
+        parameters.put("MEMBERS", members);
+
+        // A JCL job with one step for each member, like those generated from the
+        // same skeleton over and over by tests
+        StringBuilder plusPlus = new StringBuilder("//++PARM0++ JOB ++PARM1++,CLASS=A\n");
+        StringBuilder velocity = new StringBuilder("//${PARM0} JOB ${PARM1},CLASS=A\n");
+        for (int step = 0; step < steps; step++) {
+            int parm = step % PARAMETERS;
+            plusPlus.append("//STEP").append(step).append(" EXEC PGM=++PARM").append(parm).append("++\n");
+            plusPlus.append("//SYSIN<a20>DD DSN=++PARM").append((parm + 1) % PARAMETERS).append("++\n");
+            velocity.append("//STEP").append(step).append(" EXEC PGM=${PARM").append(parm).append("}\n");
+            velocity.append("//SYSIN        DD DSN=${PARM").append((parm + 1) % PARAMETERS).append("}\n");
+        }
+        plusPlus.append("//LOAD DD DSN=LOAD.LIB(\n");
+        plusPlus.append("<for member in ++MEMBERS++>\n//  ++member++<x-1>,</x>\n</for>\n");
+        plusPlus.append("//  )\n//UNUSED DD DSN=++NOTSET++\n");
+        velocity.append("//LOAD DD DSN=LOAD.LIB(\n");
+        velocity.append("#foreach( $member in $MEMBERS )\n//  ${member}#if( $foreach.hasNext ),#end\n\n#end\n");
+        velocity.append("//  )\n");
+
+        plusPlusSkeleton = plusPlus.toString();
+        velocitySkeleton = velocity.toString().getBytes();
+    }
+
+    @Benchmark
+    public String plusPlusUncompiled() throws Exception {
+        return plusPlusProcessor.processUncompiled(plusPlusSkeleton, parameters);
+    }
+
+    @Benchmark
+    public byte[] plusPlusCompiled() throws Exception {
+        InputStream skeleton = new ByteArrayInputStream(plusPlusSkeleton.getBytes());
+        return IOUtils.toByteArray(plusPlusProcessor.processSkeleton("benchmark/plusplus/" + steps, skeleton, parameters));
+    }
+
+    @Benchmark
+    public byte[] velocityEvaluate() throws Exception {
+        Velocity.init();
+
+        VelocityContext context = new VelocityContext(new HashMap<>(parameters));
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        OutputStreamWriter ow = new OutputStreamWriter(baos);
+        Velocity.evaluate(context, ow, "VelocityRenderer",
+                new InputStreamReader(new ByteArrayInputStream(velocitySkeleton)));
+        ow.close();
+        return baos.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] velocityCompiled() throws Exception {
+        InputStream skeleton = new ByteArrayInputStream(velocitySkeleton);
+        return IOUtils.toByteArray(velocityProcessor.processSkeleton("benchmark/velocity/" + steps, skeleton, parameters));
+    }
+}
@@ -37,7 +37,6 @@ import org.osgi.framework.Bundle;
 import org.osgi.framework.FrameworkUtil;
 
 import dev.galasa.artifact.IBundleResources;
-import dev.galasa.artifact.ISkeletonProcessor;
 import dev.galasa.artifact.SkeletonProcessorException;
 import dev.galasa.artifact.TestBundleResourceException;
 import dev.galasa.artifact.ISkeletonProcessor.SkeletonType;
@@ -45,14 +44,14 @@ import dev.galasa.framework.spi.IFramework;
 
 public class BundleResourcesImpl implements IBundleResources {
 
-    private static final String      FILE_SEPARATOR = "/";
+    private static final String             FILE_SEPARATOR = "/";
 
-    private final Bundle             bundle;
+    private final Bundle                    bundle;
 
-    private final ISkeletonProcessor velocitySkeletonProcessor;
-    private final ISkeletonProcessor ppSkeletonProcessor;
+    private final ICachingSkeletonProcessor velocitySkeletonProcessor;
+    private final ICachingSkeletonProcessor ppSkeletonProcessor;
 
-    private static final Log         logger         = LogFactory.getLog(BundleResourcesImpl.class);
+    private static final Log                logger         = LogFactory.getLog(BundleResourcesImpl.class);
 
     public BundleResourcesImpl(Class<?> owningClass, IFramework framework) {
         this.bundle = FrameworkUtil.getBundle(owningClass);
@@ -507,8 +506,8 @@ public class BundleResourcesImpl implements IBundleResources {
         }
 
         InputStream processedis;
-        try {
-            processedis = selectProcessor(skeletonType).processSkeleton(skeletonis, parameters);
+        try (InputStream is = skeletonis) {
+            processedis = selectProcessor(skeletonType).processSkeleton(getSkeletonId(path), is, parameters);
         } catch (Exception e) {
             throw new TestBundleResourceException("Error whilst attempting to process skeleton from " + path, e);
         }
@@ -528,8 +527,9 @@ public class BundleResourcesImpl implements IBundleResources {
 
         for (Entry<String, InputStream> entry : skeletons.entrySet()) {
             InputStream is;
-            try {
-                is = selectProcessor(skeletonType).processSkeleton(entry.getValue(), parameters);
+            try (InputStream skeletonis = entry.getValue()) {
+                is = selectProcessor(skeletonType).processSkeleton(getSkeletonId(entry.getKey()), skeletonis,
+                        parameters);
             } catch (Exception e) {
                 throw new TestBundleResourceException(
                         "Error whilst attempting to process skeleton from " + entry.getKey(), e);
@@ -570,7 +570,15 @@ public class BundleResourcesImpl implements IBundleResources {
         return sb.toString();
     }
 
-    private ISkeletonProcessor selectProcessor(int skeletonType) throws SkeletonProcessorException {
+    /**
+     * Identify a skeleton by the bundle it is in, which includes when the bundle was
+     * last updated, and its path within the bundle
+     */
+    private String getSkeletonId(String path) {
+        return bundle.getBundleId() + "/" + bundle.getLastModified() + "/" + normalisePath(path);
+    }
+
+    private ICachingSkeletonProcessor selectProcessor(int skeletonType) throws SkeletonProcessorException {
 
         switch (skeletonType) {
 
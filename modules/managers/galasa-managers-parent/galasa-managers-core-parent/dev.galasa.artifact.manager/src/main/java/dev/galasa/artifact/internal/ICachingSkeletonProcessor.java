@@ -0,0 +1,31 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.artifact.internal;
+
+import java.io.InputStream;
+import java.util.Map;
+
+import dev.galasa.artifact.ISkeletonProcessor;
+import dev.galasa.artifact.SkeletonProcessorException;
+
+/**
+ * A skeleton processor that compiles each skeleton once and reuses the compiled
+ * form for every later request for the same skeleton.
+ */
+public interface ICachingSkeletonProcessor extends ISkeletonProcessor {
+
+    /**
+     * @param skeletonId identifies the content of the skeleton, eg the bundle and the
+     *                   path of the resource it was read from
+     * @param skeleton   the skeleton, only read if it has not been compiled before
+     * @param parameters the values to substitute into the skeleton
+     * @return the processed skeleton
+     * @throws SkeletonProcessorException
+     */
+    InputStream processSkeleton(String skeletonId, InputStream skeleton, Map<String, Object> parameters)
+            throws SkeletonProcessorException;
+
+}
@@ -0,0 +1,349 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.artifact.internal;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import dev.galasa.artifact.SkeletonProcessorException;
+
+/**
+ * A ++ skeleton parsed once into its literal text, ++variable++ markers and
+ * &lt;for&gt; loops, so that it can be rendered for any set of parameters in a
+ * single pass over the skeleton.
+ *
+ * The result is the same as the substitution done by
+ * {@link PlusPlusSkeletonProcessor}, before anchors are realigned and unused
+ * markers purged. Where that depends on the order the parameters are substituted
+ * in, eg a value that itself contains a marker, {@link #render(Map)} returns null
+ * and the skeleton has to be processed uncompiled.
+ */
+final class PlusPlusSkeleton {
+
+    // The loop and loop limiter forms handled by PlusPlusSkeletonProcessor
+    private static final Pattern LOOP            = Pattern.compile(
+            "\\Q<for \\E(\\w+?)\\Q in ++\\E([^\\r\\n]+?)\\Q++>\\E\\r?\\n?(.+?)\\Q</for>\\E\\r?\\n?",
+            Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+    private static final Pattern LOOP_OPEN       = Pattern.compile("\\Q<for \\E", Pattern.CASE_INSENSITIVE);
+    private static final Pattern LOOP_LIMITER    = Pattern.compile("\\Q<x\\E(-?\\d+)\\Q>\\E(.+?)\\Q</x>\\E");
+
+    // A value containing any of these could form a new marker once substituted
+    private static final Pattern MARKER_FRAGMENT = Pattern.compile("\\+|<a\\d+>|<for |</for>|<x-?\\d+>|</x>",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final String  DELIMITER       = "++";
+
+    private final byte[]         content;
+    private final String         text;
+    private final List<Object>   nodes;
+    private final Set<String>    loopMembers     = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+
+    private PlusPlusSkeleton(byte[] content, String text, List<Object> nodes) {
+        this.content = content;
+        this.text = text;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Parse a skeleton. Content which is not text is kept as it is, as processing
+     * it risks corrupting binary data.
+     *
+     * @param skeletonBytes
+     * @return the compiled skeleton
+     */
+    static PlusPlusSkeleton compile(byte[] skeletonBytes) {
+
+        String skeletonString = new String(skeletonBytes);
+
+        if (!Charset.defaultCharset().newEncoder().canEncode(skeletonString)) {
+            return new PlusPlusSkeleton(skeletonBytes, null, null);
+        }
+
+        List<Object> nodes = new ArrayList<>();
+        PlusPlusSkeleton skeleton = new PlusPlusSkeleton(skeletonBytes, skeletonString, nodes);
+
+        Matcher m = LOOP.matcher(skeletonString);
+        int last = 0;
+        while (m.find()) {
+            Loop loop = Loop.compile(m);
+            if (loop == null) {
+                // Nested or unparseable loops are left to the uncompiled processing
+                return new PlusPlusSkeleton(skeletonBytes, skeletonString, null);
+            }
+            nodes.add(new Text(skeletonString.substring(last, m.start())));
+            nodes.add(loop);
+            skeleton.loopMembers.add(loop.member);
+            last = m.end();
+        }
+        nodes.add(new Text(skeletonString.substring(last)));
+
+        return skeleton;
+    }
+
+    boolean isBinary() {
+        return text == null;
+    }
+
+    /**
+     * @return the skeleton as it was read, shared so must not be modified
+     */
+    byte[] getContent() {
+        return content;
+    }
+
+    String getText() {
+        return text;
+    }
+
+    /**
+     * Substitute the parameters into the skeleton
+     *
+     * @param parameters
+     * @return the rendered skeleton, or null if it must be processed uncompiled
+     *         for these parameters
+     * @throws SkeletonProcessorException
+     */
+    String render(Map<String, Object> parameters) throws SkeletonProcessorException {
+
+        if (nodes == null || !isRenderable(parameters)) {
+            return null;
+        }
+
+        Parameters values = new Parameters(parameters);
+
+        StringBuilder output = new StringBuilder(text.length() + (text.length() >> 2));
+        for (Object node : nodes) {
+            if (node instanceof Text) {
+                ((Text) node).render(output, values::getString);
+            } else {
+                ((Loop) node).render(output, values);
+            }
+        }
+
+        return output.toString();
+    }
+
+    private boolean isRenderable(Map<String, Object> parameters) {
+
+        for (Entry<String, Object> parameter : parameters.entrySet()) {
+            Object value = parameter.getValue();
+            if (value == null) {
+                continue;
+            }
+
+            if (loopMembers.contains(parameter.getKey())) {
+                return false;
+            }
+
+            Collection<?> members;
+            if (value instanceof Collection<?>) {
+                members = (Collection<?>) value;
+            } else if (value instanceof String[]) {
+                members = Arrays.asList((String[]) value);
+            } else {
+                members = Arrays.asList(value);
+            }
+
+            for (Object member : members) {
+                if (member instanceof String && MARKER_FRAGMENT.matcher((String) member).find()) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Literal text with the position of every possible ++variable++ marker found up
+     * front, so rendering only has to look up each candidate name
+     */
+    private static class Text {
+
+        private final String   text;
+        private final int[]    markerStarts;
+        private final int[]    markerEnds;
+        private final String[] names;
+
+        private Text(String text) {
+            this.text = text;
+
+            List<Integer> delimiters = new ArrayList<>();
+            for (int i = text.indexOf(DELIMITER); i >= 0; i = text.indexOf(DELIMITER, i + 1)) {
+                delimiters.add(i);
+            }
+
+            int count = delimiters.size();
+            this.markerStarts = new int[count];
+            this.markerEnds = new int[count];
+            this.names = new String[count];
+
+            int next = 0;
+            for (int i = 0; i < count; i++) {
+                int start = delimiters.get(i);
+                markerStarts[i] = start;
+
+                while (next < count && delimiters.get(next) < start + DELIMITER.length()) {
+                    next++;
+                }
+                if (next < count && delimiters.get(next) > start + DELIMITER.length()) {
+                    markerEnds[i] = delimiters.get(next) + DELIMITER.length();
+                    names[i] = text.substring(start + DELIMITER.length(), delimiters.get(next));
+                }
+            }
+        }
+
+        private void render(StringBuilder output, Function<String, String> resolver) {
+            int last = 0;
+            for (int i = 0; i < markerStarts.length; i++) {
+                if (markerStarts[i] < last || names[i] == null) {
+                    continue;
+                }
+
+                String value = resolver.apply(names[i]);
+                if (value != null) {
+                    output.append(text, last, markerStarts[i]);
+                    output.append(value);
+                    last = markerEnds[i];
+                }
+            }
+            output.append(text, last, text.length());
+        }
+    }
+
+    /**
+     * A &lt;for member in ++collection++&gt; loop, with the optional &lt;xN&gt;
+     * limiter already split out of its body
+     */
+    private static class Loop {
+
+        private final String member;
+        private final String collection;
+        private final Text   source;
+        private final Text   body;
+        private final Text   limitedBody;
+        private final int    limit;
+
+        private Loop(String member, String collection, Text source, Text body, Text limitedBody, int limit) {
+            this.member = member;
+            this.collection = collection;
+            this.source = source;
+            this.body = body;
+            this.limitedBody = limitedBody;
+            this.limit = limit;
+        }
+
+        private static Loop compile(Matcher m) {
+            String phrase = m.group(3);
+            if (LOOP_OPEN.matcher(phrase).find()) {
+                return null;
+            }
+
+            Text limitedBody = null;
+            int limit = 0;
+
+            Matcher limitMatcher = LOOP_LIMITER.matcher(phrase);
+            if (limitMatcher.find()) {
+                try {
+                    limit = Integer.parseInt(limitMatcher.group(1));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+                String limitee = limitMatcher.group(2);
+
+                phrase = phrase.substring(0, limitMatcher.start()) + limitee + phrase.substring(limitMatcher.end());
+                limitedBody = new Text(phrase.replace(limitee, ""));
+            }
+
+            return new Loop(m.group(1), m.group(2), new Text(m.group()), new Text(phrase), limitedBody, limit);
+        }
+
+        private void render(StringBuilder output, Parameters values) throws SkeletonProcessorException {
+
+            Entry<String, Object> parameter = values.get(collection);
+            Object value = (parameter == null) ? null : parameter.getValue();
+
+            Collection<?> members;
+            if (value instanceof Collection<?>) {
+                members = (Collection<?>) value;
+            } else if (value instanceof String[]) {
+                members = Arrays.asList((String[]) value);
+            } else {
+                // Nothing to loop over, leave the loop for the unused markers to be purged
+                source.render(output, values::getString);
+                return;
+            }
+
+            int remaining = limit;
+            if (limitedBody != null && remaining < 0) {
+                remaining = members.size() + remaining;
+            }
+
+            int index = 0;
+            for (Object sub : members) {
+                if (!(sub instanceof String)) {
+                    throw new SkeletonProcessorException("The collection given to substitute for '"
+                            + parameter.getKey() + "' contains members which are not Strings");
+                }
+
+                Text phrase = body;
+                if (limitedBody != null && remaining >= 0 && index >= remaining) {
+                    phrase = limitedBody;
+                }
+
+                String memberValue = (String) sub;
+                phrase.render(output, name -> member.equalsIgnoreCase(name) ? memberValue : values.getString(name));
+                index++;
+            }
+        }
+    }
+
+    /**
+     * The parameters looked up by name ignoring case, as the markers are matched
+     */
+    private static class Parameters {
+
+        private final Map<String, Entry<String, Object>> values = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+        private Parameters(Map<String, Object> parameters) {
+            for (Entry<String, Object> parameter : parameters.entrySet()) {
+                if (parameter.getValue() != null) {
+                    values.putIfAbsent(parameter.getKey(), parameter);
+                }
+            }
+        }
+
+        private Entry<String, Object> get(String name) {
+            return values.get(name);
+        }
+
+        private String getString(String name) {
+            Entry<String, Object> parameter = values.get(name);
+            if (parameter == null) {
+                return null;
+            }
+
+            Object value = parameter.getValue();
+            if (value instanceof String) {
+                return (String) value;
+            } else if (value instanceof Integer) {
+                return value.toString();
+            }
+            return null;
+        }
+    }
+}
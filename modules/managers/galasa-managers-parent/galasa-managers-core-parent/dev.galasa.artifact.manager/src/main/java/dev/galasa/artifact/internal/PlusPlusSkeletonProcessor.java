@@ -8,8 +8,6 @@ package dev.galasa.artifact.internal;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.charset.Charset;
-import java.nio.charset.CharsetEncoder;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
@@ -19,19 +17,26 @@ import java.util.regex.Pattern;
 
 import org.apache.commons.io.IOUtils;
 
-import dev.galasa.artifact.ISkeletonProcessor;
 import dev.galasa.artifact.SkeletonProcessorException;
 import dev.galasa.framework.spi.IFramework;
 
 /**
  * A simple skeleton processor to replace velocity
  * 
+ * Skeletons read from a bundle are compiled once, see {@link PlusPlusSkeleton},
+ * and each request for them is rendered from the compiled form.
+ * 
  *  
  * 
  */
-public class PlusPlusSkeletonProcessor implements ISkeletonProcessor {
+public class PlusPlusSkeletonProcessor implements ICachingSkeletonProcessor {
+
+    private static final int                             MAX_COMPILED_SKELETONS = 100;
+
+    private static final Pattern                         TRAILING_WHITESPACE    = Pattern.compile("\\s*$");
 
-    private CharsetEncoder encoder = Charset.defaultCharset().newEncoder();
+    // Shared by every bundle, skeleton ids include the bundle the skeleton is from
+    private static final SkeletonCache<PlusPlusSkeleton> compiledSkeletons      = new SkeletonCache<>(MAX_COMPILED_SKELETONS);
 
     // Define all sets of delimiters handled
     private final Delimiter[] delimiters = { new Delimiter("++", true) // RTS style
@@ -53,20 +58,84 @@ public class PlusPlusSkeletonProcessor implements ISkeletonProcessor {
     public InputStream processSkeleton(InputStream skeleton, Map<String, Object> parameters)
             throws SkeletonProcessorException {
 
-        byte[] skeletonBytes;
+        return processSkeleton(PlusPlusSkeleton.compile(readSkeleton(skeleton)), parameters);
+    }
+
+    @Override
+    public InputStream processSkeleton(String skeletonId, InputStream skeleton, Map<String, Object> parameters)
+            throws SkeletonProcessorException {
+
+        PlusPlusSkeleton compiledSkeleton = compiledSkeletons.get(skeletonId);
+        if (compiledSkeleton == null) {
+            compiledSkeleton = PlusPlusSkeleton.compile(readSkeleton(skeleton));
+            compiledSkeletons.put(skeletonId, compiledSkeleton);
+        }
+
+        return processSkeleton(compiledSkeleton, parameters);
+    }
+
+    private InputStream processSkeleton(PlusPlusSkeleton skeleton, Map<String, Object> parameters)
+            throws SkeletonProcessorException {
+
+        // If the input is not text then do not bother to process as we
+        // risk corrupting binary data if we do so
+        if (skeleton.isBinary() || parameters == null) {
+            return new ByteArrayInputStream(skeleton.getContent());
+        }
+
+        checkParameterTypes(parameters);
+
+        String skeletonString = skeleton.render(parameters);
+        if (skeletonString == null) {
+            skeletonString = substitute(skeleton.getText(), parameters);
+        }
+
+        skeletonString = reAlign(skeletonString);
+
+        skeletonString = purgeUnusedMarkers(skeletonString);
+
+        return new ByteArrayInputStream(skeletonString.getBytes());
+    }
+
+    /**
+     * Process a skeleton without compiling it, substituting each parameter into the
+     * whole skeleton in turn
+     * 
+     * @param skeletonString
+     * @param parameters
+     * @return the processed skeleton
+     * @throws SkeletonProcessorException
+     */
+    String processUncompiled(String skeletonString, Map<String, Object> parameters)
+            throws SkeletonProcessorException {
+
+        checkParameterTypes(parameters);
+
+        return purgeUnusedMarkers(reAlign(substitute(skeletonString, parameters)));
+    }
+
+    private byte[] readSkeleton(InputStream skeleton) throws SkeletonProcessorException {
         try {
-            skeletonBytes = IOUtils.toByteArray(skeleton);
+            return IOUtils.toByteArray(skeleton);
         } catch (IOException e) {
             throw new SkeletonProcessorException(e);
         }
+    }
 
-        String skeletonString = new String(skeletonBytes);
+    private void checkParameterTypes(Map<String, Object> parameters) throws SkeletonProcessorException {
 
-        // If the input is not text then do not bother to process as we
-        // risk corrupting binary data if we do so
-        if (!encoder.canEncode(skeletonString) || parameters == null) {
-            return new ByteArrayInputStream(skeletonBytes);
+        for (Entry<String, Object> substitution : parameters.entrySet()) {
+            Object value = substitution.getValue();
+            if (value != null && !(value instanceof String) && !(value instanceof Integer)
+                    && !(value instanceof Collection<?>) && !(value instanceof String[])) {
+                throw new SkeletonProcessorException("The passed value for '" + substitution.getKey()
+                        + "' is not a String, String array, or collection");
+            }
         }
+    }
+
+    private String substitute(String skeletonString, Map<String, Object> parameters)
+            throws SkeletonProcessorException {
 
         for (int i = 0; i < 2; i++) {
 
@@ -86,18 +155,11 @@ public class PlusPlusSkeletonProcessor implements ISkeletonProcessor {
                 } else if (substitution.getValue() instanceof String[]) {
                     skeletonString = loopSubstitute(skeletonString, substitution.getKey(),
                             Arrays.asList((String[]) substitution.getValue()));
-                } else {
-                    throw new SkeletonProcessorException("The passed value for '" + substitution.getKey()
-                            + "' is not a String, String array, or collection");
                 }
             }
         }
 
-        skeletonString = reAlign(skeletonString);
-
-        skeletonString = purgeUnusedMarkers(skeletonString);
-
-        return new ByteArrayInputStream(skeletonString.getBytes());
+        return skeletonString;
     }
 
     /**
@@ -164,9 +226,8 @@ public class PlusPlusSkeletonProcessor implements ISkeletonProcessor {
     public String purgeUnusedMarkers(String skeletonContent) {
 
         for (LoopForm loopForm : loopForms) {
-            skeletonContent = skeletonContent.replaceAll(loopForm.getGeneralRegexPattern(), "");
-            Pattern p = Pattern.compile(loopForm.getGeneralRegexPattern(), Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
-            Matcher m = p.matcher(skeletonContent);
+            skeletonContent = loopForm.getUnusedLoopPattern().matcher(skeletonContent).replaceAll("");
+            Matcher m = loopForm.getUnusedMultiLineLoopPattern().matcher(skeletonContent);
 
             while (m.find()) {
                 skeletonContent = skeletonContent.replace(m.group(), "");
@@ -183,13 +244,13 @@ public class PlusPlusSkeletonProcessor implements ISkeletonProcessor {
                     continue;
                 }
 
-                if (line.matches(".*" + delimiter.getGeneralRegexPattern() + ".*")) {
+                if (delimiter.isUnusedIn(line)) {
                     purge = true;
                     break;
                 }
             }
             if (!purge) {
-                sb.append(line + "\n");
+                sb.append(line).append('\n');
             }
         }
 
@@ -207,6 +268,7 @@ public class PlusPlusSkeletonProcessor implements ISkeletonProcessor {
         private final String  start;
         private final String  end;
         private final boolean purgeSafe;
+        private final Pattern unusedLinePattern;
 
         /**
          * Construct a Delimiter which has the same start and end delimiters e.g.
@@ -228,12 +290,21 @@ public class PlusPlusSkeletonProcessor implements ISkeletonProcessor {
             this.start = start;
             this.end = end;
             this.purgeSafe = purgeSafe;
+            this.unusedLinePattern = Pattern.compile(".*" + getGeneralRegexPattern() + ".*");
         }
 
         public boolean safeToPurge() {
             return purgeSafe;
         }
 
+        /**
+         * @param line
+         * @return true if the line contains a value which has not been substituted
+         */
+        public boolean isUnusedIn(String line) {
+            return line.contains(start) && unusedLinePattern.matcher(line).matches();
+        }
+
         public String getGeneralRegexPattern() {
             if (end.length() > 0) {
                 return "\\Q" + start + "\\E[\\w\\d\\.-_]+?\\Q" + end + "\\E";
@@ -287,10 +358,23 @@ public class PlusPlusSkeletonProcessor implements ISkeletonProcessor {
 
         private final String          loopOpen;
         private final String          loopClose;
+        private final Pattern         unusedLoopPattern;
+        private final Pattern         unusedMultiLineLoopPattern;
 
         public LoopForm(String loopOpen, String loopClose) {
             this.loopOpen = loopOpen;
             this.loopClose = loopClose;
+            this.unusedLoopPattern = Pattern.compile(getGeneralRegexPattern());
+            this.unusedMultiLineLoopPattern = Pattern.compile(getGeneralRegexPattern(),
+                    Pattern.DOTALL | Pattern.CASE_INSENSITIVE);
+        }
+
+        public Pattern getUnusedLoopPattern() {
+            return unusedLoopPattern;
+        }
+
+        public Pattern getUnusedMultiLineLoopPattern() {
+            return unusedMultiLineLoopPattern;
         }
 
         public String getGeneralRegexPattern() {
@@ -387,12 +471,14 @@ public class PlusPlusSkeletonProcessor implements ISkeletonProcessor {
 
     private class Anchor {
 
-        protected static final String COLUMN = "COLUMN";
+        protected static final String COLUMN     = "COLUMN";
 
         private final String          anchorExpr;
+        private final Pattern         pattern;
 
         public Anchor(String anchorExpr) {
             this.anchorExpr = anchorExpr;
+            this.pattern = Pattern.compile(getRegexPattern(), Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
         }
 
         public String getRegexPattern() {
@@ -406,32 +492,61 @@ public class PlusPlusSkeletonProcessor implements ISkeletonProcessor {
             return sb.toString();
         }
 
+        /**
+         * Realign each line containing an anchor, building the output as it goes
+         * rather than rescanning the whole skeleton after each line
+         */
         public String reAlign(String output) throws SkeletonProcessorException {
 
-            Pattern p = Pattern.compile(getRegexPattern(), Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
-            Matcher m = p.matcher(output);
-
-            while (m.find()) {
+            Matcher m = pattern.matcher(output);
+            if (!m.find()) {
+                return output;
+            }
 
-                if (m.groupCount() != 3) {
-                    throw new SkeletonProcessorException(
-                            "The pattern matcher for this anchor has returned an " + "unexpected number of groups.");
+            StringBuilder sb = new StringBuilder(output.length());
+            int last = 0;
+            do {
+                sb.append(output, last, m.start());
+
+                // A line may hold more than one anchor
+                String line = m.group();
+                Matcher lineMatcher = pattern.matcher(line);
+                while (lineMatcher.find()) {
+                    line = reAlignLine(lineMatcher);
+                    lineMatcher = pattern.matcher(line);
                 }
+                sb.append(line);
 
-                String staticPhrase = m.group(1).replaceAll("\\s*$", "");
-                int columnNumber = Integer.parseInt(m.group(2));
-                String alignedPhrase = m.group(3);
+                last = m.end();
+            } while (m.find());
+            sb.append(output, last, output.length());
 
-                StringBuilder sb = new StringBuilder();
-                sb.append(String.format("%-" + (columnNumber - 1) + "s", staticPhrase));
-                sb.append(alignedPhrase);
+            return sb.toString();
+        }
 
-                output = output.substring(0, m.start()) + sb.toString() + output.substring(m.end());
+        private String reAlignLine(Matcher m) throws SkeletonProcessorException {
 
-                m = p.matcher(output);
+            if (m.groupCount() != 3) {
+                throw new SkeletonProcessorException(
+                        "The pattern matcher for this anchor has returned an " + "unexpected number of groups.");
             }
 
-            return output;
+            String staticPhrase = TRAILING_WHITESPACE.matcher(m.group(1)).replaceAll("");
+            int columnNumber = Integer.parseInt(m.group(2));
+            String alignedPhrase = m.group(3);
+
+            StringBuilder sb = new StringBuilder();
+            if (columnNumber > 1) {
+                sb.append(staticPhrase);
+                while (sb.length() < columnNumber - 1) {
+                    sb.append(' ');
+                }
+            } else {
+                sb.append(String.format("%-" + (columnNumber - 1) + "s", staticPhrase));
+            }
+            sb.append(alignedPhrase);
+
+            return sb.toString();
         }
     }
 
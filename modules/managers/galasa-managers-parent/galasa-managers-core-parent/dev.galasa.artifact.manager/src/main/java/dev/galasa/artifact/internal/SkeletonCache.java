@@ -0,0 +1,39 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.artifact.internal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of compiled skeletons, keyed by the bundle resource they were
+ * read from. When the cache is full the least recently used skeleton is dropped.
+ *
+ * @param <T> the compiled form of a skeleton
+ */
+class SkeletonCache<T> {
+
+    private final Map<String, T> skeletons;
+
+    SkeletonCache(int maxSkeletons) {
+        this.skeletons = new LinkedHashMap<String, T>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, T> eldest) {
+                return size() > maxSkeletons;
+            }
+        };
+    }
+
+    synchronized T get(String skeletonId) {
+        return skeletons.get(skeletonId);
+    }
+
+    synchronized void put(String skeletonId, T skeleton) {
+        skeletons.put(skeletonId, skeleton);
+    }
+}
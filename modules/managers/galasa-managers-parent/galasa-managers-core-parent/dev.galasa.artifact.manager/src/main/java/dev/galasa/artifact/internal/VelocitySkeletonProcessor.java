@@ -16,16 +16,28 @@ import java.util.Map.Entry;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.Velocity;
+import org.apache.velocity.runtime.RuntimeInstance;
 
-import dev.galasa.artifact.ISkeletonProcessor;
 import dev.galasa.artifact.SkeletonProcessorException;
 import dev.galasa.framework.spi.IFramework;
 
-public class VelocitySkeletonProcessor implements ISkeletonProcessor {
+/**
+ * Processes skeletons with Velocity. The Velocity runtime is initialised once, and
+ * skeletons read from a bundle are parsed once and kept as templates.
+ */
+public class VelocitySkeletonProcessor implements ICachingSkeletonProcessor {
+
+    private static final Log                     logger                 = LogFactory.getLog(VelocitySkeletonProcessor.class);
+
+    private static final String                  TEMPLATE_NAME          = "VelocityRenderer";
+    private static final int                     MAX_COMPILED_TEMPLATES = 100;
+
+    // Shared by every bundle, skeleton ids include the bundle the skeleton is from
+    private static final SkeletonCache<Template> compiledTemplates      = new SkeletonCache<>(MAX_COMPILED_TEMPLATES);
 
-    private static final Log logger = LogFactory.getLog(VelocitySkeletonProcessor.class);
+    private static RuntimeInstance               velocity;
 
     public VelocitySkeletonProcessor(IFramework framework) {
     }
@@ -34,23 +46,26 @@ public class VelocitySkeletonProcessor implements ISkeletonProcessor {
     public InputStream processSkeleton(InputStream skeleton, Map<String, Object> parameters)
             throws SkeletonProcessorException {
 
-        return processVelocitySkeleton(skeleton, parameters);
+        return processVelocitySkeleton(parseSkeleton(skeleton), parameters);
     }
 
-    private InputStream processVelocitySkeleton(InputStream skeleton, Map<String, Object> parameters)
+    @Override
+    public InputStream processSkeleton(String skeletonId, InputStream skeleton, Map<String, Object> parameters)
             throws SkeletonProcessorException {
 
-        logger.info("Processing skeleton with Velocity");
+        Template template = compiledTemplates.get(skeletonId);
+        if (template == null) {
+            template = parseSkeleton(skeleton);
+            compiledTemplates.put(skeletonId, template);
+        }
 
-        InputStream safeEOF = new ByteArrayInputStream(" ".getBytes());
-        InputStream streamPlus = new SequenceInputStream(skeleton, safeEOF);
-        InputStreamReader ir = new InputStreamReader(streamPlus);
+        return processVelocitySkeleton(template, parameters);
+    }
 
-        try {
-            Velocity.init();
-        } catch (Exception e) {
-            throw new SkeletonProcessorException("Error attempting to initialise velocity", e);
-        }
+    private InputStream processVelocitySkeleton(Template template, Map<String, Object> parameters)
+            throws SkeletonProcessorException {
+
+        logger.info("Processing skeleton with Velocity");
 
         VelocityContext context = new VelocityContext();
 
@@ -63,7 +78,7 @@ public class VelocitySkeletonProcessor implements ISkeletonProcessor {
         OutputStreamWriter ow = new OutputStreamWriter(baos);
 
         try {
-            Velocity.evaluate(context, ow, "VelocityRenderer", ir);
+            template.merge(context, ow);
             ow.close();
         } catch (Exception e) {
             throw new SkeletonProcessorException("Error attempting to process skeleton with velocity", e);
@@ -71,4 +86,37 @@ public class VelocitySkeletonProcessor implements ISkeletonProcessor {
 
         return new ByteArrayInputStream(baos.toByteArray());
     }
+
+    private Template parseSkeleton(InputStream skeleton) throws SkeletonProcessorException {
+
+        InputStream safeEOF = new ByteArrayInputStream(" ".getBytes());
+        InputStream streamPlus = new SequenceInputStream(skeleton, safeEOF);
+        InputStreamReader ir = new InputStreamReader(streamPlus);
+
+        RuntimeInstance runtime = getVelocity();
+
+        try {
+            Template template = new Template();
+            template.setName(TEMPLATE_NAME);
+            template.setRuntimeServices(runtime);
+            template.setData(runtime.parse(ir, template));
+            template.initDocument();
+            return template;
+        } catch (Exception e) {
+            throw new SkeletonProcessorException("Error attempting to process skeleton with velocity", e);
+        }
+    }
+
+    private static synchronized RuntimeInstance getVelocity() throws SkeletonProcessorException {
+        if (velocity == null) {
+            try {
+                RuntimeInstance runtime = new RuntimeInstance();
+                runtime.init();
+                velocity = runtime;
+            } catch (Exception e) {
+                throw new SkeletonProcessorException("Error attempting to initialise velocity", e);
+            }
+        }
+        return velocity;
+    }
 }
@@ -0,0 +1,161 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.artifact.internal;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import dev.galasa.artifact.SkeletonProcessorException;
+
+public class TestPlusPlusSkeletonProcessor {
+
+    private final PlusPlusSkeletonProcessor processor = new PlusPlusSkeletonProcessor(null);
+
+    private String process(String skeleton, Map<String, Object> parameters) throws Exception {
+        InputStream processed = processor.processSkeleton(new ByteArrayInputStream(skeleton.getBytes()), parameters);
+        return new String(IOUtils.toByteArray(processed));
+    }
+
+    private void assertSameAsUncompiled(String skeleton, Map<String, Object> parameters) throws Exception {
+        assertThat(process(skeleton, parameters)).isEqualTo(processor.processUncompiled(skeleton, parameters));
+    }
+
+    @Test
+    public void testVariablesAreSubstitutedAndUnusedLinesPurged() throws Exception {
+        // Given...
+        String skeleton = "//++JOBNAME++ JOB\n" +
+                          "//STEP1 EXEC PGM=++program++,PARM=++Count++\n" +
+                          "//UNUSED DD DSN=++MISSING++\n" +
+                          "//SYSOUT DD SYSOUT=*\n";
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("JOBNAME", "MYJOB");
+        parameters.put("PROGRAM", "IEFBR14");
+        parameters.put("COUNT", 3);
+
+        // When...
+        String processed = process(skeleton, parameters);
+
+        // Then...
+        assertThat(processed).isEqualTo("//MYJOB JOB\n" +
+                                         "//STEP1 EXEC PGM=IEFBR14,PARM=3\n" +
+                                         "//SYSOUT DD SYSOUT=*\n");
+        assertSameAsUncompiled(skeleton, parameters);
+    }
+
+    @Test
+    public void testLoopsAreExpandedWithTheirLimiter() throws Exception {
+        // Given...
+        String skeleton = "MEMBERS=(\n" +
+                          "<for member in ++MEMBERS++>\n" +
+                          "  ++member++ IN ++LIBRARY++<x-1>,</x>\n" +
+                          "</for>\n" +
+                          ")\n" +
+                          "<for other in ++NOTSUPPLIED++>\n" +
+                          "  ++other++\n" +
+                          "</for>\n";
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("MEMBERS", Arrays.asList("PROGA", "PROGB", "PROGC"));
+        parameters.put("LIBRARY", "MY.LOAD");
+
+        // When...
+        String processed = process(skeleton, parameters);
+
+        // Then...
+        assertThat(processed).isEqualTo("MEMBERS=(\n" +
+                                         "  PROGA IN MY.LOAD,\n" +
+                                         "  PROGB IN MY.LOAD,\n" +
+                                         "  PROGC IN MY.LOAD\n" +
+                                         ")\n");
+        assertSameAsUncompiled(skeleton, parameters);
+    }
+
+    @Test
+    public void testAnchorsRealignTheRestOfTheLine() throws Exception {
+        // Given...
+        String skeleton = "++LABEL++ <a10>DC ++VALUE++<a20>* comment\n" +
+                          "X<a5>Y\n";
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("LABEL", "FIELD");
+        parameters.put("VALUE", "C'A'");
+
+        // When...
+        String processed = process(skeleton, parameters);
+
+        // Then...
+        assertThat(processed).isEqualTo("FIELD    DC C'A'   * comment\n" +
+                                         "X   Y\n");
+        assertSameAsUncompiled(skeleton, parameters);
+    }
+
+    @Test
+    public void testValuesContainingMarkersAreProcessedUncompiled() throws Exception {
+        // Given...
+        String skeleton = "A=++A++\n" +
+                          "<for m in ++LIST++>\n" +
+                          "++m++\n" +
+                          "</for>\n";
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("A", "++B++");
+        parameters.put("B", "value of b");
+        parameters.put("LIST", new String[] { "x+y" });
+
+        // When...
+        String processed = process(skeleton, parameters);
+
+        // Then...
+        assertThat(processed).isEqualTo("A=value of b\n" +
+                                         "x+y\n");
+        assertSameAsUncompiled(skeleton, parameters);
+    }
+
+    @Test
+    public void testCompiledSkeletonIsReusedForTheSameId() throws Exception {
+        // Given...
+        String skeletonId = "1/0/" + getClass().getName() + "/reused.jcl";
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("NAME", "FIRST");
+        processor.processSkeleton(skeletonId, new ByteArrayInputStream("NAME=++NAME++\n".getBytes()), parameters);
+
+        InputStream unreadable = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("The skeleton should not be read again");
+            }
+        };
+        parameters.put("NAME", "SECOND");
+
+        // When...
+        InputStream processed = processor.processSkeleton(skeletonId, unreadable, parameters);
+
+        // Then...
+        assertThat(new String(IOUtils.toByteArray(processed))).isEqualTo("NAME=SECOND\n");
+    }
+
+    @Test
+    public void testInvalidParameterTypeReturnsError() throws Exception {
+        // Given...
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("WHEN", new Object());
+
+        // When...
+        SkeletonProcessorException thrown = catchThrowableOfType(
+            () -> process("++WHEN++\n", parameters), SkeletonProcessorException.class);
+
+        // Then...
+        assertThat(thrown).isNotNull();
+        assertThat(thrown.getMessage()).contains("The passed value for 'WHEN' is not a String, String array, or collection");
+    }
+}
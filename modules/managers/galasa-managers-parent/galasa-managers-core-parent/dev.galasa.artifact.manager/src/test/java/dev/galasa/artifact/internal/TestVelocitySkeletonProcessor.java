@@ -0,0 +1,58 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.artifact.internal;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+public class TestVelocitySkeletonProcessor {
+
+    @Test
+    public void testCompiledTemplateIsRenderedForEachSetOfParameters() throws Exception {
+        // Given...
+        VelocitySkeletonProcessor processor = new VelocitySkeletonProcessor(null);
+        String skeletonId = "1/0/" + getClass().getName() + "/members.vm";
+        String skeleton = "#foreach( $member in $members )$member $library\n#end";
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("members", Arrays.asList("PROGA", "PROGB"));
+        parameters.put("library", "MY.LOAD");
+
+        // When...
+        String first = new String(IOUtils.toByteArray(
+            processor.processSkeleton(skeletonId, new ByteArrayInputStream(skeleton.getBytes()), parameters)));
+
+        parameters.put("library", "OTHER.LOAD");
+        String second = new String(IOUtils.toByteArray(
+            processor.processSkeleton(skeletonId, new ByteArrayInputStream(new byte[0]), parameters)));
+
+        // Then...
+        assertThat(first).isEqualTo("PROGA MY.LOAD\nPROGB MY.LOAD\n ");
+        assertThat(second).isEqualTo("PROGA OTHER.LOAD\nPROGB OTHER.LOAD\n ");
+    }
+
+    @Test
+    public void testUncachedSkeletonIsProcessed() throws Exception {
+        // Given...
+        VelocitySkeletonProcessor processor = new VelocitySkeletonProcessor(null);
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("name", "World");
+
+        // When...
+        String processed = new String(IOUtils.toByteArray(
+            processor.processSkeleton(new ByteArrayInputStream("Hello $name".getBytes()), parameters)));
+
+        // Then...
+        assertThat(processed).isEqualTo("Hello World ");
+    }
+}
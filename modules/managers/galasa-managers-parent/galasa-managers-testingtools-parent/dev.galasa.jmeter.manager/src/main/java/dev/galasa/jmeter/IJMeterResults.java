@@ -0,0 +1,41 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.jmeter;
+
+import java.util.Set;
+
+/**
+ * The results of a JMeter run, aggregated per sample label from the .jtl file
+ * while JMeter is running.
+ *
+ * Example:
+ * <PRE>
+    session.startJmeter(600000);
+    IJMeterStatistics login = session.getResults().getStatistics("Login");
+    assertThat(login.getErrorRate()).isLessThan(0.01);
+    assertThat(login.getElapsedPercentile(95)).isLessThan(500);
+ </PRE>
+ */
+public interface IJMeterResults {
+
+    /**
+     * @return the labels of the samples so far, in name order
+     */
+    public Set<String> getLabels();
+
+    /**
+     * @param label
+     * @return the statistics of the samples with this label, or null if there
+     *         have been none
+     */
+    public IJMeterStatistics getStatistics(String label);
+
+    /**
+     * @return the statistics of all the samples
+     */
+    public IJMeterStatistics getTotal();
+
+}
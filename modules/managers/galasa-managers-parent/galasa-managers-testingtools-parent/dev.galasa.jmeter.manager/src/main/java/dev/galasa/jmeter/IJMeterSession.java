@@ -100,6 +100,14 @@ public interface IJMeterSession {
      */
     public String getListenerFile(String fileName) throws JMeterManagerException;
 
+    /**
+     * Returns the throughput, error rate and response time percentiles of each
+     * sample label of the last run, worked out from the .jtl file as JMeter writes it
+     * @return the results, empty if JMeter has not been started
+     * @throws JMeterManagerException
+     */
+    public IJMeterResults getResults() throws JMeterManagerException;
+
     /**
      * 
      * @return the logFile gets returned as a string like "cat" would in a linux container
@@ -0,0 +1,66 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.jmeter;
+
+/**
+ * Aggregated results of the samples of one label in a JMeter run, or of all the
+ * samples for the total.
+ *
+ * Percentiles are worked out from a histogram rather than from every sample, so
+ * they are within 1% of the exact value whatever the length of the run.
+ * Times are in milliseconds.
+ */
+public interface IJMeterStatistics {
+
+    /**
+     * @return the sample label, or TOTAL for the statistics of all the samples
+     */
+    public String getLabel();
+
+    /**
+     * @return the number of samples
+     */
+    public long getSamples();
+
+    /**
+     * @return the number of samples which were not successful
+     */
+    public long getErrors();
+
+    /**
+     * @return the errors as a fraction of the samples, from 0.0 to 1.0
+     */
+    public double getErrorRate();
+
+    /**
+     * @return the samples per second, from the start of the first sample to the
+     *         end of the last
+     */
+    public double getThroughput();
+
+    public long getMinElapsed();
+
+    public long getMaxElapsed();
+
+    public double getMeanElapsed();
+
+    /**
+     * Example: <code>stats.getElapsedPercentile(95)</code> for the 95th
+     * percentile response time
+     *
+     * @param percentile from 0 to 100
+     * @return the elapsed time which this percentage of samples took at most
+     */
+    public long getElapsedPercentile(double percentile);
+
+    /**
+     * @param percentile from 0 to 100
+     * @return the latency, the time to the first response, which this percentage
+     *         of samples took at most, or 0 if the results have no Latency column
+     */
+    public long getLatencyPercentile(double percentile);
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.jmeter.internal;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import dev.galasa.jmeter.IJMeterResults;
+import dev.galasa.jmeter.IJMeterStatistics;
+
+public class JMeterResultsImpl implements IJMeterResults {
+
+    private static final String                     TOTAL  = "TOTAL";
+
+    private final Map<String, JMeterStatisticsImpl> labels = new TreeMap<>();
+    private final JMeterStatisticsImpl              total  = new JMeterStatisticsImpl(TOTAL);
+
+    public void addSample(String label, long timeStamp, long elapsed, Long latency, boolean success) {
+        JMeterStatisticsImpl statistics;
+        synchronized (labels) {
+            statistics = labels.computeIfAbsent(label, JMeterStatisticsImpl::new);
+        }
+        statistics.addSample(timeStamp, elapsed, latency, success);
+        total.addSample(timeStamp, elapsed, latency, success);
+    }
+
+    @Override
+    public Set<String> getLabels() {
+        synchronized (labels) {
+            return new TreeSet<>(labels.keySet());
+        }
+    }
+
+    @Override
+    public IJMeterStatistics getStatistics(String label) {
+        synchronized (labels) {
+            return labels.get(label);
+        }
+    }
+
+    @Override
+    public IJMeterStatistics getTotal() {
+        return total;
+    }
+
+    /**
+     * @return a line per label and one for the total, for the run log and the RAS
+     */
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        synchronized (labels) {
+            for (JMeterStatisticsImpl statistics : labels.values()) {
+                summary.append(statistics.toString()).append("\n");
+            }
+        }
+        summary.append(total.toString()).append("\n");
+        return summary.toString();
+    }
+}
@@ -5,19 +5,27 @@
  */
 package dev.galasa.jmeter.internal;
 
+import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.SequenceInputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.zip.GZIPOutputStream;
 
 import org.apache.commons.logging.Log;
 import org.apache.velocity.VelocityContext;
@@ -29,6 +37,7 @@ import dev.galasa.docker.DockerManagerException;
 import dev.galasa.docker.IDockerContainer;
 import dev.galasa.docker.IDockerExec;
 import dev.galasa.framework.spi.IFramework;
+import dev.galasa.jmeter.IJMeterResults;
 import dev.galasa.jmeter.IJMeterSession;
 import dev.galasa.jmeter.JMeterManagerException;
 
@@ -46,7 +55,13 @@ public class JMeterSessionImpl implements IJMeterSession {
     private IDockerContainer container;
     private Path storedArtifactsRoot;
     private Log logger;
+    private volatile JMeterResultsImpl results = new JMeterResultsImpl();
+    private volatile Boolean testStatus;
     private static final int DEFAULT_TIMER              = 60000;
+    private static final int POLL_INTERVAL              = 10000;
+    private static final int BUFFER_SIZE                = 65536;
+
+    private static final ResultArchiveStoreContentType GZIP = new ResultArchiveStoreContentType("application/gzip");
     
     private static final String STOREDMESSAGE           = " has been stored in the container.";
     private static final String ERRORMESSAGE            = "Could not store the .jmx file correctly.";
@@ -87,6 +102,9 @@ public class JMeterSessionImpl implements IJMeterSession {
 
     /**
      * Actually executing JMeter with the given JMX that has been set with a specified timeout
+     * 
+     * The .jtl file is analysed while JMeter is running rather than being retrieved as a
+     * whole at the end, and it is stored in the RAS gzipped along with the JMeter log
      */
     @Override
     public void startJmeter(int timeout) throws JMeterManagerException {
@@ -99,27 +117,44 @@ public class JMeterSessionImpl implements IJMeterSession {
 
             if (( this.jmxPath.toLowerCase().endsWith(".jmx") ) && ( !this.jmxAbsolutePath.isEmpty() )) {
 
-                if (this.propAbsolutePath.isEmpty()) {
-
-                    IDockerExec exec = container.exec(timeout, jmeter, "-n", "-t", this.jmxPath, "-l", jtlPath, "-j", logfile);
-                    exec.waitForExec(timeout);
-
-                    if ( exec.getExitCode() != 0L ) {
-                        logger.info("JMeter commands have failed with exitcode " + exec.getExitCode());
-                        throw new JMeterManagerException();
+                List<String> command = new ArrayList<>(Arrays.asList(jmeter, "-n", "-t", this.jmxPath, "-l", jtlPath));
+                if (!this.propAbsolutePath.isEmpty()) {
+                    command.add("-p");
+                    command.add(this.propPath);
+                }
+                command.add("-j");
+                command.add(logfile);
+
+                this.results = new JMeterResultsImpl();
+                this.testStatus = null;
+
+                // *** The follower closes the .jtl copy when it finishes, this closes it if JMeter fails to start
+                IDockerExec exec;
+                try (OutputStream jtlOutput = createCompressedOutput("jtlOutput_" + this.sessionID + ".jtl.gz")) {
+                    JtlFollower follower = new JtlFollower(container, jmeterDockerPath + jtlPath, new JtlParser(this.results),
+                            jtlOutput);
+
+                    exec = container.exec(timeout, command.toArray(new String[command.size()]));
+
+                    // *** Follow the results until JMeter ends or the timeout is up
+                    long expire = System.currentTimeMillis() + timeout;
+                    while (!exec.waitForExec(Math.max(1, Math.min(POLL_INTERVAL, expire - System.currentTimeMillis())))) {
+                        if (System.currentTimeMillis() >= expire) {
+                            break;
+                        }
+                        follower.poll();
                     }
-                } else {
-    
-                    IDockerExec exec = container.exec(timeout, jmeter, "-n", "-t", this.jmxPath, "-l", jtlPath, "-p", this.propPath, "-j", logfile);
-                    exec.waitForExec(timeout); 
+                    follower.finish();
+                }
 
-                    if ( exec.getExitCode() != 0L) {
-                        logger.info("JMeter commands have failed with exitcode " + exec.getExitCode());
-                        throw new JMeterManagerException();
-                    }
-                } 
-                storeOutput("jtlOutput_" + this.sessionID + ".txt", getListenerFile(this.jmxPath.substring(0, jmxPath.indexOf(".jmx")) + ".jtl")); 
-                storeOutput("logOutput_" + this.sessionID + ".txt", getLogFile()); 
+                logger.info("JMeter session " + this.sessionID + " results:\n" + this.results.getSummary());
+                storeOutput("resultsSummary_" + this.sessionID + ".txt", this.results.getSummary());
+                storeLog("logOutput_" + this.sessionID + ".log.gz");
+
+                if ( exec.getExitCode() != 0L ) {
+                    logger.info("JMeter commands have failed with exitcode " + exec.getExitCode());
+                    throw new JMeterManagerException();
+                }
             } else {
                 throw new JMeterManagerException("The JmxPath has not been specified correctly of session " + this.sessionID + ".");
             }
@@ -326,21 +361,31 @@ public class JMeterSessionImpl implements IJMeterSession {
         }
     }
 
+    @Override
+    public IJMeterResults getResults() throws JMeterManagerException {
+        return this.results;
+    }
+
     /**
      * @return if the test has been performed properly or not
      */
     @Override
     public boolean statusTest() throws JMeterManagerException {
-        String logOutput = this.getLogFile();
-        boolean test = false;
+        // *** The log is checked as it is stored after a run, so is only read here if JMeter has not been run
+        Boolean status = this.testStatus;
+        if (status == null) {
+            try {
+                status = scanLog(null);
+            } catch (Exception e) {
+                throw new JMeterManagerException("Could not retrieve the log file from the container.", e);
+            }
+        }
 
-        if ( logOutput.contains("Loading file: " + this.jmxPath) && logOutput.contains("Running test") && logOutput.contains("Notifying test listeners of end of test") ) {
-            test = true;
-        } else {
+        if (!status) {
             throw new JMeterManagerException("The test didn't succeed with the given jmx for the session " + sessionID);
         }
 
-        return test;
+        return true;
     }
 
      /**
@@ -379,4 +424,52 @@ public class JMeterSessionImpl implements IJMeterSession {
                 StandardOpenOption.CREATE);
     }
 
+    private OutputStream createCompressedOutput(String file) throws IOException {
+        Path requestPath = storedArtifactsRoot.resolve(jmeter).resolve(file);
+        return new GZIPOutputStream(Files.newOutputStream(requestPath, new SetContentType(GZIP),
+                StandardOpenOption.CREATE), BUFFER_SIZE);
+    }
+
+    /**
+     * Stores the log in the RAS while checking it for the status of the test
+     */
+    private void storeLog(String file) throws DockerManagerException, IOException {
+        try (Writer copy = new OutputStreamWriter(createCompressedOutput(file), StandardCharsets.UTF_8)) {
+            this.testStatus = scanLog(copy);
+        }
+    }
+
+    /**
+     * Reads the log a line at a time, as it can be large for a long run
+     * @param copy where to copy the log to, or null
+     * @return if the log shows the test has been performed properly
+     */
+    private boolean scanLog(Writer copy) throws DockerManagerException, IOException {
+        if ( !container.isRunning() ) {
+            return false;
+        }
+
+        String logPath = jmeterDockerPath + this.jmxPath.substring(0, jmxPath.indexOf(".jmx")) + ".log";
+        String loading = "Loading file: " + this.jmxPath;
+        boolean isLoaded = false;
+        boolean isRunning = false;
+        boolean isEnded = false;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(container.retrieveFile(logPath), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                isLoaded = isLoaded || line.contains(loading);
+                isRunning = isRunning || line.contains("Running test");
+                isEnded = isEnded || line.contains("Notifying test listeners of end of test");
+
+                if (copy != null) {
+                    copy.write(line);
+                    copy.write('\n');
+                }
+            }
+        }
+
+        return isLoaded && isRunning && isEnded;
+    }
+
 }
\ No newline at end of file
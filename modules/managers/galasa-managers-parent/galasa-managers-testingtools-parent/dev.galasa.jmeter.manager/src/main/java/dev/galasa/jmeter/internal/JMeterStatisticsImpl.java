@@ -0,0 +1,119 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.jmeter.internal;
+
+import dev.galasa.jmeter.IJMeterStatistics;
+
+/**
+ * Statistics of a label, updated as samples are read from the .jtl file, which
+ * may be while the test is reading them.
+ */
+public class JMeterStatisticsImpl implements IJMeterStatistics {
+
+    private final String           label;
+
+    private final LatencyHistogram elapsedHistogram = new LatencyHistogram();
+    private final LatencyHistogram latencyHistogram = new LatencyHistogram();
+
+    private long                   samples;
+    private long                   errors;
+    private long                   totalElapsed;
+    private long                   firstStart       = Long.MAX_VALUE;
+    private long                   lastEnd          = Long.MIN_VALUE;
+
+    public JMeterStatisticsImpl(String label) {
+        this.label = label;
+    }
+
+    /**
+     * @param timeStamp when the sample was taken, in epoch milliseconds
+     * @param elapsed
+     * @param latency   or null if the results do not include it
+     * @param success
+     */
+    public synchronized void addSample(long timeStamp, long elapsed, Long latency, boolean success) {
+        samples++;
+        if (!success) {
+            errors++;
+        }
+
+        totalElapsed += elapsed;
+        elapsedHistogram.record(elapsed);
+        if (latency != null) {
+            latencyHistogram.record(latency);
+        }
+
+        firstStart = Math.min(firstStart, timeStamp);
+        lastEnd = Math.max(lastEnd, timeStamp + elapsed);
+    }
+
+    @Override
+    public String getLabel() {
+        return label;
+    }
+
+    @Override
+    public synchronized long getSamples() {
+        return samples;
+    }
+
+    @Override
+    public synchronized long getErrors() {
+        return errors;
+    }
+
+    @Override
+    public synchronized double getErrorRate() {
+        if (samples == 0) {
+            return 0.0;
+        }
+        return (double) errors / samples;
+    }
+
+    @Override
+    public synchronized double getThroughput() {
+        if (samples == 0 || lastEnd <= firstStart) {
+            return 0.0;
+        }
+        return samples * 1000.0 / (lastEnd - firstStart);
+    }
+
+    @Override
+    public synchronized long getMinElapsed() {
+        return elapsedHistogram.getValueAtPercentile(0);
+    }
+
+    @Override
+    public synchronized long getMaxElapsed() {
+        return elapsedHistogram.getValueAtPercentile(100);
+    }
+
+    @Override
+    public synchronized double getMeanElapsed() {
+        if (samples == 0) {
+            return 0.0;
+        }
+        return (double) totalElapsed / samples;
+    }
+
+    @Override
+    public synchronized long getElapsedPercentile(double percentile) {
+        return elapsedHistogram.getValueAtPercentile(percentile);
+    }
+
+    @Override
+    public synchronized long getLatencyPercentile(double percentile) {
+        return latencyHistogram.getValueAtPercentile(percentile);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s samples=%d errors=%.2f%% throughput=%.2f/s mean=%.1fms min=%dms p50=%dms p90=%dms p95=%dms p99=%dms max=%dms",
+                label, samples, getErrorRate() * 100, getThroughput(), getMeanElapsed(), getMinElapsed(),
+                getElapsedPercentile(50), getElapsedPercentile(90), getElapsedPercentile(95), getElapsedPercentile(99),
+                getMaxElapsed());
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.jmeter.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import dev.galasa.docker.DockerManagerException;
+import dev.galasa.docker.IDockerContainer;
+import dev.galasa.docker.IDockerExec;
+
+/**
+ * Follows a .jtl file in the JMeter container while JMeter writes it, like
+ * "tail -f" would.
+ *
+ * The Docker archive API only returns whole files, so each poll copies what has
+ * been added since the last one to a chunk file in the container and retrieves
+ * that. Every byte of the .jtl is fetched once, whatever the length of the run.
+ * Complete lines are passed to the parser and copied to the raw output, a line
+ * still being written is fetched again by the next poll.
+ */
+public class JtlFollower {
+
+    private static final int            EXEC_TIMEOUT = 60000;
+
+    private final IDockerContainer      container;
+    private final String                jtlPath;
+    private final String                chunkPath;
+    private final JtlParser             parser;
+    private final OutputStream          rawOutput;
+
+    private final ByteArrayOutputStream line         = new ByteArrayOutputStream();
+    private long                        offset;
+
+    /**
+     * @param container
+     * @param jtlPath   the absolute path of the .jtl file in the container
+     * @param parser
+     * @param rawOutput where to copy the .jtl file to, closed by
+     *                  {@link #finish()}
+     */
+    public JtlFollower(IDockerContainer container, String jtlPath, JtlParser parser, OutputStream rawOutput) {
+        this.container = container;
+        this.jtlPath = jtlPath;
+        this.chunkPath = jtlPath + ".chunk";
+        this.parser = parser;
+        this.rawOutput = rawOutput;
+    }
+
+    /**
+     * Read what JMeter has added to the file since the last poll
+     */
+    public void poll() throws DockerManagerException, IOException {
+        fetch(false);
+    }
+
+    /**
+     * Read the rest of the file once JMeter has finished
+     */
+    public void finish() throws DockerManagerException, IOException {
+        try {
+            fetch(true);
+            parser.finish();
+        } finally {
+            rawOutput.close();
+        }
+        exec("rm -f '" + chunkPath + "'");
+    }
+
+    /**
+     * @return the number of bytes of the .jtl file read so far
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    private void fetch(boolean isLast) throws DockerManagerException, IOException {
+        // *** A .jtl which has not been created yet leaves an empty chunk
+        exec("tail -c +" + (offset + 1) + " '" + jtlPath + "' > '" + chunkPath + "' 2>/dev/null");
+
+        line.reset();
+        try (InputStream chunk = container.retrieveFile(chunkPath)) {
+            byte[] buffer = new byte[65536];
+            int len;
+            while ((len = chunk.read(buffer)) >= 0) {
+                int start = 0;
+                for (int i = 0; i < len; i++) {
+                    if (buffer[i] == '\n') {
+                        line.write(buffer, start, i + 1 - start);
+                        consumeLine();
+                        start = i + 1;
+                    }
+                }
+                line.write(buffer, start, len - start);
+            }
+        }
+
+        if (isLast && line.size() > 0) {
+            consumeLine();
+        }
+    }
+
+    private void consumeLine() throws IOException {
+        byte[] bytes = line.toByteArray();
+        line.reset();
+
+        rawOutput.write(bytes);
+        offset += bytes.length;
+
+        int end = bytes.length;
+        while (end > 0 && (bytes[end - 1] == '\n' || bytes[end - 1] == '\r')) {
+            end--;
+        }
+        parser.parseLine(new String(bytes, 0, end, StandardCharsets.UTF_8));
+    }
+
+    private void exec(String command) throws DockerManagerException {
+        IDockerExec exec = container.exec(EXEC_TIMEOUT, "sh", "-c", command);
+        exec.waitForExec(EXEC_TIMEOUT);
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.jmeter.internal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Parses a CSV .jtl file a line at a time into a {@link JMeterResultsImpl}, so
+ * the file never has to be held in memory.
+ *
+ * The columns are taken from the header line if there is one, otherwise the
+ * JMeter default columns are assumed. A quoted field may run over several
+ * lines, the record is parsed once its last line arrives. XML .jtl files are
+ * not supported.
+ */
+public class JtlParser {
+
+    private static final String[]     DEFAULT_COLUMNS = { "timeStamp", "elapsed", "label", "responseCode",
+            "responseMessage", "threadName", "dataType", "success", "failureMessage", "bytes", "sentBytes",
+            "grpThreads", "allThreads", "URL", "Latency", "IdleTime", "Connect" };
+
+    private final Log                 logger          = LogFactory.getLog(getClass());
+
+    private final JMeterResultsImpl   results;
+
+    private final StringBuilder       pending         = new StringBuilder();
+    private Map<String, Integer>      columns;
+    private char                      delimiter       = ',';
+    private boolean                   isUnsupported;
+    private long                      skippedRecords;
+
+    public JtlParser(JMeterResultsImpl results) {
+        this.results = results;
+    }
+
+    /**
+     * @param line a line of the file, without its line terminator
+     */
+    public void parseLine(String line) {
+        if (isUnsupported) {
+            return;
+        }
+
+        if (pending.length() > 0) {
+            pending.append('\n');
+        }
+        pending.append(line);
+
+        // *** Wait for the rest of a quoted field which runs on to the next line
+        if (!isBalanced(pending)) {
+            return;
+        }
+
+        String record = pending.toString();
+        pending.setLength(0);
+        parseRecord(record);
+    }
+
+    /**
+     * Parse anything left over at the end of the file
+     */
+    public void finish() {
+        if (pending.length() > 0) {
+            String record = pending.toString();
+            pending.setLength(0);
+            parseRecord(record);
+        }
+
+        if (skippedRecords > 0) {
+            logger.warn("Skipped " + skippedRecords + " records of the JMeter results which could not be parsed");
+        }
+    }
+
+    public long getSkippedRecords() {
+        return skippedRecords;
+    }
+
+    private void parseRecord(String record) {
+        if (record.trim().isEmpty()) {
+            return;
+        }
+
+        if (columns == null) {
+            if (record.startsWith("<")) {
+                logger.warn("The JMeter results are in XML, only CSV results can be analysed");
+                isUnsupported = true;
+                return;
+            }
+
+            // *** The header is optional, and gives the delimiter as well as the columns
+            if (record.contains("timeStamp") && record.contains("elapsed")) {
+                if (record.indexOf(',') < 0 && record.indexOf('\t') >= 0) {
+                    delimiter = '\t';
+                }
+                columns = indexColumns(split(record, delimiter).toArray(new String[0]));
+                return;
+            }
+            columns = indexColumns(DEFAULT_COLUMNS);
+        }
+
+        List<String> fields = split(record, delimiter);
+        try {
+            long timeStamp = Long.parseLong(getField(fields, "timeStamp"));
+            long elapsed = Long.parseLong(getField(fields, "elapsed"));
+            String label = getField(fields, "label");
+            boolean success = Boolean.parseBoolean(getField(fields, "success"));
+
+            Long latency = null;
+            String latencyField = getField(fields, "Latency");
+            if (latencyField != null && !latencyField.isEmpty()) {
+                latency = Long.parseLong(latencyField);
+            }
+
+            if (label == null) {
+                skippedRecords++;
+                return;
+            }
+
+            results.addSample(label, timeStamp, elapsed, latency, success);
+        } catch (NumberFormatException e) {
+            skippedRecords++;
+        }
+    }
+
+    private Map<String, Integer> indexColumns(String[] names) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            index.put(names[i].trim(), i);
+        }
+        return index;
+    }
+
+    private String getField(List<String> fields, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        return fields.get(index);
+    }
+
+    private static boolean isBalanced(CharSequence record) {
+        int quotes = 0;
+        for (int i = 0; i < record.length(); i++) {
+            if (record.charAt(i) == '"') {
+                quotes++;
+            }
+        }
+        return quotes % 2 == 0;
+    }
+
+    /**
+     * Split a record the way JMeter writes it, a field containing the delimiter,
+     * a quote or a new line being quoted with any quotes doubled
+     */
+    static List<String> split(String record, char delimiter) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (inQuotes) {
+                if (c == '"') {
+                    if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                inQuotes = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c != '\r') {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+
+        return fields;
+    }
+}
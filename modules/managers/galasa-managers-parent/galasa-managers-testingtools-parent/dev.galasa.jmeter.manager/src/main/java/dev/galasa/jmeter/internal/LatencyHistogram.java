@@ -0,0 +1,96 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.jmeter.internal;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of times in the style of HdrHistogram, so percentiles can be
+ * worked out from any number of samples in a fixed amount of memory.
+ *
+ * Times below 256ms each have their own bucket. Above that each power of two is
+ * split into 128 buckets, so a percentile is never more than 1/128 above the
+ * exact value.
+ */
+public class LatencyHistogram {
+
+    private static final int EXACT_BUCKETS     = 256;
+    private static final int SUB_BUCKET_BITS   = 7;
+    private static final int SUB_BUCKETS       = 1 << SUB_BUCKET_BITS;
+    // *** The power of two of the first value which does not have its own bucket
+    private static final int FIRST_MAGNITUDE   = 8;
+
+    private long[] counts = new long[EXACT_BUCKETS + SUB_BUCKETS];
+    private long   totalCount;
+    private long   min    = Long.MAX_VALUE;
+    private long   max    = Long.MIN_VALUE;
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+
+        int index = getIndex(value);
+        if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, index + SUB_BUCKETS);
+        }
+        counts[index]++;
+        totalCount++;
+
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * @param percentile from 0 to 100
+     * @return the highest value in the bucket holding the percentile, or 0 if
+     *         nothing has been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+
+        double clamped = Math.max(0.0, Math.min(100.0, percentile));
+        long rank = Math.max(1, (long) Math.ceil(clamped / 100.0 * totalCount));
+
+        long seen = 0;
+        for (int index = 0; index < counts.length; index++) {
+            seen += counts[index];
+            if (seen >= rank) {
+                return Math.max(min, Math.min(max, getHighestValue(index)));
+            }
+        }
+        return max;
+    }
+
+    static int getIndex(long value) {
+        if (value < EXACT_BUCKETS) {
+            return (int) value;
+        }
+
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return EXACT_BUCKETS + (magnitude - FIRST_MAGNITUDE) * SUB_BUCKETS + subBucket;
+    }
+
+    static long getHighestValue(int index) {
+        if (index < EXACT_BUCKETS) {
+            return index;
+        }
+
+        int bucket = index - EXACT_BUCKETS;
+        int magnitude = FIRST_MAGNITUDE + bucket / SUB_BUCKETS;
+        int shift = magnitude - SUB_BUCKET_BITS;
+        long subBucket = SUB_BUCKETS + (bucket % SUB_BUCKETS);
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
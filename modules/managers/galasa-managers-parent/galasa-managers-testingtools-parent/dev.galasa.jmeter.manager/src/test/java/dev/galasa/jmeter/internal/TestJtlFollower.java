@@ -0,0 +1,85 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.jmeter.internal;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import dev.galasa.docker.IDockerContainer;
+import dev.galasa.docker.IDockerExec;
+
+public class TestJtlFollower {
+
+    private static final String JTL_PATH = "/jmeter/test.jtl";
+
+    /**
+     * A container whose .jtl file grows between polls, answering the tail
+     * command from the offset it is given
+     */
+    private IDockerContainer mockContainer(StringBuilder jtl, List<String> commands) throws Exception {
+        IDockerContainer container = mock(IDockerContainer.class);
+        IDockerExec exec = mock(IDockerExec.class);
+        String[] chunk = new String[1];
+
+        when(container.exec(anyInt(), eq("sh"), eq("-c"), anyString())).thenAnswer(invocation -> {
+            String command = (String) invocation.getArguments()[3];
+            commands.add(command);
+            if (command.startsWith("tail -c +")) {
+                int offset = Integer.parseInt(command.substring(9, command.indexOf(' ', 9))) - 1;
+                chunk[0] = jtl.substring(offset);
+            }
+            return exec;
+        });
+        when(container.retrieveFile(JTL_PATH + ".chunk"))
+            .thenAnswer(invocation -> new ByteArrayInputStream(chunk[0].getBytes(StandardCharsets.UTF_8)));
+
+        return container;
+    }
+
+    @Test
+    public void testFollowsTheFileAsItGrows() throws Exception {
+        // Given...
+        StringBuilder jtl = new StringBuilder();
+        List<String> commands = new ArrayList<>();
+        IDockerContainer container = mockContainer(jtl, commands);
+
+        JMeterResultsImpl results = new JMeterResultsImpl();
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        JtlFollower follower = new JtlFollower(container, JTL_PATH, new JtlParser(results), raw);
+
+        // When...
+        follower.poll();
+        jtl.append("timeStamp,elapsed,label,success\n1000,100,Login,true\n1100,1");
+        follower.poll();
+        long offsetAfterPartialLine = follower.getOffset();
+        long samplesAfterPartialLine = results.getTotal().getSamples();
+
+        jtl.append("50,Login,false\n1200,20,Logout,true");
+        follower.finish();
+
+        // Then...
+        assertThat(samplesAfterPartialLine).isEqualTo(1);
+        assertThat(offsetAfterPartialLine).isEqualTo("timeStamp,elapsed,label,success\n1000,100,Login,true\n".length());
+
+        assertThat(results.getStatistics("Login").getSamples()).isEqualTo(2);
+        assertThat(results.getStatistics("Login").getErrors()).isEqualTo(1);
+        assertThat(results.getStatistics("Logout").getSamples()).isEqualTo(1);
+
+        assertThat(raw.toString(StandardCharsets.UTF_8.name())).isEqualTo(jtl.toString());
+        assertThat(commands).contains("tail -c +1 '/jmeter/test.jtl' > '/jmeter/test.jtl.chunk' 2>/dev/null");
+        assertThat(commands).last().isEqualTo("rm -f '/jmeter/test.jtl.chunk'");
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright contributors to the Galasa project
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package dev.galasa.jmeter.internal;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.Test;
+
+import dev.galasa.jmeter.IJMeterStatistics;
+
+public class TestJtlParser {
+
+    private static final String HEADER = "timeStamp,elapsed,label,responseCode,responseMessage,threadName,dataType,success,failureMessage,bytes,sentBytes,grpThreads,allThreads,URL,Latency,IdleTime,Connect";
+
+    private String sample(long timeStamp, long elapsed, String label, boolean success, long latency) {
+        return timeStamp + "," + elapsed + "," + label + ",200,OK,Thread Group 1-1,text," + success
+                + ",,1234,120,1,1,https://galasa.dev/," + latency + ",0,3";
+    }
+
+    @Test
+    public void testAggregatesSamplesPerLabel() {
+        // Given...
+        JMeterResultsImpl results = new JMeterResultsImpl();
+        JtlParser parser = new JtlParser(results);
+
+        // When...
+        parser.parseLine(HEADER);
+        parser.parseLine(sample(1000, 100, "Login", true, 40));
+        parser.parseLine(sample(1500, 300, "Login", false, 80));
+        parser.parseLine(sample(2000, 200, "Login", true, 60));
+        parser.parseLine(sample(2500, 50, "Logout", true, 10));
+        parser.finish();
+
+        // Then...
+        assertThat(results.getLabels()).containsExactly("Login", "Logout");
+
+        IJMeterStatistics login = results.getStatistics("Login");
+        assertThat(login.getSamples()).isEqualTo(3);
+        assertThat(login.getErrors()).isEqualTo(1);
+        assertThat(login.getErrorRate()).isCloseTo(1.0 / 3, within(0.0001));
+        assertThat(login.getMinElapsed()).isEqualTo(100);
+        assertThat(login.getMaxElapsed()).isEqualTo(300);
+        assertThat(login.getMeanElapsed()).isEqualTo(200.0);
+        assertThat(login.getElapsedPercentile(50)).isEqualTo(200);
+        assertThat(login.getLatencyPercentile(100)).isEqualTo(80);
+        // 3 samples from 1000 to 2200
+        assertThat(login.getThroughput()).isCloseTo(2.5, within(0.0001));
+
+        assertThat(results.getTotal().getSamples()).isEqualTo(4);
+        assertThat(results.getStatistics("Unknown")).isNull();
+        assertThat(parser.getSkippedRecords()).isZero();
+    }
+
+    @Test
+    public void testQuotedFieldsMayContainDelimitersAndNewLines() {
+        // Given...
+        JMeterResultsImpl results = new JMeterResultsImpl();
+        JtlParser parser = new JtlParser(results);
+
+        // When...
+        parser.parseLine(HEADER);
+        parser.parseLine("1000,100,\"Search, \"\"quoted\"\"\",500,\"Server");
+        parser.parseLine("error\",Thread Group 1-1,text,false,,1234,120,1,1,https://galasa.dev/,40,0,3");
+        parser.finish();
+
+        // Then...
+        assertThat(results.getLabels()).containsExactly("Search, \"quoted\"");
+        assertThat(results.getStatistics("Search, \"quoted\"").getErrors()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDefaultColumnsAreUsedWithoutAHeader() {
+        // Given...
+        JMeterResultsImpl results = new JMeterResultsImpl();
+        JtlParser parser = new JtlParser(results);
+
+        // When...
+        parser.parseLine(sample(1000, 100, "Login", true, 40));
+        parser.parseLine("not,a,sample");
+        parser.finish();
+
+        // Then...
+        assertThat(results.getStatistics("Login").getSamples()).isEqualTo(1);
+        assertThat(parser.getSkippedRecords()).isEqualTo(1);
+    }
+
+    @Test
+    public void testXmlResultsAreIgnored() {
+        // Given...
+        JMeterResultsImpl results = new JMeterResultsImpl();
+        JtlParser parser = new JtlParser(results);
+
+        // When...
+        parser.parseLine("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+        parser.parseLine("<testResults version=\"1.2\">");
+        parser.finish();
+
+        // Then...
+        assertThat(results.getLabels()).isEmpty();
+        assertThat(results.getTotal().getSamples()).isZero();
+    }
+
+    @Test
+    public void testPercentilesAreWithinOnePercent() {
+        // Given...
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // When...
+        for (long value = 1; value <= 100000; value++) {
+            histogram.record(value);
+        }
+
+        // Then...
+        assertThat(histogram.getTotalCount()).isEqualTo(100000);
+        assertThat(histogram.getValueAtPercentile(0)).isEqualTo(1);
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(100000);
+        for (double percentile : new double[] { 10, 50, 90, 95, 99, 99.9 }) {
+            long exact = (long) Math.ceil(percentile * 1000);
+            assertThat(histogram.getValueAtPercentile(percentile))
+                .isGreaterThanOrEqualTo(exact)
+                .isLessThanOrEqualTo((long) (exact * 1.01));
+        }
+    }
+
+    @Test
+    public void testEveryValueFallsInsideItsBucket() {
+        for (long value : new long[] { 0, 1, 255, 256, 257, 511, 512, 1000, 65535, 65536, 3600000, Long.MAX_VALUE / 2 }) {
+            int index = LatencyHistogram.getIndex(value);
+            assertThat(LatencyHistogram.getHighestValue(index)).isGreaterThanOrEqualTo(value);
+            if (index > 0) {
+                assertThat(LatencyHistogram.getHighestValue(index - 1)).isLessThan(value);
+            }
+        }
+    }
+}
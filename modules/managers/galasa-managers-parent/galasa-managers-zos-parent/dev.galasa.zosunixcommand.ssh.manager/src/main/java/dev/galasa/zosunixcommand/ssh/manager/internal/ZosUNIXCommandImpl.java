@@ -59,7 +59,12 @@ public class ZosUNIXCommandImpl implements IZosUNIXCommand {
         String commandResponse;
         try {
             logger.debug("About to issue command :" + command);
-            commandResponse = getCommandShell(credentials).issueCommand(command);
+            ICommandShell commandShell = getCommandShell(credentials);
+            try {
+                commandResponse = commandShell.issueCommand(command);
+            } finally {
+                disconnect(commandShell);
+            }
             logger.debug("response :" + commandResponse);
         } catch (IpNetworkManagerException e) {
         	throw new ZosUNIXCommandException(UNABLE_TO_ISSUE_ZOS_UNIX_COMMAND, e);
@@ -72,7 +77,12 @@ public class ZosUNIXCommandImpl implements IZosUNIXCommand {
 	    String commandResponse;
 	    try {
 	        logger.debug("About to issue command :" + command);
-	        commandResponse = getCommandShell(credentials).issueCommand(command, timeout);
+	        ICommandShell commandShell = getCommandShell(credentials);
+	        try {
+	            commandResponse = commandShell.issueCommand(command, timeout);
+	        } finally {
+	            disconnect(commandShell);
+	        }
 	        logger.debug("response :" + commandResponse);
         } catch (IpNetworkManagerException e) {
         	throw new ZosUNIXCommandException(UNABLE_TO_ISSUE_ZOS_UNIX_COMMAND, e);
@@ -105,6 +115,18 @@ public class ZosUNIXCommandImpl implements IZosUNIXCommand {
 		return commandShell;
 	}
 
+	/**
+	 * Each command has its own shell, so disconnect it once the command has ended, which frees
+	 * the ssh session once no other shell to the host is using it
+	 */
+	protected void disconnect(ICommandShell commandShell) {
+	    try {
+	        commandShell.disconnect();
+	    } catch (IpNetworkManagerException e) {
+	        logger.warn("Unable to disconnect the ssh shell to image " + image.getImageID(), e);
+	    }
+	}
+
 	protected String logAuthFail(ICredentials credentials) {
 		String authFail = " - authentication failed";
 		String username = null;